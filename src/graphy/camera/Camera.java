@@ -12,6 +12,7 @@ import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -21,6 +22,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import graphy.main.Environment;
 import graphy.math.Delta;
@@ -67,6 +69,15 @@ public class Camera {
         }
     }
     
+    /**
+     * An enumeration of camera projection modes.
+     */
+    public enum ProjectionMode {
+        AUTO,
+        PERSPECTIVE,
+        ORTHOGRAPHIC
+    }
+    
     
     //Static Fields
     
@@ -120,6 +131,11 @@ public class Camera {
      */
     private static AtomicBoolean hasSetupStaticKeyListener = new AtomicBoolean(false);
     
+    /**
+     * The counter used to version Camera calculations.
+     */
+    private static final AtomicLong nextVersion = new AtomicLong(0);
+    
     
     //Fields
     
@@ -193,6 +209,17 @@ public class Camera {
      */
     private Perspective perspective = Perspective.THIRD_PERSON;
     
+    /**
+     * The projection mode of the Camera.
+     */
+    private ProjectionMode projectionMode = ProjectionMode.PERSPECTIVE;
+    
+    /**
+     * The orthographic transformation from prepared Vectors to screen coordinates, or null if the orthographic fast path is not active.<br>
+     * The transformation is stored as {xx, xy, x0, yx, yy, y0}, so that x' = xx*x + xy*y + x0 and y' = yx*x + yy*y + y0.
+     */
+    private double[] orthographicTransform = null;
+    
     /**
      * The angle of view of the Camera.
      */
@@ -253,6 +280,11 @@ public class Camera {
      */
     private boolean updateRequired = true;
     
+    /**
+     * The version of the Camera, which is unique across Cameras and changes every time the Camera is recalculated.
+     */
+    private volatile long version = 0;
+    
     /**
      * Whether to verify the viewport dimensions or not.
      */
@@ -396,6 +428,10 @@ public class Camera {
             e = new Vector(n.getX(), n.getY(), n.getZ()).scale(1.0 / d);
             
             
+            //calculate orthographic screen transformation
+            orthographicTransform = isOrthographic() ? calculateOrthographicTransform(cameraOrigin) : null;
+            
+            
             //draw local coordinate system normals
             cameraObject.screenNormal.setPoints(c.justify(), c.plus(n.scale(viewportX * 2 / 3)).justify());
             cameraObject.screenXNormal.setPoints(c.justify(), c.plus(lx.scale(viewportX * 2 / 3)).justify());
@@ -420,6 +456,7 @@ public class Camera {
             
             
             //update has been performed
+            version = nextVersion.incrementAndGet();
             updateRequired = false;
             inUpdate.set(false);
         }
@@ -476,6 +513,126 @@ public class Camera {
         return new Vector(m, n, 0);
     }
     
+    /**
+     * Calculates the planes bounding the volume of prepared space that can be rendered by the Camera.<br>
+     * A point v is inside a plane {a, b, c, d} when a*v.x + b*v.y + c*v.z + d is at least zero, and a prepared Vector can only be in view when it is inside every plane.
+     *
+     * @return The planes bounding the view of the Camera, as {a, b, c, d}, or null if the Camera has not been calculated.
+     */
+    public double[][] calculateFrustumPlanes() {
+        if ((c == null) || (m == null)) {
+            return null;
+        }
+        
+        //a Vector is only rendered if it is nearer the Screen than the Camera
+        Vector cn = m.minus(c);
+        double[] near = {cn.getX(), cn.getY(), cn.getZ(), -(m.dot(m) - c.dot(c)) / 2};
+        
+        //orthographic screen coordinates are affine in x and y
+        double[] t = orthographicTransform;
+        if (t != null) {
+            return new double[][] {
+                    near,
+                    {t[0], t[1], 0, t[2]},
+                    {-t[0], -t[1], 0, Environment.sceneX - t[2]},
+                    {t[3], t[4], 0, t[5]},
+                    {-t[3], -t[4], 0, Environment.sceneY - t[5]}
+            };
+        }
+        
+        //perspective sides pass through the Camera and each edge of the Screen
+        Vector[] corners = {s1, s2, s3, s4};
+        double[][] planes = new double[5][];
+        planes[0] = near;
+        for (int i = 0; i < corners.length; i++) {
+            Vector normal = new Vector3(corners[i].minus(c)).cross(corners[(i + 1) % corners.length].minus(c));
+            if (normal.dot(m.minus(c)) < 0) {
+                normal = normal.scale(-1);
+            }
+            planes[i + 1] = new double[] {normal.getX(), normal.getY(), normal.getZ(), -normal.dot(c)};
+        }
+        return planes;
+    }
+    
+    /**
+     * Calculates the ray in prepared space that is rendered at a point on the screen.
+     *
+     * @param x The x coordinate on the screen.
+     * @param y The y coordinate on the screen.
+     * @return The ray, as {origin, direction}, or null if the Camera has not been calculated.
+     */
+    public Vector[] calculateRay(double x, double y) {
+        if ((c == null) || (m == null)) {
+            return null;
+        }
+        
+        //orthographic rays are parallel, through the point that maps to the screen coordinates
+        double[] t = orthographicTransform;
+        if (t != null) {
+            double determinant = (t[0] * t[4]) - (t[1] * t[3]);
+            if (Math.abs(determinant) < Environment.OMEGA) {
+                return null;
+            }
+            double px = ((t[4] * (x - t[2])) - (t[1] * (y - t[5]))) / determinant;
+            double py = ((t[0] * (y - t[5])) - (t[3] * (x - t[2]))) / determinant;
+            return new Vector[] {new Vector(px, py, c.getZ()), new Vector(0, 0, (n.getZ() < 0) ? 1 : -1)};
+        }
+        
+        //perspective rays pass from the Camera through the point on the Screen
+        Vector point = s1.plus(s2.minus(s1).scale(x / Environment.sceneX)).plus(s4.minus(s1).scale(y / Environment.sceneY));
+        return new Vector[] {c.clone(), point.minus(c)};
+    }
+    
+    /**
+     * Determines whether the Camera should use the orthographic fast path.<br>
+     * The Camera uses the perspective projection unless a scene opts in, and in automatic mode the orthographic fast path is used when the Camera looks straight down in third person.
+     *
+     * @return Whether the Camera should use the orthographic fast path or not.
+     */
+    private boolean isOrthographic() {
+        switch (projectionMode) {
+            case ORTHOGRAPHIC:
+                return true;
+            case PERSPECTIVE:
+                return false;
+            default:
+                return (perspective == Perspective.THIRD_PERSON) && ((Math.PI - phi) <= (phiBoundary + Environment.OMEGA));
+        }
+    }
+    
+    /**
+     * Calculates the orthographic transformation from prepared Vectors to screen coordinates.<br>
+     * Three reference points on the plane of the camera origin are taken through the full projection, so the transformation matches the perspective projection on that plane.
+     *
+     * @param cameraOrigin The justified origin of the Camera.
+     * @return The orthographic transformation, as {xx, xy, x0, yx, yy, y0}.
+     */
+    private double[] calculateOrthographicTransform(Vector cameraOrigin) {
+        double scaleX = Environment.sceneX / viewportX;
+        double scaleY = Environment.sceneY / viewportY;
+        
+        Vector o = collapseVector(projectVector(cameraOrigin));
+        Vector ox = collapseVector(projectVector(cameraOrigin.plus(new Vector(1, 0, 0))));
+        Vector oy = collapseVector(projectVector(cameraOrigin.plus(new Vector(0, 1, 0))));
+        
+        double xx = (ox.getX() - o.getX()) * scaleX;
+        double xy = (oy.getX() - o.getX()) * scaleX;
+        double yx = (ox.getY() - o.getY()) * scaleY;
+        double yy = (oy.getY() - o.getY()) * scaleY;
+        
+        //snap to an axis aligned transformation
+        if (Math.abs(xy) < Environment.OMEGA && Math.abs(yx) < Environment.OMEGA) {
+            xy = 0;
+            yx = 0;
+        }
+        
+        //snap the translation to whole pixels, so panning shifts screen coordinates by whole pixels and cached rasters stay exact
+        return new double[] {
+                xx, xy, Math.rint((o.getX() * scaleX) - (xx * cameraOrigin.getX()) - (xy * cameraOrigin.getY())),
+                yx, yy, Math.rint((o.getY() * scaleY) - (yx * cameraOrigin.getX()) - (yy * cameraOrigin.getY()))
+        };
+    }
+    
     /**
      * Sets this Camera as the active camera.
      */
@@ -770,6 +927,15 @@ public class Camera {
     
     //Getters
     
+    /**
+     * Returns the version of the Camera, which is unique across Cameras and changes every time the Camera is recalculated.
+     *
+     * @return The version of the Camera.
+     */
+    public long getVersion() {
+        return version;
+    }
+    
     /**
      * Returns the Camera position.
      *
@@ -797,6 +963,15 @@ public class Camera {
         return perspective;
     }
     
+    /**
+     * Returns the projection mode of the Camera.
+     *
+     * @return The projection mode of the Camera.
+     */
+    public ProjectionMode getProjectionMode() {
+        return projectionMode;
+    }
+    
     /**
      * Returns the angle of view of the Camera.
      *
@@ -955,6 +1130,17 @@ public class Camera {
         updateRequired = true;
     }
     
+    /**
+     * Sets the projection mode of the Camera.
+     *
+     * @param projectionMode The projection mode of the Camera.
+     */
+    public void setProjectionMode(ProjectionMode projectionMode) {
+        this.projectionMode = projectionMode;
+        
+        updateRequired = true;
+    }
+    
     /**
      * Sets the angle of view of the Camera.
      *
@@ -999,6 +1185,33 @@ public class Camera {
         }
     }
     
+    /**
+     * Calculates the inverse view depths of prepared Vectors from the active Camera view.<br>
+     * The inverse depth is 1/d, where d is the distance of the Vector in front of the Camera along its normal, so nearer Vectors have larger values.
+     *
+     * @param vs     The list of prepared Vectors, before they are projected.
+     * @param depths The array to store the inverse depths in, reused if it is the right size.
+     * @return The inverse view depths of the Vectors.
+     */
+    public static float[] calculateInverseDepths(List<Vector> vs, float[] depths) {
+        if ((depths == null) || (depths.length != vs.size())) {
+            depths = new float[vs.size()];
+        }
+        if (activeView == null) {
+            Arrays.fill(depths, 1.0f);
+            return depths;
+        }
+        
+        Vector cc = activeView.c;
+        Vector cn = activeView.n;
+        for (int i = 0; i < vs.size(); i++) {
+            Vector v = vs.get(i);
+            double depth = ((cc.getX() - v.getX()) * cn.getX()) + ((cc.getY() - v.getY()) * cn.getY()) + ((cc.getZ() - v.getZ()) * cn.getZ());
+            depths[i] = (float) (1.0 / Math.max(depth, Environment.OMEGA));
+        }
+        return depths;
+    }
+    
     /**
      * Determines if any Vectors are behind the Screen.
      *
@@ -1026,6 +1239,37 @@ public class Camera {
         return behind;
     }
     
+    /**
+     * Determines if any prepared Vectors are behind the Screen.<br>
+     * Prepared Vectors are already justified, so they are compared directly against the Camera.
+     *
+     * @param vs The list of prepared Vectors.
+     * @return Whether any of the prepared Vectors are behind the Screen or not.
+     */
+    public static boolean hasVectorBehindScreen(List<Vector> vs) {
+        if (activeView == null) {
+            return false;
+        }
+        Vector cm = activeView.m;
+        Vector cc = activeView.c;
+        
+        //a Vector is at least as close to the Camera as to the Screen when (v dot (m - c)) <= (|m|^2 - |c|^2) / 2
+        double nx = cm.getX() - cc.getX();
+        double ny = cm.getY() - cc.getY();
+        double nz = cm.getZ() - cc.getZ();
+        double threshold = (cm.dot(cm) - cc.dot(cc)) / 2;
+        
+        //ensure Vectors are not behind Camera
+        boolean behind = false;
+        for (Vector v : vs) {
+            if ((v.getX() * nx) + (v.getY() * ny) + (v.getZ() * nz) <= threshold) {
+                behind = true;
+                break;
+            }
+        }
+        return behind;
+    }
+    
     /**
      * Determines if any Vectors are visible on the Screen.
      *
@@ -1063,6 +1307,170 @@ public class Camera {
         }
     }
     
+    /**
+     * Determines whether the active Camera view is using the orthographic fast path.
+     *
+     * @return Whether the active Camera view is using the orthographic fast path or not.
+     */
+    public static boolean hasOrthographicView() {
+        return (activeView != null) && (activeView.orthographicTransform != null);
+    }
+    
+    /**
+     * Returns the orthographic transformation of the active Camera view.
+     *
+     * @return The orthographic transformation of the active Camera view, as {xx, xy, x, yx, yy, y}, or null if it is not using the orthographic fast path.
+     */
+    public static double[] getActiveOrthographicTransform() {
+        double[] t = (activeView == null) ? null : activeView.orthographicTransform;
+        return (t == null) ? null : t.clone();
+    }
+    
+    /**
+     * Projects prepared Vectors directly to the screen with the orthographic transformation of the active Camera view.<br>
+     * This replaces projecting, collapsing and scaling the Vectors, and costs two multiply-adds per Vector for an axis aligned view.
+     *
+     * @param vs The list of prepared Vectors to project.
+     * @return Whether any of the Vectors are visible on the Screen or not.
+     */
+    public static boolean projectVectorsToScreenOrthographic(List<Vector> vs) {
+        double[] t = (activeView == null) ? null : activeView.orthographicTransform;
+        if (t == null) {
+            return false;
+        }
+        
+        boolean inView = false;
+        if ((t[1] == 0) && (t[3] == 0)) {
+            for (int i = 0; i < vs.size(); i++) {
+                Vector v = vs.get(i);
+                double x = (t[0] * v.getX()) + t[2];
+                double y = (t[4] * v.getY()) + t[5];
+                inView |= (x >= 0) && (x < Environment.sceneX) && (y >= 0) && (y < Environment.sceneY);
+                vs.set(i, new Vector(Math.round(x), Math.round(y), 0));
+            }
+        } else {
+            for (int i = 0; i < vs.size(); i++) {
+                Vector v = vs.get(i);
+                double x = (t[0] * v.getX()) + (t[1] * v.getY()) + t[2];
+                double y = (t[3] * v.getX()) + (t[4] * v.getY()) + t[5];
+                inView |= (x >= 0) && (x < Environment.sceneX) && (y >= 0) && (y < Environment.sceneY);
+                vs.set(i, new Vector(Math.round(x), Math.round(y), 0));
+            }
+        }
+        return inView;
+    }
+    
+    /**
+     * Determines if any packed prepared coordinates are behind the Screen.
+     *
+     * @param xyz   The packed prepared coordinates, as x, y and z triples.
+     * @param count The number of coordinate triples.
+     * @return Whether any of the coordinates are behind the Screen or not.
+     */
+    public static boolean hasCoordinateBehindScreen(double[] xyz, int count) {
+        if (activeView == null) {
+            return false;
+        }
+        Vector cm = activeView.m;
+        Vector cc = activeView.c;
+        
+        double nx = cm.getX() - cc.getX();
+        double ny = cm.getY() - cc.getY();
+        double nz = cm.getZ() - cc.getZ();
+        double threshold = (cm.dot(cm) - cc.dot(cc)) / 2;
+        
+        for (int i = 0; i < count * 3; i += 3) {
+            if ((xyz[i] * nx) + (xyz[i + 1] * ny) + (xyz[i + 2] * nz) <= threshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Calculates the inverse view depths of packed prepared coordinates from the active Camera view.
+     *
+     * @param xyz    The packed prepared coordinates, as x, y and z triples, before they are projected.
+     * @param count  The number of coordinate triples.
+     * @param depths The array to store the inverse depths in.
+     * @param index  The index in the array to store the first inverse depth at.
+     */
+    public static void calculateInverseDepths(double[] xyz, int count, float[] depths, int index) {
+        if (activeView == null) {
+            Arrays.fill(depths, index, index + count, 1.0f);
+            return;
+        }
+        
+        Vector cc = activeView.c;
+        Vector cn = activeView.n;
+        for (int i = 0; i < count; i++) {
+            double depth = ((cc.getX() - xyz[i * 3]) * cn.getX()) + ((cc.getY() - xyz[i * 3 + 1]) * cn.getY()) + ((cc.getZ() - xyz[i * 3 + 2]) * cn.getZ());
+            depths[index + i] = (float) (1.0 / Math.max(depth, Environment.OMEGA));
+        }
+    }
+    
+    /**
+     * Projects packed prepared coordinates to the screen with the active Camera view, without creating Vectors.<br>
+     * This is equivalent to projecting, collapsing and scaling Vectors, or to the orthographic transformation when the fast path is active.
+     *
+     * @param xyz   The packed prepared coordinates, as x, y and z triples.
+     * @param count The number of coordinate triples.
+     * @param xs    The array to store the screen x coordinates in.
+     * @param ys    The array to store the screen y coordinates in.
+     * @param index The index in the arrays to store the first screen coordinates at.
+     * @return Whether any of the coordinates are visible on the Screen or not.
+     */
+    public static boolean projectCoordinatesToScreen(double[] xyz, int count, int[] xs, int[] ys, int index) {
+        if (activeView == null) {
+            return false;
+        }
+        
+        boolean inView = false;
+        double[] t = activeView.orthographicTransform;
+        if (t != null) {
+            for (int i = 0; i < count; i++) {
+                double x = (t[0] * xyz[i * 3]) + (t[1] * xyz[i * 3 + 1]) + t[2];
+                double y = (t[3] * xyz[i * 3]) + (t[4] * xyz[i * 3 + 1]) + t[5];
+                inView |= (x >= 0) && (x < Environment.sceneX) && (y >= 0) && (y < Environment.sceneY);
+                xs[index + i] = (int) Math.round(x);
+                ys[index + i] = (int) Math.round(y);
+            }
+            return inView;
+        }
+        
+        Vector cc = activeView.c;
+        Vector ce = activeView.e;
+        Vector s1 = activeView.s1;
+        Vector s1s2 = activeView.s2.minus(s1);
+        Vector s1s4 = activeView.s4.minus(s1);
+        double w = s1s2.hypotenuse();
+        double h = s1s4.hypotenuse();
+        double scaleX = Environment.sceneX / viewportX;
+        double scaleY = Environment.sceneY / viewportY;
+        for (int i = 0; i < count; i++) {
+            double vx = xyz[i * 3];
+            double vy = xyz[i * 3 + 1];
+            double vz = xyz[i * 3 + 2];
+            
+            //project onto the plane of the Screen
+            double kx = cc.getX() - vx;
+            double ky = cc.getY() - vy;
+            double kz = cc.getZ() - vz;
+            double k = (1 - ((ce.getX() * vx) + (ce.getY() * vy) + (ce.getZ() * vz))) / ((ce.getX() * kx) + (ce.getY() * ky) + (ce.getZ() * kz));
+            double px = (kx * k) + vx - s1.getX();
+            double py = (ky * k) + vy - s1.getY();
+            double pz = (kz * k) + vz - s1.getZ();
+            
+            //collapse onto the viewport
+            double x = ((s1s2.getX() * px) + (s1s2.getY() * py) + (s1s2.getZ() * pz)) / w;
+            double y = ((s1s4.getX() * px) + (s1s4.getY() * py) + (s1s4.getZ() * pz)) / h;
+            inView |= (x >= 0) && (x < viewportX) && (y >= 0) && (y < viewportY);
+            xs[index + i] = (int) Math.round(x * scaleX);
+            ys[index + i] = (int) Math.round(y * scaleY);
+        }
+        return inView;
+    }
+    
     /**
      * Returns the active Camera for viewing.
      *
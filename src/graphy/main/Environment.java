@@ -11,8 +11,11 @@ import java.awt.Dimension;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.GridBagLayout;
+import java.awt.RenderingHints;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
 import java.util.List;
@@ -29,6 +32,13 @@ import graphy.objects.base.AbstractObject;
 import graphy.objects.base.BaseObject;
 import graphy.objects.base.ObjectInterface;
 import graphy.objects.base.Scene;
+import graphy.rendering.BoundingVolumeHierarchy;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.PickBuffer;
+import graphy.rendering.Prefetcher;
+import graphy.rendering.QualityGovernor;
+import graphy.rendering.Rasterizer;
+import graphy.rendering.TileRenderer;
 import graphy.utility.ScreenUtility;
 
 /**
@@ -79,6 +89,18 @@ public class Environment {
     public static final double OMEGA = 0.0000001;
     
     
+    //Enums
+    
+    /**
+     * An enumeration of render modes.
+     */
+    public enum RenderMode {
+        JAVA2D,
+        SOFTWARE,
+        Z_BUFFER
+    }
+    
+    
     //Static Fields
     
     /**
@@ -144,6 +166,111 @@ public class Environment {
      */
     public Color background = Color.WHITE;
     
+    /**
+     * The render mode of the Environment.
+     */
+    public RenderMode renderMode = RenderMode.JAVA2D;
+    
+    /**
+     * A flag indicating whether or not the software render modes should rasterize screen tiles in parallel.
+     */
+    public boolean tiledRendering = false;
+    
+    /**
+     * A flag indicating whether or not an id buffer should be maintained for picking BaseObjects from the screen.
+     */
+    public boolean pickingEnabled = false;
+    
+    /**
+     * A flag indicating whether or not Objects outside the view of the Camera should be culled with a bounding volume hierarchy before they are prepared.
+     */
+    public boolean boundingVolumeCulling = false;
+    
+    /**
+     * A flag indicating whether or not the software render mode should build the cached rasters of the region about to come into view on a background thread.
+     */
+    public boolean prefetching = false;
+    
+    /**
+     * A flag indicating whether or not the Java2D render mode should batch consecutive primitives with the same state into single draw calls.
+     */
+    public boolean drawBatching = false;
+    
+    /**
+     * A flag indicating whether or not the frame rate and render quality should be lowered while the user is interacting, when frames exceed their budget.
+     */
+    public boolean adaptiveQuality = false;
+    
+    /**
+     * A flag indicating whether or not the software render modes should only re-render the dirty region of the screen when neither the Camera nor the Scene has changed.
+     */
+    public boolean partialRepaint = false;
+    
+    /**
+     * The back buffer for the software render mode.
+     */
+    private BufferedImage backBuffer = null;
+    
+    /**
+     * The software Rasterizer drawing into the back buffer.
+     */
+    private Rasterizer rasterizer = null;
+    
+    /**
+     * The Tile Renderer rasterizing into the back buffer in parallel.
+     */
+    private TileRenderer tileRenderer = null;
+    
+    /**
+     * The id buffer for picking BaseObjects from the screen.
+     */
+    private PickBuffer pickBuffer = null;
+    
+    /**
+     * The Prefetcher building the cached rasters of the region about to come into view.
+     */
+    private Prefetcher prefetcher = null;
+    
+    /**
+     * The number of draw calls that were saved by batching in the last frame rendered in the Java2D render mode.
+     */
+    private int savedDrawCalls = 0;
+    
+    /**
+     * The Quality Governor lowering the frame rate and render quality while the user is interacting.
+     */
+    private QualityGovernor qualityGovernor = null;
+    
+    /**
+     * The bounding volume hierarchy over the Objects of the Environment.
+     */
+    private BoundingVolumeHierarchy boundingVolumeHierarchy = null;
+    
+    /**
+     * The region of the screen that needs to be re-rendered, or null if there is none.
+     */
+    private Rectangle dirtyRegion = null;
+    
+    /**
+     * Whether the whole screen needs to be re-rendered.
+     */
+    private volatile boolean fullRepaintRequested = true;
+    
+    /**
+     * The prepared BaseObjects of the last full frame, in render order.
+     */
+    private List<BaseObject> paintedBases = null;
+    
+    /**
+     * The version of the Camera at the last full frame.
+     */
+    private volatile long paintedCameraVersion = -1;
+    
+    /**
+     * The version of the Scene at the last full frame.
+     */
+    private volatile long paintedSceneVersion = -1;
+    
     /**
      * Whether the main KeyListener has been set up or not.
      */
@@ -182,25 +309,91 @@ public class Environment {
                 }
                 
                 synchronized (camera.inUpdate) {
+                    long cameraVersion = camera.getVersion();
+                    long sceneVersion = AbstractObject.getSceneVersion();
+                    QualityGovernor governor = adaptiveQuality ? qualityGovernor : null;
+                    if (governor != null) {
+                        governor.beginFrame(cameraVersion, fps);
+                    }
+                    
+                    if (partialRepaint && renderPartial((Graphics2D) g, cameraVersion, sceneVersion)) {
+                        if (governor != null) {
+                            governor.endFrame();
+                        }
+                        return;
+                    }
+                    
                     List<BaseObject> preparedBases = new ArrayList<>();
                     try {
-                        for (ObjectInterface object : objects) {
+                        List<ObjectInterface> preparedObjects = objects;
+                        if (boundingVolumeCulling) {
+                            updateBoundingVolumeHierarchy();
+                            preparedObjects = boundingVolumeHierarchy.cull(camera.calculateFrustumPlanes(), camera.getCameraPosition());
+                        }
+                        
+                        for (ObjectInterface object : preparedObjects) {
                             preparedBases.addAll(object.doPrepare());
                         }
                     } catch (ConcurrentModificationException ignored) {
                         return;
                     }
                     
-                    preparedBases.sort((o1, o2) -> Double.compare(o2.getRenderDistance(), o1.getRenderDistance()));
+                    if (renderMode != RenderMode.Z_BUFFER) {
+                        preparedBases.sort((o1, o2) -> Double.compare(o2.getRenderDistance(), o1.getRenderDistance()));
+                    }
                     
                     Graphics2D g2 = (Graphics2D) g;
-                    if (background != null) {
-                        g2.setColor(background);
-                        g2.fillRect(0, 0, getWidth(), getHeight());
+                    if (!QualityGovernor.isFullQuality()) {
+                        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+                        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+                        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
+                    }
+                    
+                    if (renderMode != RenderMode.JAVA2D) {
+                        renderSoftware(g2, preparedBases, getWidth(), getHeight());
+                        
+                    } else {
+                        if (background != null) {
+                            g2.setColor(background);
+                            g2.fillRect(0, 0, getWidth(), getHeight());
+                        }
+                        
+                        if (drawBatching) {
+                            DrawBatcher batcher = new DrawBatcher(g2);
+                            for (BaseObject preparedBase : preparedBases) {
+                                preparedBase.doRender(batcher);
+                            }
+                            batcher.flush();
+                            savedDrawCalls = batcher.getSavedDrawCalls();
+                            
+                        } else {
+                            for (BaseObject preparedBase : preparedBases) {
+                                preparedBase.doRender(g2);
+                            }
+                            savedDrawCalls = 0;
+                        }
                     }
                     
-                    for (BaseObject preparedBase : preparedBases) {
-                        preparedBase.doRender(g2);
+                    if (pickingEnabled) {
+                        if (pickBuffer == null) {
+                            pickBuffer = new PickBuffer();
+                        }
+                        pickBuffer.setFrame(preparedBases, cameraVersion, sceneVersion, getWidth(), getHeight(), (renderMode == RenderMode.Z_BUFFER));
+                    }
+                    
+                    if (prefetching && (renderMode == RenderMode.SOFTWARE)) {
+                        if (prefetcher == null) {
+                            prefetcher = new Prefetcher();
+                        }
+                        prefetcher.update(preparedBases, getWidth(), getHeight());
+                    }
+                    
+                    paintedBases = preparedBases;
+                    paintedCameraVersion = cameraVersion;
+                    paintedSceneVersion = sceneVersion;
+                    
+                    if (governor != null) {
+                        governor.endFrame();
                     }
                 }
             }
@@ -213,6 +406,114 @@ public class Environment {
         frame.setVisible(true);
     }
     
+    /**
+     * Renders the prepared BaseObjects into the back buffer with the software Rasterizer, then draws the back buffer.<br>
+     * In z-buffer mode the Rasterizer tests depth per pixel, so the BaseObjects can be rendered in any order.<br>
+     * With tiled rendering the screen tiles are rasterized in parallel, each preserving the render order of the BaseObjects that overlap it.
+     *
+     * @param g2            The 2D Graphics entity.
+     * @param preparedBases The prepared BaseObjects, in render order.
+     * @param width         The width of the render panel.
+     * @param height        The height of the render panel.
+     */
+    private void renderSoftware(Graphics2D g2, List<BaseObject> preparedBases, int width, int height) {
+        if ((width <= 0) || (height <= 0)) {
+            return;
+        }
+        
+        boolean depthBuffered = (renderMode == RenderMode.Z_BUFFER);
+        if ((backBuffer == null) || (backBuffer.getWidth() != width) || (backBuffer.getHeight() != height)) {
+            backBuffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            rasterizer = null;
+        }
+        if ((rasterizer == null) || (rasterizer.isDepthBuffered() != depthBuffered)) {
+            rasterizer = new Rasterizer(backBuffer, depthBuffered);
+            tileRenderer = null;
+        }
+        
+        Color clearColor = (background != null) ? background : renderPanel.getBackground();
+        if (tiledRendering) {
+            if (tileRenderer == null) {
+                tileRenderer = new TileRenderer(rasterizer);
+            }
+            tileRenderer.render(preparedBases, clearColor);
+            
+        } else {
+            rasterizer.clear(clearColor);
+            for (BaseObject preparedBase : preparedBases) {
+                preparedBase.doRender(rasterizer);
+            }
+        }
+        
+        g2.drawImage(backBuffer, 0, 0, null);
+    }
+    
+    /**
+     * Re-renders only the clipped region of the back buffer from the prepared BaseObjects of the last full frame, then draws the back buffer.<br>
+     * This is only possible in the software render modes, when neither the Camera nor the Scene has changed since the last full frame, so the prepared BaseObjects are still valid.
+     *
+     * @param g2            The 2D Graphics entity.
+     * @param cameraVersion The version of the Camera.
+     * @param sceneVersion  The version of the Scene.
+     * @return Whether the region was re-rendered, or a full frame must be rendered otherwise.
+     */
+    private boolean renderPartial(Graphics2D g2, long cameraVersion, long sceneVersion) {
+        Rectangle clip = g2.getClipBounds();
+        int width = renderPanel.getWidth();
+        int height = renderPanel.getHeight();
+        if ((clip == null) || (renderMode == RenderMode.JAVA2D) || (paintedBases == null) ||
+                (cameraVersion != paintedCameraVersion) || (sceneVersion != paintedSceneVersion) ||
+                (backBuffer == null) || (rasterizer == null) || (backBuffer.getWidth() != width) || (backBuffer.getHeight() != height) ||
+                (rasterizer.isDepthBuffered() != (renderMode == RenderMode.Z_BUFFER))) {
+            return false;
+        }
+        
+        clip = clip.intersection(new Rectangle(0, 0, width, height));
+        if ((clip.width >= width) && (clip.height >= height)) {
+            return false;
+        }
+        if (clip.isEmpty()) {
+            return true;
+        }
+        
+        Rasterizer region = rasterizer.createRegion(clip.x, clip.y, clip.width, clip.height);
+        region.clear((background != null) ? background : renderPanel.getBackground());
+        for (BaseObject paintedBase : paintedBases) {
+            if (!paintedBase.isRendered()) {
+                continue;
+            }
+            int[] bounds = paintedBase.getPreparedBounds();
+            if ((bounds[0] < (clip.x + clip.width)) && (bounds[2] > clip.x) && (bounds[1] < (clip.y + clip.height)) && (bounds[3] > clip.y)) {
+                paintedBase.doRenderPreRendered(region);
+            }
+        }
+        
+        g2.drawImage(backBuffer, 0, 0, null);
+        return true;
+    }
+    
+    /**
+     * Marks a region of the screen as needing to be re-rendered on the next tick of the render timer.
+     *
+     * @param region The region of the screen.
+     */
+    public void repaintRegion(Rectangle region) {
+        if ((region == null) || region.isEmpty()) {
+            return;
+        }
+        
+        synchronized (this) {
+            dirtyRegion = (dirtyRegion == null) ? new Rectangle(region) : dirtyRegion.union(region);
+        }
+    }
+    
+    /**
+     * Marks the whole screen as needing to be re-rendered on the next tick of the render timer.
+     */
+    public void requestRepaint() {
+        fullRepaintRequested = true;
+    }
+    
     /**
      * Sizes the window.
      */
@@ -244,7 +545,10 @@ public class Environment {
                 @Override
                 public void run() {
                     if (rendering.compareAndSet(false, true)) {
-                        renderPanel.repaint();
+                        QualityGovernor governor = adaptiveQuality ? qualityGovernor : null;
+                        if ((governor == null) || governor.shouldRender(1000 / fps)) {
+                            repaint();
+                        }
                         rendering.set(false);
                     }
                 }
@@ -252,6 +556,33 @@ public class Environment {
         }
     }
     
+    /**
+     * Repaints the render panel on a tick of the render timer.<br>
+     * With partial repaints, only the dirty region is repainted while neither the Camera nor the Scene has changed, and nothing is repainted if there is no dirty region.<br>
+     * A frame drawn below full render quality is always followed by full repaints, so it is replaced once the view settles and full quality is restored.
+     */
+    private void repaint() {
+        Camera camera = Camera.getActiveCameraView();
+        if (!partialRepaint || (camera == null) || fullRepaintRequested || !QualityGovernor.isFullQuality() ||
+                (camera.getVersion() != paintedCameraVersion) || (AbstractObject.getSceneVersion() != paintedSceneVersion)) {
+            fullRepaintRequested = false;
+            synchronized (this) {
+                dirtyRegion = null;
+            }
+            renderPanel.repaint();
+            return;
+        }
+        
+        Rectangle region;
+        synchronized (this) {
+            region = dirtyRegion;
+            dirtyRegion = null;
+        }
+        if (region != null) {
+            renderPanel.repaint(region);
+        }
+    }
+    
     /**
      * Adds the KeyListener for the main environment controls.
      */
@@ -294,6 +625,51 @@ public class Environment {
         });
     }
     
+    /**
+     * Picks the topmost BaseObject at a point on the render panel, from the id buffer of the last rendered frame.<br>
+     * The id buffer is only re-rendered when the Camera or the scene has changed, so repeated picks cost O(1).
+     *
+     * @param x The x coordinate on the render panel.
+     * @param y The y coordinate on the render panel.
+     * @return The topmost BaseObject at the point, or null if there is none or picking is not enabled.
+     */
+    public BaseObject pick(int x, int y) {
+        return (pickingEnabled && (pickBuffer != null)) ? pickBuffer.pick(x, y) : null;
+    }
+    
+    /**
+     * Casts a ray from the active Camera through a point on the render panel, and finds the nearest BaseObject it hits with the bounding volume hierarchy.<br>
+     * Unlike picking from the id buffer, this does not depend on the last rendered frame, and it hit tests the geometry of the BaseObjects rather than their pixels.
+     *
+     * @param x The x coordinate on the render panel.
+     * @param y The y coordinate on the render panel.
+     * @return The nearest BaseObject hit by the ray, or null if there is none.
+     */
+    public BaseObject castRay(int x, int y) {
+        Camera camera = Camera.getActiveCameraView();
+        Vector[] ray = (camera == null) ? null : camera.calculateRay(x, y);
+        if (ray == null) {
+            return null;
+        }
+        
+        try {
+            updateBoundingVolumeHierarchy();
+        } catch (ConcurrentModificationException ignored) {
+            return null;
+        }
+        return boundingVolumeHierarchy.intersectRay(ray[0], ray[1]);
+    }
+    
+    /**
+     * Updates the bounding volume hierarchy to the current state of the Objects of the Environment, refitting the boxes of the Objects that have changed.
+     */
+    private synchronized void updateBoundingVolumeHierarchy() {
+        if (boundingVolumeHierarchy == null) {
+            boundingVolumeHierarchy = new BoundingVolumeHierarchy();
+        }
+        boundingVolumeHierarchy.update(objects);
+    }
+    
     /**
      * Adds an Object to the Environment at runtime.
      *
@@ -301,6 +677,7 @@ public class Environment {
      */
     public void addObject(ObjectInterface object) {
         objects.add(object);
+        AbstractObject.markSceneChanged();
     }
     
     /**
@@ -310,6 +687,19 @@ public class Environment {
      */
     public void removeObject(ObjectInterface object) {
         objects.remove(object);
+        AbstractObject.markSceneChanged();
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the number of draw calls that were saved by batching in the last frame rendered in the Java2D render mode.
+     *
+     * @return The number of draw calls that were saved by batching in the last frame.
+     */
+    public int getSavedDrawCalls() {
+        return savedDrawCalls;
     }
     
     
@@ -369,6 +759,87 @@ public class Environment {
         frame.setTitle(scene.getName());
     }
     
+    /**
+     * Sets the render mode of the Environment.
+     *
+     * @param renderMode The render mode of the Environment.
+     */
+    public void setRenderMode(RenderMode renderMode) {
+        this.renderMode = renderMode;
+    }
+    
+    /**
+     * Sets whether or not the software render modes should rasterize screen tiles in parallel.
+     *
+     * @param tiledRendering Whether or not the software render modes should rasterize screen tiles in parallel.
+     */
+    public void setTiledRendering(boolean tiledRendering) {
+        this.tiledRendering = tiledRendering;
+    }
+    
+    /**
+     * Sets whether or not Objects outside the view of the Camera should be culled with a bounding volume hierarchy before they are prepared.
+     *
+     * @param boundingVolumeCulling Whether or not Objects outside the view of the Camera should be culled with a bounding volume hierarchy before they are prepared.
+     */
+    public void setBoundingVolumeCulling(boolean boundingVolumeCulling) {
+        this.boundingVolumeCulling = boundingVolumeCulling;
+    }
+    
+    /**
+     * Sets whether or not an id buffer should be maintained for picking BaseObjects from the screen.
+     *
+     * @param pickingEnabled Whether or not an id buffer should be maintained for picking BaseObjects from the screen.
+     */
+    public void setPickingEnabled(boolean pickingEnabled) {
+        this.pickingEnabled = pickingEnabled;
+        if (!pickingEnabled) {
+            pickBuffer = null;
+        }
+    }
+    
+    /**
+     * Sets whether or not the software render mode should build the cached rasters of the region about to come into view on a background thread.
+     *
+     * @param prefetching Whether or not the software render mode should build the cached rasters of the region about to come into view on a background thread.
+     */
+    public void setPrefetching(boolean prefetching) {
+        this.prefetching = prefetching;
+    }
+    
+    /**
+     * Sets whether or not the Java2D render mode should batch consecutive primitives with the same state into single draw calls.
+     *
+     * @param drawBatching Whether or not the Java2D render mode should batch consecutive primitives with the same state into single draw calls.
+     */
+    public void setDrawBatching(boolean drawBatching) {
+        this.drawBatching = drawBatching;
+    }
+    
+    /**
+     * Sets whether or not the frame rate and render quality should be lowered while the user is interacting, when frames exceed their budget.
+     *
+     * @param adaptiveQuality Whether or not the frame rate and render quality should be lowered while the user is interacting.
+     */
+    public void setAdaptiveQuality(boolean adaptiveQuality) {
+        this.adaptiveQuality = adaptiveQuality;
+        if (adaptiveQuality && (qualityGovernor == null)) {
+            qualityGovernor = new QualityGovernor();
+        } else if (!adaptiveQuality && (qualityGovernor != null)) {
+            qualityGovernor.reset();
+        }
+    }
+    
+    /**
+     * Sets whether or not the software render modes should only re-render the dirty region of the screen when neither the Camera nor the Scene has changed.
+     *
+     * @param partialRepaint Whether or not the software render modes should only re-render the dirty region of the screen.
+     */
+    public void setPartialRepaint(boolean partialRepaint) {
+        this.partialRepaint = partialRepaint;
+        fullRepaintRequested = true;
+    }
+    
     /**
      * Sets the background color of the Environment.
      *
@@ -0,0 +1,241 @@
+/*
+ * File:    BoundingBox.java
+ * Package: math
+ * Author:  Zachary Gill
+ */
+
+package graphy.math;
+
+import java.util.List;
+
+import graphy.math.vector.Vector;
+
+/**
+ * Defines an axis aligned bounding box.
+ */
+public class BoundingBox {
+    
+    //Fields
+    
+    /**
+     * The minimum x coordinate of the box.
+     */
+    public double minX;
+    
+    /**
+     * The minimum y coordinate of the box.
+     */
+    public double minY;
+    
+    /**
+     * The minimum z coordinate of the box.
+     */
+    public double minZ;
+    
+    /**
+     * The maximum x coordinate of the box.
+     */
+    public double maxX;
+    
+    /**
+     * The maximum y coordinate of the box.
+     */
+    public double maxY;
+    
+    /**
+     * The maximum z coordinate of the box.
+     */
+    public double maxZ;
+    
+    
+    //Constructors
+    
+    /**
+     * The default constructor for an empty Bounding Box.
+     */
+    public BoundingBox() {
+        clear();
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Empties the box.
+     */
+    public void clear() {
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        minZ = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+        maxZ = Double.NEGATIVE_INFINITY;
+    }
+    
+    /**
+     * Grows the box to include a point.
+     *
+     * @param x The x coordinate of the point.
+     * @param y The y coordinate of the point.
+     * @param z The z coordinate of the point.
+     */
+    public void include(double x, double y, double z) {
+        minX = Math.min(minX, x);
+        minY = Math.min(minY, y);
+        minZ = Math.min(minZ, z);
+        maxX = Math.max(maxX, x);
+        maxY = Math.max(maxY, y);
+        maxZ = Math.max(maxZ, z);
+    }
+    
+    /**
+     * Grows the box to include a list of points.
+     *
+     * @param vs The list of points.
+     */
+    public void include(List<Vector> vs) {
+        for (Vector v : vs) {
+            include(v.getX(), v.getY(), v.getZ());
+        }
+    }
+    
+    /**
+     * Grows the box to include another box.
+     *
+     * @param box The other box.
+     */
+    public void include(BoundingBox box) {
+        minX = Math.min(minX, box.minX);
+        minY = Math.min(minY, box.minY);
+        minZ = Math.min(minZ, box.minZ);
+        maxX = Math.max(maxX, box.maxX);
+        maxY = Math.max(maxY, box.maxY);
+        maxZ = Math.max(maxZ, box.maxZ);
+    }
+    
+    /**
+     * Sets the box to the union of two boxes.
+     *
+     * @param a The first box.
+     * @param b The second box.
+     */
+    public void union(BoundingBox a, BoundingBox b) {
+        minX = Math.min(a.minX, b.minX);
+        minY = Math.min(a.minY, b.minY);
+        minZ = Math.min(a.minZ, b.minZ);
+        maxX = Math.max(a.maxX, b.maxX);
+        maxY = Math.max(a.maxY, b.maxY);
+        maxZ = Math.max(a.maxZ, b.maxZ);
+    }
+    
+    /**
+     * Determines whether the box is empty or not.
+     *
+     * @return Whether the box is empty or not.
+     */
+    public boolean isEmpty() {
+        return (minX > maxX) || (minY > maxY) || (minZ > maxZ);
+    }
+    
+    /**
+     * Calculates the surface area of the box.
+     *
+     * @return The surface area of the box, or 0 if it is empty.
+     */
+    public double surfaceArea() {
+        if (isEmpty()) {
+            return 0;
+        }
+        
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return 2 * ((dx * dy) + (dy * dz) + (dz * dx));
+    }
+    
+    /**
+     * Returns the center coordinate of the box along an axis.
+     *
+     * @param axis The axis, 0 for x, 1 for y or 2 for z.
+     * @return The center coordinate of the box along the axis.
+     */
+    public double center(int axis) {
+        switch (axis) {
+            case 0:
+                return (minX + maxX) / 2;
+            case 1:
+                return (minY + maxY) / 2;
+            default:
+                return (minZ + maxZ) / 2;
+        }
+    }
+    
+    /**
+     * Calculates the squared distance from a point to the center of the box.
+     *
+     * @param v The point.
+     * @return The squared distance from the point to the center of the box.
+     */
+    public double centerDistanceSquared(Vector v) {
+        double dx = center(0) - v.getX();
+        double dy = center(1) - v.getY();
+        double dz = center(2) - v.getZ();
+        return (dx * dx) + (dy * dy) + (dz * dz);
+    }
+    
+    /**
+     * Classifies the box against a plane.<br>
+     * A point v is inside the plane when a*v.x + b*v.y + c*v.z + d is at least zero.
+     *
+     * @param plane The plane, as {a, b, c, d}.
+     * @return -1 if the box is entirely outside the plane, 1 if it is entirely inside the plane, or 0 if it straddles the plane.
+     */
+    public int classify(double[] plane) {
+        double a = plane[0];
+        double b = plane[1];
+        double c = plane[2];
+        double d = plane[3];
+        
+        double max = ((a >= 0) ? (a * maxX) : (a * minX)) + ((b >= 0) ? (b * maxY) : (b * minY)) + ((c >= 0) ? (c * maxZ) : (c * minZ)) + d;
+        if (max < 0) {
+            return -1;
+        }
+        double min = ((a >= 0) ? (a * minX) : (a * maxX)) + ((b >= 0) ? (b * minY) : (b * maxY)) + ((c >= 0) ? (c * minZ) : (c * maxZ)) + d;
+        return (min >= 0) ? 1 : 0;
+    }
+    
+    /**
+     * Intersects a ray with the box, with the slab method.
+     *
+     * @param origin    The origin of the ray.
+     * @param direction The direction of the ray.
+     * @return The distance along the ray, in multiples of the direction, at which the ray enters the box, or infinity if the ray misses the box.
+     */
+    public double intersectRay(Vector origin, Vector direction) {
+        double near = 0;
+        double far = Double.POSITIVE_INFINITY;
+        for (int axis = 0; axis < 3; axis++) {
+            double o = origin.get(axis);
+            double d = direction.get(axis);
+            double min = (axis == 0) ? minX : ((axis == 1) ? minY : minZ);
+            double max = (axis == 0) ? maxX : ((axis == 1) ? maxY : maxZ);
+            
+            if (d == 0) {
+                if ((o < min) || (o > max)) {
+                    return Double.POSITIVE_INFINITY;
+                }
+                continue;
+            }
+            
+            double t1 = (min - o) / d;
+            double t2 = (max - o) / d;
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+            if (near > far) {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        return near;
+    }
+    
+}
@@ -74,4 +74,102 @@ public class Matrix4 {
         return new Vector(result[0], result[1], result[2], result[3]);
     }
     
+    /**
+     * Transforms a 3D point by the 4D matrix, treating the matrix as an affine transformation.
+     *
+     * @param point The 3D point.
+     * @return The transformed 3D point.
+     */
+    public Vector transform(Vector point) {
+        double x = point.getX();
+        double y = point.getY();
+        double z = point.getZ();
+        return new Vector(
+                (values[0] * x) + (values[1] * y) + (values[2] * z) + values[3],
+                (values[4] * x) + (values[5] * y) + (values[6] * z) + values[7],
+                (values[8] * x) + (values[9] * y) + (values[10] * z) + values[11]
+        );
+    }
+    
+    /**
+     * Calculates the inverse of the 4D matrix, treating the matrix as an affine transformation.
+     *
+     * @return The inverse of the 4D matrix.
+     * @throws ArithmeticException When the 4D matrix is not invertible.
+     */
+    public Matrix4 inverse() throws ArithmeticException {
+        Matrix3 linear = new Matrix3(new double[] {
+                values[0], values[1], values[2],
+                values[4], values[5], values[6],
+                values[8], values[9], values[10]
+        }).inverse();
+        double[] l = linear.values;
+        
+        return new Matrix4(new double[] {
+                l[0], l[1], l[2], -((l[0] * values[3]) + (l[1] * values[7]) + (l[2] * values[11])),
+                l[3], l[4], l[5], -((l[3] * values[3]) + (l[4] * values[7]) + (l[5] * values[11])),
+                l[6], l[7], l[8], -((l[6] * values[3]) + (l[7] * values[7]) + (l[8] * values[11])),
+                0, 0, 0, 1
+        });
+    }
+    
+    /**
+     * Transforms a buffer of packed 3D points in place by the 4D matrix, treating the matrix as an affine transformation.
+     *
+     * @param xyz    The buffer of packed x, y and z coordinates.
+     * @param offset The index in the buffer of the x coordinate of the first point.
+     * @param count  The number of points to transform.
+     * @throws ArrayIndexOutOfBoundsException When the buffer does not contain the specified number of points.
+     */
+    public void transformAll(double[] xyz, int offset, int count) throws ArrayIndexOutOfBoundsException {
+        if (offset < 0 || (offset + (count * 3)) > xyz.length) {
+            throw new ArrayIndexOutOfBoundsException("The buffer of length: " + xyz.length + " does not contain " + count + " points starting at index: " + offset);
+        }
+        
+        final double m00 = values[0], m01 = values[1], m02 = values[2], m03 = values[3];
+        final double m10 = values[4], m11 = values[5], m12 = values[6], m13 = values[7];
+        final double m20 = values[8], m21 = values[9], m22 = values[10], m23 = values[11];
+        
+        for (int i = offset, end = offset + (count * 3); i < end; i += 3) {
+            double x = xyz[i];
+            double y = xyz[i + 1];
+            double z = xyz[i + 2];
+            xyz[i] = (m00 * x) + (m01 * y) + (m02 * z) + m03;
+            xyz[i + 1] = (m10 * x) + (m11 * y) + (m12 * z) + m13;
+            xyz[i + 2] = (m20 * x) + (m21 * y) + (m22 * z) + m23;
+        }
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Creates a 4D identity matrix.
+     *
+     * @return The 4D identity matrix.
+     */
+    public static Matrix4 identity() {
+        return new Matrix4(new double[] {
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0,
+                0, 0, 0, 1
+        });
+    }
+    
+    /**
+     * Creates the 4D translation matrix for an offset.
+     *
+     * @param offset The offset to translate by.
+     * @return The 4D translation matrix.
+     */
+    public static Matrix4 translation(Vector offset) {
+        return new Matrix4(new double[] {
+                1, 0, 0, offset.getX(),
+                0, 1, 0, offset.getY(),
+                0, 0, 1, offset.getZ(),
+                0, 0, 0, 1
+        });
+    }
+    
 }
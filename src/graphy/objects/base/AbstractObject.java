@@ -14,12 +14,16 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import graphy.camera.Camera;
 import graphy.main.Environment;
 import graphy.math.matrix.Matrix3;
+import graphy.math.matrix.Matrix4;
 import graphy.math.vector.Vector;
 import graphy.math.vector.Vector3;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 import graphy.utility.ColorUtility;
 import graphy.utility.RotationUtility;
 import graphy.utility.SphericalCoordinateUtility;
@@ -29,6 +33,19 @@ import graphy.utility.SphericalCoordinateUtility;
  */
 public abstract class AbstractObject implements ObjectInterface {
     
+    //Static Fields
+    
+    /**
+     * The counter used to stamp composed world transformations.
+     */
+    private static final AtomicLong transformStamp = new AtomicLong(0);
+    
+    /**
+     * The version of the scene graph, incremented every time the geometry, visibility or structure of any Object changes.
+     */
+    private static final AtomicLong sceneVersion = new AtomicLong(0);
+    
+    
     //Fields
     
     /**
@@ -37,10 +54,40 @@ public abstract class AbstractObject implements ObjectInterface {
     protected AbstractObject parent;
     
     /**
-     * The center point of the Object.
+     * The center point of the Object, in the space of the Object.
      */
     protected Vector center;
     
+    /**
+     * The transformation Matrix from the space of the Object to the space of its parent, or null for the identity.
+     */
+    protected Matrix4 localTransform = null;
+    
+    /**
+     * The cached transformation Matrix from the space of the Object to world space, or null for the identity.
+     */
+    protected Matrix4 worldTransform = null;
+    
+    /**
+     * A flag indicating whether the local transformation or parent of the Object has changed since the world transformation was composed.
+     */
+    protected volatile boolean transformDirty = false;
+    
+    /**
+     * The stamp of the cached world transformation of the Object.
+     */
+    protected long worldTransformStamp = 0;
+    
+    /**
+     * The stamp of the world transformation of the parent when the world transformation of the Object was composed.
+     */
+    protected long parentTransformStamp = 0;
+    
+    /**
+     * The version of the scene when the geometry of the Object or one of its components last changed.
+     */
+    protected volatile long geometryVersion = 0;
+    
     /**
      * The color of the Object.
      */
@@ -51,11 +98,26 @@ public abstract class AbstractObject implements ObjectInterface {
      */
     protected Vector[] vertices = new Vector[0];
     
+    /**
+     * The packed x, y and z coordinates of the center and vertices of the Object, which hold its vector state once it has been transformed, or null if the center and vertices hold it.
+     */
+    private double[] coordinates = null;
+    
+    /**
+     * A flag indicating whether the center and vertices of the Object are out of date with its packed coordinates.
+     */
+    private boolean vectorsStale = false;
+    
     /**
      * A list of the Vectors of the Object that have been prepared for rendering.
      */
     protected final List<Vector> prepared = new ArrayList<>();
     
+    /**
+     * The inverse view depths of the prepared Vectors of the Object, recorded before projection when rendering with a depth buffer.
+     */
+    protected float[] preparedDepths = new float[0];
+    
     /**
      * The frame of the Object.
      */
@@ -76,6 +138,11 @@ public abstract class AbstractObject implements ObjectInterface {
      */
     protected boolean visible = true;
     
+    /**
+     * A flag indicating whether or not the Object can be picked from the screen.
+     */
+    protected boolean pickable = true;
+    
     /**
      * A flag indicating whether or not the Object is rendered.
      */
@@ -213,26 +280,57 @@ public abstract class AbstractObject implements ObjectInterface {
      */
     @Override
     public final boolean preRender() {
+        return preRender(false);
+    }
+    
+    /**
+     * Performs pre-rendering steps on the Object.
+     *
+     * @param recordDepths Whether or not to record the inverse view depths of the prepared Vectors before they are projected.
+     * @return Whether or not the Object should continue rendering.
+     */
+    protected final boolean preRender(boolean recordDepths) {
         if (!Environment.ENABLE_RENDER_BUFFERING || renderDelay.get() <= 0) {
-            if (!visible || (prepared.size() != vertices.length) || Camera.hasVectorBehindScreen(vertices)) {
+            if (!visible || !projectPrepared(recordDepths)) {
                 renderDelay.set(Environment.ENABLE_RENDER_BUFFERING ? ((int) (Math.random() * (Environment.fps / 8))) : 1);
                 return false;
             }
             
-            Camera.projectVectorsToCamera(prepared);
-            Camera.collapseVectorsToViewport(prepared);
-            if (!Camera.hasVectorInView(prepared)) {
-                renderDelay.set(Environment.ENABLE_RENDER_BUFFERING ? ((int) (Math.random() * (Environment.fps / 8))) : 1);
-                return false;
-            } else {
-                renderDelay.set(1);
-                Camera.scaleVectorsToScreen(prepared);
-                return true;
-            }
+            renderDelay.set(1);
+            return true;
         }
         return false;
     }
     
+    /**
+     * Projects the prepared Vectors of the Object to the screen with the active Camera view.
+     *
+     * @param recordDepths Whether or not to record the inverse view depths of the prepared Vectors before they are projected.
+     * @return Whether or not the Object is visible on the screen.
+     */
+    protected boolean projectPrepared(boolean recordDepths) {
+        if ((prepared.size() != vertices.length) || Camera.hasVectorBehindScreen(prepared)) {
+            return false;
+        }
+        
+        if (recordDepths) {
+            preparedDepths = Camera.calculateInverseDepths(prepared, preparedDepths);
+        }
+        
+        if (Camera.hasOrthographicView()) {
+            return Camera.projectVectorsToScreenOrthographic(prepared);
+        }
+        
+        Camera.projectVectorsToCamera(prepared);
+        Camera.collapseVectorsToViewport(prepared);
+        if (!Camera.hasVectorInView(prepared)) {
+            return false;
+        }
+        
+        Camera.scaleVectorsToScreen(prepared);
+        return true;
+    }
+    
     /**
      * Renders the Object on the screen.
      *
@@ -241,6 +339,28 @@ public abstract class AbstractObject implements ObjectInterface {
     @Override
     public abstract void render(Graphics2D g2);
     
+    /**
+     * Renders the Object on the screen with the software Rasterizer.<br>
+     * By default this falls back to rendering with the Graphics entity of the back buffer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        render(rasterizer.getGraphics());
+    }
+    
+    /**
+     * Renders the Object on the screen, batching its primitives with those of the Objects rendered around it.<br>
+     * By default this draws the pending batch and then renders with the Graphics entity directly.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void render(DrawBatcher batcher) {
+        render(batcher.getGraphics());
+    }
+    
     /**
      * Performs post-rendering steps on the Object.
      *
@@ -265,6 +385,34 @@ public abstract class AbstractObject implements ObjectInterface {
         frame.render(g2, prepared);
     }
     
+    /**
+     * Draws the frame for the Object with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void renderFrame(Rasterizer rasterizer) {
+        if (frame == null) {
+            return;
+        }
+        
+        frame.render(rasterizer, prepared);
+    }
+    
+    /**
+     * Draws the frame for the Object, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void renderFrame(DrawBatcher batcher) {
+        if (frame == null) {
+            return;
+        }
+        
+        frame.render(batcher, prepared);
+    }
+    
     /**
      * Performs the rendering for the Object on the screen.
      *
@@ -283,6 +431,65 @@ public abstract class AbstractObject implements ObjectInterface {
         rendered.set(true);
     }
     
+    /**
+     * Performs the rendering for the Object on the screen, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public final void doRender(DrawBatcher batcher) {
+        if (!preRender()) {
+            rendered.set(false);
+            return;
+        }
+        
+        render(batcher);
+        
+        renderFrame(batcher);
+        rendered.set(true);
+    }
+    
+    /**
+     * Performs the rendering for the Object on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public final void doRender(Rasterizer rasterizer) {
+        if (doPreRender(rasterizer)) {
+            doRenderPreRendered(rasterizer);
+        }
+    }
+    
+    /**
+     * Performs the pre-rendering for the Object on the screen with the software Rasterizer, without rendering it.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @return Whether or not the Object should continue rendering.
+     */
+    @Override
+    public final boolean doPreRender(Rasterizer rasterizer) {
+        if (!preRender(rasterizer.isDepthBuffered())) {
+            rendered.set(false);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Performs the rendering for an Object that has already been pre-rendered on the screen with the software Rasterizer.<br>
+     * This may be called more than once per frame, with Rasterizers of different regions of the back buffer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public final void doRenderPreRendered(Rasterizer rasterizer) {
+        render(rasterizer);
+        
+        renderFrame(rasterizer);
+        rendered.set(true);
+    }
+    
     /**
      * Moves the Object in a certain direction.
      *
@@ -290,7 +497,7 @@ public abstract class AbstractObject implements ObjectInterface {
      */
     @Override
     public void move(Vector offset) {
-        center = center.plus(offset);
+        applyTransformation(Matrix4.translation(offset));
     }
     
     /**
@@ -309,7 +516,9 @@ public abstract class AbstractObject implements ObjectInterface {
      * @param offset The relative offsets to rotate the Object.
      */
     @Override
-    public abstract void rotateAndTransform(Vector offset);
+    public void rotateAndTransform(Vector offset) {
+        rotateAndTransform(offset, getRootCenter());
+    }
     
     /**
      * Rotates the Object in a certain direction and saves the rotation in its vector state.
@@ -318,7 +527,73 @@ public abstract class AbstractObject implements ObjectInterface {
      * @param center The center to rotate the Object about.
      */
     @Override
-    public abstract void rotateAndTransform(Vector offset, Vector center);
+    public void rotateAndTransform(Vector offset, Vector center) {
+        Matrix3 rotationTransformationMatrix = RotationUtility.getRotationMatrix(offset.getX(), offset.getY(), offset.getZ());
+        applyTransformation(RotationUtility.getRotationTransformationMatrix(rotationTransformationMatrix, toParentSpace(center).justify()));
+    }
+    
+    /**
+     * Applies an affine transformation, in the space of the parent of the Object, to the Object.<br>
+     * The transformation is saved in the vector state of the Object, unless the Object already has a local transformation.
+     *
+     * @param transformation The affine transformation matrix to apply.
+     */
+    protected void applyTransformation(Matrix4 transformation) {
+        if (localTransform == null) {
+            transform(transformation);
+        } else {
+            applyLocalTransform(transformation);
+        }
+    }
+    
+    /**
+     * Composes an affine transformation, in the space of the parent of the Object, into the local transformation of the Object.<br>
+     * This does not touch the vector state of the Object or its components, the world transformations are recomposed lazily when prepared.
+     *
+     * @param transformation The affine transformation matrix to compose.
+     */
+    public synchronized void applyLocalTransform(Matrix4 transformation) {
+        localTransform = (localTransform == null) ? transformation : transformation.multiply(localTransform);
+        transformDirty = true;
+        markGeometryChanged();
+    }
+    
+    /**
+     * Converts a point in world space to the space of the parent of the Object.
+     *
+     * @param point The point in world space.
+     * @return The point in the space of the parent of the Object.
+     */
+    public Vector toParentSpace(Vector point) {
+        Matrix4 parentTransform = (parent == null) ? null : parent.getWorldTransform();
+        return (parentTransform == null) ? point : parentTransform.inverse().transform(point);
+    }
+    
+    /**
+     * Converts a point in world space to the space of the Object.
+     *
+     * @param point The point in world space.
+     * @return The point in the space of the Object.
+     */
+    public Vector toLocalSpace(Vector point) {
+        Vector parentPoint = toParentSpace(point);
+        Matrix4 local = localTransform;
+        return (local == null) ? parentPoint : local.inverse().transform(parentPoint);
+    }
+    
+    /**
+     * Applies an affine transformation to the vector state of the Object.<br>
+     * The packed coordinates of the center and vertices of the Object are transformed in place in one pass, and the center and vertices are only recreated from them when they are next read.
+     *
+     * @param transformation The affine transformation matrix to apply.
+     */
+    @Override
+    public synchronized void transform(Matrix4 transformation) {
+        double[] xyz = getCoordinates();
+        transformation.transformAll(xyz, 0, xyz.length / 3);
+        vectorsStale = true;
+        markGeometryChanged();
+    }
     
     /**
      * Calculates the distance from the Camera to the Object.
@@ -641,7 +916,7 @@ public abstract class AbstractObject implements ObjectInterface {
             /**
              * The last object center for tracking relative movement.
              */
-            private Vector lastObjectCenter = object.center.clone();
+            private Vector lastObjectCenter = object.getCenter().clone();
             
             /**
              * The normal vector of the plane of motion around the object.
@@ -676,13 +951,13 @@ public abstract class AbstractObject implements ObjectInterface {
              */
             @Override
             public void run() {
-                Vector currentObjectCenter = object.center.clone();
+                Vector currentObjectCenter = object.getCenter().clone();
                 Vector objectMovement = currentObjectCenter.minus(lastObjectCenter);
                 lastObjectCenter = currentObjectCenter;
                 
                 if (lastTime == 0) {
-                    Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(center.minus(lastObjectCenter));
-                    Vector direction = center.minus(lastObjectCenter).normalize();
+                    Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(getCenter().minus(lastObjectCenter));
+                    Vector direction = getCenter().minus(lastObjectCenter).normalize();
                     Vector perpendicular = SphericalCoordinateUtility.sphericalToCartesian(Math.PI / 2, sphericalLocation.getY() + (Math.PI / 2), sphericalLocation.getZ()).minus(lastObjectCenter).normalize();
                     
                     normal = new Vector3(direction).cross(perpendicular).normalize();
@@ -698,13 +973,13 @@ public abstract class AbstractObject implements ObjectInterface {
                 long timeElapsed = currentTime - lastTime;
                 lastTime = currentTime;
                 
-                Vector gravity = lastObjectCenter.minus(center).normalize();
+                Vector gravity = lastObjectCenter.minus(getCenter()).normalize();
                 Vector movement = new Vector3(gravity).cross(normal).normalize().scale(wise);
                 
                 double scale = ((double) timeElapsed / orbitPeriod) * circumference;
                 
                 Vector translation = movement.scale(scale).plus(objectMovement);
-                Vector newLocation = center.plus(translation);
+                Vector newLocation = getCenter().plus(translation);
                 Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(newLocation.minus(lastObjectCenter));
                 Vector adjustedLocation = SphericalCoordinateUtility.sphericalToCartesian(sphericalLocation.getX(), sphericalLocation.getY(), originalRho).plus(lastObjectCenter);
                 Vector adjustment = adjustedLocation.minus(newLocation);
@@ -755,7 +1030,7 @@ public abstract class AbstractObject implements ObjectInterface {
             /**
              * The last object center for tracking relative movement.
              */
-            private Vector lastObjectCenter = object.center.clone();
+            private Vector lastObjectCenter = object.getCenter().clone();
             
             /**
              * The normal vector of the plane of motion around the object.
@@ -795,13 +1070,13 @@ public abstract class AbstractObject implements ObjectInterface {
              */
             @Override
             public void run() {
-                Vector currentObjectCenter = object.center.clone();
+                Vector currentObjectCenter = object.getCenter().clone();
                 Vector objectMovement = currentObjectCenter.minus(lastObjectCenter);
                 lastObjectCenter = currentObjectCenter;
                 
                 if (lastTime == 0) {
-                    Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(center.minus(lastObjectCenter));
-                    Vector direction = center.minus(lastObjectCenter).normalize();
+                    Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(getCenter().minus(lastObjectCenter));
+                    Vector direction = getCenter().minus(lastObjectCenter).normalize();
                     Vector perpendicular = SphericalCoordinateUtility.sphericalToCartesian(Math.PI / 2, sphericalLocation.getY() + (Math.PI / 2), sphericalLocation.getZ()).minus(lastObjectCenter).normalize();
                     
                     normal = new Vector3(direction).cross(perpendicular).normalize();
@@ -822,13 +1097,13 @@ public abstract class AbstractObject implements ObjectInterface {
                     timeElapsed -= (timeCount - period);
                 }
                 
-                Vector gravity = lastObjectCenter.minus(center).normalize();
+                Vector gravity = lastObjectCenter.minus(getCenter()).normalize();
                 Vector movement = new Vector3(gravity).cross(normal).normalize().scale(wise);
                 
                 double scale = ((double) timeElapsed / orbitPeriod) * circumference;
                 
                 Vector translation = movement.scale(scale).plus(objectMovement);
-                Vector newLocation = center.plus(translation);
+                Vector newLocation = getCenter().plus(translation);
                 Vector sphericalLocation = SphericalCoordinateUtility.cartesianToSpherical(newLocation.minus(lastObjectCenter));
                 Vector adjustedLocation = SphericalCoordinateUtility.sphericalToCartesian(sphericalLocation.getX(), sphericalLocation.getY(), originalRho).plus(lastObjectCenter);
                 Vector adjustment = adjustedLocation.minus(newLocation);
@@ -849,6 +1124,7 @@ public abstract class AbstractObject implements ObjectInterface {
      */
     public void updateRotationMatrix() {
         rotationMatrix = RotationUtility.getRotationMatrix(getRotationRoll(), getRotationPitch(), getRotationYaw());
+        markGeometryChanged();
     }
     
     /**
@@ -866,6 +1142,85 @@ public abstract class AbstractObject implements ObjectInterface {
         }
     }
     
+    /**
+     * Returns the number of Vectors in the vertex buffer of the Object.
+     *
+     * @return The number of Vectors in the vertex buffer of the Object.
+     */
+    @Override
+    public int getVertexBufferSize() {
+        return ((center != null) ? 1 : 0) + vertices.length;
+    }
+    
+    /**
+     * Writes the center and vertices of the Object into a vertex buffer.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin writing at.
+     * @return The index in the vertex buffer following the written Vectors.
+     */
+    @Override
+    public synchronized int writeVertexBuffer(double[] xyz, int index) {
+        if (coordinates != null) {
+            System.arraycopy(coordinates, 0, xyz, index, coordinates.length);
+            return index + coordinates.length;
+        }
+        
+        if (center != null) {
+            index = writeVertex(center, xyz, index);
+        }
+        for (Vector vertex : vertices) {
+            index = writeVertex(vertex, xyz, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Reads the center and vertices of the Object from a vertex buffer.<br>
+     * The coordinates are copied into the packed coordinates of the Object, and the center and vertices are only recreated from them when they are next read.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin reading at.
+     * @return The index in the vertex buffer following the read Vectors.
+     */
+    @Override
+    public synchronized int readVertexBuffer(double[] xyz, int index) {
+        double[] own = getCoordinates();
+        System.arraycopy(xyz, index, own, 0, own.length);
+        vectorsStale = true;
+        markGeometryChanged();
+        return index + own.length;
+    }
+    
+    /**
+     * Recreates the center and vertices of the Object from its packed coordinates if they are out of date.<br>
+     * New Vectors are created as Vectors may be shared between Objects.
+     */
+    protected synchronized void materializeVectors() {
+        if (!vectorsStale) {
+            return;
+        }
+        
+        int index = 0;
+        if (center != null) {
+            center = readVertex(center, coordinates, index);
+            index += 3;
+        }
+        for (int i = 0; i < vertices.length; i++) {
+            vertices[i] = readVertex(vertices[i], coordinates, index);
+            index += 3;
+        }
+        vectorsStale = false;
+    }
+    
+    /**
+     * Makes the center and vertices of the Object hold its vector state again, before one of them is replaced.
+     */
+    protected synchronized void detachCoordinates() {
+        materializeVectors();
+        coordinates = null;
+    }
+    
     /**
      * Registers a component with the Object.
      *
@@ -904,6 +1259,16 @@ public abstract class AbstractObject implements ObjectInterface {
         this.frame = frame;
     }
     
+    /**
+     * Records that the geometry of the Object has changed, stamping the Object and all of its ancestors with the new version of the scene.
+     */
+    protected void markGeometryChanged() {
+        long version = sceneVersion.incrementAndGet();
+        for (AbstractObject object = this; object != null; object = object.parent) {
+            object.geometryVersion = version;
+        }
+    }
+    
     
     //Getters
     
@@ -917,12 +1282,58 @@ public abstract class AbstractObject implements ObjectInterface {
     }
     
     /**
-     * Returns the center point of the Object.
+     * Returns the center point of the Object, in world space.
      *
      * @return The center point of the Object.
      */
     public Vector getCenter() {
-        return center;
+        materializeVectors();
+        Matrix4 transformation = getWorldTransform();
+        return ((transformation == null) || (center == null)) ? center : transformation.transform(center);
+    }
+    
+    /**
+     * Returns the local transformation Matrix of the Object, relative to its parent.
+     *
+     * @return The local transformation Matrix of the Object, or null for the identity.
+     */
+    public Matrix4 getLocalTransform() {
+        return localTransform;
+    }
+    
+    /**
+     * Returns the world transformation Matrix of the Object.<br>
+     * The world transformation is composed lazily from the chain of parents and cached until the local transformation of the Object or one of its parents changes.<br>
+     * It is composed while holding the lock of the Object that its local transformation is changed under, and the world transformation of the parent is read together with its stamp under the lock of the parent, so it can be called from any thread.
+     *
+     * @return The world transformation Matrix of the Object, or null for the identity.
+     */
+    public Matrix4 getWorldTransform() {
+        Matrix4 parentTransform = null;
+        long parentStamp = 0;
+        AbstractObject parentObject = parent;
+        if (parentObject != null) {
+            synchronized (parentObject) {
+                parentTransform = parentObject.getWorldTransform();
+                parentStamp = parentObject.worldTransformStamp;
+            }
+        }
+        
+        synchronized (this) {
+            if (transformDirty || (parentStamp != parentTransformStamp)) {
+                transformDirty = false;
+                Matrix4 local = localTransform;
+                
+                if (parentTransform == null) {
+                    worldTransform = local;
+                } else {
+                    worldTransform = (local == null) ? parentTransform : parentTransform.multiply(local);
+                }
+                parentTransformStamp = parentStamp;
+                worldTransformStamp = transformStamp.incrementAndGet();
+            }
+            return worldTransform;
+        }
     }
     
     /**
@@ -938,6 +1349,82 @@ public abstract class AbstractObject implements ObjectInterface {
         }
     }
     
+    /**
+     * Returns the vertex buffer of the Object, containing the packed coordinates of its center and vertices.
+     *
+     * @return The vertex buffer of the Object.
+     */
+    public double[] getVertexBuffer() {
+        double[] vertexBuffer = new double[getVertexBufferSize() * 3];
+        writeVertexBuffer(vertexBuffer, 0);
+        return vertexBuffer;
+    }
+    
+    /**
+     * Returns the packed coordinates of the center and vertices of the Object, packing them from the center and vertices if they hold its vector state.
+     *
+     * @return The packed coordinates of the center and vertices of the Object.
+     */
+    private synchronized double[] getCoordinates() {
+        if (coordinates == null) {
+            coordinates = new double[(((center != null) ? 1 : 0) + vertices.length) * 3];
+            int index = 0;
+            if (center != null) {
+                index = writeVertex(center, coordinates, index);
+            }
+            for (Vector vertex : vertices) {
+                index = writeVertex(vertex, coordinates, index);
+            }
+        }
+        return coordinates;
+    }
+    
+    /**
+     * Returns the inverse view depth of a prepared Vector of the Object.
+     *
+     * @param i The index of the prepared Vector.
+     * @return The inverse view depth of the prepared Vector, or NaN if the depths were not recorded.
+     */
+    public float getPreparedDepth(int i) {
+        return (i < preparedDepths.length) ? preparedDepths[i] : Float.NaN;
+    }
+    
+    /**
+     * Returns the nearest inverse view depth of the prepared Vectors of the Object.
+     *
+     * @return The nearest inverse view depth of the prepared Vectors of the Object, or NaN if the depths were not recorded.
+     */
+    public float getNearestPreparedDepth() {
+        if (preparedDepths.length == 0) {
+            return Float.NaN;
+        }
+        
+        float nearest = 0;
+        for (float depth : preparedDepths) {
+            nearest = Math.max(nearest, depth);
+        }
+        return nearest;
+    }
+    
+    /**
+     * Returns the screen bounds of the pre-rendered Object.
+     *
+     * @return The screen bounds of the pre-rendered Object, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    public int[] getPreparedBounds() {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Vector v : prepared) {
+            minX = Math.min(minX, (int) v.getX());
+            minY = Math.min(minY, (int) v.getY());
+            maxX = Math.max(maxX, (int) v.getX());
+            maxY = Math.max(maxY, (int) v.getY());
+        }
+        return new int[] {minX - 1, minY - 1, maxX + 2, maxY + 2};
+    }
+    
     /**
      * Returns the color of the Object.
      *
@@ -953,6 +1440,7 @@ public abstract class AbstractObject implements ObjectInterface {
      * @return The list of Vertices that define the Object.
      */
     public Vector[] getVertices() {
+        materializeVectors();
         return vertices;
     }
     
@@ -1019,6 +1507,25 @@ public abstract class AbstractObject implements ObjectInterface {
         return rendered.get();
     }
     
+    /**
+     * Returns the version of the scene when the geometry of the Object or one of its components last changed.
+     *
+     * @return The version of the scene when the geometry of the Object or one of its components last changed.
+     */
+    @Override
+    public long getGeometryVersion() {
+        return geometryVersion;
+    }
+    
+    /**
+     * Returns whether the Object can be picked from the screen or not, which requires all of its ancestors to be pickable as well.
+     *
+     * @return Whether the Object can be picked from the screen or not.
+     */
+    public boolean isPickable() {
+        return pickable && ((parent == null) || parent.isPickable());
+    }
+    
     /**
      * Returns the distance from the Camera to the Object.
      *
@@ -1079,17 +1586,44 @@ public abstract class AbstractObject implements ObjectInterface {
         
         this.parent = parent;
         this.displayMode = parent.displayMode;
+        this.transformDirty = true;
+        markGeometryChanged();
         parent.registerComponent(this);
     }
     
     /**
      * Sets the center point of the Object.
      *
-     * @param center The nwe center point of the Object.
+     * @param center The new center point of the Object, in world space.
      */
     @Override
     public void setCenter(Vector center) {
-        this.center = center;
+        detachCoordinates();
+        this.center = (center == null) ? null : toLocalSpace(center);
+    }
+    
+    /**
+     * Sets the local transformation Matrix of the Object, relative to its parent.
+     *
+     * @param localTransform The local transformation Matrix of the Object, or null for the identity.
+     */
+    public synchronized void setLocalTransform(Matrix4 localTransform) {
+        this.localTransform = localTransform;
+        this.transformDirty = true;
+        markGeometryChanged();
+    }
+    
+    /**
+     * Sets the center and vertices of the Object from a vertex buffer.
+     *
+     * @param vertexBuffer The vertex buffer, containing the packed coordinates of the center and vertices.
+     * @throws ArrayIndexOutOfBoundsException When the vertex buffer is not the size of the vertex buffer of the Object.
+     */
+    public void setVertexBuffer(double[] vertexBuffer) throws ArrayIndexOutOfBoundsException {
+        if (vertexBuffer.length != (getVertexBufferSize() * 3)) {
+            throw new ArrayIndexOutOfBoundsException("The vertex buffer of length: " + vertexBuffer.length + " does not match the vertex buffer of the Object");
+        }
+        readVertexBuffer(vertexBuffer, 0);
     }
     
     /**
@@ -1133,6 +1667,7 @@ public abstract class AbstractObject implements ObjectInterface {
     @Override
     public void setRotationMatrix(Matrix3 rotationMatrix) {
         this.rotationMatrix = rotationMatrix;
+        markGeometryChanged();
     }
     
     /**
@@ -1203,6 +1738,17 @@ public abstract class AbstractObject implements ObjectInterface {
     @Override
     public void setVisible(boolean visible) {
         this.visible = visible;
+        markSceneChanged();
+    }
+    
+    /**
+     * Sets whether the Object can be picked from the screen or not.
+     *
+     * @param pickable Whether the Object can be picked from the screen or not.
+     */
+    public void setPickable(boolean pickable) {
+        this.pickable = pickable;
+        markSceneChanged();
     }
     
     /**
@@ -1213,6 +1759,7 @@ public abstract class AbstractObject implements ObjectInterface {
     @Override
     public void setDisplayMode(BaseObject.DisplayMode displayMode) {
         this.displayMode = displayMode;
+        markSceneChanged();
     }
     
     /**
@@ -1236,4 +1783,61 @@ public abstract class AbstractObject implements ObjectInterface {
         }
     }
     
+    
+    //Functions
+    
+    /**
+     * Returns the version of the scene graph, which changes every time the geometry, visibility or structure of any Object changes.
+     *
+     * @return The version of the scene graph.
+     */
+    public static long getSceneVersion() {
+        return sceneVersion.get();
+    }
+    
+    /**
+     * Records that the geometry, visibility or structure of an Object has changed.
+     */
+    public static void markSceneChanged() {
+        sceneVersion.incrementAndGet();
+    }
+    
+    /**
+     * Writes a Vector into a vertex buffer.
+     *
+     * @param vertex The Vector.
+     * @param xyz    The vertex buffer of packed x, y and z coordinates.
+     * @param index  The index in the vertex buffer to write at.
+     * @return The index in the vertex buffer following the written Vector.
+     */
+    protected static int writeVertex(Vector vertex, double[] xyz, int index) {
+        xyz[index] = vertex.getX();
+        xyz[index + 1] = vertex.getY();
+        xyz[index + 2] = vertex.getZ();
+        return index + 3;
+    }
+    
+    /**
+     * Reads a Vector from a vertex buffer, retaining the dimension of the original Vector.
+     *
+     * @param original The original Vector.
+     * @param xyz      The vertex buffer of packed x, y and z coordinates.
+     * @param index    The index in the vertex buffer to read at.
+     * @return The Vector read from the vertex buffer.
+     */
+    protected static Vector readVertex(Vector original, double[] xyz, int index) {
+        switch (original.getDimension()) {
+            case 3:
+                return new Vector(xyz[index], xyz[index + 1], xyz[index + 2]);
+            case 2:
+                return new Vector(xyz[index], xyz[index + 1]);
+            default:
+                Vector vertex = original.clone();
+                for (int c = 0; c < Math.min(vertex.getDimension(), 3); c++) {
+                    vertex.set(c, xyz[index + c]);
+                }
+                return vertex;
+        }
+    }
+    
 }
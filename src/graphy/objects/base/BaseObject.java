@@ -8,13 +8,14 @@ package graphy.objects.base;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.util.ArrayList;
 import java.util.List;
 
 import graphy.camera.Camera;
 import graphy.main.Environment;
-import graphy.math.matrix.Matrix3;
+import graphy.math.BoundingBox;
+import graphy.math.matrix.Matrix4;
 import graphy.math.vector.Vector;
-import graphy.utility.RotationUtility;
 
 /**
  * Defines the base properties of an Object.
@@ -107,52 +108,47 @@ public abstract class BaseObject extends AbstractObject {
     public abstract List<BaseObject> prepare();
     
     /**
-     * Renders the Object on the screen.
-     *
-     * @param g2 The 2D Graphics entity.
+     * Prepares the vertices of the Object in world space, then justifies and rotates them.
      */
-    @Override
-    public abstract void render(Graphics2D g2);
+    protected void prepareVertices() {
+        prepared.clear();
+        prepared.addAll(calculatePreparedVertices());
+    }
     
     /**
-     * Moves the Object in a certain direction.
+     * Calculates the vertices of the Object as they are prepared, in world space, justified and rotated, but not yet projected.
      *
-     * @param offset The relative offsets to move the Object.
+     * @return The prepared vertices of the Object.
      */
-    @Override
-    public void move(Vector offset) {
-        super.move(offset);
+    public List<Vector> calculatePreparedVertices() {
+        List<Vector> preparedVertices = new ArrayList<>(vertices.length);
         
-        for (int i = 0; i < vertices.length; i++) {
-            vertices[i] = vertices[i].plus(offset);
+        Matrix4 transformation = getWorldTransform();
+        for (Vector vertex : getVertices()) {
+            preparedVertices.add(((transformation == null) ? vertex.clone() : transformation.transform(vertex)).justify());
         }
+        
+        performRotationTransformation(preparedVertices);
+        return preparedVertices;
     }
     
     /**
-     * Rotates the Object in a certain direction and saves the rotation in its vector state.
+     * Grows a Bounding Box to include the prepared vertices of the Object.
      *
-     * @param offset The relative offsets to rotate the Object.
+     * @param bounds The Bounding Box.
      */
     @Override
-    public void rotateAndTransform(Vector offset) {
-        rotateAndTransform(offset, getRootCenter());
+    public void calculateBounds(BoundingBox bounds) {
+        bounds.include(calculatePreparedVertices());
     }
     
     /**
-     * Rotates the Object in a certain direction and saves the rotation in its vector state.
+     * Renders the Object on the screen.
      *
-     * @param offset The relative offsets to rotate the Object.
-     * @param center The center to rotate the Object about.
+     * @param g2 The 2D Graphics entity.
      */
     @Override
-    public void rotateAndTransform(Vector offset, Vector center) {
-        Matrix3 rotationTransformationMatrix = RotationUtility.getRotationMatrix(offset.getX(), offset.getY(), offset.getZ());
-        
-        for (int i = 0; i < vertices.length; i++) {
-            vertices[i] = RotationUtility.performRotation(vertices[i], rotationTransformationMatrix, center.justify());
-        }
-        this.center = RotationUtility.performRotation(this.center, rotationTransformationMatrix, center.justify());
-    }
+    public abstract void render(Graphics2D g2);
     
     /**
      * Calculates the distance from the Camera to Object.
@@ -12,6 +12,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import graphy.math.vector.Vector;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines a Frame Object for Objects.
@@ -93,6 +95,48 @@ public class Frame extends Object {
         }
     }
     
+    /**
+     * Renders the Object on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @param prepared   The prepared Vectors of the base Object.
+     */
+    public void render(Rasterizer rasterizer, List<Vector> prepared) {
+        if (!visible || base.displayMode == DisplayMode.VERTEX) {
+            return;
+        }
+        
+        if (prepared.size() > 1) {
+            for (int i = 1; i < prepared.size(); i++) {
+                rasterizer.drawLine((int) prepared.get(i - 1).getX(), (int) prepared.get(i - 1).getY(), (int) prepared.get(i).getX(), (int) prepared.get(i).getY(), base.getPreparedDepth(i - 1), base.getPreparedDepth(i), color);
+                if (i == prepared.size() - 1 && i > 1) {
+                    rasterizer.drawLine((int) prepared.get(i).getX(), (int) prepared.get(i).getY(), (int) prepared.get(0).getX(), (int) prepared.get(0).getY(), base.getPreparedDepth(i), base.getPreparedDepth(0), color);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Renders the Object on the screen, batching its lines with those of the Objects rendered around it.
+     *
+     * @param batcher  The Draw Batcher.
+     * @param prepared The prepared Vectors of the base Object.
+     */
+    public void render(DrawBatcher batcher, List<Vector> prepared) {
+        if (!visible || base.displayMode == DisplayMode.VERTEX) {
+            return;
+        }
+        
+        if (prepared.size() > 1) {
+            for (int i = 1; i < prepared.size(); i++) {
+                batcher.drawLine((int) prepared.get(i - 1).getX(), (int) prepared.get(i - 1).getY(), (int) prepared.get(i).getX(), (int) prepared.get(i).getY(), color);
+                if (i == prepared.size() - 1 && i > 1) {
+                    batcher.drawLine((int) prepared.get(i).getX(), (int) prepared.get(i).getY(), (int) prepared.get(0).getX(), (int) prepared.get(0).getY(), color);
+                }
+            }
+        }
+    }
+    
     /**
      * Renders the Object on the screen.
      *
@@ -102,4 +146,22 @@ public class Frame extends Object {
     public void render(Graphics2D g2) {
     }
     
+    /**
+     * Renders the Object on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+    }
+    
+    /**
+     * Renders the Object on the screen, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void render(DrawBatcher batcher) {
+    }
+    
 }
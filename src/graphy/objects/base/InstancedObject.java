@@ -0,0 +1,1583 @@
+/*
+ * File:    InstancedObject.java
+ * Package: objects.base
+ * Author:  Zachary Gill
+ */
+
+package graphy.objects.base;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import graphy.camera.Camera;
+import graphy.main.Environment;
+import graphy.math.BoundingBox;
+import graphy.math.matrix.Matrix4;
+import graphy.math.vector.Vector;
+import graphy.rendering.QualityGovernor;
+import graphy.rendering.Rasterizer;
+import graphy.rendering.TileRenderer;
+
+/**
+ * Defines an Instanced Object, which renders one template geometry at many translations.<br>
+ * The vertices of the Instanced Object are the template, and each instance only stores its offset from the template, its color and its image.<br>
+ * Instances are prepared, projected and rendered in a loop over these arrays, in the order they were added.<br>
+ * Instances can also be grouped into raster blocks, whose rendering is cached in a raster and blitted while the view is an axis aligned orthographic view at the same scale.<br>
+ * The projected instances are binned by the screen tiles they overlap once per frame, so each tile of the Tile Renderer only visits the instances that overlap it.
+ */
+public class InstancedObject extends BaseObject {
+    
+    //Constants
+    
+    /**
+     * The maximum number of pixels of the rasters cached by all Instanced Objects.
+     */
+    public static final long RASTER_CACHE_BUDGET = 1L << 24;
+    
+    /**
+     * The relative precision that the scales of views must match by for cached rasters to be reused, which absorbs the rounding noise of recalculating the view.
+     */
+    public static final double RASTER_SCALE_PRECISION = 1e-9;
+    
+    /**
+     * The size of the screen bins that the projected instances are binned into, in pixels, which matches the tiles of the Tile Renderer so that each tile reads a single bin.
+     */
+    public static final int PREPARED_BIN_SIZE = TileRenderer.TILE_SIZE;
+    
+    
+    //Static Fields
+    
+    /**
+     * The cached rasters of all Instanced Objects, in least recently used order, with the number of pixels of each.
+     */
+    private static final Map<RasterBlock, Integer> rasterCache = new LinkedHashMap<>(16, 0.75f, true);
+    
+    /**
+     * The number of pixels of the cached rasters of all Instanced Objects.
+     */
+    private static long rasterCachePixels = 0;
+    
+    
+    //Fields
+    
+    /**
+     * The number of instances of the Instanced Object.
+     */
+    protected int instanceCount = 0;
+    
+    /**
+     * The offsets of the instances from the template, as packed x, y and z triples.
+     */
+    protected float[] offsets = new float[0];
+    
+    /**
+     * The ARGB colors of the instances.
+     */
+    protected int[] colors = new int[0];
+    
+    /**
+     * The indices of the images of the instances in the image table, or -1 for no image.
+     */
+    protected short[] images = new short[0];
+    
+    /**
+     * The images that are printed on instances.
+     */
+    protected final List<BufferedImage> imageTable = new ArrayList<>();
+    
+    /**
+     * The indices of the images in the image table.
+     */
+    private final Map<BufferedImage, Short> imageIndices = new IdentityHashMap<>();
+    
+    /**
+     * The bounds of the offsets of the instances, or null if they must be recalculated.
+     */
+    private volatile BoundingBox offsetBounds = null;
+    
+    /**
+     * The linear part of the preparation of the template, as the prepared x, y and z axes, used to prepare the offsets of the instances.
+     */
+    protected final double[] preparedBasis = new double[9];
+    
+    /**
+     * The number of instances that were projected onto the screen.
+     */
+    protected int preparedCount = 0;
+    
+    /**
+     * The indices of the instances that were projected onto the screen.
+     */
+    protected int[] preparedInstances = new int[0];
+    
+    /**
+     * The screen x coordinates of the vertices of the instances that were projected onto the screen.
+     */
+    protected int[] preparedX = new int[0];
+    
+    /**
+     * The screen y coordinates of the vertices of the instances that were projected onto the screen.
+     */
+    protected int[] preparedY = new int[0];
+    
+    /**
+     * The inverse view depths of the vertices of the instances that were projected onto the screen, if they were recorded.
+     */
+    protected float[] preparedInstanceDepths = new float[0];
+    
+    /**
+     * Whether the inverse view depths of the instances were recorded when they were projected.
+     */
+    protected boolean preparedInstanceDepthsRecorded = false;
+    
+    /**
+     * The number of screen bins across the screen that the projected instances are binned into, or 0 if they are not binned.
+     */
+    private int preparedBinsX = 0;
+    
+    /**
+     * The number of screen bins down the screen that the projected instances are binned into.
+     */
+    private int preparedBinsY = 0;
+    
+    /**
+     * The index of the first entry of each screen bin in the binned instances, in row major order, followed by the number of binned instances.
+     */
+    private int[] preparedBinStarts = new int[0];
+    
+    /**
+     * The indices of the projected instances that overlap each screen bin, in render order within each screen bin.
+     */
+    private int[] preparedBinInstances = new int[0];
+    
+    /**
+     * The cached color of the last instance color that was rendered.
+     */
+    private Color renderColor = null;
+    
+    /**
+     * The number of instances in each raster block, or 0 if the rendering of the Instanced Object is not cached in rasters.
+     */
+    protected int rasterBlockSize = 0;
+    
+    /**
+     * The cached rasters of the raster blocks, or null if the rendering of the Instanced Object is not cached in rasters.
+     */
+    private volatile RasterBlock[] rasterBlocks = null;
+    
+    /**
+     * The versions of the contents of the raster blocks, which change every time an instance in the raster block changes.
+     */
+    private AtomicLongArray rasterBlockVersions = new AtomicLongArray(0);
+    
+    /**
+     * The raster blocks whose instances are hidden, and are skipped before they are projected.
+     */
+    private final BitSet hiddenRasterBlocks = new BitSet();
+    
+    /**
+     * The cached rasters of the raster blocks that are blitted in the current frame, or null if no raster is blitted.
+     */
+    private RasterBlock[] frameRasters = null;
+    
+    /**
+     * The x translation of the view of the current frame, used to place the blitted rasters.
+     */
+    private int frameOffsetX = 0;
+    
+    /**
+     * The y translation of the view of the current frame, used to place the blitted rasters.
+     */
+    private int frameOffsetY = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for an Instanced Object.
+     *
+     * @param parent   The parent of the Instanced Object.
+     * @param color    The default color of the instances.
+     * @param vertices The vertices of the template geometry.
+     */
+    public InstancedObject(AbstractObject parent, Color color, Vector... vertices) {
+        super(parent, color, Vector.averageVector(vertices), vertices);
+    }
+    
+    /**
+     * The constructor for an Instanced Object.
+     *
+     * @param color    The default color of the instances.
+     * @param vertices The vertices of the template geometry.
+     */
+    public InstancedObject(Color color, Vector... vertices) {
+        this(null, color, vertices);
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Prepares the Instanced Object to be rendered.<br>
+     * The template is prepared as a BaseObject, and the offsets of the instances are prepared with the linear part of its preparation.
+     *
+     * @return The list of BaseObjects that were prepared.
+     */
+    @Override
+    public List<BaseObject> prepare() {
+        List<BaseObject> preparedBases = new ArrayList<>();
+        
+        prepareVertices();
+        calculatePreparedBasis(preparedBasis);
+        
+        preparedBases.add(this);
+        return preparedBases;
+    }
+    
+    /**
+     * Calculates the linear part of the preparation of the template.
+     *
+     * @param basis The array to store the prepared x, y and z axes in.
+     */
+    private void calculatePreparedBasis(double[] basis) {
+        Matrix4 transformation = getWorldTransform();
+        List<Vector> axes = new ArrayList<>(4);
+        for (Vector axis : new Vector[] {new Vector(0, 0, 0), new Vector(1, 0, 0), new Vector(0, 1, 0), new Vector(0, 0, 1)}) {
+            axes.add(((transformation == null) ? axis : transformation.transform(axis)).justify());
+        }
+        performRotationTransformation(axes);
+        
+        Vector origin = axes.get(0);
+        for (int i = 0; i < 3; i++) {
+            Vector axis = axes.get(i + 1).minus(origin);
+            basis[i * 3] = axis.getX();
+            basis[i * 3 + 1] = axis.getY();
+            basis[i * 3 + 2] = axis.getZ();
+        }
+    }
+    
+    /**
+     * Projects the instances of the Instanced Object to the screen with the active Camera view.<br>
+     * Instances with a vertex behind the Screen, or with no vertex in view, are skipped.
+     *
+     * @param recordDepths Whether or not to record the inverse view depths of the instances before they are projected.
+     * @return Whether or not any instance is visible on the screen.
+     */
+    @Override
+    protected boolean projectPrepared(boolean recordDepths) {
+        int n = vertices.length;
+        preparedCount = 0;
+        preparedBinsX = 0;
+        preparedInstanceDepthsRecorded = recordDepths;
+        if ((n == 0) || (prepared.size() != n)) {
+            return false;
+        }
+        
+        double[] template = new double[n * 3];
+        for (int k = 0; k < n; k++) {
+            Vector v = prepared.get(k);
+            template[k * 3] = v.getX();
+            template[k * 3 + 1] = v.getY();
+            template[k * 3 + 2] = v.getZ();
+        }
+        
+        float[] o = offsets;
+        int count = Math.min(instanceCount, o.length / 3);
+        boolean hiding = (rasterBlockSize > 0) && !hiddenRasterBlocks.isEmpty();
+        double[] b = preparedBasis;
+        double[] xyz = new double[n * 3];
+        for (int i = 0; i < count; i++) {
+            if (hiding && hiddenRasterBlocks.get(getRasterBlock(i))) {
+                continue;
+            }
+            
+            double ox = o[i * 3];
+            double oy = o[i * 3 + 1];
+            double oz = o[i * 3 + 2];
+            double dx = (b[0] * ox) + (b[3] * oy) + (b[6] * oz);
+            double dy = (b[1] * ox) + (b[4] * oy) + (b[7] * oz);
+            double dz = (b[2] * ox) + (b[5] * oy) + (b[8] * oz);
+            for (int k = 0; k < n * 3; k += 3) {
+                xyz[k] = template[k] + dx;
+                xyz[k + 1] = template[k + 1] + dy;
+                xyz[k + 2] = template[k + 2] + dz;
+            }
+            
+            if (Camera.hasCoordinateBehindScreen(xyz, n)) {
+                continue;
+            }
+            
+            ensurePreparedCapacity(preparedCount + 1, recordDepths);
+            if (recordDepths) {
+                Camera.calculateInverseDepths(xyz, n, preparedInstanceDepths, preparedCount * n);
+            }
+            if (Camera.projectCoordinatesToScreen(xyz, n, preparedX, preparedY, preparedCount * n)) {
+                preparedInstances[preparedCount++] = i;
+            }
+        }
+        
+        binPreparedInstances();
+        selectFrameRasters(template, recordDepths);
+        return preparedCount > 0;
+    }
+    
+    /**
+     * Bins the projected instances of the Instanced Object by the screen bins that their screen bounds overlap.<br>
+     * This is done once per frame, so that rendering each tile only visits the instances in its screen bin, instead of every projected instance.
+     */
+    private void binPreparedInstances() {
+        int n = vertices.length;
+        int binsX = Math.max(1, (Environment.sceneX + PREPARED_BIN_SIZE - 1) / PREPARED_BIN_SIZE);
+        int binsY = Math.max(1, (Environment.sceneY + PREPARED_BIN_SIZE - 1) / PREPARED_BIN_SIZE);
+        
+        int[] ranges = new int[preparedCount * 4];
+        int[] starts = new int[(binsX * binsY) + 1];
+        for (int j = 0; j < preparedCount; j++) {
+            int[] bounds = calculateInstanceBounds(preparedInstances[j], preparedX, preparedY, j * n);
+            int minBinX = Math.max(0, Math.floorDiv(bounds[0], PREPARED_BIN_SIZE));
+            int minBinY = Math.max(0, Math.floorDiv(bounds[1], PREPARED_BIN_SIZE));
+            int maxBinX = Math.min(binsX - 1, Math.floorDiv(bounds[2] - 1, PREPARED_BIN_SIZE));
+            int maxBinY = Math.min(binsY - 1, Math.floorDiv(bounds[3] - 1, PREPARED_BIN_SIZE));
+            ranges[j * 4] = minBinX;
+            ranges[j * 4 + 1] = minBinY;
+            ranges[j * 4 + 2] = maxBinX;
+            ranges[j * 4 + 3] = maxBinY;
+            for (int by = minBinY; by <= maxBinY; by++) {
+                for (int bx = minBinX; bx <= maxBinX; bx++) {
+                    starts[(by * binsX) + bx + 1]++;
+                }
+            }
+        }
+        for (int bin = 0; bin < (binsX * binsY); bin++) {
+            starts[bin + 1] += starts[bin];
+        }
+        
+        int[] binned = new int[starts[binsX * binsY]];
+        int[] next = Arrays.copyOf(starts, binsX * binsY);
+        for (int j = 0; j < preparedCount; j++) {
+            for (int by = ranges[j * 4 + 1]; by <= ranges[j * 4 + 3]; by++) {
+                for (int bx = ranges[j * 4]; bx <= ranges[j * 4 + 2]; bx++) {
+                    binned[next[(by * binsX) + bx]++] = j;
+                }
+            }
+        }
+        
+        preparedBinStarts = starts;
+        preparedBinInstances = binned;
+        preparedBinsX = binsX;
+        preparedBinsY = binsY;
+    }
+    
+    /**
+     * Selects the cached rasters that are valid for the view of the current frame.<br>
+     * Rasters are only used without a depth buffer, and while the view is an axis aligned orthographic view at the scale they were built at.
+     *
+     * @param template     The prepared coordinates of the template.
+     * @param recordDepths Whether the inverse view depths of the instances are recorded.
+     */
+    private void selectFrameRasters(double[] template, boolean recordDepths) {
+        frameRasters = null;
+        double[] view = Camera.getActiveOrthographicTransform();
+        if ((rasterBlocks == null) || recordDepths || !isRasterView(view)) {
+            return;
+        }
+        
+        double[] geometry = calculateRasterGeometry(template, preparedBasis);
+        long style = getRasterStyle();
+        boolean any = false;
+        synchronized (rasterCache) {
+            RasterBlock[] blocks = rasterBlocks;
+            RasterBlock[] selected = new RasterBlock[blocks.length];
+            for (int block = 0; block < blocks.length; block++) {
+                RasterBlock raster = blocks[block];
+                if ((raster != null) && (raster.image != null) && raster.matches(view, geometry, rasterBlockVersions.get(block), style)) {
+                    selected[block] = raster;
+                    rasterCache.get(raster);
+                    any = true;
+                }
+            }
+            frameRasters = any ? selected : null;
+        }
+        
+        frameOffsetX = (int) view[2];
+        frameOffsetY = (int) view[5];
+    }
+    
+    /**
+     * Determines the raster blocks of the Instanced Object that are in view, or are about to come into view, and whose cached rasters are not valid.
+     *
+     * @param view      The orthographic transformation of the current view.
+     * @param predicted The orthographic transformation of the predicted view.
+     * @param width     The width of the screen.
+     * @param height    The height of the screen.
+     * @return The raster blocks to build, those in the current view first.
+     */
+    public List<Integer> requestRasterBlocks(double[] view, double[] predicted, int width, int height) {
+        List<Integer> requested = new ArrayList<>();
+        RasterBlock[] blocks = rasterBlocks;
+        if ((blocks == null) || !isRasterView(view) || !isRasterView(predicted)) {
+            return requested;
+        }
+        
+        List<Vector> template = calculatePreparedVertices();
+        double[] basis = new double[9];
+        calculatePreparedBasis(basis);
+        double[] geometry = calculateRasterGeometry(flatten(template), basis);
+        BoundingBox templateBounds = new BoundingBox();
+        templateBounds.include(template);
+        long style = getRasterStyle();
+        
+        List<Integer> upcoming = new ArrayList<>();
+        int count = Math.min(getRasterBlockCount(), blocks.length);
+        for (int block = 0; block < count; block++) {
+            RasterBlock raster = blocks[block];
+            if (hiddenRasterBlocks.get(block) || ((raster != null) && raster.matches(view, geometry, rasterBlockVersions.get(block), style))) {
+                continue;
+            }
+            
+            BoundingBox bounds = calculateRasterBlockBounds(block, templateBounds, basis);
+            if (bounds.isEmpty()) {
+                continue;
+            }
+            if (isRasterBlockInView(bounds, view, width, height)) {
+                requested.add(block);
+            } else if (isRasterBlockInView(bounds, predicted, width, height)) {
+                upcoming.add(block);
+            }
+        }
+        
+        requested.addAll(upcoming);
+        return requested;
+    }
+    
+    /**
+     * Builds the cached raster of a raster block of the Instanced Object, at the scale of an orthographic transformation.<br>
+     * This is done off of the render thread, and the raster is discarded if the view is zoomed while it is being built.
+     *
+     * @param block The raster block.
+     * @param view  The orthographic transformation of the view to build the raster for.
+     */
+    public void buildRasterBlock(int block, double[] view) {
+        if ((rasterBlocks == null) || (block >= rasterBlocks.length) || !isRasterView(view)) {
+            return;
+        }
+        
+        long version = rasterBlockVersions.get(block);
+        long style = getRasterStyle();
+        List<Vector> template = calculatePreparedVertices();
+        double[] basis = new double[9];
+        calculatePreparedBasis(basis);
+        double[] templateCoordinates = flatten(template);
+        double[] geometry = calculateRasterGeometry(templateCoordinates, basis);
+        
+        int n = template.size();
+        int[] instances = getRasterBlockInstances(block);
+        int[] xs = new int[instances.length * n];
+        int[] ys = new int[instances.length * n];
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        boolean opaque = true;
+        float[] o = offsets;
+        for (int j = 0; j < instances.length; j++) {
+            int i = instances[j];
+            double dx = (basis[0] * o[i * 3]) + (basis[3] * o[i * 3 + 1]) + (basis[6] * o[i * 3 + 2]);
+            double dy = (basis[1] * o[i * 3]) + (basis[4] * o[i * 3 + 1]) + (basis[7] * o[i * 3 + 2]);
+            for (int k = 0; k < n; k++) {
+                int x = (int) Math.round(view[0] * (templateCoordinates[k * 3] + dx));
+                int y = (int) Math.round(view[4] * (templateCoordinates[k * 3 + 1] + dy));
+                xs[j * n + k] = x;
+                ys[j * n + k] = y;
+                minX = Math.min(minX, x);
+                minY = Math.min(minY, y);
+                maxX = Math.max(maxX, x);
+                maxY = Math.max(maxY, y);
+            }
+            opaque &= (colors[i] >>> 24) == 0xFF;
+        }
+        
+        BufferedImage image = null;
+        long pixels = (instances.length == 0) ? 0 : ((long) (maxX - minX + 2) * (maxY - minY + 2));
+        if (opaque && (pixels > 0) && (pixels <= (RASTER_CACHE_BUDGET / 4))) {
+            image = new BufferedImage(maxX - minX + 2, maxY - minY + 2, BufferedImage.TYPE_INT_ARGB);
+            Rasterizer rasterizer = new Rasterizer(image);
+            int[] instanceX = new int[n];
+            int[] instanceY = new int[n];
+            for (int pass = 0; pass < 2; pass++) {
+                for (int j = 0; j < instances.length; j++) {
+                    for (int k = 0; k < n; k++) {
+                        instanceX[k] = xs[j * n + k] - minX;
+                        instanceY[k] = ys[j * n + k] - minY;
+                    }
+                    if (pass == 0) {
+                        renderInstance(rasterizer, instances[j], instanceX, instanceY, null, false);
+                    } else if (hasVisibleFrame()) {
+                        renderOutline(rasterizer, instanceX, instanceY, null, frame.getColor());
+                    }
+                }
+            }
+        }
+        
+        if (!hasSameScale(Camera.getActiveOrthographicTransform(), view)) {
+            return;
+        }
+        installRaster(new RasterBlock(this, block, image, minX, minY, view[0], view[4], geometry, version, style));
+    }
+    
+    /**
+     * Calculates the prepared bounds of the instances in a raster block of the Instanced Object.
+     *
+     * @param block          The raster block.
+     * @param templateBounds The bounds of the prepared template.
+     * @param basis          The linear part of the preparation of the template.
+     * @return The prepared bounds of the instances in the raster block.
+     */
+    private BoundingBox calculateRasterBlockBounds(int block, BoundingBox templateBounds, double[] basis) {
+        BoundingBox bounds = new BoundingBox();
+        float[] o = offsets;
+        for (int i : getRasterBlockInstances(block)) {
+            double dx = (basis[0] * o[i * 3]) + (basis[3] * o[i * 3 + 1]) + (basis[6] * o[i * 3 + 2]);
+            double dy = (basis[1] * o[i * 3]) + (basis[4] * o[i * 3 + 1]) + (basis[7] * o[i * 3 + 2]);
+            bounds.include(templateBounds.minX + dx, templateBounds.minY + dy, 0);
+            bounds.include(templateBounds.maxX + dx, templateBounds.maxY + dy, 0);
+        }
+        return bounds;
+    }
+    
+    /**
+     * Installs a built raster as the cached raster of its raster block, evicting the least recently used rasters of all Instanced Objects while over budget.
+     *
+     * @param raster The raster.
+     */
+    private void installRaster(RasterBlock raster) {
+        synchronized (rasterCache) {
+            RasterBlock[] blocks = rasterBlocks;
+            if ((blocks == null) || (raster.block >= blocks.length)) {
+                return;
+            }
+            
+            RasterBlock old = blocks[raster.block];
+            if (old != null) {
+                Integer size = rasterCache.remove(old);
+                rasterCachePixels -= (size == null) ? 0 : size;
+            }
+            blocks[raster.block] = raster;
+            int size = (raster.image == null) ? 0 : (raster.image.getWidth() * raster.image.getHeight());
+            rasterCache.put(raster, size);
+            rasterCachePixels += size;
+            
+            Iterator<Map.Entry<RasterBlock, Integer>> iterator = rasterCache.entrySet().iterator();
+            while ((rasterCachePixels > RASTER_CACHE_BUDGET) && iterator.hasNext()) {
+                Map.Entry<RasterBlock, Integer> eldest = iterator.next();
+                RasterBlock evicted = eldest.getKey();
+                if ((evicted.owner.rasterBlocks != null) && (evicted.block < evicted.owner.rasterBlocks.length) && (evicted.owner.rasterBlocks[evicted.block] == evicted)) {
+                    evicted.owner.rasterBlocks[evicted.block] = null;
+                }
+                rasterCachePixels -= eldest.getValue();
+                iterator.remove();
+            }
+        }
+    }
+    
+    /**
+     * Invalidates the cached raster of the raster block containing an instance.
+     *
+     * @param instance The index of the instance.
+     */
+    protected void markRasterBlockChanged(int instance) {
+        if (rasterBlockSize > 0) {
+            int block = getRasterBlock(instance);
+            if (block < rasterBlockVersions.length()) {
+                rasterBlockVersions.incrementAndGet(block);
+            }
+        }
+    }
+    
+    /**
+     * Grows the raster blocks of the Instanced Object to cover all of its instances.
+     */
+    private void ensureRasterBlocks() {
+        if (rasterBlockSize <= 0) {
+            return;
+        }
+        
+        int count = getRasterBlockCount();
+        synchronized (rasterCache) {
+            if ((rasterBlocks == null) || (rasterBlocks.length < count)) {
+                rasterBlocks = (rasterBlocks == null) ? new RasterBlock[count] : Arrays.copyOf(rasterBlocks, Math.max(count, rasterBlocks.length * 2));
+                AtomicLongArray versions = new AtomicLongArray(rasterBlocks.length);
+                for (int block = 0; block < rasterBlockVersions.length(); block++) {
+                    versions.set(block, rasterBlockVersions.get(block));
+                }
+                rasterBlockVersions = versions;
+            }
+        }
+    }
+    
+    /**
+     * Grows the arrays of the projected instances to hold a number of instances.
+     *
+     * @param capacity     The number of instances.
+     * @param recordDepths Whether the inverse view depths of the instances are recorded.
+     */
+    private void ensurePreparedCapacity(int capacity, boolean recordDepths) {
+        int n = vertices.length;
+        if (preparedInstances.length < capacity) {
+            int size = Math.max(capacity, preparedInstances.length * 2);
+            preparedInstances = Arrays.copyOf(preparedInstances, size);
+            preparedX = Arrays.copyOf(preparedX, size * n);
+            preparedY = Arrays.copyOf(preparedY, size * n);
+        }
+        if (recordDepths && (preparedInstanceDepths.length < preparedX.length)) {
+            preparedInstanceDepths = Arrays.copyOf(preparedInstanceDepths, preparedX.length);
+        }
+    }
+    
+    /**
+     * Renders the instances of the Instanced Object on the screen.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    @Override
+    public void render(Graphics2D g2) {
+        int n = vertices.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        for (int j = 0; j < preparedCount; j++) {
+            int instance = preparedInstances[j];
+            System.arraycopy(preparedX, j * n, xs, 0, n);
+            System.arraycopy(preparedY, j * n, ys, 0, n);
+            
+            g2.setColor(getRenderColor(colors[instance]));
+            switch (displayMode) {
+                case VERTEX:
+                    for (int k = 0; k < n; k++) {
+                        g2.drawRect(xs[k], ys[k], 1, 1);
+                    }
+                    break;
+                
+                case EDGE:
+                    g2.drawPolygon(xs, ys, n);
+                    break;
+                
+                case FACE:
+                    if (n >= 3) {
+                        g2.fillPolygon(xs, ys, n);
+                    }
+                    BufferedImage image = getImage(images[instance]);
+                    if ((image != null) && (n >= 4) && QualityGovernor.isImageDrawn(Math.abs(xs[1] - xs[0]), Math.abs(ys[3] - ys[0]))) {
+                        g2.drawImage(image, xs[0], ys[0], Math.abs(xs[1] - xs[0]), Math.abs(ys[3] - ys[0]), null);
+                    }
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Renders the instances of the Instanced Object on the screen with the software Rasterizer.<br>
+     * Instances outside the clip of the Rasterizer are skipped, and instances in raster blocks with a valid cached raster are blitted from the raster.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        RasterBlock[] rasters = (rasterizer.getPaintOverride() == null) ? frameRasters : null;
+        BitSet blitted = (rasters == null) ? null : new BitSet(rasters.length);
+        
+        int n = vertices.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        float[] depths = preparedInstanceDepthsRecorded ? new float[n] : null;
+        for (int j : getPreparedInstancesInClip(rasterizer)) {
+            int instance = preparedInstances[j];
+            if (rasters != null) {
+                int block = getRasterBlock(instance);
+                RasterBlock raster = getFrameRaster(rasters, block);
+                if (raster != null) {
+                    if (!blitted.get(block)) {
+                        blitted.set(block);
+                        if (raster.image != null) {
+                            rasterizer.drawImage(raster.image, raster.originX + frameOffsetX, raster.originY + frameOffsetY, raster.image.getWidth(), raster.image.getHeight());
+                        }
+                    }
+                    continue;
+                }
+            }
+            
+            if (loadPreparedInstance(rasterizer, j, xs, ys, depths)) {
+                renderInstance(rasterizer, instance, xs, ys, depths, true);
+            }
+        }
+    }
+    
+    /**
+     * Renders an instance of the Instanced Object with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @param instance   The index of the instance.
+     * @param xs         The screen x coordinates of the vertices of the instance.
+     * @param ys         The screen y coordinates of the vertices of the instance.
+     * @param depths     The inverse view depths of the vertices of the instance, or null if they were not recorded.
+     * @param governed   Whether the image of the instance is subject to the render quality of the frame, or is always drawn otherwise.
+     */
+    private void renderInstance(Rasterizer rasterizer, int instance, int[] xs, int[] ys, float[] depths, boolean governed) {
+        int n = vertices.length;
+        Color color = getRenderColor(colors[instance]);
+        switch (displayMode) {
+            case VERTEX:
+                for (int k = 0; k < n; k++) {
+                    rasterizer.fillRect(xs[k], ys[k], 2, 2, getDepth(depths, k), color);
+                }
+                break;
+            
+            case EDGE:
+                renderOutline(rasterizer, xs, ys, depths, color);
+                break;
+            
+            case FACE:
+                if (n >= 3) {
+                    rasterizer.fillPolygon(xs, ys, depths, n, color);
+                }
+                BufferedImage image = getImage(images[instance]);
+                if ((image != null) && (n >= 4) && (!governed || QualityGovernor.isImageDrawn(Math.abs(xs[1] - xs[0]), Math.abs(ys[3] - ys[0])))) {
+                    rasterizer.drawImage(image, xs[0], ys[0], Math.abs(xs[1] - xs[0]), Math.abs(ys[3] - ys[0]), getNearestDepth(depths));
+                }
+                break;
+        }
+    }
+    
+    /**
+     * Draws the outline of an instance of the Instanced Object with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @param xs         The screen x coordinates of the vertices of the instance.
+     * @param ys         The screen y coordinates of the vertices of the instance.
+     * @param depths     The inverse view depths of the vertices of the instance, or null if they were not recorded.
+     * @param color      The color of the outline.
+     */
+    private void renderOutline(Rasterizer rasterizer, int[] xs, int[] ys, float[] depths, Color color) {
+        int n = vertices.length;
+        for (int k = 0; k < n; k++) {
+            int next = (k + 1) % n;
+            rasterizer.drawLine(xs[k], ys[k], xs[next], ys[next], getDepth(depths, k), getDepth(depths, next), color);
+        }
+    }
+    
+    /**
+     * Draws the frame of each instance of the Instanced Object.<br>
+     * Frames are not drawn at minimal render quality.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        if (!hasVisibleFrame() || (QualityGovernor.getQuality() == QualityGovernor.Quality.MINIMAL)) {
+            return;
+        }
+        
+        int n = vertices.length;
+        g2.setColor(frame.getColor());
+        for (int j = 0; j < preparedCount; j++) {
+            for (int k = 0; k < n; k++) {
+                int next = (k + 1) % n;
+                g2.drawLine(preparedX[j * n + k], preparedY[j * n + k], preparedX[j * n + next], preparedY[j * n + next]);
+            }
+        }
+    }
+    
+    /**
+     * Draws the frame of each instance of the Instanced Object with the software Rasterizer.<br>
+     * The frames of instances that were blitted from a cached raster are part of the raster, and other frames are not drawn at minimal render quality.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void renderFrame(Rasterizer rasterizer) {
+        if (!hasVisibleFrame() || (QualityGovernor.getQuality() == QualityGovernor.Quality.MINIMAL)) {
+            return;
+        }
+        RasterBlock[] rasters = (rasterizer.getPaintOverride() == null) ? frameRasters : null;
+        
+        int n = vertices.length;
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        float[] depths = preparedInstanceDepthsRecorded ? new float[n] : null;
+        Color color = frame.getColor();
+        for (int j : getPreparedInstancesInClip(rasterizer)) {
+            if ((rasters != null) && (getFrameRaster(rasters, getRasterBlock(preparedInstances[j])) != null)) {
+                continue;
+            }
+            if (loadPreparedInstance(rasterizer, j, xs, ys, depths)) {
+                renderOutline(rasterizer, xs, ys, depths, color);
+            }
+        }
+    }
+    
+    /**
+     * Determines whether the Instanced Object has a frame that is drawn.
+     *
+     * @return Whether the Instanced Object has a frame that is drawn or not.
+     */
+    private boolean hasVisibleFrame() {
+        return (frame != null) && frame.visible && (displayMode != DisplayMode.VERTEX) && (vertices.length >= 2);
+    }
+    
+    /**
+     * Calculates the screen bounds of an instance of the Instanced Object with the active Camera view, without projecting the other instances.
+     *
+     * @param instance The index of the instance.
+     * @return The screen bounds of the instance, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive, or null if the instance is behind the Screen.
+     */
+    public int[] calculateInstanceBounds(int instance) {
+        int n = vertices.length;
+        List<Vector> template = prepared;
+        if ((n == 0) || (template.size() != n) || (instance < 0) || (instance >= instanceCount)) {
+            return null;
+        }
+        
+        float[] o = offsets;
+        double[] b = preparedBasis;
+        double dx = (b[0] * o[instance * 3]) + (b[3] * o[instance * 3 + 1]) + (b[6] * o[instance * 3 + 2]);
+        double dy = (b[1] * o[instance * 3]) + (b[4] * o[instance * 3 + 1]) + (b[7] * o[instance * 3 + 2]);
+        double dz = (b[2] * o[instance * 3]) + (b[5] * o[instance * 3 + 1]) + (b[8] * o[instance * 3 + 2]);
+        double[] xyz = new double[n * 3];
+        for (int k = 0; k < n; k++) {
+            Vector v = template.get(k);
+            xyz[k * 3] = v.getX() + dx;
+            xyz[k * 3 + 1] = v.getY() + dy;
+            xyz[k * 3 + 2] = v.getZ() + dz;
+        }
+        if (Camera.hasCoordinateBehindScreen(xyz, n)) {
+            return null;
+        }
+        
+        int[] xs = new int[n];
+        int[] ys = new int[n];
+        Camera.projectCoordinatesToScreen(xyz, n, xs, ys, 0);
+        return calculateInstanceBounds(instance, xs, ys, 0);
+    }
+    
+    /**
+     * Calculates the screen bounds of an instance from its screen coordinates.
+     *
+     * @param instance The index of the instance.
+     * @param xs       The screen x coordinates.
+     * @param ys       The screen y coordinates.
+     * @param p        The index of the first screen coordinate of the instance.
+     * @return The screen bounds of the instance, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    protected int[] calculateInstanceBounds(int instance, int[] xs, int[] ys, int p) {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int k = p; k < p + vertices.length; k++) {
+            minX = Math.min(minX, xs[k]);
+            minY = Math.min(minY, ys[k]);
+            maxX = Math.max(maxX, xs[k]);
+            maxY = Math.max(maxY, ys[k]);
+        }
+        return new int[] {minX - 1, minY - 1, maxX + 2, maxY + 2};
+    }
+    
+    /**
+     * Loads the screen coordinates of a projected instance, if it intersects the clip of a Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @param j          The index of the projected instance.
+     * @param xs         The array to store the screen x coordinates of the instance in.
+     * @param ys         The array to store the screen y coordinates of the instance in.
+     * @param depths     The array to store the inverse view depths of the instance in, or null if they were not recorded.
+     * @return Whether the instance intersects the clip of the Rasterizer or not.
+     */
+    protected boolean loadPreparedInstance(Rasterizer rasterizer, int j, int[] xs, int[] ys, float[] depths) {
+        int n = vertices.length;
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int k = 0; k < n; k++) {
+            xs[k] = preparedX[j * n + k];
+            ys[k] = preparedY[j * n + k];
+            minX = Math.min(minX, xs[k]);
+            minY = Math.min(minY, ys[k]);
+            maxX = Math.max(maxX, xs[k]);
+            maxY = Math.max(maxY, ys[k]);
+        }
+        if (!rasterizer.intersectsClip(minX - 1, minY - 1, maxX + 2, maxY + 2)) {
+            return false;
+        }
+        
+        if (depths != null) {
+            System.arraycopy(preparedInstanceDepths, j * n, depths, 0, n);
+        }
+        return true;
+    }
+    
+    /**
+     * Picks the instance at a point on the screen, from the instances that were last projected.<br>
+     * When instances overlap, the one that was rendered last is picked.
+     *
+     * @param x The x coordinate on the screen.
+     * @param y The y coordinate on the screen.
+     * @return The index of the instance at the point, or -1 if there is none.
+     */
+    public int pickInstance(int x, int y) {
+        int n = vertices.length;
+        if (n < 3) {
+            return -1;
+        }
+        
+        for (int j = preparedCount - 1; j >= 0; j--) {
+            boolean inside = false;
+            for (int k = 0, prev = n - 1; k < n; prev = k++) {
+                int xk = preparedX[j * n + k];
+                int yk = preparedY[j * n + k];
+                int xp = preparedX[j * n + prev];
+                int yp = preparedY[j * n + prev];
+                if (((yk > y) != (yp > y)) && (x < ((double) (xp - xk) * (y - yk) / (yp - yk)) + xk)) {
+                    inside = !inside;
+                }
+            }
+            if (inside) {
+                return preparedInstances[j];
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Adds an instance to the Instanced Object, with the default color and no image.
+     *
+     * @param x The x offset of the instance from the template.
+     * @param y The y offset of the instance from the template.
+     * @param z The z offset of the instance from the template.
+     * @return The index of the instance.
+     */
+    public synchronized int addInstance(double x, double y, double z) {
+        if (instanceCount == colors.length) {
+            int size = Math.max(16, colors.length * 2);
+            offsets = Arrays.copyOf(offsets, size * 3);
+            colors = Arrays.copyOf(colors, size);
+            images = Arrays.copyOf(images, size);
+        }
+        
+        int instance = instanceCount;
+        offsets[instance * 3] = (float) x;
+        offsets[instance * 3 + 1] = (float) y;
+        offsets[instance * 3 + 2] = (float) z;
+        colors[instance] = color.getRGB();
+        images[instance] = -1;
+        instanceCount++;
+        
+        ensureRasterBlocks();
+        markRasterBlockChanged(instance);
+        offsetBounds = null;
+        markGeometryChanged();
+        return instance;
+    }
+    
+    /**
+     * Removes all of the instances from the Instanced Object.
+     */
+    public synchronized void clearInstances() {
+        instanceCount = 0;
+        offsets = new float[0];
+        colors = new int[0];
+        images = new short[0];
+        
+        for (int block = 0; block < rasterBlockVersions.length(); block++) {
+            rasterBlockVersions.incrementAndGet(block);
+        }
+        hiddenRasterBlocks.clear();
+        offsetBounds = null;
+        markGeometryChanged();
+    }
+    
+    /**
+     * Calculates the distance from the Camera to the farthest point of the instances of the Instanced Object.
+     *
+     * @return The distance from the Camera to the Instanced Object.
+     */
+    @Override
+    public double calculateRenderDistance() {
+        Camera cam = Camera.getActiveCameraView();
+        if (prepared.isEmpty() || (cam == null) || (instanceCount == 0)) {
+            return 0;
+        }
+        
+        Vector pos = cam.getCameraPosition();
+        double max = 0;
+        for (Vector corner : calculateCorners(prepared, preparedBasis)) {
+            max = Math.max(max, corner.distance(pos));
+        }
+        renderDistance = max;
+        return renderDistance;
+    }
+    
+    /**
+     * Grows a Bounding Box to include the prepared instances of the Instanced Object.
+     *
+     * @param bounds The Bounding Box.
+     */
+    @Override
+    public void calculateBounds(BoundingBox bounds) {
+        if (instanceCount == 0) {
+            return;
+        }
+        
+        double[] basis = new double[9];
+        calculatePreparedBasis(basis);
+        bounds.include(calculateCorners(calculatePreparedVertices(), basis));
+    }
+    
+    /**
+     * Calculates the corners of the hull of the prepared instances, as each prepared template vertex offset by each corner of the bounds of the offsets.
+     *
+     * @param template The prepared vertices of the template.
+     * @param basis    The linear part of the preparation of the template.
+     * @return The corners of the hull of the prepared instances.
+     */
+    private List<Vector> calculateCorners(List<Vector> template, double[] basis) {
+        BoundingBox box = getOffsetBounds();
+        List<Vector> corners = new ArrayList<>(template.size() * 8);
+        for (int c = 0; c < 8; c++) {
+            double ox = ((c & 1) == 0) ? box.minX : box.maxX;
+            double oy = ((c & 2) == 0) ? box.minY : box.maxY;
+            double oz = ((c & 4) == 0) ? box.minZ : box.maxZ;
+            Vector offset = new Vector(
+                    (basis[0] * ox) + (basis[3] * oy) + (basis[6] * oz),
+                    (basis[1] * ox) + (basis[4] * oy) + (basis[7] * oz),
+                    (basis[2] * ox) + (basis[5] * oy) + (basis[8] * oz));
+            for (Vector v : template) {
+                corners.add(v.plus(offset));
+            }
+        }
+        return corners;
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the screen bounds of the projected instances of the Instanced Object.
+     *
+     * @return The screen bounds of the projected instances, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    @Override
+    public int[] getPreparedBounds() {
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < preparedCount * vertices.length; i++) {
+            minX = Math.min(minX, preparedX[i]);
+            minY = Math.min(minY, preparedY[i]);
+            maxX = Math.max(maxX, preparedX[i]);
+            maxY = Math.max(maxY, preparedY[i]);
+        }
+        return new int[] {minX - 1, minY - 1, maxX + 2, maxY + 2};
+    }
+    
+    /**
+     * Returns the projected instances that may intersect the clip of a Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @return The indices of the projected instances that may intersect the clip, in render order.
+     */
+    protected int[] getPreparedInstancesInClip(Rasterizer rasterizer) {
+        int[] clip = rasterizer.getClip();
+        return getPreparedInstancesInRegion(clip[0], clip[1], clip[2], clip[3]);
+    }
+    
+    /**
+     * Returns the projected instances that may intersect the clip of a Graphics entity.
+     *
+     * @param g2 The 2D Graphics entity.
+     * @return The indices of the projected instances that may intersect the clip, in render order.
+     */
+    protected int[] getPreparedInstancesInClip(Graphics2D g2) {
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) {
+            return getPreparedInstancesInRegion(Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE);
+        }
+        return getPreparedInstancesInRegion(clip.x, clip.y, (clip.x + clip.width), (clip.y + clip.height));
+    }
+    
+    /**
+     * Returns the projected instances that may intersect a region of the screen.<br>
+     * When the region is within a single screen bin, such as a tile of the Tile Renderer, only the projected instances in that screen bin are returned, otherwise all of the projected instances are.
+     *
+     * @param minX The minimum x coordinate of the region.
+     * @param minY The minimum y coordinate of the region.
+     * @param maxX The maximum x coordinate of the region, exclusive.
+     * @param maxY The maximum y coordinate of the region, exclusive.
+     * @return The indices of the projected instances that may intersect the region, in render order.
+     */
+    private int[] getPreparedInstancesInRegion(int minX, int minY, int maxX, int maxY) {
+        int binX = Math.floorDiv(minX, PREPARED_BIN_SIZE);
+        int binY = Math.floorDiv(minY, PREPARED_BIN_SIZE);
+        if ((preparedBinsX == 0) || (binX != Math.floorDiv(maxX - 1, PREPARED_BIN_SIZE)) || (binY != Math.floorDiv(maxY - 1, PREPARED_BIN_SIZE))) {
+            int[] all = new int[preparedCount];
+            for (int j = 0; j < preparedCount; j++) {
+                all[j] = j;
+            }
+            return all;
+        }
+        
+        if ((binX < 0) || (binX >= preparedBinsX) || (binY < 0) || (binY >= preparedBinsY)) {
+            return new int[0];
+        }
+        int bin = (binY * preparedBinsX) + binX;
+        return Arrays.copyOfRange(preparedBinInstances, preparedBinStarts[bin], preparedBinStarts[bin + 1]);
+    }
+    
+    /**
+     * Returns the number of instances of the Instanced Object.
+     *
+     * @return The number of instances of the Instanced Object.
+     */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+    
+    /**
+     * Returns the offset of an instance from the template.
+     *
+     * @param instance The index of the instance.
+     * @return The offset of the instance from the template.
+     */
+    public Vector getInstanceOffset(int instance) {
+        return new Vector(offsets[instance * 3], offsets[instance * 3 + 1], offsets[instance * 3 + 2]);
+    }
+    
+    /**
+     * Returns the color of an instance.
+     *
+     * @param instance The index of the instance.
+     * @return The color of the instance.
+     */
+    public Color getInstanceColor(int instance) {
+        return new Color(colors[instance], true);
+    }
+    
+    /**
+     * Returns the image printed on an instance.
+     *
+     * @param instance The index of the instance.
+     * @return The image printed on the instance, or null if there is none.
+     */
+    public BufferedImage getInstanceImage(int instance) {
+        return getImage(images[instance]);
+    }
+    
+    /**
+     * Returns an image from the image table.
+     *
+     * @param index The index of the image in the image table.
+     * @return The image, or null if the index is -1.
+     */
+    private BufferedImage getImage(short index) {
+        return (index < 0) ? null : imageTable.get(index);
+    }
+    
+    /**
+     * Returns the bounds of the offsets of the instances, recalculating them if they have changed.
+     *
+     * @return The bounds of the offsets of the instances.
+     */
+    private BoundingBox getOffsetBounds() {
+        BoundingBox box = offsetBounds;
+        if (box == null) {
+            box = new BoundingBox();
+            float[] o = offsets;
+            int count = Math.min(instanceCount, o.length / 3);
+            for (int i = 0; i < count; i++) {
+                box.include(o[i * 3], o[i * 3 + 1], o[i * 3 + 2]);
+            }
+            offsetBounds = box;
+        }
+        return box;
+    }
+    
+    /**
+     * Returns the color to render an instance color with, reusing the last color when it is the same.
+     *
+     * @param argb The ARGB color of the instance.
+     * @return The color to render the instance with.
+     */
+    private Color getRenderColor(int argb) {
+        Color cached = renderColor;
+        if ((cached == null) || (cached.getRGB() != argb)) {
+            cached = new Color(argb, true);
+            renderColor = cached;
+        }
+        return cached;
+    }
+    
+    /**
+     * Returns the raster block containing an instance.<br>
+     * By default, raster blocks are runs of consecutive instances.
+     *
+     * @param instance The index of the instance.
+     * @return The raster block containing the instance.
+     */
+    protected int getRasterBlock(int instance) {
+        return instance / rasterBlockSize;
+    }
+    
+    /**
+     * Returns the number of raster blocks of the Instanced Object.
+     *
+     * @return The number of raster blocks of the Instanced Object.
+     */
+    protected int getRasterBlockCount() {
+        return (instanceCount + rasterBlockSize - 1) / rasterBlockSize;
+    }
+    
+    /**
+     * Returns the instances in a raster block.
+     *
+     * @param block The raster block.
+     * @return The indices of the instances in the raster block.
+     */
+    protected int[] getRasterBlockInstances(int block) {
+        int first = block * rasterBlockSize;
+        int last = Math.min(instanceCount, first + rasterBlockSize);
+        int[] instances = new int[Math.max(0, last - first)];
+        for (int i = 0; i < instances.length; i++) {
+            instances[i] = first + i;
+        }
+        return instances;
+    }
+    
+    /**
+     * Returns the cached raster of a raster block for the current frame, if it is still valid.<br>
+     * A raster selected for the frame becomes stale when its raster block changes, and the frame is partially repainted before the next projection.
+     *
+     * @param rasters The cached rasters of the raster blocks selected for the frame.
+     * @param block   The raster block.
+     * @return The cached raster of the raster block, or null if there is none or it is stale.
+     */
+    private RasterBlock getFrameRaster(RasterBlock[] rasters, int block) {
+        RasterBlock raster = rasters[block];
+        return ((raster != null) && (raster.version == rasterBlockVersions.get(block))) ? raster : null;
+    }
+    
+    /**
+     * Returns the style that the rasters of the Instanced Object are drawn with, as the display mode and the color of the frame.
+     *
+     * @return The style that the rasters of the Instanced Object are drawn with.
+     */
+    private long getRasterStyle() {
+        long style = (long) displayMode.ordinal() << 33;
+        if (hasVisibleFrame()) {
+            style |= (1L << 32) | (frame.getColor().getRGB() & 0xFFFFFFFFL);
+        }
+        return style;
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the offset of an instance from the template.
+     *
+     * @param instance The index of the instance.
+     * @param x        The x offset of the instance from the template.
+     * @param y        The y offset of the instance from the template.
+     * @param z        The z offset of the instance from the template.
+     */
+    public void setInstanceOffset(int instance, double x, double y, double z) {
+        offsets[instance * 3] = (float) x;
+        offsets[instance * 3 + 1] = (float) y;
+        offsets[instance * 3 + 2] = (float) z;
+        
+        markRasterBlockChanged(instance);
+        offsetBounds = null;
+        markGeometryChanged();
+    }
+    
+    /**
+     * Sets the color of an instance.
+     *
+     * @param instance The index of the instance.
+     * @param color    The color of the instance.
+     */
+    public void setInstanceColor(int instance, Color color) {
+        colors[instance] = color.getRGB();
+        markRasterBlockChanged(instance);
+    }
+    
+    /**
+     * Sets the image printed on an instance.
+     *
+     * @param instance The index of the instance.
+     * @param image    The image printed on the instance, or null for no image.
+     */
+    public synchronized void setInstanceImage(int instance, BufferedImage image) {
+        markRasterBlockChanged(instance);
+        if (image == null) {
+            images[instance] = -1;
+            return;
+        }
+        
+        Short index = imageIndices.get(image);
+        if (index == null) {
+            index = (short) imageTable.size();
+            imageTable.add(image);
+            imageIndices.put(image, index);
+        }
+        images[instance] = index;
+    }
+    
+    /**
+     * Sets the number of instances in each raster block, and enables caching the rendering of the raster blocks in rasters.
+     *
+     * @param rasterBlockSize The number of instances in each raster block, or 0 to disable the cached rasters.
+     */
+    public void setRasterBlockSize(int rasterBlockSize) {
+        synchronized (rasterCache) {
+            this.rasterBlockSize = Math.max(0, rasterBlockSize);
+            rasterBlocks = null;
+            rasterBlockVersions = new AtomicLongArray(0);
+            frameRasters = null;
+        }
+        hiddenRasterBlocks.clear();
+        ensureRasterBlocks();
+    }
+    
+    /**
+     * Sets whether the instances of a raster block are hidden.<br>
+     * The instances of a hidden raster block are skipped before they are projected, so they are not rendered or picked, and cost nothing to render.
+     *
+     * @param block  The raster block.
+     * @param hidden Whether the instances of the raster block are hidden.
+     */
+    protected void setRasterBlockHidden(int block, boolean hidden) {
+        hiddenRasterBlocks.set(block, hidden);
+        markGeometryChanged();
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Returns an inverse view depth, if depths were recorded.
+     *
+     * @param depths The inverse view depths, or null if they were not recorded.
+     * @param k      The index of the depth.
+     * @return The inverse view depth, or NaN if depths were not recorded.
+     */
+    private static float getDepth(float[] depths, int k) {
+        return (depths == null) ? Float.NaN : depths[k];
+    }
+    
+    /**
+     * Returns the nearest inverse view depth, if depths were recorded.
+     *
+     * @param depths The inverse view depths, or null if they were not recorded.
+     * @return The nearest inverse view depth, or NaN if depths were not recorded.
+     */
+    private static float getNearestDepth(float[] depths) {
+        if (depths == null) {
+            return Float.NaN;
+        }
+        
+        float nearest = 0;
+        for (float depth : depths) {
+            nearest = Math.max(nearest, depth);
+        }
+        return nearest;
+    }
+    
+    /**
+     * Determines whether cached rasters can be used with an orthographic transformation.
+     *
+     * @param view The orthographic transformation, or null.
+     * @return Whether cached rasters can be used with the orthographic transformation.
+     */
+    private static boolean isRasterView(double[] view) {
+        return (view != null) && (view[1] == 0) && (view[3] == 0);
+    }
+    
+    /**
+     * Determines whether two orthographic transformations have the same scale, so that cached rasters built for one can be used with the other.
+     *
+     * @param view1 The first orthographic transformation, or null.
+     * @param view2 The second orthographic transformation, or null.
+     * @return Whether the orthographic transformations have the same scale.
+     */
+    public static boolean hasSameScale(double[] view1, double[] view2) {
+        return (view1 != null) && (view2 != null) &&
+                (Math.abs(view1[0] - view2[0]) <= (Math.abs(view2[0]) * RASTER_SCALE_PRECISION)) &&
+                (Math.abs(view1[4] - view2[4]) <= (Math.abs(view2[4]) * RASTER_SCALE_PRECISION));
+    }
+    
+    /**
+     * Determines whether the prepared bounds of a raster block are on the screen with an orthographic transformation.
+     *
+     * @param bounds The prepared bounds of the raster block.
+     * @param view   The orthographic transformation.
+     * @param width  The width of the screen.
+     * @param height The height of the screen.
+     * @return Whether the raster block is on the screen.
+     */
+    private static boolean isRasterBlockInView(BoundingBox bounds, double[] view, int width, int height) {
+        double x1 = (view[0] * bounds.minX) + view[2];
+        double x2 = (view[0] * bounds.maxX) + view[2];
+        double y1 = (view[4] * bounds.minY) + view[5];
+        double y2 = (view[4] * bounds.maxY) + view[5];
+        return (Math.max(x1, x2) >= 0) && (Math.min(x1, x2) < width) && (Math.max(y1, y2) >= 0) && (Math.min(y1, y2) < height);
+    }
+    
+    /**
+     * Packs the prepared template and the linear part of its preparation, which a cached raster is only valid for.
+     *
+     * @param template The prepared coordinates of the template.
+     * @param basis    The linear part of the preparation of the template.
+     * @return The packed prepared template and linear part of its preparation.
+     */
+    private static double[] calculateRasterGeometry(double[] template, double[] basis) {
+        double[] geometry = Arrays.copyOf(template, template.length + basis.length);
+        System.arraycopy(basis, 0, geometry, template.length, basis.length);
+        return geometry;
+    }
+    
+    /**
+     * Packs a list of Vectors into an array of coordinates.
+     *
+     * @param vs The list of Vectors.
+     * @return The packed coordinates of the Vectors.
+     */
+    private static double[] flatten(List<Vector> vs) {
+        double[] xyz = new double[vs.size() * 3];
+        for (int k = 0; k < vs.size(); k++) {
+            xyz[k * 3] = vs.get(k).getX();
+            xyz[k * 3 + 1] = vs.get(k).getY();
+            xyz[k * 3 + 2] = vs.get(k).getZ();
+        }
+        return xyz;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines the cached raster of a raster block of an Instanced Object.
+     */
+    private static class RasterBlock {
+        
+        //Fields
+        
+        /**
+         * The Instanced Object that the raster belongs to.
+         */
+        private final InstancedObject owner;
+        
+        /**
+         * The raster block of the raster.
+         */
+        private final int block;
+        
+        /**
+         * The raster, or null if the raster block draws nothing or cannot be cached.
+         */
+        private final BufferedImage image;
+        
+        /**
+         * The x coordinate of the raster on the screen, without the translation of the view.
+         */
+        private final int originX;
+        
+        /**
+         * The y coordinate of the raster on the screen, without the translation of the view.
+         */
+        private final int originY;
+        
+        /**
+         * The x scale of the view that the raster was built at.
+         */
+        private final double scaleX;
+        
+        /**
+         * The y scale of the view that the raster was built at.
+         */
+        private final double scaleY;
+        
+        /**
+         * The prepared template and the linear part of its preparation that the raster was built with.
+         */
+        private final double[] geometry;
+        
+        /**
+         * The version of the contents of the raster block that the raster was built from.
+         */
+        private final long version;
+        
+        /**
+         * The style that the raster was drawn with.
+         */
+        private final long style;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Raster Block.
+         *
+         * @param owner    The Instanced Object that the raster belongs to.
+         * @param block    The raster block of the raster.
+         * @param image    The raster, or null if the raster block draws nothing or cannot be cached.
+         * @param originX  The x coordinate of the raster on the screen, without the translation of the view.
+         * @param originY  The y coordinate of the raster on the screen, without the translation of the view.
+         * @param scaleX   The x scale of the view that the raster was built at.
+         * @param scaleY   The y scale of the view that the raster was built at.
+         * @param geometry The prepared template and the linear part of its preparation that the raster was built with.
+         * @param version  The version of the contents of the raster block that the raster was built from.
+         * @param style    The style that the raster was drawn with.
+         */
+        private RasterBlock(InstancedObject owner, int block, BufferedImage image, int originX, int originY, double scaleX, double scaleY, double[] geometry, long version, long style) {
+            this.owner = owner;
+            this.block = block;
+            this.image = image;
+            this.originX = originX;
+            this.originY = originY;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.geometry = geometry;
+            this.version = version;
+            this.style = style;
+        }
+        
+        
+        //Methods
+        
+        /**
+         * Determines whether the raster is valid for a view and the current state of its raster block.
+         *
+         * @param view     The orthographic transformation of the view.
+         * @param geometry The current prepared template and linear part of its preparation.
+         * @param version  The current version of the contents of the raster block.
+         * @param style    The current style of the Instanced Object.
+         * @return Whether the raster is valid.
+         */
+        private boolean matches(double[] view, double[] geometry, long version, long style) {
+            return hasSameScale(view, new double[] {scaleX, 0, 0, 0, scaleY, 0}) && (version == this.version) && (style == this.style) && Arrays.equals(geometry, this.geometry);
+        }
+        
+    }
+    
+}
@@ -9,15 +9,16 @@ package graphy.objects.base;
 import java.awt.Color;
 import java.awt.Graphics2D;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
 import java.util.Timer;
 import java.util.TimerTask;
 
-import graphy.math.matrix.Matrix3;
+import graphy.math.BoundingBox;
+import graphy.math.matrix.Matrix4;
 import graphy.math.vector.Vector;
-import graphy.utility.RotationUtility;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines the base properties of an Object.
@@ -105,57 +106,52 @@ public class Object extends AbstractObject {
     }
     
     /**
-     * Moves the Object in a certain direction.
+     * Renders the Object on the screen with the software Rasterizer.
      *
-     * @param offset The relative offsets to move the Object.
+     * @param rasterizer The software Rasterizer.
      */
     @Override
-    public void move(Vector offset) {
-        super.move(offset);
-        
+    public void render(Rasterizer rasterizer) {
         for (ObjectInterface component : components) {
-            component.move(offset);
+            component.doRender(rasterizer);
         }
     }
     
     /**
-     * Repositions the object at a new center point.
+     * Renders the Object on the screen, batching its primitives with those of the Objects rendered around it.
      *
-     * @param center The new center of the Object.
+     * @param batcher The Draw Batcher.
      */
-    public void reposition(Vector center) {
-        if (this.center.equals(center)) {
-            return;
+    @Override
+    public void render(DrawBatcher batcher) {
+        for (ObjectInterface component : components) {
+            component.doRender(batcher);
         }
-        
-        this.center = center;
-        calculate();
     }
     
     /**
-     * Rotates the Object in a certain direction and saves the rotation in its vector state.
+     * Applies an affine transformation, in the space of the parent of the Object, to the Object.<br>
+     * The transformation is composed into the local transformation of the Object, so moving the Object does not touch the vector state of its components.
      *
-     * @param offset The relative offsets to rotate the Object.
+     * @param transformation The affine transformation matrix to apply.
      */
     @Override
-    public void rotateAndTransform(Vector offset) {
-        rotateAndTransform(offset, getRootCenter());
+    protected void applyTransformation(Matrix4 transformation) {
+        applyLocalTransform(transformation);
     }
     
     /**
-     * Rotates the Object in a certain direction and saves the rotation in its vector state.
+     * Repositions the object at a new center point.
      *
-     * @param offset The relative offsets to rotate the Object.
-     * @param center The center to rotate the Object about.
+     * @param center The new center of the Object, in world space.
      */
-    @Override
-    public void rotateAndTransform(Vector offset, Vector center) {
-        for (ObjectInterface component : components) {
-            component.rotateAndTransform(offset, center);
+    public void reposition(Vector center) {
+        if (center.equals(getCenter())) {
+            return;
         }
         
-        Matrix3 rotationTransformationMatrix = RotationUtility.getRotationMatrix(offset.getX(), offset.getY(), offset.getZ());
-        this.center = RotationUtility.performRotation(this.center, rotationTransformationMatrix, center.justify());
+        super.setCenter(center);
+        calculate();
     }
     
     /**
@@ -169,6 +165,18 @@ public class Object extends AbstractObject {
         return renderDistance;
     }
     
+    /**
+     * Grows a Bounding Box to include the prepared vertices of the components of the Object.
+     *
+     * @param bounds The Bounding Box.
+     */
+    @Override
+    public void calculateBounds(BoundingBox bounds) {
+        for (ObjectInterface component : components) {
+            component.calculateBounds(bounds);
+        }
+    }
+    
     /**
      * Hides the Object from being rendered.
      */
@@ -210,6 +218,65 @@ public class Object extends AbstractObject {
         }
     }
     
+    /**
+     * Applies an affine transformation to the vector state of the Object and its components.
+     *
+     * @param transformation The affine transformation matrix to apply.
+     */
+    @Override
+    public void transform(Matrix4 transformation) {
+        super.transform(transformation);
+        for (ObjectInterface component : components) {
+            component.transform(transformation);
+        }
+    }
+    
+    /**
+     * Returns the number of Vectors in the vertex buffer of the Object and its components.
+     *
+     * @return The number of Vectors in the vertex buffer of the Object and its components.
+     */
+    @Override
+    public int getVertexBufferSize() {
+        int size = super.getVertexBufferSize();
+        for (ObjectInterface component : components) {
+            size += component.getVertexBufferSize();
+        }
+        return size;
+    }
+    
+    /**
+     * Writes the center and vertices of the Object and its components into a vertex buffer.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin writing at.
+     * @return The index in the vertex buffer following the written Vectors.
+     */
+    @Override
+    public int writeVertexBuffer(double[] xyz, int index) {
+        index = super.writeVertexBuffer(xyz, index);
+        for (ObjectInterface component : components) {
+            index = component.writeVertexBuffer(xyz, index);
+        }
+        return index;
+    }
+    
+    /**
+     * Reads the center and vertices of the Object and its components from a vertex buffer.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin reading at.
+     * @return The index in the vertex buffer following the read Vectors.
+     */
+    @Override
+    public int readVertexBuffer(double[] xyz, int index) {
+        index = super.readVertexBuffer(xyz, index);
+        for (ObjectInterface component : components) {
+            index = component.readVertexBuffer(xyz, index);
+        }
+        return index;
+    }
+    
     /**
      * Registers a component with the Object.
      *
@@ -220,6 +287,15 @@ public class Object extends AbstractObject {
         if (!components.contains(component)) {
             this.components.add(component);
         }
+        
+        if (component instanceof AbstractObject) {
+            AbstractObject object = (AbstractObject) component;
+            if (object.parent != this) {
+                object.parent = this;
+                object.transformDirty = true;
+            }
+        }
+        markGeometryChanged();
     }
     
     /**
@@ -232,6 +308,15 @@ public class Object extends AbstractObject {
         if (components.contains(component)) {
             this.components.remove(component);
         }
+        
+        if (component instanceof AbstractObject) {
+            AbstractObject object = (AbstractObject) component;
+            if (object.parent == this) {
+                object.parent = null;
+                object.transformDirty = true;
+            }
+        }
+        markGeometryChanged();
     }
     
     /**
@@ -366,7 +451,7 @@ public class Object extends AbstractObject {
     }
     
     /**
-     * Returns the list of Vectors that define the Object.
+     * Returns the list of Vectors that define the Object, in world space.
      *
      * @return The list of Vectors that define the Object.
      */
@@ -376,7 +461,11 @@ public class Object extends AbstractObject {
             if (component instanceof Object) {
                 vectors.addAll(((Object) component).getVectors());
             } else if (component instanceof BaseObject) {
-                vectors.addAll(Arrays.asList(((BaseObject) component).vertices));
+                BaseObject base = (BaseObject) component;
+                Matrix4 transformation = base.getWorldTransform();
+                for (Vector vertex : base.getVertices()) {
+                    vectors.add((transformation == null) ? vertex : transformation.transform(vertex));
+                }
             }
         }
         return vectors;
@@ -386,9 +475,10 @@ public class Object extends AbstractObject {
     //Setters
     
     /**
-     * Sets the center point of the Object.
+     * Sets the center point of the Object.<br>
+     * Each component converts the center into its own space.
      *
-     * @param center The nwe center point of the Object.
+     * @param center The new center point of the Object, in world space.
      */
     @Override
     public void setCenter(Vector center) {
@@ -10,8 +10,12 @@ import java.awt.Color;
 import java.awt.Graphics2D;
 import java.util.List;
 
+import graphy.math.BoundingBox;
 import graphy.math.matrix.Matrix3;
+import graphy.math.matrix.Matrix4;
 import graphy.math.vector.Vector;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 
 /**
  * The interface that defines the contract for creating an Object class.
@@ -62,6 +66,20 @@ public interface ObjectInterface {
      */
     void render(Graphics2D g2);
     
+    /**
+     * Renders the Object on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    void render(Rasterizer rasterizer);
+    
+    /**
+     * Renders the Object on the screen, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    void render(DrawBatcher batcher);
+    
     /**
      * Performs post-rendering steps on the Object.
      *
@@ -76,6 +94,20 @@ public interface ObjectInterface {
      */
     void renderFrame(Graphics2D g2);
     
+    /**
+     * Draws the frame for the Object with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    void renderFrame(Rasterizer rasterizer);
+    
+    /**
+     * Draws the frame for the Object, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    void renderFrame(DrawBatcher batcher);
+    
     /**
      * Performs the rendering for the Object on the screen.
      *
@@ -83,6 +115,35 @@ public interface ObjectInterface {
      */
     void doRender(Graphics2D g2);
     
+    /**
+     * Performs the rendering for the Object on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    void doRender(Rasterizer rasterizer);
+    
+    /**
+     * Performs the rendering for the Object on the screen, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    void doRender(DrawBatcher batcher);
+    
+    /**
+     * Performs the pre-rendering for the Object on the screen with the software Rasterizer, without rendering it.
+     *
+     * @param rasterizer The software Rasterizer.
+     * @return Whether or not the Object should continue rendering.
+     */
+    boolean doPreRender(Rasterizer rasterizer);
+    
+    /**
+     * Performs the rendering for an Object that has already been pre-rendered on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    void doRenderPreRendered(Rasterizer rasterizer);
+    
     /**
      * Moves the Object in a certain direction.
      *
@@ -112,6 +173,38 @@ public interface ObjectInterface {
      */
     void rotateAndTransform(Vector offset, Vector center);
     
+    /**
+     * Applies an affine transformation to the vector state of the Object.
+     *
+     * @param transformation The affine transformation matrix to apply.
+     */
+    void transform(Matrix4 transformation);
+    
+    /**
+     * Returns the number of Vectors in the vertex buffer of the Object.
+     *
+     * @return The number of Vectors in the vertex buffer of the Object.
+     */
+    int getVertexBufferSize();
+    
+    /**
+     * Writes the center and vertices of the Object into a vertex buffer.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin writing at.
+     * @return The index in the vertex buffer following the written Vectors.
+     */
+    int writeVertexBuffer(double[] xyz, int index);
+    
+    /**
+     * Reads the center and vertices of the Object from a vertex buffer.
+     *
+     * @param xyz   The vertex buffer of packed x, y and z coordinates.
+     * @param index The index in the vertex buffer to begin reading at.
+     * @return The index in the vertex buffer following the read Vectors.
+     */
+    int readVertexBuffer(double[] xyz, int index);
+    
     /**
      * Calculates the distance from the Camera to the Object.
      *
@@ -119,6 +212,20 @@ public interface ObjectInterface {
      */
     double calculateRenderDistance();
     
+    /**
+     * Grows a Bounding Box to include the prepared vertices of the Object.
+     *
+     * @param bounds The Bounding Box.
+     */
+    void calculateBounds(BoundingBox bounds);
+    
+    /**
+     * Returns the version of the scene when the geometry of the Object or one of its components last changed.
+     *
+     * @return The version of the scene when the geometry of the Object or one of its components last changed.
+     */
+    long getGeometryVersion();
+    
     /**
      * Adds a constant movement animation to an Object.
      *
@@ -213,7 +320,7 @@ public interface ObjectInterface {
     /**
      * Sets the center point of the Object.
      *
-     * @param center The nwe center point of the Object.
+     * @param center The new center point of the Object, in world space.
      */
     void setCenter(Vector center);
     
@@ -14,6 +14,8 @@ import java.util.List;
 import graphy.math.vector.Vector;
 import graphy.objects.base.AbstractObject;
 import graphy.objects.base.BaseObject;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines a Polygon.
@@ -54,12 +56,7 @@ public class Polygon extends BaseObject {
     public List<BaseObject> prepare() {
         List<BaseObject> preparedBases = new ArrayList<>();
         
-        prepared.clear();
-        for (Vector vertex : vertices) {
-            prepared.add(vertex.clone().justify());
-        }
-        
-        performRotationTransformation(prepared);
+        prepareVertices();
         
         preparedBases.add(this);
         return preparedBases;
@@ -113,6 +110,92 @@ public class Polygon extends BaseObject {
         }
     }
     
+    /**
+     * Renders the Polygon on the screen, batching its primitives with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void render(DrawBatcher batcher) {
+        Color color = getColor();
+        switch (displayMode) {
+            case VERTEX:
+                for (Vector v : prepared) {
+                    batcher.drawRect((int) v.getX(), (int) v.getY(), 1, 1, color);
+                }
+                break;
+            
+            case EDGE:
+                if (numVertices < 2) {
+                    break;
+                }
+                
+                for (int i = 1; i < numVertices; i++) {
+                    batcher.drawLine((int) prepared.get(i - 1).getX(), (int) prepared.get(i - 1).getY(), (int) prepared.get(i).getX(), (int) prepared.get(i).getY(), color);
+                }
+                batcher.drawLine((int) prepared.get(numVertices - 1).getX(), (int) prepared.get(numVertices - 1).getY(), (int) prepared.get(0).getX(), (int) prepared.get(0).getY(), color);
+                break;
+            
+            case FACE:
+                if (numVertices < 3) {
+                    break;
+                }
+                
+                int[] xPoints = new int[numVertices];
+                int[] yPoints = new int[numVertices];
+                for (int i = 0; i < numVertices; i++) {
+                    xPoints[i] = (int) prepared.get(i).getX();
+                    yPoints[i] = (int) prepared.get(i).getY();
+                }
+                
+                batcher.fillPolygon(xPoints, yPoints, numVertices, color);
+                break;
+        }
+    }
+    
+    /**
+     * Renders the Polygon on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        Color color = getColor();
+        switch (displayMode) {
+            case VERTEX:
+                for (int i = 0; i < numVertices; i++) {
+                    rasterizer.fillRect((int) prepared.get(i).getX(), (int) prepared.get(i).getY(), 2, 2, getPreparedDepth(i), color);
+                }
+                break;
+            
+            case EDGE:
+                if (numVertices < 2) {
+                    break;
+                }
+                
+                for (int i = 1; i < numVertices; i++) {
+                    rasterizer.drawLine((int) prepared.get(i - 1).getX(), (int) prepared.get(i - 1).getY(), (int) prepared.get(i).getX(), (int) prepared.get(i).getY(), getPreparedDepth(i - 1), getPreparedDepth(i), color);
+                }
+                rasterizer.drawLine((int) prepared.get(numVertices - 1).getX(), (int) prepared.get(numVertices - 1).getY(), (int) prepared.get(0).getX(), (int) prepared.get(0).getY(), getPreparedDepth(numVertices - 1), getPreparedDepth(0), color);
+                break;
+            
+            case FACE:
+                if (numVertices < 3) {
+                    break;
+                }
+                
+                int[] xPoints = new int[numVertices];
+                int[] yPoints = new int[numVertices];
+                for (int i = 0; i < numVertices; i++) {
+                    xPoints[i] = (int) prepared.get(i).getX();
+                    yPoints[i] = (int) prepared.get(i).getY();
+                }
+                
+                rasterizer.fillPolygon(xPoints, yPoints, (preparedDepths.length == numVertices) ? preparedDepths : null, numVertices, color);
+                break;
+        }
+    }
+    
     
     //Getters
     
@@ -126,7 +209,7 @@ public class Polygon extends BaseObject {
         if (n < 1 || n > numVertices) {
             return new Vector(0, 0, 0);
         }
-        return vertices[n - 1].clone();
+        return getVertices()[n - 1].clone();
     }
     
     
@@ -142,7 +225,9 @@ public class Polygon extends BaseObject {
         if (n < 1 || n > numVertices) {
             return;
         }
+        detachCoordinates();
         vertices[n - 1] = p;
+        markGeometryChanged();
     }
     
 }
@@ -11,6 +11,7 @@ import java.awt.Graphics2D;
 
 import graphy.math.vector.Vector;
 import graphy.objects.base.AbstractObject;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines a Vertex of a certain size.
@@ -90,4 +91,32 @@ public class BigVertex extends Vertex {
         }
     }
     
+    /**
+     * Renders the Vertex on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        rasterizer.fillRect((int) prepared.get(0).getX() - size, (int) prepared.get(0).getY() - size, (size * 2) + 2, (size * 2) + 2, getPreparedDepth(0), getColor());
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the screen bounds of the pre-rendered Vertex.
+     *
+     * @return The screen bounds of the pre-rendered Vertex, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    @Override
+    public int[] getPreparedBounds() {
+        int[] bounds = super.getPreparedBounds();
+        bounds[0] -= size;
+        bounds[1] -= size;
+        bounds[2] += size;
+        bounds[3] += size;
+        return bounds;
+    }
+    
 }
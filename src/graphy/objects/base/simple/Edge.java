@@ -14,6 +14,8 @@ import java.util.List;
 import graphy.math.vector.Vector;
 import graphy.objects.base.AbstractObject;
 import graphy.objects.base.BaseObject;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines an Edge.
@@ -78,11 +80,7 @@ public class Edge extends BaseObject {
     public List<BaseObject> prepare() {
         List<BaseObject> preparedBases = new ArrayList<>();
         
-        prepared.clear();
-        prepared.add(vertices[0].clone().justify());
-        prepared.add(vertices[1].clone().justify());
-        
-        performRotationTransformation(prepared);
+        prepareVertices();
         
         preparedBases.add(this);
         return preparedBases;
@@ -108,6 +106,46 @@ public class Edge extends BaseObject {
         }
     }
     
+    /**
+     * Renders the Edge on the screen, batching it with the primitives of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void render(DrawBatcher batcher) {
+        Color color = getColor();
+        switch (displayMode) {
+            case VERTEX:
+                batcher.drawRect((int) prepared.get(0).getX(), (int) prepared.get(0).getY(), 0, 1, color);
+                batcher.drawRect((int) prepared.get(1).getX(), (int) prepared.get(1).getY(), 0, 1, color);
+                break;
+            case EDGE:
+            case FACE:
+                batcher.drawLine((int) prepared.get(0).get(0), (int) prepared.get(0).get(1), (int) prepared.get(1).get(0), (int) prepared.get(1).get(1), color);
+                break;
+        }
+    }
+    
+    /**
+     * Renders the Edge on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        Color color = getColor();
+        switch (displayMode) {
+            case VERTEX:
+                rasterizer.fillRect((int) prepared.get(0).getX(), (int) prepared.get(0).getY(), 1, 2, getPreparedDepth(0), color);
+                rasterizer.fillRect((int) prepared.get(1).getX(), (int) prepared.get(1).getY(), 1, 2, getPreparedDepth(1), color);
+                break;
+            case EDGE:
+            case FACE:
+                rasterizer.drawLine((int) prepared.get(0).get(0), (int) prepared.get(0).get(1), (int) prepared.get(1).get(0), (int) prepared.get(1).get(1), getPreparedDepth(0), getPreparedDepth(1), color);
+                break;
+        }
+    }
+    
     
     //Getters
     
@@ -117,7 +155,7 @@ public class Edge extends BaseObject {
      * @return The starting point of the Edge.
      */
     public Vector getV1() {
-        return vertices[0];
+        return getVertices()[0];
     }
     
     /**
@@ -126,7 +164,7 @@ public class Edge extends BaseObject {
      * @return The ending point of the Edge.
      */
     public Vector getV2() {
-        return vertices[1];
+        return getVertices()[1];
     }
     
     
@@ -149,7 +187,9 @@ public class Edge extends BaseObject {
      * @param v1 The starting point of the Edge.
      */
     public void setV1(Vector v1) {
+        detachCoordinates();
         vertices[0] = v1;
+        markGeometryChanged();
     }
     
     /**
@@ -158,7 +198,9 @@ public class Edge extends BaseObject {
      * @param v2 The ending point of the Edge.
      */
     public void setV2(Vector v2) {
+        detachCoordinates();
         vertices[1] = v2;
+        markGeometryChanged();
     }
     
 }
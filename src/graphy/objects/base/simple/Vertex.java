@@ -14,6 +14,7 @@ import java.util.List;
 import graphy.math.vector.Vector;
 import graphy.objects.base.AbstractObject;
 import graphy.objects.base.BaseObject;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines a Vertex.
@@ -75,10 +76,7 @@ public class Vertex extends BaseObject {
     public List<BaseObject> prepare() {
         List<BaseObject> preparedBases = new ArrayList<>();
         
-        prepared.clear();
-        prepared.add(vertices[0].clone().justify());
-        
-        performRotationTransformation(prepared);
+        prepareVertices();
         
         preparedBases.add(this);
         return preparedBases;
@@ -95,6 +93,16 @@ public class Vertex extends BaseObject {
         g2.drawRect((int) prepared.get(0).getX(), (int) prepared.get(0).getY(), 1, 1);
     }
     
+    /**
+     * Renders the Vertex on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        rasterizer.fillRect((int) prepared.get(0).getX(), (int) prepared.get(0).getY(), 2, 2, getPreparedDepth(0), getColor());
+    }
+    
     /**
      * Returns a string that represents the Vertex.
      *
@@ -143,7 +151,7 @@ public class Vertex extends BaseObject {
      * @return The point of the Vertex.
      */
     public Vector getPoint() {
-        return vertices[0];
+        return getVertices()[0];
     }
     
     
@@ -155,7 +163,9 @@ public class Vertex extends BaseObject {
      * @param point The new point of the Vertex.
      */
     public void setPoint(Vector point) {
+        detachCoordinates();
         vertices[0] = point;
+        markGeometryChanged();
     }
     
 }
\ No newline at end of file
@@ -13,6 +13,9 @@ import java.awt.image.BufferedImage;
 import graphy.math.vector.Vector;
 import graphy.objects.base.AbstractObject;
 import graphy.objects.base.polygon.Square;
+import graphy.rendering.DrawBatcher;
+import graphy.rendering.QualityGovernor;
+import graphy.rendering.Rasterizer;
 
 /**
  * Defines a Square.
@@ -84,12 +87,49 @@ public class ImageSquare extends Square {
     @Override
     public void render(Graphics2D g2) {
         super.render(g2);
-        if (image != null) {
+        if ((image != null) && isImageDrawn()) {
             g2.drawImage(image, (int) prepared.get(0).getX(), (int) prepared.get(0).getY(),
                     Math.abs((int) (prepared.get(1).getX() - prepared.get(0).getX())), Math.abs((int) (prepared.get(3).getY() - prepared.get(0).getY())), null);
         }
     }
     
+    /**
+     * Renders the Image Square on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        super.render(rasterizer);
+        if ((image != null) && isImageDrawn()) {
+            rasterizer.drawImage(image, (int) prepared.get(0).getX(), (int) prepared.get(0).getY(),
+                    Math.abs((int) (prepared.get(1).getX() - prepared.get(0).getX())), Math.abs((int) (prepared.get(3).getY() - prepared.get(0).getY())), getNearestPreparedDepth());
+        }
+    }
+    
+    /**
+     * Renders the Image Square on the screen, batching its face with those of the Objects rendered around it.
+     *
+     * @param batcher The Draw Batcher.
+     */
+    @Override
+    public void render(DrawBatcher batcher) {
+        super.render(batcher);
+        if ((image != null) && isImageDrawn()) {
+            batcher.getGraphics().drawImage(image, (int) prepared.get(0).getX(), (int) prepared.get(0).getY(),
+                    Math.abs((int) (prepared.get(1).getX() - prepared.get(0).getX())), Math.abs((int) (prepared.get(3).getY() - prepared.get(0).getY())), null);
+        }
+    }
+    
+    /**
+     * Determines whether the image of the Image Square is drawn at the render quality of the frame being rendered.
+     *
+     * @return Whether the image of the Image Square is drawn.
+     */
+    private boolean isImageDrawn() {
+        return QualityGovernor.isImageDrawn(Math.abs((int) (prepared.get(1).getX() - prepared.get(0).getX())), Math.abs((int) (prepared.get(3).getY() - prepared.get(0).getY())));
+    }
+    
     
     //Getters
     
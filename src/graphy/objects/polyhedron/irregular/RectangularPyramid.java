@@ -84,6 +84,7 @@ public class RectangularPyramid extends Object {
     protected void calculate() {
         components.clear();
         
+        detachCoordinates();
         this.center = apex.average(base.getVertices()[0].average(Arrays.copyOfRange(base.getVertices(), 1, base.getVertices().length)));
         
         new Triangle(this, color,
@@ -120,6 +121,7 @@ public class RectangularPyramid extends Object {
      * Recalculates the structure of the Pyramid.
      */
     protected void recalculate() {
+        detachCoordinates();
         this.center = apex.average(base.getVertices()[0].average(Arrays.copyOfRange(base.getVertices(), 1, base.getVertices().length - 1)));
         
         ((Triangle) components.get(0)).setPoints(
@@ -0,0 +1,492 @@
+/*
+ * File:    BoundingVolumeHierarchy.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import graphy.math.BoundingBox;
+import graphy.math.vector.Vector;
+import graphy.math.vector.Vector3;
+import graphy.objects.base.BaseObject;
+import graphy.objects.base.Object;
+import graphy.objects.base.ObjectInterface;
+
+/**
+ * A bounding volume hierarchy of axis aligned boxes over the Objects of a scene, in prepared space.<br>
+ * The hierarchy is built once by splitting the Objects at the median of their longest axis, then refit incrementally, recomputing only the boxes of Objects whose geometry version has changed and the boxes above them.<br>
+ * It is rebuilt when Objects are added or removed, or when refitting has grown the boxes enough to degrade its queries.
+ */
+public class BoundingVolumeHierarchy {
+    
+    //Constants
+    
+    /**
+     * The factor the total surface area of the boxes may grow by through refitting before the hierarchy is rebuilt.
+     */
+    private static final double REBUILD_GROWTH = 2.0;
+    
+    
+    //Fields
+    
+    /**
+     * The root node of the hierarchy.
+     */
+    private Node root = null;
+    
+    /**
+     * The leaf nodes of the hierarchy, in the order of the Objects they were built from.
+     */
+    private final List<Node> leaves = new ArrayList<>();
+    
+    /**
+     * The total surface area of the boxes of the internal nodes when the hierarchy was last built.
+     */
+    private double builtSurfaceArea = 0;
+    
+    /**
+     * The number of leaves that were refit by the last update.
+     */
+    private int refitCount = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The default constructor for a Bounding Volume Hierarchy.
+     */
+    public BoundingVolumeHierarchy() {
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Updates the hierarchy to the current state of a list of Objects.<br>
+     * If the list of Objects has changed the hierarchy is rebuilt, otherwise only the boxes of Objects whose geometry has changed are refit.
+     *
+     * @param objects The Objects of the scene.
+     */
+    public void update(List<ObjectInterface> objects) {
+        refitCount = 0;
+        
+        boolean rebuild = (objects.size() != leaves.size());
+        for (int i = 0; !rebuild && (i < objects.size()); i++) {
+            rebuild = (objects.get(i) != leaves.get(i).object);
+        }
+        if (rebuild) {
+            build(objects);
+            return;
+        }
+        
+        for (Node leaf : leaves) {
+            long version = leaf.object.getGeometryVersion();
+            if (version != leaf.version) {
+                leaf.version = version;
+                leaf.box.clear();
+                leaf.object.calculateBounds(leaf.box);
+                for (Node node = leaf.parent; (node != null) && !node.dirty; node = node.parent) {
+                    node.dirty = true;
+                }
+                refitCount++;
+            }
+        }
+        
+        if ((refitCount > 0) && (refit(root) > (builtSurfaceArea * REBUILD_GROWTH))) {
+            build(objects);
+        }
+    }
+    
+    /**
+     * Builds the hierarchy from scratch.<br>
+     * The boxes of Objects that were already in the hierarchy and have not changed are reused, so adding or removing an Object does not recompute every box.
+     *
+     * @param objects The Objects of the scene.
+     */
+    private void build(List<ObjectInterface> objects) {
+        Map<ObjectInterface, Node> previous = new IdentityHashMap<>();
+        for (Node leaf : leaves) {
+            previous.put(leaf.object, leaf);
+        }
+        
+        leaves.clear();
+        for (ObjectInterface object : objects) {
+            long version = object.getGeometryVersion();
+            Node leaf = previous.remove(object);
+            if ((leaf == null) || (leaf.version != version)) {
+                leaf = new Node();
+                leaf.object = object;
+                leaf.version = version;
+                object.calculateBounds(leaf.box);
+                refitCount++;
+            }
+            leaves.add(leaf);
+        }
+        
+        root = leaves.isEmpty() ? null : build(leaves.toArray(new Node[0]), new double[leaves.size()], 0, leaves.size(), null);
+        builtSurfaceArea = (root == null) ? 0 : refit(root);
+    }
+    
+    /**
+     * Builds a subtree of the hierarchy by splitting a range of leaves at the median of the longest axis of their centers.<br>
+     * The median is found by selection rather than sorting, so each level of the hierarchy is built in linear time.
+     *
+     * @param nodes  The leaves of the hierarchy, reordered in place.
+     * @param keys   The scratch array for the centers of the leaves along the split axis.
+     * @param from   The index of the first leaf of the subtree.
+     * @param to     The index after the last leaf of the subtree.
+     * @param parent The parent of the subtree.
+     * @return The root node of the subtree.
+     */
+    private Node build(Node[] nodes, double[] keys, int from, int to, Node parent) {
+        if (to - from == 1) {
+            Node leaf = nodes[from];
+            leaf.parent = parent;
+            return leaf;
+        }
+        
+        BoundingBox centers = new BoundingBox();
+        for (int i = from; i < to; i++) {
+            centers.include(nodes[i].box.center(0), nodes[i].box.center(1), nodes[i].box.center(2));
+        }
+        double[] extent = {centers.maxX - centers.minX, centers.maxY - centers.minY, centers.maxZ - centers.minZ};
+        int axis = (extent[0] >= extent[1]) ? ((extent[0] >= extent[2]) ? 0 : 2) : ((extent[1] >= extent[2]) ? 1 : 2);
+        
+        for (int i = from; i < to; i++) {
+            keys[i] = nodes[i].box.center(axis);
+        }
+        int middle = (from + to) >>> 1;
+        select(nodes, keys, from, to, middle);
+        
+        Node node = new Node();
+        node.parent = parent;
+        node.dirty = true;
+        node.left = build(nodes, keys, from, middle, node);
+        node.right = build(nodes, keys, middle, to, node);
+        return node;
+    }
+    
+    /**
+     * Recomputes the boxes of the dirty internal nodes of a subtree from their children.
+     *
+     * @param node The root node of the subtree.
+     * @return The total surface area of the boxes of the internal nodes of the subtree.
+     */
+    private double refit(Node node) {
+        if (node.object != null) {
+            return 0;
+        }
+        
+        double surfaceArea = node.surfaceArea;
+        if (node.dirty) {
+            surfaceArea = refit(node.left) + refit(node.right);
+            node.box.union(node.left.box, node.right.box);
+            node.surfaceArea = surfaceArea + node.box.surfaceArea();
+            node.dirty = false;
+            surfaceArea = node.surfaceArea;
+        }
+        return surfaceArea;
+    }
+    
+    /**
+     * Collects the Objects whose boxes are inside the view of a Camera, sorted from far to near.<br>
+     * Subtrees entirely outside one of the planes are skipped, subtrees entirely inside all of the planes are collected without further tests, and the nearer child of each node is collected last so the Objects come out in nearly the painter's order.
+     *
+     * @param planes The planes bounding the view, as {a, b, c, d}, where a point is inside a plane when a*x + b*y + c*z + d is at least zero, or null to collect every Object.
+     * @param eye    The position of the Camera, in prepared space.
+     * @return The Objects whose boxes are inside the view, from far to near.
+     */
+    public List<ObjectInterface> cull(double[][] planes, Vector eye) {
+        List<ObjectInterface> visible = new ArrayList<>();
+        if (root != null) {
+            double[][] bounds = (planes == null) ? new double[0][] : planes;
+            cull(root, bounds, eye, (1 << bounds.length) - 1, visible);
+        }
+        return visible;
+    }
+    
+    /**
+     * Collects the Objects of a subtree whose boxes are inside the view of a Camera, sorted from far to near.
+     *
+     * @param node    The root node of the subtree.
+     * @param planes  The planes bounding the view.
+     * @param eye     The position of the Camera, in prepared space.
+     * @param mask    The bit mask of the planes the subtree still straddles.
+     * @param visible The list to collect the Objects in.
+     */
+    private void cull(Node node, double[][] planes, Vector eye, int mask, List<ObjectInterface> visible) {
+        if (node.box.isEmpty()) {
+            return;
+        }
+        
+        for (int i = 0; i < planes.length; i++) {
+            if ((mask & (1 << i)) != 0) {
+                int side = node.box.classify(planes[i]);
+                if (side < 0) {
+                    return;
+                } else if (side > 0) {
+                    mask &= ~(1 << i);
+                }
+            }
+        }
+        
+        if (node.object != null) {
+            visible.add(node.object);
+            return;
+        }
+        
+        if (node.left.box.centerDistanceSquared(eye) >= node.right.box.centerDistanceSquared(eye)) {
+            cull(node.left, planes, eye, mask, visible);
+            cull(node.right, planes, eye, mask, visible);
+        } else {
+            cull(node.right, planes, eye, mask, visible);
+            cull(node.left, planes, eye, mask, visible);
+        }
+    }
+    
+    /**
+     * Finds the nearest visible, pickable BaseObject hit by a ray.<br>
+     * Subtrees are visited nearest first and skipped once their boxes begin beyond the nearest hit, and the BaseObjects of each candidate Object are hit tested as triangle fans of their prepared vertices.
+     *
+     * @param origin    The origin of the ray, in prepared space.
+     * @param direction The direction of the ray, in prepared space.
+     * @return The nearest BaseObject hit by the ray, or null if there is none.
+     */
+    public BaseObject intersectRay(Vector origin, Vector direction) {
+        if (root == null) {
+            return null;
+        }
+        
+        Hit hit = new Hit();
+        intersectRay(root, origin, direction, hit);
+        return hit.base;
+    }
+    
+    /**
+     * Finds the nearest visible, pickable BaseObject of a subtree hit by a ray.
+     *
+     * @param node      The root node of the subtree.
+     * @param origin    The origin of the ray.
+     * @param direction The direction of the ray.
+     * @param hit       The nearest hit so far, updated if a nearer hit is found.
+     */
+    private void intersectRay(Node node, Vector origin, Vector direction, Hit hit) {
+        if (node.object != null) {
+            List<BaseObject> bases = (node.object instanceof Object) ? ((Object) node.object).getBaseComponents() :
+                                     ((node.object instanceof BaseObject) ? Arrays.asList((BaseObject) node.object) : new ArrayList<>());
+            for (BaseObject base : bases) {
+                if (base.isVisible() && base.isPickable()) {
+                    double t = intersectFan(base.calculatePreparedVertices(), origin, direction);
+                    if (t < hit.distance) {
+                        hit.distance = t;
+                        hit.base = base;
+                    }
+                }
+            }
+            return;
+        }
+        
+        double leftDistance = node.left.box.intersectRay(origin, direction);
+        double rightDistance = node.right.box.intersectRay(origin, direction);
+        Node near = (leftDistance <= rightDistance) ? node.left : node.right;
+        Node far = (leftDistance <= rightDistance) ? node.right : node.left;
+        
+        if (Math.min(leftDistance, rightDistance) < hit.distance) {
+            intersectRay(near, origin, direction, hit);
+        }
+        if (Math.max(leftDistance, rightDistance) < hit.distance) {
+            intersectRay(far, origin, direction, hit);
+        }
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the box around all of the Objects in the hierarchy.
+     *
+     * @return The box around all of the Objects in the hierarchy, or null if the hierarchy is empty.
+     */
+    public BoundingBox getBounds() {
+        return (root == null) ? null : root.box;
+    }
+    
+    /**
+     * Returns the number of leaves that were refit by the last update.
+     *
+     * @return The number of leaves that were refit by the last update.
+     */
+    public int getRefitCount() {
+        return refitCount;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Partially orders a range of nodes by their keys, so that the node at an index is the one that would be there if the range were sorted, with no greater keys before it and no lesser keys after it.
+     *
+     * @param nodes The nodes.
+     * @param keys  The keys of the nodes, reordered along with them.
+     * @param from  The index of the first node of the range.
+     * @param to    The index after the last node of the range.
+     * @param k     The index to select.
+     */
+    private static void select(Node[] nodes, double[] keys, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    Node swapNode = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = swapNode;
+                    double swapKey = keys[i];
+                    keys[i] = keys[j];
+                    keys[j] = swapKey;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Intersects a ray with a polygon, as a fan of triangles around its first vertex, with the Moller-Trumbore method.
+     *
+     * @param vs        The vertices of the polygon.
+     * @param origin    The origin of the ray.
+     * @param direction The direction of the ray.
+     * @return The distance along the ray, in multiples of the direction, to the nearest intersection, or infinity if the ray misses the polygon.
+     */
+    private static double intersectFan(List<Vector> vs, Vector origin, Vector direction) {
+        double nearest = Double.POSITIVE_INFINITY;
+        if (vs.size() < 3) {
+            return nearest;
+        }
+        
+        Vector3 d = new Vector3(direction);
+        Vector v0 = vs.get(0);
+        for (int i = 1; i < vs.size() - 1; i++) {
+            Vector e1 = vs.get(i).minus(v0);
+            Vector e2 = vs.get(i + 1).minus(v0);
+            Vector p = d.cross(e2);
+            double determinant = e1.dot(p);
+            if (determinant == 0) {
+                continue;
+            }
+            
+            Vector s = origin.minus(v0);
+            double u = s.dot(p) / determinant;
+            if ((u < 0) || (u > 1)) {
+                continue;
+            }
+            Vector q = new Vector3(s).cross(e1);
+            double v = direction.dot(q) / determinant;
+            if ((v < 0) || ((u + v) > 1)) {
+                continue;
+            }
+            
+            double t = e2.dot(q) / determinant;
+            if ((t >= 0) && (t < nearest)) {
+                nearest = t;
+            }
+        }
+        return nearest;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * A node of the hierarchy, which is either a leaf holding an Object or an internal node with two children.
+     */
+    private static class Node {
+        
+        //Fields
+        
+        /**
+         * The box around the Objects of the node.
+         */
+        private final BoundingBox box = new BoundingBox();
+        
+        /**
+         * The parent of the node.
+         */
+        private Node parent = null;
+        
+        /**
+         * The left child of the node, if it is an internal node.
+         */
+        private Node left = null;
+        
+        /**
+         * The right child of the node, if it is an internal node.
+         */
+        private Node right = null;
+        
+        /**
+         * The Object of the node, if it is a leaf.
+         */
+        private ObjectInterface object = null;
+        
+        /**
+         * The geometry version of the Object of the node when its box was computed, if it is a leaf.
+         */
+        private long version = 0;
+        
+        /**
+         * Whether the box of the node must be recomputed from its children or not, if it is an internal node.
+         */
+        private boolean dirty = false;
+        
+        /**
+         * The total surface area of the boxes of the internal nodes of the subtree of the node.
+         */
+        private double surfaceArea = 0;
+        
+    }
+    
+    /**
+     * The nearest hit of a ray so far.
+     */
+    private static class Hit {
+        
+        //Fields
+        
+        /**
+         * The distance along the ray to the hit, in multiples of the direction.
+         */
+        private double distance = Double.POSITIVE_INFINITY;
+        
+        /**
+         * The BaseObject that was hit.
+         */
+        private BaseObject base = null;
+        
+    }
+    
+}
@@ -0,0 +1,246 @@
+/*
+ * File:    DrawBatcher.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Stroke;
+import java.awt.geom.Path2D;
+
+/**
+ * Batches consecutive primitives that are drawn with the same state into a single draw call on a Graphics entity.<br>
+ * Primitives are only merged with the primitives directly before them, so the order they are drawn in is preserved.<br>
+ * Translucent primitives are never merged, as blending them together would differ from blending them one at a time.
+ */
+public class DrawBatcher {
+    
+    //Constants
+    
+    /**
+     * The maximum number of primitives in a batch, which keeps the edge lists that the Graphics entity has to sort for a batch short.
+     */
+    public static final int MAX_BATCH_SIZE = 64;
+    
+    
+    //Fields
+    
+    /**
+     * The Graphics entity to draw on.
+     */
+    private final Graphics2D g2;
+    
+    /**
+     * The path of the pending batch.
+     */
+    private final Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO);
+    
+    /**
+     * The color of the pending batch, or null if there is no pending batch.
+     */
+    private Color color = null;
+    
+    /**
+     * The stroke of the pending batch.
+     */
+    private Stroke stroke = null;
+    
+    /**
+     * Whether the pending batch is filled, or drawn otherwise.
+     */
+    private boolean fill = false;
+    
+    /**
+     * The number of primitives in the pending batch.
+     */
+    private int batchSize = 0;
+    
+    /**
+     * The number of primitives that have been submitted.
+     */
+    private int primitives = 0;
+    
+    /**
+     * The number of draw calls that have been issued to the Graphics entity.
+     */
+    private int drawCalls = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Draw Batcher.
+     *
+     * @param g2 The Graphics entity to draw on.
+     */
+    public DrawBatcher(Graphics2D g2) {
+        this.g2 = g2;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Fills a polygon.
+     *
+     * @param xPoints The x coordinates of the vertices of the polygon.
+     * @param yPoints The y coordinates of the vertices of the polygon.
+     * @param n       The number of vertices of the polygon.
+     * @param color   The color to fill the polygon with.
+     */
+    public void fillPolygon(int[] xPoints, int[] yPoints, int n, Color color) {
+        if (!begin(color, true)) {
+            g2.fillPolygon(xPoints, yPoints, n);
+            return;
+        }
+        
+        //wind every polygon the same way, so overlapping polygons in a batch are filled as their union
+        long area = 0;
+        for (int i = 0; i < n; i++) {
+            int next = (i + 1) % n;
+            area += ((long) xPoints[i] * yPoints[next]) - ((long) xPoints[next] * yPoints[i]);
+        }
+        path.moveTo(xPoints[0], yPoints[0]);
+        for (int i = 1; i < n; i++) {
+            int k = (area < 0) ? (n - i) : i;
+            path.lineTo(xPoints[k], yPoints[k]);
+        }
+        path.closePath();
+    }
+    
+    /**
+     * Draws a line.
+     *
+     * @param x0    The x coordinate of the start of the line.
+     * @param y0    The y coordinate of the start of the line.
+     * @param x1    The x coordinate of the end of the line.
+     * @param y1    The y coordinate of the end of the line.
+     * @param color The color of the line.
+     */
+    public void drawLine(int x0, int y0, int x1, int y1, Color color) {
+        if (!begin(color, false)) {
+            g2.drawLine(x0, y0, x1, y1);
+            return;
+        }
+        
+        path.moveTo(x0, y0);
+        path.lineTo(x1, y1);
+    }
+    
+    /**
+     * Draws the outline of a rectangle.
+     *
+     * @param x     The x coordinate of the rectangle.
+     * @param y     The y coordinate of the rectangle.
+     * @param w     The width of the rectangle.
+     * @param h     The height of the rectangle.
+     * @param color The color of the rectangle.
+     */
+    public void drawRect(int x, int y, int w, int h, Color color) {
+        if (!begin(color, false)) {
+            g2.drawRect(x, y, w, h);
+            return;
+        }
+        
+        path.moveTo(x, y);
+        path.lineTo(x + w, y);
+        path.lineTo(x + w, y + h);
+        path.lineTo(x, y + h);
+        path.closePath();
+    }
+    
+    /**
+     * Prepares to add a primitive, flushing the pending batch if the primitive cannot join it.
+     *
+     * @param color The color of the primitive.
+     * @param fill  Whether the primitive is filled, or drawn otherwise.
+     * @return Whether the primitive should be added to the pending batch, or drawn directly otherwise.
+     */
+    private boolean begin(Color color, boolean fill) {
+        primitives++;
+        Stroke stroke = g2.getStroke();
+        if ((this.color != null) && this.color.equals(color) && (this.fill == fill) && this.stroke.equals(stroke) && (batchSize < MAX_BATCH_SIZE)) {
+            batchSize++;
+            return true;
+        }
+        
+        flush();
+        if (color.getAlpha() != 0xFF) {
+            g2.setColor(color);
+            drawCalls++;
+            return false;
+        }
+        
+        this.color = color;
+        this.stroke = stroke;
+        this.fill = fill;
+        batchSize = 1;
+        return true;
+    }
+    
+    /**
+     * Draws the pending batch.
+     */
+    public void flush() {
+        if (color == null) {
+            return;
+        }
+        
+        g2.setColor(color);
+        if (fill) {
+            g2.fill(path);
+        } else {
+            g2.draw(path);
+        }
+        drawCalls++;
+        
+        path.reset();
+        batchSize = 0;
+        color = null;
+        stroke = null;
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the Graphics entity to draw on directly, after drawing the pending batch so that the order of drawing is preserved.
+     *
+     * @return The Graphics entity to draw on.
+     */
+    public Graphics2D getGraphics() {
+        flush();
+        return g2;
+    }
+    
+    /**
+     * Returns the number of primitives that have been submitted.
+     *
+     * @return The number of primitives that have been submitted.
+     */
+    public int getPrimitives() {
+        return primitives;
+    }
+    
+    /**
+     * Returns the number of draw calls that have been issued to the Graphics entity.
+     *
+     * @return The number of draw calls that have been issued to the Graphics entity.
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+    
+    /**
+     * Returns the number of draw calls that were saved by batching.
+     *
+     * @return The number of draw calls that were saved by batching.
+     */
+    public int getSavedDrawCalls() {
+        return primitives - drawCalls;
+    }
+    
+}
@@ -0,0 +1,160 @@
+/*
+ * File:    PickBuffer.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import graphy.objects.base.BaseObject;
+
+/**
+ * An offscreen id buffer for picking the topmost BaseObject at a screen coordinate.<br>
+ * Each rendered BaseObject writes its id into the buffer with the software Rasterizer.<br>
+ * The buffer is refreshed lazily when it is picked from, and only if the Camera or the scene has changed since it was last refreshed.
+ */
+public class PickBuffer {
+    
+    //Fields
+    
+    /**
+     * The image holding the id of the BaseObject drawn at each pixel, where zero is no BaseObject.
+     */
+    private BufferedImage image = null;
+    
+    /**
+     * The ids of the pixels of the image.
+     */
+    private int[] ids = new int[0];
+    
+    /**
+     * The Rasterizer drawing into the image.
+     */
+    private Rasterizer rasterizer = null;
+    
+    /**
+     * The BaseObjects in the id buffer, where the BaseObject with id i is at index i - 1.
+     */
+    private final List<BaseObject> objects = new ArrayList<>();
+    
+    /**
+     * The BaseObjects of the last rendered frame, in render order.
+     */
+    private List<BaseObject> frameBases = new ArrayList<>();
+    
+    /**
+     * Whether the last rendered frame was rendered with a depth buffer or not.
+     */
+    private boolean frameDepthBuffered = false;
+    
+    /**
+     * The stamp of the last rendered frame, as {camera version, scene version, rendered count, width, height}.
+     */
+    private long[] frameStamp = null;
+    
+    /**
+     * The stamp of the frame the id buffer was rendered from.
+     */
+    private long[] bufferStamp = null;
+    
+    
+    //Constructors
+    
+    /**
+     * The default constructor for a Pick Buffer.
+     */
+    public PickBuffer() {
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Records a frame that has just been rendered, so the id buffer can be refreshed from it when it is next picked from.<br>
+     * The stamp of the frame is taken before the frame was prepared, so that changes made during the frame are picked up by the next one.
+     *
+     * @param preparedBases The BaseObjects of the frame, in render order.
+     * @param cameraVersion The version of the Camera the frame was rendered from, when the frame was prepared.
+     * @param sceneVersion  The version of the scene when the frame was prepared.
+     * @param width         The width of the screen.
+     * @param height        The height of the screen.
+     * @param depthBuffered Whether the frame was rendered with a depth buffer, rather than in painter's order.
+     */
+    public void setFrame(List<BaseObject> preparedBases, long cameraVersion, long sceneVersion, int width, int height, boolean depthBuffered) {
+        int rendered = 0;
+        for (BaseObject preparedBase : preparedBases) {
+            if (preparedBase.isRendered()) {
+                rendered++;
+            }
+        }
+        
+        frameBases = preparedBases;
+        frameDepthBuffered = depthBuffered;
+        frameStamp = new long[] {cameraVersion, sceneVersion, rendered, width, height};
+    }
+    
+    /**
+     * Refreshes the id buffer from the last rendered frame, if the Camera or the scene has changed since it was last refreshed.
+     *
+     * @return Whether the id buffer was refreshed or not.
+     */
+    public boolean refresh() {
+        if ((frameStamp == null) || Arrays.equals(frameStamp, bufferStamp)) {
+            return false;
+        }
+        
+        int width = (int) frameStamp[3];
+        int height = (int) frameStamp[4];
+        if ((width <= 0) || (height <= 0)) {
+            return false;
+        }
+        
+        if ((image == null) || (image.getWidth() != width) || (image.getHeight() != height)) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            ids = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            rasterizer = null;
+        }
+        if ((rasterizer == null) || (rasterizer.isDepthBuffered() != frameDepthBuffered)) {
+            rasterizer = new Rasterizer(image, frameDepthBuffered);
+        }
+        
+        rasterizer.clear(Color.BLACK);
+        objects.clear();
+        for (BaseObject preparedBase : frameBases) {
+            if (preparedBase.isRendered() && preparedBase.isPickable()) {
+                objects.add(preparedBase);
+                rasterizer.setPaintOverride(new Color(objects.size()));
+                preparedBase.render(rasterizer);
+            }
+        }
+        rasterizer.setPaintOverride(null);
+        
+        bufferStamp = frameStamp;
+        return true;
+    }
+    
+    /**
+     * Picks the topmost BaseObject at a screen coordinate, refreshing the id buffer first if it is stale.
+     *
+     * @param x The x coordinate on the screen.
+     * @param y The y coordinate on the screen.
+     * @return The topmost BaseObject at the screen coordinate, or null if there is none.
+     */
+    public BaseObject pick(int x, int y) {
+        refresh();
+        if ((image == null) || (x < 0) || (y < 0) || (x >= image.getWidth()) || (y >= image.getHeight())) {
+            return null;
+        }
+        
+        int id = ids[(y * image.getWidth()) + x] & 0xFFFFFF;
+        return ((id > 0) && (id <= objects.size())) ? objects.get(id - 1) : null;
+    }
+    
+}
@@ -0,0 +1,140 @@
+/*
+ * File:    Prefetcher.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import graphy.camera.Camera;
+import graphy.objects.base.BaseObject;
+import graphy.objects.base.InstancedObject;
+
+/**
+ * Builds the cached rasters of Instanced Objects on a background thread, for the region in view and the region about to come into view.<br>
+ * The velocity of the view is extrapolated from the translation of the orthographic transformation between frames, so it covers dragging, keyboard movement and fluid transitions alike.
+ */
+public class Prefetcher {
+    
+    //Constants
+    
+    /**
+     * The time to extrapolate the velocity of the view ahead by, in milliseconds.
+     */
+    public static final long LOOKAHEAD = 250;
+    
+    /**
+     * The weight of the newest measurement in the smoothed velocity of the view.
+     */
+    public static final double SMOOTHING = 0.5;
+    
+    
+    //Fields
+    
+    /**
+     * The background thread to build the rasters on.
+     */
+    private final ExecutorService executor;
+    
+    /**
+     * Whether a prefetch is queued or running on the background thread.
+     */
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+    
+    /**
+     * The orthographic transformation of the previous frame, or null if there was none.
+     */
+    private double[] lastView = null;
+    
+    /**
+     * The time of the previous frame, in nanoseconds.
+     */
+    private long lastTime = 0;
+    
+    /**
+     * The smoothed x velocity of the view, in pixels per millisecond.
+     */
+    private double velocityX = 0;
+    
+    /**
+     * The smoothed y velocity of the view, in pixels per millisecond.
+     */
+    private double velocityY = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Prefetcher.
+     */
+    public Prefetcher() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Prefetcher");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Updates the velocity of the view with the frame that was just rendered, and queues the rasters that are missing for the current and predicted views.<br>
+     * Nothing is queued while the view is zooming, as rasters are only valid at the scale they were built at.
+     *
+     * @param preparedBases The list of BaseObjects that were rendered.
+     * @param width         The width of the screen.
+     * @param height        The height of the screen.
+     */
+    public void update(List<BaseObject> preparedBases, int width, int height) {
+        double[] view = Camera.getActiveOrthographicTransform();
+        long time = System.nanoTime();
+        if (!InstancedObject.hasSameScale(view, lastView)) {
+            velocityX = 0;
+            velocityY = 0;
+            lastView = view;
+            lastTime = time;
+            return;
+        }
+        
+        double elapsed = Math.max(1, (time - lastTime) / 1000000.0);
+        velocityX = (SMOOTHING * ((view[2] - lastView[2]) / elapsed)) + ((1 - SMOOTHING) * velocityX);
+        velocityY = (SMOOTHING * ((view[5] - lastView[5]) / elapsed)) + ((1 - SMOOTHING) * velocityY);
+        lastView = view;
+        lastTime = time;
+        
+        double[] predicted = view.clone();
+        predicted[2] += Math.rint(velocityX * LOOKAHEAD);
+        predicted[5] += Math.rint(velocityY * LOOKAHEAD);
+        
+        List<InstancedObject> instanced = new ArrayList<>();
+        for (BaseObject preparedBase : preparedBases) {
+            if (preparedBase instanceof InstancedObject) {
+                instanced.add((InstancedObject) preparedBase);
+            }
+        }
+        if (instanced.isEmpty() || !pending.compareAndSet(false, true)) {
+            return;
+        }
+        
+        executor.execute(() -> {
+            try {
+                for (InstancedObject object : instanced) {
+                    for (int block : object.requestRasterBlocks(view, predicted, width, height)) {
+                        object.buildRasterBlock(block, view);
+                    }
+                }
+            } finally {
+                pending.set(false);
+            }
+        });
+    }
+    
+}
@@ -0,0 +1,264 @@
+/*
+ * File:    QualityGovernor.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.awt.AWTEvent;
+import java.awt.Toolkit;
+
+/**
+ * Governs the frame rate and render quality while the user is interacting with the view.<br>
+ * While the Camera is moving or input is arriving, frames that exceed their budget first lower the render quality one step at a time, and then lower the frame rate to what the frames actually take.<br>
+ * Once the view has settled, full quality and the target frame rate are restored.
+ */
+public class QualityGovernor {
+    
+    //Constants
+    
+    /**
+     * The time after the last input or Camera movement that the view is considered settled, in milliseconds.
+     */
+    public static final long SETTLE_TIME = 300;
+    
+    /**
+     * The weight of the newest measurement in the smoothed frame time.
+     */
+    public static final double SMOOTHING = 0.25;
+    
+    /**
+     * The number of frames to hold a render quality for before lowering it again.
+     */
+    public static final int QUALITY_HOLD = 4;
+    
+    /**
+     * The lowest frame rate to lower to while interacting.
+     */
+    public static final int MIN_FPS = 10;
+    
+    /**
+     * The minimum size of an image on the screen to draw it at reduced quality, in pixels.
+     */
+    public static final int MIN_REDUCED_IMAGE_SIZE = 16;
+    
+    
+    //Enums
+    
+    /**
+     * An enumeration of render qualities.
+     */
+    public enum Quality {
+        FULL,
+        REDUCED,
+        MINIMAL
+    }
+    
+    
+    //Static Fields
+    
+    /**
+     * The render quality of the frame being rendered.
+     */
+    private static volatile Quality quality = Quality.FULL;
+    
+    
+    //Fields
+    
+    /**
+     * The time of the last input, in nanoseconds.
+     */
+    private volatile long lastInput = 0;
+    
+    /**
+     * The version of the Camera at the last frame.
+     */
+    private long lastCameraVersion = -1;
+    
+    /**
+     * The time of the last change of the Camera, in nanoseconds.
+     */
+    private long lastCameraChange = 0;
+    
+    /**
+     * The time that the frame being rendered started, in nanoseconds.
+     */
+    private volatile long frameStart = 0;
+    
+    /**
+     * The smoothed time to render a frame, in milliseconds.
+     */
+    private double frameTime = 0;
+    
+    /**
+     * The number of frames that have been rendered at the current render quality.
+     */
+    private int framesAtQuality = 0;
+    
+    /**
+     * The time to wait between frames, in milliseconds.
+     */
+    private volatile double frameInterval = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Quality Governor.<br>
+     * Mouse, wheel and key input anywhere in the application counts as interaction.
+     */
+    public QualityGovernor() {
+        try {
+            Toolkit.getDefaultToolkit().addAWTEventListener(e -> notifyInput(),
+                    AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK | AWTEvent.MOUSE_WHEEL_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+        } catch (SecurityException ignored) {
+        }
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Records that input has arrived.
+     */
+    public void notifyInput() {
+        lastInput = System.nanoTime();
+    }
+    
+    /**
+     * Starts a frame, and decides the render quality and frame rate for it.
+     *
+     * @param cameraVersion The version of the Camera for the frame.
+     * @param fps           The target number of frames to render per second.
+     */
+    public void beginFrame(long cameraVersion, int fps) {
+        long now = System.nanoTime();
+        frameStart = now;
+        if (cameraVersion != lastCameraVersion) {
+            lastCameraVersion = cameraVersion;
+            lastCameraChange = now;
+        }
+        
+        double budget = 1000.0 / Math.max(1, fps);
+        long settle = SETTLE_TIME * 1000000L;
+        boolean interacting = ((now - lastInput) < settle) || ((now - lastCameraChange) < settle);
+        if (!interacting) {
+            setQuality(Quality.FULL);
+            frameInterval = budget;
+            return;
+        }
+        
+        framesAtQuality++;
+        if (frameTime > budget) {
+            if ((quality != Quality.MINIMAL) && (framesAtQuality >= QUALITY_HOLD)) {
+                setQuality(Quality.values()[quality.ordinal() + 1]);
+            } else if (quality == Quality.MINIMAL) {
+                frameInterval = Math.min(1000.0 / MIN_FPS, frameTime);
+            }
+        }
+    }
+    
+    /**
+     * Restores full render quality and the target frame rate.
+     */
+    public void reset() {
+        setQuality(Quality.FULL);
+        frameInterval = 0;
+    }
+    
+    /**
+     * Ends a frame, and measures the time it took.
+     */
+    public void endFrame() {
+        double elapsed = (System.nanoTime() - frameStart) / 1000000.0;
+        frameTime = (frameTime == 0) ? elapsed : ((SMOOTHING * elapsed) + ((1 - SMOOTHING) * frameTime));
+    }
+    
+    /**
+     * Determines whether a frame should be rendered on a tick of the render timer.
+     *
+     * @param period The period of the render timer, in milliseconds.
+     * @return Whether a frame should be rendered.
+     */
+    public boolean shouldRender(long period) {
+        double sinceStart = (System.nanoTime() - frameStart) / 1000000.0;
+        return sinceStart >= (frameInterval - (period / 2.0));
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the smoothed time to render a frame.
+     *
+     * @return The smoothed time to render a frame, in milliseconds.
+     */
+    public double getFrameTime() {
+        return frameTime;
+    }
+    
+    /**
+     * Returns the time to wait between frames.
+     *
+     * @return The time to wait between frames, in milliseconds.
+     */
+    public double getFrameInterval() {
+        return frameInterval;
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the render quality of the frames being rendered.
+     *
+     * @param newQuality The render quality.
+     */
+    private void setQuality(Quality newQuality) {
+        if (quality != newQuality) {
+            quality = newQuality;
+            framesAtQuality = 0;
+        }
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Returns the render quality of the frame being rendered.
+     *
+     * @return The render quality of the frame being rendered.
+     */
+    public static Quality getQuality() {
+        return quality;
+    }
+    
+    /**
+     * Determines whether the frame being rendered is at full quality.
+     *
+     * @return Whether the frame being rendered is at full quality.
+     */
+    public static boolean isFullQuality() {
+        return quality == Quality.FULL;
+    }
+    
+    /**
+     * Determines whether an image of a certain size on the screen is drawn at the render quality of the frame being rendered.
+     *
+     * @param width  The width of the image on the screen.
+     * @param height The height of the image on the screen.
+     * @return Whether the image is drawn.
+     */
+    public static boolean isImageDrawn(int width, int height) {
+        switch (quality) {
+            case FULL:
+                return true;
+            case REDUCED:
+                return (width >= MIN_REDUCED_IMAGE_SIZE) && (height >= MIN_REDUCED_IMAGE_SIZE);
+            default:
+                return false;
+        }
+    }
+    
+}
@@ -0,0 +1,847 @@
+/*
+ * File:    Rasterizer.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * A software scanline rasterizer that draws directly into the int raster of a back buffer.
+ */
+public class Rasterizer {
+    
+    //Constants
+    
+    /**
+     * The number of fractional bits used for fixed point edge stepping.
+     */
+    private static final int FIXED_SHIFT = 16;
+    
+    /**
+     * The fixed point offset of the sample point of a pixel, a quarter pixel, matching the normalization of Graphics2D.
+     */
+    private static final long FIXED_SAMPLE = 1L << (FIXED_SHIFT - 2);
+    
+    /**
+     * The fixed point value of one.
+     */
+    private static final long FIXED_ONE = 1L << FIXED_SHIFT;
+    
+    /**
+     * The factor that lines, points and images are moved towards the Camera by when testing depth, so that they stay visible on the faces they lie on.
+     */
+    private static final float DEPTH_BIAS = 1.001f;
+    
+    
+    //Static Fields
+    
+    /**
+     * The cache of the ARGB pixels of images that have been blitted.
+     */
+    private static final Map<BufferedImage, int[]> imagePixels = Collections.synchronizedMap(new WeakHashMap<>());
+    
+    
+    //Fields
+    
+    /**
+     * The back buffer the Rasterizer draws into.
+     */
+    private final BufferedImage image;
+    
+    /**
+     * The pixels of the back buffer.
+     */
+    private final int[] pixels;
+    
+    /**
+     * The width of the back buffer.
+     */
+    private final int width;
+    
+    /**
+     * The height of the back buffer.
+     */
+    private final int height;
+    
+    /**
+     * The inverse view depths of the pixels of the back buffer, or null if the Rasterizer is not depth buffered.<br>
+     * Larger values are nearer to the Camera and a cleared pixel has an inverse depth of zero.
+     */
+    private final float[] depths;
+    
+    /**
+     * The minimum x coordinate of the clip, inclusive.
+     */
+    private int clipMinX;
+    
+    /**
+     * The minimum y coordinate of the clip, inclusive.
+     */
+    private int clipMinY;
+    
+    /**
+     * The maximum x coordinate of the clip, exclusive.
+     */
+    private int clipMaxX;
+    
+    /**
+     * The maximum y coordinate of the clip, exclusive.
+     */
+    private int clipMaxY;
+    
+    /**
+     * The left edge of each scanline of the polygon being filled.
+     */
+    private final int[] spanMin;
+    
+    /**
+     * The right edge of each scanline of the polygon being filled.
+     */
+    private final int[] spanMax;
+    
+    /**
+     * The Graphics entity of the back buffer, for drawing that the Rasterizer does not support.
+     */
+    private Graphics2D graphics;
+    
+    /**
+     * The color that replaces the colors and images of everything drawn, or null to draw normally.
+     */
+    private Color paintOverride = null;
+    
+    /**
+     * The Graphics entity that discards drawing while the paint is overridden.
+     */
+    private Graphics2D discardGraphics;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Rasterizer.
+     *
+     * @param image The back buffer to draw into, must be of type TYPE_INT_RGB or TYPE_INT_ARGB.
+     * @throws IllegalArgumentException When the back buffer is not backed by an int raster.
+     */
+    public Rasterizer(BufferedImage image) throws IllegalArgumentException {
+        this(image, false);
+    }
+    
+    /**
+     * The constructor for a Rasterizer.
+     *
+     * @param image         The back buffer to draw into, must be of type TYPE_INT_RGB or TYPE_INT_ARGB.
+     * @param depthBuffered Whether or not the Rasterizer should test and record depth per pixel.
+     * @throws IllegalArgumentException When the back buffer is not backed by an int raster.
+     */
+    public Rasterizer(BufferedImage image, boolean depthBuffered) throws IllegalArgumentException {
+        if (!(image.getRaster().getDataBuffer() instanceof DataBufferInt)) {
+            throw new IllegalArgumentException("The back buffer for the Rasterizer must be backed by an int raster.");
+        }
+        
+        this.image = image;
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.spanMin = new int[height];
+        this.spanMax = new int[height];
+        this.depths = depthBuffered ? new float[width * height] : null;
+        setClip(0, 0, width, height);
+    }
+    
+    /**
+     * The constructor for a Rasterizer that draws into a region of the back buffer of another Rasterizer.
+     *
+     * @param target The Rasterizer whose back buffer and depth buffer to draw into.
+     * @param x      The x coordinate of the region.
+     * @param y      The y coordinate of the region.
+     * @param w      The width of the region.
+     * @param h      The height of the region.
+     */
+    private Rasterizer(Rasterizer target, int x, int y, int w, int h) {
+        this.image = target.image;
+        this.pixels = target.pixels;
+        this.width = target.width;
+        this.height = target.height;
+        this.spanMin = new int[height];
+        this.spanMax = new int[height];
+        this.depths = target.depths;
+        setClip(x, y, w, h);
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Creates a Rasterizer that draws into a region of the back buffer and depth buffer of this Rasterizer.<br>
+     * The region Rasterizer has its own scanline and Graphics state, so Rasterizers of disjoint regions can draw concurrently.
+     *
+     * @param x The x coordinate of the region.
+     * @param y The y coordinate of the region.
+     * @param w The width of the region.
+     * @param h The height of the region.
+     * @return The Rasterizer of the region.
+     */
+    public Rasterizer createRegion(int x, int y, int w, int h) {
+        return new Rasterizer(this, x, y, w, h);
+    }
+    
+    /**
+     * Fills the clip of the back buffer with a color, and resets the clip of the depth buffer.
+     *
+     * @param color The color.
+     */
+    public void clear(Color color) {
+        int rgb = color.getRGB();
+        for (int y = clipMinY; y < clipMaxY; y++) {
+            int row = y * width;
+            for (int x = clipMinX; x < clipMaxX; x++) {
+                pixels[row + x] = rgb;
+            }
+            if (depths != null) {
+                Arrays.fill(depths, row + clipMinX, row + clipMaxX, 0.0f);
+            }
+        }
+    }
+    
+    /**
+     * Fills a convex polygon.<br>
+     * Pixels are filled when their sample points are inside the polygon, matching Graphics2D.fillPolygon, so adjacent polygons tile without gaps or overlap.
+     *
+     * @param xPoints The x coordinates of the vertices of the polygon.
+     * @param yPoints The y coordinates of the vertices of the polygon.
+     * @param n       The number of vertices of the polygon.
+     * @param color   The color.
+     */
+    public void fillPolygon(int[] xPoints, int[] yPoints, int n, Color color) {
+        fillPolygon(xPoints, yPoints, null, n, color);
+    }
+    
+    /**
+     * Fills a convex polygon, testing it against the depth buffer.<br>
+     * The inverse depths are interpolated across the polygon as a plane in screen space, which is perspective correct for planar polygons.
+     *
+     * @param xPoints       The x coordinates of the vertices of the polygon.
+     * @param yPoints       The y coordinates of the vertices of the polygon.
+     * @param inverseDepths The inverse view depths of the vertices of the polygon, or null to draw without testing depth.
+     * @param n             The number of vertices of the polygon.
+     * @param color         The color.
+     */
+    public void fillPolygon(int[] xPoints, int[] yPoints, float[] inverseDepths, int n, Color color) {
+        if (n < 3) {
+            return;
+        }
+        
+        int minX = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, xPoints[i]);
+            maxX = Math.max(maxX, xPoints[i]);
+            minY = Math.min(minY, yPoints[i]);
+            maxY = Math.max(maxY, yPoints[i]);
+        }
+        int top = Math.max(minY, clipMinY);
+        int bottom = Math.min(maxY, clipMaxY);
+        if ((top >= bottom) || (maxX < clipMinX) || (minX > clipMaxX)) {
+            return;
+        }
+        
+        for (int y = top; y < bottom; y++) {
+            spanMin[y] = Integer.MAX_VALUE;
+            spanMax[y] = Integer.MIN_VALUE;
+        }
+        
+        for (int i = 0; i < n; i++) {
+            int j = (i + 1 == n) ? 0 : (i + 1);
+            int x0 = xPoints[i];
+            int y0 = yPoints[i];
+            int x1 = xPoints[j];
+            int y1 = yPoints[j];
+            if (y0 == y1) {
+                continue;
+            }
+            if (y0 > y1) {
+                int t = x0;
+                x0 = x1;
+                x1 = t;
+                t = y0;
+                y0 = y1;
+                y1 = t;
+            }
+            
+            //step the edge through the sample points of the scanlines it crosses
+            int start = Math.max(y0, top);
+            int end = Math.min(y1, bottom);
+            long step = ((long) (x1 - x0) << FIXED_SHIFT) / (y1 - y0);
+            long x = ((long) x0 << FIXED_SHIFT) + ((step * FIXED_SAMPLE) >> FIXED_SHIFT) + (step * (start - y0));
+            for (int y = start; y < end; y++) {
+                int pixel = (int) ((x + FIXED_ONE - FIXED_SAMPLE - 1) >> FIXED_SHIFT);
+                if (pixel < spanMin[y]) {
+                    spanMin[y] = pixel;
+                }
+                if (pixel > spanMax[y]) {
+                    spanMax[y] = pixel;
+                }
+                x += step;
+            }
+        }
+        
+        int argb = resolvePaint(color);
+        double[] plane = ((depths != null) && (inverseDepths != null)) ? calculateDepthPlane(xPoints, yPoints, inverseDepths, n) : null;
+        for (int y = top; y < bottom; y++) {
+            if (spanMin[y] < spanMax[y]) {
+                if (plane == null) {
+                    fillSpan(y, spanMin[y], spanMax[y] - 1, argb);
+                } else {
+                    fillSpan(y, spanMin[y], spanMax[y] - 1, argb, (plane[0] * spanMin[y]) + (plane[1] * y) + plane[2], plane[0]);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Fills a rectangle.
+     *
+     * @param x     The x coordinate of the rectangle.
+     * @param y     The y coordinate of the rectangle.
+     * @param w     The width of the rectangle.
+     * @param h     The height of the rectangle.
+     * @param color The color.
+     */
+    public void fillRect(int x, int y, int w, int h, Color color) {
+        fillRect(x, y, w, h, Float.NaN, color);
+    }
+    
+    /**
+     * Fills a rectangle at a constant depth, testing it against the depth buffer.
+     *
+     * @param x            The x coordinate of the rectangle.
+     * @param y            The y coordinate of the rectangle.
+     * @param w            The width of the rectangle.
+     * @param h            The height of the rectangle.
+     * @param inverseDepth The inverse view depth of the rectangle, or NaN to draw without testing depth.
+     * @param color        The color.
+     */
+    public void fillRect(int x, int y, int w, int h, float inverseDepth, Color color) {
+        int argb = resolvePaint(color);
+        int top = Math.max(y, clipMinY);
+        int bottom = Math.min(y + h, clipMaxY);
+        for (int row = top; row < bottom; row++) {
+            if ((depths == null) || Float.isNaN(inverseDepth)) {
+                fillSpan(row, x, x + w - 1, argb);
+            } else {
+                fillSpan(row, x, x + w - 1, argb, inverseDepth * DEPTH_BIAS, 0);
+            }
+        }
+    }
+    
+    /**
+     * Draws a line between two points, inclusive of both end points.
+     *
+     * @param x0    The x coordinate of the first point.
+     * @param y0    The y coordinate of the first point.
+     * @param x1    The x coordinate of the second point.
+     * @param y1    The y coordinate of the second point.
+     * @param color The color.
+     */
+    public void drawLine(int x0, int y0, int x1, int y1, Color color) {
+        drawLine(x0, y0, x1, y1, Float.NaN, Float.NaN, color);
+    }
+    
+    /**
+     * Draws a line between two points, inclusive of both end points, testing it against the depth buffer.<br>
+     * Lines are biased slightly towards the Camera so that they stay visible on the faces they outline.
+     *
+     * @param x0            The x coordinate of the first point.
+     * @param y0            The y coordinate of the first point.
+     * @param x1            The x coordinate of the second point.
+     * @param y1            The y coordinate of the second point.
+     * @param inverseDepth0 The inverse view depth of the first point, or NaN to draw without testing depth.
+     * @param inverseDepth1 The inverse view depth of the second point, or NaN to draw without testing depth.
+     * @param color         The color.
+     */
+    public void drawLine(int x0, int y0, int x1, int y1, float inverseDepth0, float inverseDepth1, Color color) {
+        if ((Math.max(x0, x1) < clipMinX) || (Math.min(x0, x1) >= clipMaxX) ||
+                (Math.max(y0, y1) < clipMinY) || (Math.min(y0, y1) >= clipMaxY)) {
+            return;
+        }
+        
+        //clip the line to the clip before stepping it
+        double[] p = {x0 - x1, x1 - x0, y0 - y1, y1 - y0};
+        double[] q = {x0 - clipMinX, (clipMaxX - 1) - x0, y0 - clipMinY, (clipMaxY - 1) - y0};
+        double t0 = 0;
+        double t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+            }
+        }
+        if (t0 > t1) {
+            return;
+        }
+        if ((t0 > 0) || (t1 < 1)) {
+            int dx = x1 - x0;
+            int dy = y1 - y0;
+            x1 = x0 + (int) Math.round(dx * t1);
+            y1 = y0 + (int) Math.round(dy * t1);
+            x0 = x0 + (int) Math.round(dx * t0);
+            y0 = y0 + (int) Math.round(dy * t0);
+        }
+        
+        int argb = resolvePaint(color);
+        int dx = Math.abs(x1 - x0);
+        int dy = -Math.abs(y1 - y0);
+        int sx = (x0 < x1) ? 1 : -1;
+        int sy = (y0 < y1) ? 1 : -1;
+        int error = dx + dy;
+        
+        boolean depthTest = (depths != null) && !Float.isNaN(inverseDepth0) && !Float.isNaN(inverseDepth1);
+        int steps = Math.max(dx, -dy);
+        double w = 0;
+        double dw = 0;
+        if (depthTest) {
+            double w0 = inverseDepth0 + ((inverseDepth1 - inverseDepth0) * t0);
+            double w1 = inverseDepth0 + ((inverseDepth1 - inverseDepth0) * t1);
+            w = w0 * DEPTH_BIAS;
+            dw = (steps == 0) ? 0 : (((w1 - w0) * DEPTH_BIAS) / steps);
+        }
+        
+        while (true) {
+            if ((x0 >= clipMinX) && (x0 < clipMaxX) && (y0 >= clipMinY) && (y0 < clipMaxY)) {
+                if (!depthTest) {
+                    plot(x0, y0, argb);
+                } else {
+                    plot(x0, y0, argb, (float) w);
+                }
+            }
+            if ((x0 == x1) && (y0 == y1)) {
+                break;
+            }
+            
+            int e2 = error * 2;
+            if (e2 >= dy) {
+                error += dy;
+                x0 += sx;
+            }
+            if (e2 <= dx) {
+                error += dx;
+                y0 += sy;
+            }
+            w += dw;
+        }
+    }
+    
+    /**
+     * Blits an image, scaled with nearest neighbor sampling at pixel centers and blended by its alpha channel.
+     *
+     * @param img The image to blit.
+     * @param x   The x coordinate to draw the image at.
+     * @param y   The y coordinate to draw the image at.
+     * @param w   The width to draw the image at.
+     * @param h   The height to draw the image at.
+     */
+    public void drawImage(BufferedImage img, int x, int y, int w, int h) {
+        drawImage(img, x, y, w, h, Float.NaN);
+    }
+    
+    /**
+     * Blits an image at a constant depth, scaled with nearest neighbor sampling at pixel centers and blended by its alpha channel, testing it against the depth buffer.
+     *
+     * @param img          The image to blit.
+     * @param x            The x coordinate to draw the image at.
+     * @param y            The y coordinate to draw the image at.
+     * @param w            The width to draw the image at.
+     * @param h            The height to draw the image at.
+     * @param inverseDepth The inverse view depth of the image, or NaN to draw without testing depth.
+     */
+    public void drawImage(BufferedImage img, int x, int y, int w, int h, float inverseDepth) {
+        if ((w <= 0) || (h <= 0)) {
+            return;
+        }
+        int left = Math.max(x, clipMinX);
+        int right = Math.min(x + w, clipMaxX);
+        int top = Math.max(y, clipMinY);
+        int bottom = Math.min(y + h, clipMaxY);
+        if ((left >= right) || (top >= bottom)) {
+            return;
+        }
+        
+        int[] source = getImagePixels(img);
+        int sourceWidth = img.getWidth();
+        int sourceHeight = img.getHeight();
+        
+        int[] sourceColumns = new int[right - left];
+        for (int column = left; column < right; column++) {
+            sourceColumns[column - left] = (int) ((((long) (column - x) * 2 + 1) * sourceWidth) / (2L * w));
+        }
+        
+        boolean depthTest = (depths != null) && !Float.isNaN(inverseDepth);
+        float depth = inverseDepth * DEPTH_BIAS;
+        for (int row = top; row < bottom; row++) {
+            int sourceRow = (int) ((((long) (row - y) * 2 + 1) * sourceHeight) / (2L * h)) * sourceWidth;
+            int target = row * width;
+            for (int column = left; column < right; column++) {
+                if (depthTest && (depth < depths[target + column])) {
+                    continue;
+                }
+                
+                int argb = source[sourceRow + sourceColumns[column - left]];
+                int alpha = argb >>> 24;
+                if ((paintOverride != null) && (alpha != 0)) {
+                    argb = paintOverride.getRGB();
+                    alpha = 0xFF;
+                }
+                if (alpha == 0xFF) {
+                    pixels[target + column] = argb;
+                    if (depthTest) {
+                        depths[target + column] = depth;
+                    }
+                } else if (alpha != 0) {
+                    pixels[target + column] = blend(pixels[target + column], argb, alpha);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Fills a horizontal span of pixels.
+     *
+     * @param y    The scanline.
+     * @param x0   The first pixel of the span, inclusive.
+     * @param x1   The last pixel of the span, inclusive.
+     * @param argb The color, as an ARGB value.
+     */
+    private void fillSpan(int y, int x0, int x1, int argb) {
+        int left = Math.max(x0, clipMinX);
+        int right = Math.min(x1, clipMaxX - 1);
+        if (left > right) {
+            return;
+        }
+        
+        int row = y * width;
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            for (int x = left; x <= right; x++) {
+                pixels[row + x] = argb;
+            }
+        } else if (alpha != 0) {
+            for (int x = left; x <= right; x++) {
+                pixels[row + x] = blend(pixels[row + x], argb, alpha);
+            }
+        }
+    }
+    
+    /**
+     * Fills a horizontal span of pixels, testing it against the depth buffer.<br>
+     * Opaque pixels that pass the test write their depth, translucent pixels are only blended.
+     *
+     * @param y    The scanline.
+     * @param x0   The first pixel of the span, inclusive.
+     * @param x1   The last pixel of the span, inclusive.
+     * @param argb The color, as an ARGB value.
+     * @param w    The inverse depth at the first pixel of the span.
+     * @param dw   The change in inverse depth per pixel.
+     */
+    private void fillSpan(int y, int x0, int x1, int argb, double w, double dw) {
+        int left = Math.max(x0, clipMinX);
+        int right = Math.min(x1, clipMaxX - 1);
+        if (left > right) {
+            return;
+        }
+        w += dw * (left - x0);
+        
+        int row = y * width;
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            for (int x = left; x <= right; x++, w += dw) {
+                if (w >= depths[row + x]) {
+                    pixels[row + x] = argb;
+                    depths[row + x] = (float) w;
+                }
+            }
+        } else if (alpha != 0) {
+            for (int x = left; x <= right; x++, w += dw) {
+                if (w >= depths[row + x]) {
+                    pixels[row + x] = blend(pixels[row + x], argb, alpha);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Plots a single pixel.
+     *
+     * @param x    The x coordinate of the pixel.
+     * @param y    The y coordinate of the pixel.
+     * @param argb The color, as an ARGB value.
+     */
+    private void plot(int x, int y, int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            pixels[(y * width) + x] = argb;
+        } else if (alpha != 0) {
+            pixels[(y * width) + x] = blend(pixels[(y * width) + x], argb, alpha);
+        }
+    }
+    
+    /**
+     * Plots a single pixel, testing it against the depth buffer.
+     *
+     * @param x    The x coordinate of the pixel.
+     * @param y    The y coordinate of the pixel.
+     * @param argb The color, as an ARGB value.
+     * @param w    The inverse depth of the pixel.
+     */
+    private void plot(int x, int y, int argb, float w) {
+        int index = (y * width) + x;
+        if (w < depths[index]) {
+            return;
+        }
+        
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            pixels[index] = argb;
+            depths[index] = w;
+        } else if (alpha != 0) {
+            pixels[index] = blend(pixels[index], argb, alpha);
+        }
+    }
+    
+    /**
+     * Resolves the ARGB value to draw a color with.
+     *
+     * @param color The color.
+     * @return The ARGB value to draw the color with, which is the paint override if one is set.
+     */
+    private int resolvePaint(Color color) {
+        return ((paintOverride != null) ? paintOverride : color).getRGB();
+    }
+    
+    /**
+     * Determines whether a screen rectangle intersects the clip of the Rasterizer.
+     *
+     * @param minX The minimum x coordinate of the rectangle.
+     * @param minY The minimum y coordinate of the rectangle.
+     * @param maxX The maximum x coordinate of the rectangle, exclusive.
+     * @param maxY The maximum y coordinate of the rectangle, exclusive.
+     * @return Whether the rectangle intersects the clip of the Rasterizer or not.
+     */
+    public boolean intersectsClip(int minX, int minY, int maxX, int maxY) {
+        return (minX < clipMaxX) && (maxX > clipMinX) && (minY < clipMaxY) && (maxY > clipMinY);
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the back buffer the Rasterizer draws into.
+     *
+     * @return The back buffer the Rasterizer draws into.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+    
+    /**
+     * Returns whether the Rasterizer is depth buffered or not.
+     *
+     * @return Whether the Rasterizer is depth buffered or not.
+     */
+    public boolean isDepthBuffered() {
+        return depths != null;
+    }
+    
+    /**
+     * Returns the width of the back buffer.
+     *
+     * @return The width of the back buffer.
+     */
+    public int getWidth() {
+        return width;
+    }
+    
+    /**
+     * Returns the height of the back buffer.
+     *
+     * @return The height of the back buffer.
+     */
+    public int getHeight() {
+        return height;
+    }
+    
+    /**
+     * Returns the clip of the Rasterizer.
+     *
+     * @return The clip of the Rasterizer, as {minX, minY, maxX, maxY}, with the maximums exclusive.
+     */
+    public int[] getClip() {
+        return new int[] {clipMinX, clipMinY, clipMaxX, clipMaxY};
+    }
+    
+    /**
+     * Returns the color that replaces the colors and images of everything drawn.
+     *
+     * @return The color that replaces the colors and images of everything drawn, or null if the Rasterizer draws normally.
+     */
+    public Color getPaintOverride() {
+        return paintOverride;
+    }
+    
+    /**
+     * Returns the Graphics entity of the back buffer, for drawing that the Rasterizer does not support.<br>
+     * The Graphics entity draws into the same raster, so the drawing order is preserved.<br>
+     * While the paint is overridden, the drawing of the Graphics entity is discarded.
+     *
+     * @return The Graphics entity of the back buffer.
+     */
+    public Graphics2D getGraphics() {
+        if (paintOverride != null) {
+            if (discardGraphics == null) {
+                discardGraphics = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB).createGraphics();
+            }
+            return discardGraphics;
+        }
+        if (graphics == null) {
+            graphics = image.createGraphics();
+            graphics.setClip(clipMinX, clipMinY, clipMaxX - clipMinX, clipMaxY - clipMinY);
+        }
+        return graphics;
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the clip of the Rasterizer.
+     *
+     * @param x The x coordinate of the clip.
+     * @param y The y coordinate of the clip.
+     * @param w The width of the clip.
+     * @param h The height of the clip.
+     */
+    public void setClip(int x, int y, int w, int h) {
+        clipMinX = Math.max(0, x);
+        clipMinY = Math.max(0, y);
+        clipMaxX = Math.min(width, x + w);
+        clipMaxY = Math.min(height, y + h);
+        
+        if (graphics != null) {
+            graphics.setClip(clipMinX, clipMinY, clipMaxX - clipMinX, clipMaxY - clipMinY);
+        }
+    }
+    
+    /**
+     * Sets the color that replaces the colors and images of everything drawn, such as an id when rendering an id buffer.
+     *
+     * @param paintOverride The color that replaces the colors and images of everything drawn, or null to draw normally.
+     */
+    public void setPaintOverride(Color paintOverride) {
+        this.paintOverride = paintOverride;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Blends a color over a pixel.
+     *
+     * @param pixel The RGB value of the pixel.
+     * @param argb  The ARGB value of the color.
+     * @param alpha The alpha of the color.
+     * @return The RGB value of the blended pixel.
+     */
+    private static int blend(int pixel, int argb, int alpha) {
+        int inverse = 0xFF - alpha;
+        int r = ((((argb >> 16) & 0xFF) * alpha) + (((pixel >> 16) & 0xFF) * inverse)) / 0xFF;
+        int g = ((((argb >> 8) & 0xFF) * alpha) + (((pixel >> 8) & 0xFF) * inverse)) / 0xFF;
+        int b = (((argb & 0xFF) * alpha) + ((pixel & 0xFF) * inverse)) / 0xFF;
+        return 0xFF000000 | (r << 16) | (g << 8) | b;
+    }
+    
+    /**
+     * Calculates the plane of inverse depth across a polygon in screen space.<br>
+     * The plane is fit through the largest triangle of a fan of the polygon, to be robust against nearly collinear vertices.
+     *
+     * @param xPoints       The x coordinates of the vertices of the polygon.
+     * @param yPoints       The y coordinates of the vertices of the polygon.
+     * @param inverseDepths The inverse view depths of the vertices of the polygon.
+     * @param n             The number of vertices of the polygon.
+     * @return The plane of inverse depth, as {a, b, c}, so that w = a*x + b*y + c.
+     */
+    private static double[] calculateDepthPlane(int[] xPoints, int[] yPoints, float[] inverseDepths, int n) {
+        int best = -1;
+        double bestArea = 0;
+        for (int i = 1; i < n - 1; i++) {
+            double area = Math.abs(((double) (xPoints[i] - xPoints[0]) * (yPoints[i + 1] - yPoints[0])) - ((double) (xPoints[i + 1] - xPoints[0]) * (yPoints[i] - yPoints[0])));
+            if (area > bestArea) {
+                bestArea = area;
+                best = i;
+            }
+        }
+        
+        if (best < 0) {
+            float nearest = 0;
+            for (int i = 0; i < n; i++) {
+                nearest = Math.max(nearest, inverseDepths[i]);
+            }
+            return new double[] {0, 0, nearest};
+        }
+        
+        double ux = xPoints[best] - xPoints[0];
+        double uy = yPoints[best] - yPoints[0];
+        double uw = inverseDepths[best] - inverseDepths[0];
+        double vx = xPoints[best + 1] - xPoints[0];
+        double vy = yPoints[best + 1] - yPoints[0];
+        double vw = inverseDepths[best + 1] - inverseDepths[0];
+        
+        double nx = (uy * vw) - (uw * vy);
+        double ny = (uw * vx) - (ux * vw);
+        double nw = (ux * vy) - (uy * vx);
+        
+        double a = -nx / nw;
+        double b = -ny / nw;
+        return new double[] {a, b, inverseDepths[0] - (a * xPoints[0]) - (b * yPoints[0])};
+    }
+    
+    /**
+     * Returns the ARGB pixels of an image, caching them for subsequent blits.<br>
+     * The pixels of an image of type TYPE_INT_ARGB are used directly, without copying them.
+     *
+     * @param img The image.
+     * @return The ARGB pixels of the image.
+     */
+    private static int[] getImagePixels(BufferedImage img) {
+        if ((img.getType() == BufferedImage.TYPE_INT_ARGB) && (img.getRaster().getDataBuffer() instanceof DataBufferInt)) {
+            return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        }
+        
+        int[] source = imagePixels.get(img);
+        if (source == null) {
+            source = img.getRGB(0, 0, img.getWidth(), img.getHeight(), null, 0, img.getWidth());
+            imagePixels.put(img, source);
+        }
+        return source;
+    }
+    
+}
@@ -0,0 +1,305 @@
+/*
+ * File:    TileRenderer.java
+ * Package: rendering
+ * Author:  Zachary Gill
+ */
+
+package graphy.rendering;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import graphy.objects.base.BaseObject;
+
+/**
+ * Renders prepared BaseObjects with the software Rasterizer across cores.<br>
+ * The BaseObjects are pre-rendered in parallel, binned by their screen bounds into tiles, and then each tile is rasterized by exactly one worker into the shared back buffer, so no locking is needed.
+ */
+public class TileRenderer {
+    
+    //Constants
+    
+    /**
+     * The size of a tile, in pixels.
+     */
+    public static final int TILE_SIZE = 64;
+    
+    /**
+     * The number of BaseObjects that are pre-rendered by a single task.
+     */
+    private static final int PRE_RENDER_BATCH = 256;
+    
+    
+    //Fields
+    
+    /**
+     * The Rasterizer of the whole back buffer.
+     */
+    private final Rasterizer rasterizer;
+    
+    /**
+     * The pool to render on.
+     */
+    private final ForkJoinPool pool;
+    
+    /**
+     * The number of tiles across the back buffer.
+     */
+    private final int tilesX;
+    
+    /**
+     * The number of tiles down the back buffer.
+     */
+    private final int tilesY;
+    
+    /**
+     * The Rasterizers of the tiles, in row major order.
+     */
+    private final Rasterizer[] tiles;
+    
+    /**
+     * The BaseObjects binned into each tile, in render order.
+     */
+    private final List<List<BaseObject>> bins;
+    
+    /**
+     * Whether each BaseObject of the frame being rendered survived pre-rendering.
+     */
+    private boolean[] visible = new boolean[0];
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Tile Renderer.
+     *
+     * @param rasterizer The Rasterizer of the whole back buffer.
+     * @param pool       The pool to render on.
+     */
+    public TileRenderer(Rasterizer rasterizer, ForkJoinPool pool) {
+        this.rasterizer = rasterizer;
+        this.pool = pool;
+        this.tilesX = (rasterizer.getWidth() + TILE_SIZE - 1) / TILE_SIZE;
+        this.tilesY = (rasterizer.getHeight() + TILE_SIZE - 1) / TILE_SIZE;
+        
+        this.tiles = new Rasterizer[tilesX * tilesY];
+        this.bins = new ArrayList<>(tiles.length);
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                tiles[(ty * tilesX) + tx] = rasterizer.createRegion(tx * TILE_SIZE, ty * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                bins.add(new ArrayList<>());
+            }
+        }
+    }
+    
+    /**
+     * The constructor for a Tile Renderer on the common pool.
+     *
+     * @param rasterizer The Rasterizer of the whole back buffer.
+     */
+    public TileRenderer(Rasterizer rasterizer) {
+        this(rasterizer, ForkJoinPool.commonPool());
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Renders a frame of prepared BaseObjects.
+     *
+     * @param preparedBases The prepared BaseObjects, in render order.
+     * @param background    The color to clear the back buffer to.
+     */
+    public void render(List<BaseObject> preparedBases, Color background) {
+        int count = preparedBases.size();
+        if (visible.length < count) {
+            visible = new boolean[count];
+        }
+        pool.invoke(new PreRenderTask(preparedBases, 0, count));
+        
+        for (List<BaseObject> bin : bins) {
+            bin.clear();
+        }
+        for (int i = 0; i < count; i++) {
+            if (visible[i]) {
+                bin(preparedBases.get(i));
+            }
+        }
+        
+        pool.invoke(new RasterizeTask(0, tiles.length, background));
+    }
+    
+    /**
+     * Adds a pre-rendered BaseObject to the bins of the tiles its screen bounds overlap.
+     *
+     * @param base The pre-rendered BaseObject.
+     */
+    private void bin(BaseObject base) {
+        int[] bounds = base.getPreparedBounds();
+        int minTileX = Math.max(0, Math.floorDiv(bounds[0], TILE_SIZE));
+        int minTileY = Math.max(0, Math.floorDiv(bounds[1], TILE_SIZE));
+        int maxTileX = Math.min(tilesX - 1, Math.floorDiv(bounds[2] - 1, TILE_SIZE));
+        int maxTileY = Math.min(tilesY - 1, Math.floorDiv(bounds[3] - 1, TILE_SIZE));
+        
+        for (int ty = minTileY; ty <= maxTileY; ty++) {
+            for (int tx = minTileX; tx <= maxTileX; tx++) {
+                bins.get((ty * tilesX) + tx).add(base);
+            }
+        }
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the Rasterizer of the whole back buffer.
+     *
+     * @return The Rasterizer of the whole back buffer.
+     */
+    public Rasterizer getRasterizer() {
+        return rasterizer;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Pre-renders a range of the BaseObjects of a frame.
+     */
+    private class PreRenderTask extends RecursiveAction {
+        
+        //Constants
+        
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+        
+        
+        //Fields
+        
+        /**
+         * The prepared BaseObjects of the frame.
+         */
+        private final List<BaseObject> preparedBases;
+        
+        /**
+         * The index of the first BaseObject of the range.
+         */
+        private final int from;
+        
+        /**
+         * The index after the last BaseObject of the range.
+         */
+        private final int to;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Pre Render Task.
+         *
+         * @param preparedBases The prepared BaseObjects of the frame.
+         * @param from          The index of the first BaseObject of the range.
+         * @param to            The index after the last BaseObject of the range.
+         */
+        private PreRenderTask(List<BaseObject> preparedBases, int from, int to) {
+            this.preparedBases = preparedBases;
+            this.from = from;
+            this.to = to;
+        }
+        
+        
+        //Methods
+        
+        /**
+         * Pre-renders the range of BaseObjects, splitting it while it is larger than a batch.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > PRE_RENDER_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PreRenderTask(preparedBases, from, middle), new PreRenderTask(preparedBases, middle, to));
+                return;
+            }
+            
+            for (int i = from; i < to; i++) {
+                visible[i] = preparedBases.get(i).doPreRender(rasterizer);
+            }
+        }
+        
+    }
+    
+    /**
+     * Rasterizes a range of the tiles of a frame.
+     */
+    private class RasterizeTask extends RecursiveAction {
+        
+        //Constants
+        
+        /**
+         * The serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+        
+        
+        //Fields
+        
+        /**
+         * The index of the first tile of the range.
+         */
+        private final int from;
+        
+        /**
+         * The index after the last tile of the range.
+         */
+        private final int to;
+        
+        /**
+         * The color to clear the tiles to.
+         */
+        private final Color background;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Rasterize Task.
+         *
+         * @param from       The index of the first tile of the range.
+         * @param to         The index after the last tile of the range.
+         * @param background The color to clear the tiles to.
+         */
+        private RasterizeTask(int from, int to, Color background) {
+            this.from = from;
+            this.to = to;
+            this.background = background;
+        }
+        
+        
+        //Methods
+        
+        /**
+         * Rasterizes the range of tiles, splitting it down to single tiles so that each tile is owned by one worker.
+         */
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RasterizeTask(from, middle, background), new RasterizeTask(middle, to, background));
+                return;
+            }
+            
+            Rasterizer tile = tiles[from];
+            tile.clear(background);
+            for (BaseObject base : bins.get(from)) {
+                base.doRenderPreRendered(tile);
+            }
+        }
+        
+    }
+    
+}
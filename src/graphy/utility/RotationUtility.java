@@ -78,4 +78,26 @@ public final class RotationUtility {
         return new Vector(v4.getX(), v4.getY(), v4.getZ());
     }
     
+    /**
+     * Creates the affine transformation matrix that performs a rotation about a center point.
+     *
+     * @param rotationMatrix The rotation transformation matrix to apply.
+     * @param center         The center point to rotate about.
+     * @return The affine transformation matrix of the rotation.
+     */
+    public static Matrix4 getRotationTransformationMatrix(Matrix3 rotationMatrix, Vector center) {
+        Vector justifiedCenter = center.justify();
+        double[] r = rotationMatrix.values;
+        double cx = justifiedCenter.getX();
+        double cy = justifiedCenter.getY();
+        double cz = justifiedCenter.getZ();
+        
+        return new Matrix4(new double[] {
+                r[0], r[3], r[6], cx - ((r[0] * cx) + (r[3] * cy) + (r[6] * cz)),
+                r[1], r[4], r[7], cy - ((r[1] * cx) + (r[4] * cy) + (r[7] * cz)),
+                r[2], r[5], r[8], cz - ((r[2] * cx) + (r[5] * cy) + (r[8] * cz)),
+                0, 0, 0, 1
+        });
+    }
+    
 }
@@ -0,0 +1,482 @@
+/*
+ * File:    DistanceMap.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the walking distances across a Map Layout from its squares, in squares of movement.<br>
+ * Floor squares and doors can be walked on, and every step to one of the eight neighboring squares counts as one square of movement, except a diagonal step between two squares that cannot be walked on.<br>
+ * The distances from the most recently used squares are cached, and the squares written since a cached field was last used are repaired in place, rather than the field being computed again.
+ */
+public class DistanceMap {
+    
+    //Constants
+    
+    /**
+     * The maximum walking distance to compute, in squares.
+     */
+    public static final int MAX_DISTANCE = 200;
+    
+    /**
+     * The maximum number of distance fields to cache.
+     */
+    public static final int MAX_FIELDS = 8;
+    
+    /**
+     * The number of written squares beyond which a distance field is computed again rather than repaired.
+     */
+    public static final int MAX_REPAIR_SQUARES = 4096;
+    
+    /**
+     * The number of squares along each side of the window of a distance field.
+     */
+    private static final int WINDOW_SIZE = (MAX_DISTANCE * 2) + 1;
+    
+    /**
+     * The offsets to the eight neighbors of a square.
+     */
+    private static final int[][] NEIGHBORS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}, {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+    
+    
+    //Static Fields
+    
+    /**
+     * Whether the Pieces can be walked on, by their ids, as 1 if they can, -1 if they cannot, or 0 if it has not been determined.
+     */
+    private static byte[] passable = new byte[0];
+    
+    
+    //Fields
+    
+    /**
+     * The Map Layout to compute the walking distances across.
+     */
+    private final MapLayout map;
+    
+    /**
+     * The cached distance fields, by the packed coordinates of their source squares, with the least recently used first.
+     */
+    private final Map<Long, Field> fields = new LinkedHashMap<Long, Field>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Field> eldest) {
+            return size() > MAX_FIELDS;
+        }
+    };
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Distance Map.
+     *
+     * @param map The Map Layout to compute the walking distances across.
+     */
+    public DistanceMap(MapLayout map) {
+        this.map = map;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Marks a square of the Map Layout as written, so the cached distance fields are repaired around it when they are next used.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void update(int x, int y) {
+        long key = MapLayout.getSquareKey(x, y);
+        for (Field field : fields.values()) {
+            if (field.changed.size() <= MAX_REPAIR_SQUARES) {
+                field.changed.add(key);
+            }
+        }
+    }
+    
+    /**
+     * Clears the cached distance fields.
+     */
+    public void clear() {
+        fields.clear();
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the walking distances from a square, computing them or repairing the cached distances as needed.
+     *
+     * @param x The x coordinate of the source square.
+     * @param y The y coordinate of the source square.
+     * @return The distance field of the square.
+     */
+    public Field getField(int x, int y) {
+        long key = MapLayout.getSquareKey(x, y);
+        Field field = fields.get(key);
+        if (field == null) {
+            field = new Field(map, x, y);
+            field.compute();
+            fields.put(key, field);
+        } else {
+            field.repair();
+        }
+        return field;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Determines whether a Piece can be walked on.
+     *
+     * @param piece The Piece.
+     * @return Whether the Piece can be walked on.
+     */
+    public static boolean isPassable(Piece piece) {
+        return RoomMap.isFloor(piece) || RoomMap.isDoor(piece);
+    }
+    
+    /**
+     * Determines whether a square of a Map Layout can be walked on.
+     *
+     * @param map The Map Layout.
+     * @param x   The x coordinate of the square.
+     * @param y   The y coordinate of the square.
+     * @return Whether the square can be walked on.
+     */
+    private static boolean isPassable(MapLayout map, int x, int y) {
+        short id = map.getPieceId(x, y);
+        if (id >= passable.length) {
+            passable = Arrays.copyOf(passable, (id + 1));
+        }
+        if (passable[id] == 0) {
+            passable[id] = (byte) (isPassable(Piece.getPiece(id)) ? 1 : -1);
+        }
+        return passable[id] > 0;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines the walking distances from a source square of a Map Layout.<br>
+     * The distances are stored in a square window around the source square that is just large enough to hold the squares within the maximum distance.
+     */
+    public static class Field {
+        
+        //Fields
+        
+        /**
+         * The Map Layout to compute the walking distances across.
+         */
+        private final MapLayout map;
+        
+        /**
+         * The x coordinate of the source square.
+         */
+        private final int sourceX;
+        
+        /**
+         * The y coordinate of the source square.
+         */
+        private final int sourceY;
+        
+        /**
+         * The walking distances from the source square to the squares of the window, or -1 for the squares that cannot be reached within the maximum distance.
+         */
+        private final int[] distances = new int[WINDOW_SIZE * WINDOW_SIZE];
+        
+        /**
+         * Whether the squares of the window can be walked on, as 1 if they can, -1 if they cannot, or 0 if it has not been determined.
+         */
+        private final byte[] open = new byte[WINDOW_SIZE * WINDOW_SIZE];
+        
+        /**
+         * The squares written since the Field was last computed or repaired, by their packed coordinates.
+         */
+        private final Set<Long> changed = new HashSet<>();
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Field.
+         *
+         * @param map     The Map Layout to compute the walking distances across.
+         * @param sourceX The x coordinate of the source square.
+         * @param sourceY The y coordinate of the source square.
+         */
+        private Field(MapLayout map, int sourceX, int sourceY) {
+            this.map = map;
+            this.sourceX = sourceX;
+            this.sourceY = sourceY;
+        }
+        
+        
+        //Methods
+        
+        /**
+         * Computes the walking distances from the source square with a breadth first search.
+         */
+        private void compute() {
+            Arrays.fill(distances, -1);
+            Arrays.fill(open, (byte) 0);
+            changed.clear();
+            
+            int source = getIndex(sourceX, sourceY);
+            if (!isOpen(source)) {
+                return;
+            }
+            
+            int[] queue = new int[distances.length];
+            int head = 0;
+            int tail = 0;
+            distances[source] = 0;
+            queue[tail++] = source;
+            while (head < tail) {
+                int square = queue[head++];
+                int distance = distances[square];
+                if (distance == MAX_DISTANCE) {
+                    break;
+                }
+                
+                for (int[] step : NEIGHBORS) {
+                    int neighbor = getNeighbor(square, step[0], step[1]);
+                    if ((distances[neighbor] < 0) && canStep(square, step[0], step[1])) {
+                        distances[neighbor] = distance + 1;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Repairs the walking distances around the squares written since the Field was last computed or repaired.<br>
+         * First the squares that have lost their shortest path are found, in order of distance, as the squares around the written squares, and the squares after them, that no longer have a neighbor one step closer that can step to them.
+         * Then the distances of those squares are removed, and they are reached again from their remaining neighbors, along with any squares that can now be reached through the written squares.
+         */
+        private void repair() {
+            if (changed.isEmpty()) {
+                return;
+            }
+            if (changed.contains(MapLayout.getSquareKey(sourceX, sourceY)) || (changed.size() > MAX_REPAIR_SQUARES)) {
+                compute();
+                return;
+            }
+            
+            Set<Integer> written = new HashSet<>();
+            for (long square : changed) {
+                int index = getIndex(MapLayout.getSquareX(square), MapLayout.getSquareY(square));
+                if (index >= 0) {
+                    open[index] = 0;
+                    written.add(index);
+                }
+            }
+            changed.clear();
+            
+            ArrayDeque<Integer>[] buckets = newBuckets();
+            Set<Integer> candidates = new HashSet<>();
+            for (int square : written) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int neighbor = getNeighbor(square, dx, dy);
+                        if ((neighbor >= 0) && (distances[neighbor] > 0) && candidates.add(neighbor)) {
+                            buckets[distances[neighbor]].add(neighbor);
+                        }
+                    }
+                }
+            }
+            
+            List<Integer> affected = new ArrayList<>();
+            for (int distance = 1; distance <= MAX_DISTANCE; distance++) {
+                for (Integer square = buckets[distance].poll(); square != null; square = buckets[distance].poll()) {
+                    if (hasPredecessor(square)) {
+                        continue;
+                    }
+                    
+                    affected.add(square);
+                    distances[square] = -(distance + 2);
+                    for (int[] step : NEIGHBORS) {
+                        int neighbor = getNeighbor(square, step[0], step[1]);
+                        if ((neighbor >= 0) && (distances[neighbor] == (distance + 1)) && candidates.add(neighbor)) {
+                            buckets[distance + 1].add(neighbor);
+                        }
+                    }
+                }
+            }
+            
+            for (int square : affected) {
+                distances[square] = -1;
+            }
+            for (int square : affected) {
+                int best = Integer.MAX_VALUE;
+                for (int[] step : NEIGHBORS) {
+                    int neighbor = getNeighbor(square, step[0], step[1]);
+                    if ((neighbor >= 0) && (distances[neighbor] >= 0) && (distances[neighbor] < best) && canStep(neighbor, -step[0], -step[1])) {
+                        best = distances[neighbor];
+                    }
+                }
+                if (best < MAX_DISTANCE) {
+                    distances[square] = best + 1;
+                    buckets[best + 1].add(square);
+                }
+            }
+            for (int square : written) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    for (int dy = -1; dy <= 1; dy++) {
+                        int neighbor = getNeighbor(square, dx, dy);
+                        if ((neighbor >= 0) && (distances[neighbor] >= 0)) {
+                            buckets[distances[neighbor]].add(neighbor);
+                        }
+                    }
+                }
+            }
+            
+            relax(buckets);
+        }
+        
+        /**
+         * Relaxes the steps out of the queued squares in order of distance, updating the distances of the squares that they reach sooner.
+         *
+         * @param buckets The squares queued at each distance.
+         */
+        private void relax(ArrayDeque<Integer>[] buckets) {
+            for (int distance = 0; distance < MAX_DISTANCE; distance++) {
+                for (Integer square = buckets[distance].poll(); square != null; square = buckets[distance].poll()) {
+                    if (distances[square] != distance) {
+                        continue;
+                    }
+                    
+                    for (int[] step : NEIGHBORS) {
+                        int neighbor = getNeighbor(square, step[0], step[1]);
+                        if (((distances[neighbor] < 0) || (distances[neighbor] > (distance + 1))) && canStep(square, step[0], step[1])) {
+                            distances[neighbor] = distance + 1;
+                            buckets[distance + 1].add(neighbor);
+                        }
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Determines whether a square still has a neighbor one step closer to the source square that can step to it.<br>
+         * The squares that have already lost their shortest path are marked with negative distances, so they do not count.
+         *
+         * @param square The index of the square in the window.
+         * @return Whether the square still has a shortest path.
+         */
+        private boolean hasPredecessor(int square) {
+            if (!isOpen(square)) {
+                return false;
+            }
+            
+            for (int[] step : NEIGHBORS) {
+                int neighbor = getNeighbor(square, step[0], step[1]);
+                if ((neighbor >= 0) && (distances[neighbor] == (distances[square] - 1)) && canStep(neighbor, -step[0], -step[1])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        
+        /**
+         * Determines whether a step can be taken from a square of the window to one of its neighbors.
+         *
+         * @param square The index of the square in the window.
+         * @param dx     The x offset of the step.
+         * @param dy     The y offset of the step.
+         * @return Whether the step can be taken.
+         */
+        private boolean canStep(int square, int dx, int dy) {
+            int neighbor = getNeighbor(square, dx, dy);
+            return (neighbor >= 0) && isOpen(neighbor) &&
+                    ((dx == 0) || (dy == 0) || isOpen(getNeighbor(square, dx, 0)) || isOpen(getNeighbor(square, 0, dy)));
+        }
+        
+        /**
+         * Determines whether a square of the window can be walked on.
+         *
+         * @param square The index of the square in the window.
+         * @return Whether the square can be walked on.
+         */
+        private boolean isOpen(int square) {
+            if (open[square] == 0) {
+                open[square] = (byte) (isPassable(map, ((square / WINDOW_SIZE) - MAX_DISTANCE + sourceX), ((square % WINDOW_SIZE) - MAX_DISTANCE + sourceY)) ? 1 : -1);
+            }
+            return open[square] > 0;
+        }
+        
+        
+        //Getters
+        
+        /**
+         * Returns the walking distance from the source square to a square.
+         *
+         * @param x The x coordinate of the square.
+         * @param y The y coordinate of the square.
+         * @return The walking distance to the square, in squares, or -1 if it cannot be reached within the maximum distance.
+         */
+        public int getDistance(int x, int y) {
+            int index = getIndex(x, y);
+            return (index < 0) ? -1 : Math.max(distances[index], -1);
+        }
+        
+        /**
+         * Returns the index of a square in the window.
+         *
+         * @param x The x coordinate of the square.
+         * @param y The y coordinate of the square.
+         * @return The index of the square in the window, or -1 if it is outside the window.
+         */
+        private int getIndex(int x, int y) {
+            int offsetX = x - sourceX + MAX_DISTANCE;
+            int offsetY = y - sourceY + MAX_DISTANCE;
+            return ((offsetX < 0) || (offsetY < 0) || (offsetX >= WINDOW_SIZE) || (offsetY >= WINDOW_SIZE)) ? -1 : ((offsetX * WINDOW_SIZE) + offsetY);
+        }
+        
+        /**
+         * Returns the index of a neighbor of a square in the window.
+         *
+         * @param square The index of the square in the window.
+         * @param dx     The x offset of the neighbor.
+         * @param dy     The y offset of the neighbor.
+         * @return The index of the neighbor in the window, or -1 if it is outside the window.
+         */
+        private static int getNeighbor(int square, int dx, int dy) {
+            int offsetX = (square / WINDOW_SIZE) + dx;
+            int offsetY = (square % WINDOW_SIZE) + dy;
+            return ((offsetX < 0) || (offsetY < 0) || (offsetX >= WINDOW_SIZE) || (offsetY >= WINDOW_SIZE)) ? -1 : ((offsetX * WINDOW_SIZE) + offsetY);
+        }
+        
+        
+        //Functions
+        
+        /**
+         * Creates the queues of squares at each distance.
+         *
+         * @return The queues of squares at each distance.
+         */
+        private static ArrayDeque<Integer>[] newBuckets() {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            ArrayDeque<Integer>[] buckets = new ArrayDeque[MAX_DISTANCE + 2];
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new ArrayDeque<>();
+            }
+            return buckets;
+        }
+        
+    }
+    
+}
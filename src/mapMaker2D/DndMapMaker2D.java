@@ -15,6 +15,8 @@ import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
 import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
@@ -24,6 +26,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
@@ -35,6 +38,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -49,6 +53,7 @@ import javax.swing.border.TitledBorder;
 import graphy.camera.Camera;
 import graphy.main.Environment;
 import graphy.math.vector.Vector;
+import graphy.objects.base.BaseObject;
 import graphy.objects.base.Object;
 import graphy.objects.base.Scene;
 import graphy.objects.base.polygon.Rectangle;
@@ -63,34 +68,24 @@ public class DndMapMaker2D extends Scene {
     //Constants
     
     /**
-     * The default x dimension of the map.
+     * The x coordinate of the square at the center of the map, which was the center of the default fixed size maps.
      */
-    public static final int DEFAULT_MAP_DIM_X = 100;
+    public static final int MAP_CENTER_X = 50;
     
     /**
-     * The default y dimension of the map.
+     * The y coordinate of the square at the center of the map, which was the center of the default fixed size maps.
      */
-    public static final int DEFAULT_MAP_DIM_Y = 100;
+    public static final int MAP_CENTER_Y = 50;
     
     /**
-     * The size of the map.
-     */
-    public static final Vector MAP_DIM = new Vector(DEFAULT_MAP_DIM_X, DEFAULT_MAP_DIM_Y);
-    
-    /**
-     * The x offset to apply when loading saved maps.
+     * The render size of each square of the map.
      */
-    public static final int LOAD_OFFSET_X = 0;
+    public static final double PIECE_SIZE = 0.5;
     
     /**
-     * The y offset to apply when loading saved maps.
+     * The color of the selected squares of the map.
      */
-    public static final int LOAD_OFFSET_Y = 0;
-    
-    /**
-     * The render size of each square of the map.
-     */
-    public static final double PIECE_SIZE = 0.5;
+    public static final Color SELECTION_COLOR = new Color(180, 210, 255);
     
     /**
      * The resources directory.
@@ -130,24 +125,54 @@ public class DndMapMaker2D extends Scene {
     //Fields
     
     /**
-     * The layout of the map.
+     * The floors of the map.
+     */
+    private final List<Floor> floors = new ArrayList<>();
+    
+    /**
+     * The index of the active floor of the map.
+     */
+    private int floor = 0;
+    
+    /**
+     * The layout of the active floor of the map.
+     */
+    private MapLayout map = null;
+    
+    /**
+     * The undo and redo history of the edits to the active floor of the map.
      */
-    private Piece[][] map = new Piece[][] {};
+    private EditHistory history = null;
     
     /**
-     * The map squares of the map.
+     * The rooms of the active floor of the map.
      */
-    private MapSquare[][] mapSquares = new MapSquare[][] {};
+    private RoomMap rooms = null;
     
     /**
-     * The labels of the map squares.
+     * The walking distances across the active floor of the map.
      */
-    private String[][] labels = new String[][] {};
+    private DistanceMap distances = null;
     
     /**
-     * The notes of the map squares.
+     * The fog of war over the active floor of the map.
      */
-    private String[][] notes = new String[][] {};
+    private FogOfWar fog = null;
+    
+    /**
+     * The warnings about the layout of the active floor of the map.
+     */
+    private MapLinter linter = null;
+    
+    /**
+     * The square that a link between floors is being made from, or null if a link is not being made.
+     */
+    private Floor.Link pendingLink = null;
+    
+    /**
+     * The grid of map squares of the map.
+     */
+    private MapGrid mapGrid = null;
     
     /**
      * The active map region.
@@ -179,6 +204,56 @@ public class DndMapMaker2D extends Scene {
      */
     private final Map<Piece, JLabel> selectedLabels = new HashMap<>();
     
+    /**
+     * The piece being placed by dragging the mouse, or null if pieces are not being placed by dragging.
+     */
+    private Piece dragPiece = null;
+    
+    /**
+     * The map square that a piece was last placed on by dragging the mouse.
+     */
+    private int dragSquare = -1;
+    
+    /**
+     * The map square that the mouse is over, or -1 if it is not over a map square.
+     */
+    private int hoveredMapSquare = -1;
+    
+    /**
+     * The stats of the room of the hovered map square, or an empty string if it is not in a room.
+     */
+    private String roomStats = "";
+    
+    /**
+     * The map square that the walking distances are shown from, or -1 if they are not shown.
+     */
+    private int distanceSquare = -1;
+    
+    /**
+     * Whether the map is shown as the token sees it, with the squares it has not seen hidden by the fog of war.
+     */
+    private boolean vision = false;
+    
+    /**
+     * The messages of the warnings shown on the map, by the packed coordinates of their squares, or null if the warnings are not shown.
+     */
+    private Map<Long, String> warningMessages = null;
+    
+    /**
+     * The selected region of the map, as its minimum and maximum x and y coordinates, or null if nothing is selected.
+     */
+    private int[] selection = null;
+    
+    /**
+     * The map square that the selection is being dragged from, or -1 if a selection is not being dragged.
+     */
+    private int selectionAnchor = -1;
+    
+    /**
+     * The copied region of the map, or null if nothing has been copied.
+     */
+    private MapLayout.Region clipboard = null;
+    
     
     //Main Method
     
@@ -204,7 +279,7 @@ public class DndMapMaker2D extends Scene {
         super(environment);
         DndMapMaker2D.environment = environment;
         
-        initializeMap(DEFAULT_MAP_DIM_X, DEFAULT_MAP_DIM_Y);
+        initializeMap();
         Runtime.getRuntime().addShutdownHook(new Thread(this::autoSaveState));
     }
     
@@ -212,37 +287,277 @@ public class DndMapMaker2D extends Scene {
     //Methods
     
     /**
-     * Initializes the map.
+     * Initializes an empty map.
+     */
+    public void initializeMap() {
+        floors.clear();
+        floors.add(new Floor());
+        pendingLink = null;
+        
+        pageGuidelines.getComponents().clear();
+        registerComponent(pageGuidelines);
+        
+        showFloor(0);
+    }
+    
+    /**
+     * Shows a floor of the map, loading it from its save file if it has not been loaded.<br>
+     * Only the map grid of the shown floor is in the scene; it is built from the layout of the floor, so memory is proportional to the shown floor.<br>
+     * The rooms, walking distances and warnings of a floor are kept with the floor, so switching to it only rebuilds the map grid.<br>
+     * A drag that is placing pieces is ended first, so its edit is recorded in the history of the floor it was made on.
      *
-     * @param mapDimX The x dimension of the map.
-     * @param mapDimY The y dimension of the map.
+     * @param index The index of the floor.
      */
-    public void initializeMap(int mapDimX, int mapDimY) {
-        MAP_DIM.setX(mapDimX);
-        MAP_DIM.setY(mapDimY);
+    private void showFloor(int index) {
+        if (dragPiece != null) {
+            history.end();
+        }
         
-        Arrays.stream((mapSquares != null) ? mapSquares : new MapSquare[][] {}).flatMap(Arrays::stream).forEach(this::unregisterComponent);
+        Floor shownFloor = floors.get(index);
+        if (!shownFloor.isLoaded()) {
+            loadFloor(shownFloor);
+        }
         
-        map = new Piece[mapDimX][mapDimY];
-        mapSquares = new MapSquare[mapDimX][mapDimY];
-        labels = new String[mapDimX][mapDimY];
-        notes = new String[mapDimX][mapDimY];
+        floor = index;
+        map = shownFloor.getMap();
+        history = shownFloor.getHistory();
+        rooms = shownFloor.getRooms();
+        distances = shownFloor.getDistances();
+        fog = shownFloor.getFog();
+        linter = shownFloor.getLinter();
+        selection = null;
+        selectionAnchor = -1;
+        dragPiece = null;
+        dragSquare = -1;
+        hoveredMapSquare = -1;
+        roomStats = "";
+        distanceSquare = -1;
         
-        mapRegion.setPoints(new Vector(Integer.MAX_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MIN_VALUE), new Vector(Integer.MAX_VALUE, Integer.MIN_VALUE));
-        printRegion.setPoints(new Vector(Integer.MAX_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MIN_VALUE), new Vector(Integer.MAX_VALUE, Integer.MIN_VALUE));
-        pageGuidelines.getComponents().clear();
-        registerComponent(pageGuidelines);
+        if (mapGrid != null) {
+            unregisterComponent(mapGrid);
+        }
+        mapGrid = new MapGrid(Color.WHITE, MAP_CENTER_X, MAP_CENTER_Y, PIECE_SIZE);
+        mapGrid.addFrame(Color.BLACK);
+        mapGrid.setFog(vision ? fog::getState : null);
+        map.forEachSquare(this::updateGridSquare);
+        mapGrid.setSquareLoader(this::updateGridSquare);
+        if (vision) {
+            fog.refresh();
+        }
+        registerComponent(mapGrid);
+        if (warningMessages != null) {
+            showWarnings();
+        }
+        
+        clearMapRegion();
+        updateMapRegion();
         
-        for (int x = 0; x < mapDimX; x++) {
-            for (int y = 0; y < mapDimY; y++) {
-                MapSquare square = new MapSquare(Color.WHITE, new Vector((x - (mapDimX / 2.0)) * PIECE_SIZE, (y - (mapDimY / 2.0)) * PIECE_SIZE, 0), PIECE_SIZE);
-                square.addFrame(Color.BLACK);
-                registerComponent(square);
-                mapSquares[x][y] = square;
+        if (shownFloor.getOrigin() != null) {
+            Environment.origin = shownFloor.getOrigin();
+        }
+        if (shownFloor.getCameraLocation() != null) {
+            Vector location = shownFloor.getCameraLocation();
+            Camera.getActiveCameraView().setLocation(location.getX(), location.getY(), location.getZ());
+        }
+        updateTitle();
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Updates the title of the window with the active floor, the number of warnings if they are shown, and the stats of the room of the hovered map square.
+     */
+    private void updateTitle() {
+        if (environment.frame != null) {
+            environment.frame.setTitle(getName() + ((floors.size() > 1) ? (" - Floor " + (floor + 1) + " of " + floors.size()) : "") +
+                    ((warningMessages == null) ? "" : (" - " + linter.getWarnings().size() + ((linter.getWarnings().size() == 1) ? " warning" : " warnings"))) +
+                    (roomStats.isEmpty() ? "" : (" - " + roomStats)));
+        }
+    }
+    
+    /**
+     * Shows the stats of the room of a map square, and its warning if the warnings are shown, in the title of the window.
+     *
+     * @param mapSquare The index of the map square, or -1 to clear the stats.
+     */
+    private void showRoomStats(int mapSquare) {
+        String stats = "";
+        if (mapSquare >= 0) {
+            int x = mapGrid.getMapX(mapSquare);
+            int y = mapGrid.getMapY(mapSquare);
+            int area = rooms.getArea(x, y);
+            if (area > 0) {
+                int doors = rooms.getDoors(x, y).size();
+                stats = "Room: " + area + ((area == 1) ? " square, " : " squares, ") + doors + ((doors == 1) ? " door" : " doors");
+            }
+            String warning = (warningMessages == null) ? null : warningMessages.get(MapLayout.getSquareKey(x, y));
+            if (warning != null) {
+                stats += (stats.isEmpty() ? "" : " - ") + "Warning: " + warning;
             }
         }
         
-        updateMapRegion(-1, -1, false, true);
+        if (!stats.equals(roomStats)) {
+            roomStats = stats;
+            updateTitle();
+        }
+    }
+    
+    /**
+     * Shows the walking distances from a map square on the map, in squares, or hides them.
+     *
+     * @param mapSquare The index of the map square, or -1 to hide the walking distances.
+     */
+    private void showDistances(int mapSquare) {
+        DistanceMap.Field field = null;
+        if ((mapSquare >= 0) && DistanceMap.isPassable(map.getPiece(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare)))) {
+            field = distances.getField(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare));
+        }
+        if ((field == null) && (distanceSquare < 0)) {
+            return;
+        }
+        
+        distanceSquare = (field == null) ? -1 : mapSquare;
+        mapGrid.setOverlay((field == null) ? null : field::getDistance);
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Updates the stats of the room of the hovered map square, the walking distances, the fog of war and the warnings after the map is edited.
+     */
+    private void refreshAnalysis() {
+        showRoomStats(hoveredMapSquare);
+        showDistances(distanceSquare);
+        if (vision) {
+            fog.refresh();
+        }
+        if (warningMessages != null) {
+            showWarnings();
+        }
+    }
+    
+    /**
+     * Shows or hides the warnings about the layout of the active floor on the map.
+     */
+    private void toggleWarnings() {
+        if (warningMessages == null) {
+            showWarnings();
+        } else {
+            warningMessages = null;
+            mapGrid.setWarnings(null);
+            showRoomStats(hoveredMapSquare);
+            updateTitle();
+            environment.requestRepaint();
+        }
+    }
+    
+    /**
+     * Validates the layout of the active floor, and outlines the map squares that have warnings.<br>
+     * Only the chunks written since the last validation are checked again.
+     */
+    private void showWarnings() {
+        Map<Long, String> messages = new HashMap<>();
+        for (MapLinter.Warning warning : linter.getWarnings()) {
+            messages.merge(MapLayout.getSquareKey(warning.getX(), warning.getY()), warning.getMessage(), (a, b) -> a + "; " + b);
+        }
+        
+        warningMessages = messages;
+        mapGrid.setWarnings(messages.keySet());
+        showRoomStats(hoveredMapSquare);
+        updateTitle();
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Switches the map between being shown as it is and being shown as the token sees it.<br>
+     * The token is placed on the hovered map square if it has not been placed yet, otherwise what it sees is computed again, as the map may have been edited while the fog was not shown.
+     */
+    private void toggleVision() {
+        vision = !vision;
+        if (vision && !fog.hasToken()) {
+            moveToken(hoveredMapSquare);
+        } else if (vision) {
+            fog.refresh();
+        }
+        mapGrid.setFog(vision ? fog::getState : null);
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Moves the token to a map square, revealing the squares it can see from there.<br>
+     * The token is not moved onto a map square that cannot be walked on.
+     *
+     * @param mapSquare The index of the map square.
+     */
+    private void moveToken(int mapSquare) {
+        if ((mapSquare < 0) || !DistanceMap.isPassable(map.getPiece(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare)))) {
+            return;
+        }
+        
+        fog.moveToken(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare));
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Switches to another floor of the map, remembering the view of the active floor.
+     *
+     * @param index The index of the floor, or the number of floors to add a new floor on top.
+     */
+    private void switchFloor(int index) {
+        if ((index < 0) || (index > floors.size()) || (index == floor)) {
+            return;
+        }
+        
+        rememberView();
+        if (index == floors.size()) {
+            floors.add(new Floor());
+        }
+        showFloor(index);
+    }
+    
+    /**
+     * Remembers the view of the active floor, to be restored when it is next shown and to be saved with it.
+     */
+    private void rememberView() {
+        Floor activeFloor = floors.get(floor);
+        activeFloor.setOrigin(Environment.origin);
+        activeFloor.setCameraLocation(Camera.getActiveCameraView().getLocation());
+    }
+    
+    /**
+     * Links the stairs or ramp on the hovered map square to the stairs or ramp on another floor.<br>
+     * The first call marks the square to link from, and a call on another floor links the two squares to each other.
+     */
+    private void linkFloors() {
+        int[] placement = (hoveredMapSquare < 0) ? null : map.getPlacement(mapGrid.getMapX(hoveredMapSquare), mapGrid.getMapY(hoveredMapSquare));
+        if ((placement == null) || !Floor.isFloorLink(map.getPiece(placement[0], placement[1]))) {
+            return;
+        }
+        
+        Floor.Link link = new Floor.Link(floor, placement[0], placement[1]);
+        if ((pendingLink == null) || (pendingLink.getFloor() == floor) || (pendingLink.getFloor() >= floors.size())) {
+            pendingLink = link;
+            return;
+        }
+        
+        floors.get(pendingLink.getFloor()).editLink(pendingLink.getX(), pendingLink.getY(), link);
+        floors.get(floor).editLink(link.getX(), link.getY(), pendingLink);
+        pendingLink = null;
+        if (warningMessages != null) {
+            showWarnings();
+        }
+    }
+    
+    /**
+     * Follows the link from the stairs or ramp on the hovered map square, showing the floor it leads to centered on the square it leads to.
+     */
+    private void followLink() {
+        int[] placement = (hoveredMapSquare < 0) ? null : map.getPlacement(mapGrid.getMapX(hoveredMapSquare), mapGrid.getMapY(hoveredMapSquare));
+        Floor.Link link = (placement == null) ? null : floors.get(floor).getLink(placement[0], placement[1]);
+        if ((link == null) || (link.getFloor() >= floors.size())) {
+            return;
+        }
+        
+        switchFloor(link.getFloor());
+        Environment.origin = new Vector(((link.getX() - MAP_CENTER_X + 0.5) * PIECE_SIZE), ((link.getY() - MAP_CENTER_Y + 0.5) * PIECE_SIZE), Environment.origin.getZ());
     }
     
     /**
@@ -251,6 +566,13 @@ public class DndMapMaker2D extends Scene {
     @Override
     public void initComponents() {
         environment.setBackground(Color.BLACK);
+        environment.setRenderMode(Environment.RenderMode.SOFTWARE);
+        environment.setTiledRendering(Runtime.getRuntime().availableProcessors() > 1);
+        environment.setPickingEnabled(true);
+        environment.setPrefetching(true);
+        environment.setAdaptiveQuality(true);
+        environment.setPartialRepaint(true);
+        pageGuidelines.setPickable(false);
         
         int width = Environment.screenX;
         int height = Environment.screenY;
@@ -391,6 +713,7 @@ public class DndMapMaker2D extends Scene {
     public void setupCameras() {
         Camera camera = new Camera(this, false, true);
         camera.setPanMode(true);
+        camera.setProjectionMode(Camera.ProjectionMode.ORTHOGRAPHIC);
         camera.setRho(10);
     }
     
@@ -410,107 +733,68 @@ public class DndMapMaker2D extends Scene {
                 if (e.getButton() == MouseEvent.BUTTON1) {
                     boolean ctrl = (e.getModifiers() & ActionEvent.CTRL_MASK) == ActionEvent.CTRL_MASK;
                     boolean alt = (e.getModifiers() & ActionEvent.ALT_MASK) == ActionEvent.ALT_MASK;
+                    boolean shift = (e.getModifiers() & ActionEvent.SHIFT_MASK) == ActionEvent.SHIFT_MASK;
+                    if (vision && !ctrl && !alt && !shift) {
+                        moveToken(pickMapSquare(e.getX(), e.getY()));
+                        return;
+                    }
+                    if (shift && !ctrl && !alt) {
+                        selectionAnchor = pickMapSquare(e.getX(), e.getY());
+                        if (selectionAnchor >= 0) {
+                            select(selectionAnchor, selectionAnchor);
+                        }
+                        return;
+                    }
+                    
                     Piece placedPiece = alt ? pieces.get("Nothing") : selectedPiece;
                     if ((placedPiece == null) && !ctrl) {
                         return;
                     }
                     
-                    boolean hit = false;
-                    for (int x = 0; x < mapSquares.length; x++) {
-                        for (int y = 0; y < mapSquares[0].length; y++) {
-                            MapSquare mapSquare = mapSquares[x][y];
-                            if (mapSquare != null && mapSquare.isRendered()) {
-                                List<Vector> prepared = mapSquare.getPrepared();
-                                if (prepared.size() == 4 &&
-                                        e.getX() > prepared.get(0).getX() &&
-                                        e.getX() < prepared.get(1).getX() &&
-                                        e.getY() > prepared.get(0).getY() &&
-                                        e.getY() < prepared.get(3).getY()) {
-                                    
-                                    if (ctrl) {
-                                        String label = JOptionPane.showInputDialog("Label:");
-                                        if (label != null) {
-                                            labels[x][y] = label;
-                                            mapSquare.setLabel(label.replaceAll("[:,;]", ""));
-                                            String note = JOptionPane.showInputDialog("Note:");
-                                            if (note != null) {
-                                                notes[x][y] = note;
-                                                mapSquare.setNote(note.replaceAll("[:,;]", ""));
-                                            }
-                                        }
-                                        updateMapRegion(x, y, !mapSquare.hasLabel(), false);
-                                        hit = true;
-                                        break;
-                                    }
-                                    
-                                    if (((x + placedPiece.sizeX) <= mapSquares.length) &&
-                                            ((y + placedPiece.sizeY) <= mapSquares[0].length)) {
-                                        
-                                        boolean overlap = false;
-                                        for (int i = x; i < (x + placedPiece.sizeX); i++) {
-                                            for (int j = y; j < (y + placedPiece.sizeY); j++) {
-                                                if ((i == x) && (j == y)) {
-                                                    continue;
-                                                }
-                                                if (map[i][j] != null) {
-                                                    overlap = true;
-                                                    break;
-                                                }
-                                            }
-                                            if (overlap) {
-                                                break;
-                                            }
-                                        }
-                                        
-                                        if (!overlap) {
-                                            if (map[x][y] != null) {
-                                                Piece piece = (map[x][y].parentPiece == null) ? map[x][y] : map[x][y].parentPiece;
-                                                int xOffset = 0;
-                                                int yOffset = 0;
-                                                if (map[x][y].parentPiece != null) {
-                                                    String[] nameParts = map[x][y].name.split(":");
-                                                    if (nameParts.length == 3) {
-                                                        xOffset = -Integer.parseInt(nameParts[1]);
-                                                        yOffset = -Integer.parseInt(nameParts[2]);
-                                                    }
-                                                }
-                                                
-                                                for (int i = 0; i < piece.sizeX; i++) {
-                                                    for (int j = 0; j < piece.sizeY; j++) {
-                                                        map[x + xOffset + i][y + yOffset + j] = null;
-                                                        mapSquares[x + xOffset + i][y + yOffset + j].setImage(null);
-                                                    }
-                                                }
-                                            }
-                                            
-                                            if (placedPiece.name.equalsIgnoreCase("Nothing")) {
-                                                mapSquare.setImage(null);
-                                                updateMapRegion(x, y, !mapSquare.hasLabel(), false);
-                                            } else {
-                                                for (int i = 0; i < placedPiece.sizeX; i++) {
-                                                    for (int j = 0; j < placedPiece.sizeY; j++) {
-                                                        map[x + i][y + j] = placedPiece.subPieces[i][j];
-                                                        updateMapRegion((x + i), (y + j), false, false);
-                                                    }
-                                                }
-                                            }
-                                        }
-                                    }
-                                    
-                                    hit = true;
-                                    break;
-                                }
+                    int mapSquare = pickMapSquare(e.getX(), e.getY());
+                    if (mapSquare < 0) {
+                        return;
+                    }
+                    int x = mapGrid.getMapX(mapSquare);
+                    int y = mapGrid.getMapY(mapSquare);
+                    
+                    if (ctrl) {
+                        String label = JOptionPane.showInputDialog("Label:");
+                        if (label != null) {
+                            history.begin();
+                            history.record(x, y);
+                            map.setLabel(x, y, label);
+                            String note = JOptionPane.showInputDialog("Note:");
+                            if (note != null) {
+                                map.setNote(x, y, note);
                             }
+                            history.end();
+                            refreshSquare(x, y);
                         }
-                        if (hit) {
-                            break;
-                        }
+                        updateMapRegion();
+                        refreshAnalysis();
+                        return;
+                    }
+                    
+                    if (dragPiece == null) {
+                        history.begin();
                     }
+                    dragPiece = placedPiece;
+                    dragSquare = mapSquare;
+                    placePiece(x, y, placedPiece);
                 }
             }
             
             @Override
             public void mouseReleased(MouseEvent e) {
+                if (e.getButton() == MouseEvent.BUTTON1) {
+                    selectionAnchor = -1;
+                }
+                if ((e.getButton() == MouseEvent.BUTTON1) && (dragPiece != null)) {
+                    dragPiece = null;
+                    dragSquare = -1;
+                    history.end();
+                }
             }
             
             @Override
@@ -526,8 +810,26 @@ public class DndMapMaker2D extends Scene {
         environment.renderPanel.addMouseMotionListener(new MouseMotionListener() {
             Timer noteTimer = null;
             
+            final List<Integer> highlightedSquares = new ArrayList<>();
+            
             @Override
             public void mouseDragged(MouseEvent e) {
+                int mapSquare = pickMapSquare(e.getX(), e.getY());
+                hoveredMapSquare = mapSquare;
+                if ((selectionAnchor >= 0) && (mapSquare >= 0)) {
+                    select(selectionAnchor, mapSquare);
+                    return;
+                }
+                if (vision && (dragPiece == null) && ((e.getModifiersEx() & MouseEvent.BUTTON1_DOWN_MASK) != 0)) {
+                    moveToken(mapSquare);
+                    return;
+                }
+                
+                if ((dragPiece == null) || (mapSquare < 0) || (mapSquare == dragSquare)) {
+                    return;
+                }
+                dragSquare = mapSquare;
+                placePiece(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare), dragPiece);
             }
             
             @SuppressWarnings("deprecation")
@@ -537,74 +839,527 @@ public class DndMapMaker2D extends Scene {
                 boolean shift = (e.getModifiers() & ActionEvent.SHIFT_MASK) == ActionEvent.SHIFT_MASK;
                 if (noteTimer != null) {
                     noteTimer.cancel();
+                    noteTimer = null;
+                    environment.requestRepaint();
+                }
+                
+                for (int highlightedSquare : highlightedSquares) {
+                    mapGrid.setColor(highlightedSquare, getSquareColor(mapGrid.getMapX(highlightedSquare), mapGrid.getMapY(highlightedSquare)));
+                    Piece piece = map.getPiece(mapGrid.getMapX(highlightedSquare), mapGrid.getMapY(highlightedSquare));
+                    if (piece != null) {
+                        mapGrid.setImage(highlightedSquare, piece.icon);
+                    }
+                    repaintSquare(highlightedSquare);
                 }
+                highlightedSquares.clear();
                 
+                int mapSquare = pickMapSquare(e.getX(), e.getY());
+                hoveredMapSquare = mapSquare;
+                showRoomStats(mapSquare);
+                if ((ctrl ? mapSquare : -1) != distanceSquare) {
+                    showDistances(ctrl ? mapSquare : -1);
+                }
                 Vector hoveredSquare = null;
-                for (int x = 0; x < mapSquares.length; x++) {
-                    for (int y = 0; y < mapSquares[0].length; y++) {
-                        MapSquare mapSquare = mapSquares[x][y];
-                        if (mapSquare != null && mapSquare.isRendered()) {
-                            
-                            List<Vector> prepared = mapSquare.getPrepared();
-                            if (prepared.size() == 4 &&
-                                    e.getX() > prepared.get(0).getX() &&
-                                    e.getX() < prepared.get(1).getX() &&
-                                    e.getY() > prepared.get(0).getY() &&
-                                    e.getY() < prepared.get(3).getY()) {
-                                hoveredSquare = new Vector(x, y);
-                                
-                                mapSquare.setColor(Color.GREEN);
-                                if (map[x][y] != null) {
-                                    mapSquare.setImage(map[x][y].highlightedIcon);
-                                }
-                                
-                                if (ctrl && (mapSquare.note != null) && !mapSquare.note.isEmpty()) {
-                                    noteTimer = new Timer();
-                                    noteTimer.scheduleAtFixedRate(new TimerTask() {
-                                        @Override
-                                        public void run() {
-                                            final Graphics2D g2 = (Graphics2D) environment.renderPanel.getGraphics();
-                                            Color saveColor = g2.getColor();
-                                            g2.setColor(Color.BLACK);
-                                            g2.drawString(mapSquare.note, e.getX(), e.getY());
-                                            g2.setColor(saveColor);
-                                        }
-                                    }, 0, 5);
-                                }
-                                
-                            } else {
-                                mapSquare.setColor(Color.WHITE);
-                                if (map[x][y] != null) {
-                                    mapSquare.setImage(map[x][y].icon);
-                                }
+                if (mapSquare >= 0) {
+                    hoveredSquare = new Vector(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare));
+                    highlight(mapSquare);
+                    
+                    if (ctrl && mapGrid.hasNote(mapSquare)) {
+                        final String note = mapGrid.getNote(mapSquare);
+                        noteTimer = new Timer();
+                        noteTimer.scheduleAtFixedRate(new TimerTask() {
+                            @Override
+                            public void run() {
+                                final Graphics2D g2 = (Graphics2D) environment.renderPanel.getGraphics();
+                                Color saveColor = g2.getColor();
+                                g2.setColor(Color.BLACK);
+                                g2.drawString(note, e.getX(), e.getY());
+                                g2.setColor(saveColor);
                             }
-                        }
+                        }, 0, 5);
                     }
                 }
                 
-                if (shift && (hoveredSquare != null) && (printRegion.getP1().getX() <= MAP_DIM.getX()) &&
+                if (shift && (hoveredSquare != null) && (printRegion.getP1().getX() <= printRegion.getP3().getX()) &&
                         (hoveredSquare.getX() >= printRegion.getP1().getX()) && (hoveredSquare.getY() >= printRegion.getP1().getY()) &&
                         (hoveredSquare.getX() <= printRegion.getP3().getX()) && (hoveredSquare.getY() <= printRegion.getP3().getY())) {
                     
                     final int pageMinX = (int) printRegion.getP1().getX() + ((int) ((hoveredSquare.getX() - printRegion.getP1().getX()) / DndMapParser.WIDTH_PER_PAGE) * DndMapParser.WIDTH_PER_PAGE);
                     final int pageMinY = (int) printRegion.getP1().getY() + ((int) ((hoveredSquare.getY() - printRegion.getP1().getY()) / DndMapParser.HEIGHT_PER_PAGE) * DndMapParser.HEIGHT_PER_PAGE);
-                    final int pageMaxX = Math.min((pageMinX + DndMapParser.WIDTH_PER_PAGE), (int) MAP_DIM.getX());
-                    final int pageMaxY = Math.min((pageMinY + DndMapParser.HEIGHT_PER_PAGE), (int) MAP_DIM.getY());
+                    final int pageMaxX = pageMinX + DndMapParser.WIDTH_PER_PAGE;
+                    final int pageMaxY = pageMinY + DndMapParser.HEIGHT_PER_PAGE;
                     
                     for (int x = pageMinX; x < pageMaxX; x++) {
                         for (int y = pageMinY; y < pageMaxY; y++) {
-                            mapSquares[x][y].setColor(Color.GREEN);
-                            if (map[x][y] != null) {
-                                mapSquares[x][y].setImage(map[x][y].highlightedIcon);
-                            }
+                            highlight(mapGrid.getSquare(x, y));
                         }
                     }
                 }
             }
             
+            /**
+             * Highlights a map square until the mouse next moves.
+             *
+             * @param mapSquare The index of the map square.
+             */
+            private void highlight(int mapSquare) {
+                mapGrid.setColor(mapSquare, Color.GREEN);
+                Piece piece = map.getPiece(mapGrid.getMapX(mapSquare), mapGrid.getMapY(mapSquare));
+                if (piece != null) {
+                    mapGrid.setImage(mapSquare, piece.highlightedIcon);
+                }
+                repaintSquare(mapSquare);
+                highlightedSquares.add(mapSquare);
+            }
+            
+        });
+        
+        environment.frame.addKeyListener(new KeyListener() {
+            @Override
+            public void keyTyped(KeyEvent e) {
+            }
+            
+            @Override
+            public void keyPressed(KeyEvent e) {
+                int key = e.getKeyCode();
+                if (e.isControlDown()) {
+                    if (key == KeyEvent.VK_CONTROL) {
+                        showDistances(hoveredMapSquare);
+                    } else if ((key == KeyEvent.VK_Z) && !e.isShiftDown()) {
+                        undo();
+                    } else if ((key == KeyEvent.VK_Y) || (key == KeyEvent.VK_Z)) {
+                        redo();
+                    } else if (key == KeyEvent.VK_C) {
+                        copySelection();
+                    } else if (key == KeyEvent.VK_X) {
+                        copySelection();
+                        eraseSelection();
+                    } else if (key == KeyEvent.VK_V) {
+                        pasteClipboard();
+                    }
+                    return;
+                }
+                
+                if (key == KeyEvent.VK_PAGE_UP) {
+                    switchFloor(floor + 1);
+                } else if (key == KeyEvent.VK_PAGE_DOWN) {
+                    switchFloor(floor - 1);
+                } else if (key == KeyEvent.VK_L) {
+                    linkFloors();
+                } else if (key == KeyEvent.VK_G) {
+                    followLink();
+                } else if (key == KeyEvent.VK_I) {
+                    toggleWarnings();
+                } else if ((key == KeyEvent.VK_V) && !e.isShiftDown()) {
+                    toggleVision();
+                } else if (key == KeyEvent.VK_V) {
+                    fog.reset();
+                    environment.requestRepaint();
+                } else if (key == KeyEvent.VK_F) {
+                    fillSelection();
+                } else if (key == KeyEvent.VK_B) {
+                    floodFill();
+                } else if (key == KeyEvent.VK_M) {
+                    moveSelection();
+                } else if ((key == KeyEvent.VK_DELETE) || (key == KeyEvent.VK_BACK_SPACE)) {
+                    eraseSelection();
+                } else if (key == KeyEvent.VK_ESCAPE) {
+                    setSelection(null);
+                }
+            }
+            
+            @Override
+            public void keyReleased(KeyEvent e) {
+                if (e.getKeyCode() == KeyEvent.VK_CONTROL) {
+                    showDistances(-1);
+                }
+            }
+            
         });
     }
     
+    /**
+     * Places a piece on the map, replacing the piece on the map square it is placed on.<br>
+     * The piece is not placed if it would overlap any other pieces.
+     *
+     * @param x           The x coordinate of the map square.
+     * @param y           The y coordinate of the map square.
+     * @param placedPiece The piece to place, or the Nothing piece to clear the map square.
+     */
+    private void placePiece(int x, int y, Piece placedPiece) {
+        if (map.isOccupied((x + 1), y, (x + placedPiece.sizeX - 1), (y + placedPiece.sizeY - 1)) ||
+                map.isOccupied(x, (y + 1), x, (y + placedPiece.sizeY - 1))) {
+            return;
+        }
+        
+        int[] existing = map.getPlacement(x, y);
+        if (existing != null) {
+            recordRegion(existing);
+            map.removePlacement(x, y);
+            refreshRegion(existing);
+        }
+        
+        if (placedPiece.id != pieces.get("Nothing").id) {
+            int[] placement = {x, y, (x + placedPiece.sizeX - 1), (y + placedPiece.sizeY - 1)};
+            recordRegion(placement);
+            map.place(x, y, placedPiece);
+            refreshRegion(placement);
+        }
+        updateMapRegion();
+        refreshAnalysis();
+    }
+    
+    /**
+     * Records the map squares of a region in the history before they are written.
+     *
+     * @param region The region, as its minimum and maximum x and y coordinates.
+     */
+    private void recordRegion(int[] region) {
+        for (int x = region[0]; x <= region[2]; x++) {
+            for (int y = region[1]; y <= region[3]; y++) {
+                history.record(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Updates the map squares of a region from the map layout, and marks them as needing to be re-rendered.
+     *
+     * @param region The region, as its minimum and maximum x and y coordinates.
+     */
+    private void refreshRegion(int[] region) {
+        for (int x = region[0]; x <= region[2]; x++) {
+            for (int y = region[1]; y <= region[3]; y++) {
+                refreshSquare(x, y);
+            }
+        }
+    }
+    
+    /**
+     * Undoes the most recent edit to the map.
+     */
+    private void undo() {
+        if (history.undo(this::updateSquare)) {
+            updateMapRegion();
+            refreshAnalysis();
+            environment.requestRepaint();
+        }
+    }
+    
+    /**
+     * Redoes the most recently undone edit to the map.
+     */
+    private void redo() {
+        if (history.redo(this::updateSquare)) {
+            updateMapRegion();
+            refreshAnalysis();
+            environment.requestRepaint();
+        }
+    }
+    
+    /**
+     * Fills the selected region of the map with the selected piece, tiling it if it covers more than one map square.<br>
+     * Tiles that would not fit within the selected region are left out.
+     */
+    private void fillSelection() {
+        if ((selection == null) || (selectedPiece == null)) {
+            return;
+        }
+        
+        final int[] region = selection;
+        final Piece piece = selectedPiece;
+        editRegions(() -> {
+            if (piece.id == pieces.get("Nothing").id) {
+                map.fill(region[0], region[1], region[2], region[3], (short) 0, (short) 0);
+            } else if ((piece.sizeX == 1) && (piece.sizeY == 1)) {
+                map.fill(region[0], region[1], region[2], region[3], piece.id, (short) 0);
+            } else {
+                for (int x = region[0]; (x + piece.sizeX - 1) <= region[2]; x += piece.sizeX) {
+                    for (int y = region[1]; (y + piece.sizeY - 1) <= region[3]; y += piece.sizeY) {
+                        for (int i = 0; i < piece.sizeX; i++) {
+                            for (int j = 0; j < piece.sizeY; j++) {
+                                map.setPiece(x + i, y + j, piece.subPieces[i][j]);
+                            }
+                        }
+                    }
+                }
+            }
+        }, Collections.singletonList(region));
+    }
+    
+    /**
+     * Flood fills the area of the map connected to the hovered map square that has the same piece with the selected piece.<br>
+     * The fill is bounded by the selected region if it contains the hovered map square, or by the active region of the map otherwise, and only single square pieces are filled.
+     */
+    private void floodFill() {
+        if ((hoveredMapSquare < 0) || (selectedPiece == null) || (selectedPiece.sizeX != 1) || (selectedPiece.sizeY != 1)) {
+            return;
+        }
+        
+        final int x = mapGrid.getMapX(hoveredMapSquare);
+        final int y = mapGrid.getMapY(hoveredMapSquare);
+        int[] bounds = ((selection != null) && isSelected(x, y)) ? selection :
+                       new int[] {(int) mapRegion.getP1().getX(), (int) mapRegion.getP1().getY(), (int) mapRegion.getP3().getX(), (int) mapRegion.getP3().getY()};
+        if ((x < bounds[0]) || (y < bounds[1]) || (x > bounds[2]) || (y > bounds[3])) {
+            return;
+        }
+        
+        final short id = (selectedPiece.id == pieces.get("Nothing").id) ? 0 : selectedPiece.id;
+        if ((map.getPieceId(x, y) == id) && (map.getPieceOffset(x, y) == 0)) {
+            return;
+        }
+        
+        final List<int[]> spans = map.findConnectedSpans(x, y, bounds[0], bounds[1], bounds[2], bounds[3]);
+        editRegions(() -> {
+            for (int[] span : spans) {
+                map.fill(span[0], span[1], span[2], span[3], id, (short) 0);
+            }
+        }, spans);
+    }
+    
+    /**
+     * Copies the selected region of the map.
+     */
+    private void copySelection() {
+        if (selection != null) {
+            clipboard = map.copy(selection[0], selection[1], selection[2], selection[3]);
+        }
+    }
+    
+    /**
+     * Pastes the copied region of the map with its minimum corner at the hovered map square, and selects it.
+     */
+    private void pasteClipboard() {
+        if ((clipboard == null) || (hoveredMapSquare < 0)) {
+            return;
+        }
+        
+        final MapLayout.Region region = clipboard;
+        final int x = mapGrid.getMapX(hoveredMapSquare);
+        final int y = mapGrid.getMapY(hoveredMapSquare);
+        editRegions(() -> map.paste(region, x, y),
+                Collections.singletonList(new int[] {x, y, (x + region.getWidth() - 1), (y + region.getHeight() - 1)}));
+        setSelection(new int[] {x, y, (x + region.getWidth() - 1), (y + region.getHeight() - 1)});
+    }
+    
+    /**
+     * Moves the selected region of the map so its minimum corner is at the hovered map square, and selects it.
+     */
+    private void moveSelection() {
+        if ((selection == null) || (hoveredMapSquare < 0)) {
+            return;
+        }
+        
+        final int[] source = selection;
+        final int x = mapGrid.getMapX(hoveredMapSquare);
+        final int y = mapGrid.getMapY(hoveredMapSquare);
+        final int[] destination = {x, y, (x + source[2] - source[0]), (y + source[3] - source[1])};
+        editRegions(() -> {
+            MapLayout.Region region = map.copy(source[0], source[1], source[2], source[3]);
+            map.erase(source[0], source[1], source[2], source[3]);
+            map.paste(region, x, y);
+        }, Arrays.asList(source, destination));
+        setSelection(destination);
+    }
+    
+    /**
+     * Erases the pieces, labels and notes of the selected region of the map.
+     */
+    private void eraseSelection() {
+        if (selection == null) {
+            return;
+        }
+        
+        final int[] region = selection;
+        editRegions(() -> map.erase(region[0], region[1], region[2], region[3]), Collections.singletonList(region));
+    }
+    
+    /**
+     * Applies an edit to regions of the map as one batch.<br>
+     * The squares of the regions are recorded in the history before the edit, and the map grid, the active region of the map and the screen are each updated once after it, rather than for every square.<br>
+     * Only the squares in chunks of the map grid that have been added are written to it, the other chunks are loaded from the map when they come into view.
+     *
+     * @param edit    The edit to apply to the map layout.
+     * @param regions The regions written by the edit, as their minimum and maximum x and y coordinates.
+     */
+    private void editRegions(Runnable edit, List<int[]> regions) {
+        history.begin();
+        for (int[] region : regions) {
+            releasePieces(region);
+        }
+        for (int[] region : regions) {
+            recordRegion(region);
+        }
+        
+        edit.run();
+        
+        Floor activeFloor = floors.get(floor);
+        for (int[] region : regions) {
+            for (int x = region[0]; x <= region[2]; x++) {
+                for (int y = region[1]; y <= region[3]; y++) {
+                    if (mapGrid.isSquareLoaded(x, y)) {
+                        updateGridSquare(x, y);
+                    }
+                    activeFloor.update(x, y);
+                }
+            }
+        }
+        history.end();
+        
+        updateMapRegion();
+        refreshAnalysis();
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Removes the pieces that are only partly within a region of the map, so an edit of the region does not leave parts of them behind.
+     *
+     * @param region The region, as its minimum and maximum x and y coordinates.
+     */
+    private void releasePieces(int[] region) {
+        for (int x = region[0]; x <= region[2]; x++) {
+            for (int y = region[1]; y <= region[3]; y += (((x == region[0]) || (x == region[2])) ? 1 : Math.max(1, (region[3] - region[1])))) {
+                int[] placement = map.getPlacement(x, y);
+                if ((placement == null) || ((placement[0] >= region[0]) && (placement[1] >= region[1]) && (placement[2] <= region[2]) && (placement[3] <= region[3]))) {
+                    continue;
+                }
+                
+                recordRegion(placement);
+                map.removePlacement(x, y);
+                for (int i = placement[0]; i <= placement[2]; i++) {
+                    for (int j = placement[1]; j <= placement[3]; j++) {
+                        updateSquare(i, j);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Selects the rectangular region of the map between two map squares.
+     *
+     * @param fromSquare The index of the map square at one corner of the region.
+     * @param toSquare   The index of the map square at the opposite corner of the region.
+     */
+    private void select(int fromSquare, int toSquare) {
+        int fromX = mapGrid.getMapX(fromSquare);
+        int fromY = mapGrid.getMapY(fromSquare);
+        int toX = mapGrid.getMapX(toSquare);
+        int toY = mapGrid.getMapY(toSquare);
+        setSelection(new int[] {Math.min(fromX, toX), Math.min(fromY, toY), Math.max(fromX, toX), Math.max(fromY, toY)});
+    }
+    
+    /**
+     * Determines whether a map square is in the selected region of the map.
+     *
+     * @param x The x coordinate of the map square.
+     * @param y The y coordinate of the map square.
+     * @return Whether the map square is selected.
+     */
+    private boolean isSelected(int x, int y) {
+        return (selection != null) && (x >= selection[0]) && (y >= selection[1]) && (x <= selection[2]) && (y <= selection[3]);
+    }
+    
+    /**
+     * Returns the color of a map square when it is not highlighted.
+     *
+     * @param x The x coordinate of the map square.
+     * @param y The y coordinate of the map square.
+     * @return The color of the map square.
+     */
+    private Color getSquareColor(int x, int y) {
+        return isSelected(x, y) ? SELECTION_COLOR : Color.WHITE;
+    }
+    
+    /**
+     * Updates a map square from the map layout, and marks it as needing to be re-rendered.
+     *
+     * @param x The x coordinate of the map square.
+     * @param y The y coordinate of the map square.
+     */
+    private void refreshSquare(int x, int y) {
+        int mapSquare = mapGrid.getSquare(x, y);
+        repaintSquare(mapSquare);
+        updateSquare(x, y);
+        repaintSquare(mapSquare);
+    }
+    
+    /**
+     * Updates a map square and the rooms, walking distances and warnings of the active floor from the map layout, without marking it as needing to be re-rendered.
+     *
+     * @param x The x coordinate of the map square.
+     * @param y The y coordinate of the map square.
+     */
+    private void updateSquare(int x, int y) {
+        updateGridSquare(x, y);
+        floors.get(floor).update(x, y);
+    }
+    
+    /**
+     * Updates the image, label and note of a map square from the map layout, without marking it as needing to be re-rendered.
+     *
+     * @param x The x coordinate of the map square.
+     * @param y The y coordinate of the map square.
+     */
+    private void updateGridSquare(int x, int y) {
+        int mapSquare = mapGrid.getSquare(x, y);
+        Piece piece = map.getPiece(x, y);
+        String label = map.getLabel(x, y);
+        String note = map.getNote(x, y);
+        mapGrid.setImage(mapSquare, (piece == null) ? null : piece.icon);
+        mapGrid.setLabel(mapSquare, (label == null) ? null : label.replaceAll("[:,;]", ""));
+        mapGrid.setNote(mapSquare, (note == null) ? null : note.replaceAll("[:,;]", ""));
+    }
+    
+    /**
+     * Sets the selected region of the map, and colors its map squares.
+     *
+     * @param newSelection The selected region, as its minimum and maximum x and y coordinates, or null to select nothing.
+     */
+    private void setSelection(int[] newSelection) {
+        final int[] oldSelection = selection;
+        if (Arrays.equals(oldSelection, newSelection)) {
+            return;
+        }
+        
+        selection = newSelection;
+        for (int[] region : new int[][] {oldSelection, newSelection}) {
+            if (region == null) {
+                continue;
+            }
+            for (int x = region[0]; x <= region[2]; x++) {
+                for (int y = region[1]; y <= region[3]; y++) {
+                    mapGrid.setColor(mapGrid.getSquare(x, y), getSquareColor(x, y));
+                }
+            }
+        }
+        environment.requestRepaint();
+    }
+    
+    /**
+     * Marks the region of the screen covered by a map square as needing to be re-rendered.
+     *
+     * @param mapSquare The index of the map square.
+     */
+    private void repaintSquare(int mapSquare) {
+        int[] bounds = mapGrid.calculateInstanceBounds(mapSquare);
+        if (bounds != null) {
+            environment.repaintRegion(new java.awt.Rectangle(bounds[0], bounds[1], bounds[2] - bounds[0], bounds[3] - bounds[1]));
+        }
+    }
+    
+    /**
+     * Picks the map square at a point on the screen.
+     *
+     * @param x The x coordinate on the screen.
+     * @param y The y coordinate on the screen.
+     * @return The index of the map square at the point, or -1 if there is none.
+     */
+    private int pickMapSquare(int x, int y) {
+        BaseObject picked = environment.pick(x, y);
+        return (picked == mapGrid) ? mapGrid.pickSquare(x, y) : -1;
+    }
+    
     /**
      * Saves the state of the map layout.
      *
@@ -622,23 +1377,26 @@ public class DndMapMaker2D extends Scene {
             save.getParentFile().mkdirs();
         }
         
+        rememberView();
         StringBuilder state = new StringBuilder();
-        state.append("MAP:").append((int) MAP_DIM.getX()).append(":").append((int) MAP_DIM.getY()).append(",");
-        state.append(Environment.origin.getX()).append(":").append(Environment.origin.getY()).append(":").append(Environment.origin.getZ()).append(",");
-        Vector camera = Camera.getActiveCameraView().getLocation();
-        state.append(camera.getX()).append(":").append(camera.getY()).append(":").append(camera.getZ());
+        if (floors.size() > 1) {
+            state.append("FLOORS:").append(floors.size()).append(":").append(floor).append(",");
+        }
+        serializeFloor(floors.get(0), state);
         
-        for (int x = 0; x < map.length; x++) {
-            for (int y = 0; y < map[0].length; y++) {
-                boolean hasPiece = (map[x][y] != null && pieces.containsKey(map[x][y].name));
-                boolean hasLabel = labels[x][y] != null;
-                boolean hasNotes = notes[x][y] != null;
-                if (hasPiece || hasLabel || hasNotes) {
-                    state.append(',').append(x).append(':').append(y).append(':')
-                            .append(hasPiece ? map[x][y].name : "").append(':')
-                            .append(hasLabel ? labels[x][y] : "").append(':')
-                            .append(hasNotes ? notes[x][y] : "");
+        for (int i = 1; i < floors.size(); i++) {
+            Floor savedFloor = floors.get(i);
+            File floorSave = getFloorFile(save, i);
+            try {
+                if (savedFloor.isLoaded()) {
+                    StringBuilder floorState = new StringBuilder();
+                    serializeFloor(savedFloor, floorState);
+                    Files.write(floorSave.toPath(), floorState.toString().getBytes());
+                } else if (!floorSave.getAbsoluteFile().equals(savedFloor.getSource().getAbsoluteFile())) {
+                    Files.copy(savedFloor.getSource().toPath(), floorSave.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
+            } catch (IOException e) {
+                JOptionPane.showMessageDialog(null, "Error: Floor " + (i + 1) + " of " + saveMapName + " could not be saved!");
             }
         }
         
@@ -649,6 +1407,98 @@ public class DndMapMaker2D extends Scene {
         }
     }
     
+    /**
+     * Serializes a floor of the map, with the view it was last shown with.
+     *
+     * @param serializedFloor The floor.
+     * @param state           The state to append the serialized floor to.
+     */
+    private void serializeFloor(Floor serializedFloor, StringBuilder state) {
+        final MapLayout floorMap = serializedFloor.getMap();
+        Vector origin = (serializedFloor.getOrigin() == null) ? Environment.origin : serializedFloor.getOrigin();
+        state.append(origin.getX()).append(":").append(origin.getY()).append(":").append(origin.getZ()).append(",");
+        Vector camera = (serializedFloor.getCameraLocation() == null) ? Camera.getActiveCameraView().getLocation() : serializedFloor.getCameraLocation();
+        state.append(camera.getX()).append(":").append(camera.getY()).append(":").append(camera.getZ());
+        
+        floorMap.forEachSquare((x, y) -> {
+            short id = floorMap.getPieceId(x, y);
+            String label = floorMap.getLabel(x, y);
+            String note = floorMap.getNote(x, y);
+            boolean hasPiece = (id != 0) && (floorMap.getPieceOffset(x, y) == 0);
+            boolean hasLabel = label != null;
+            boolean hasNotes = note != null;
+            Floor.Link link = hasPiece ? serializedFloor.getLink(x, y) : null;
+            boolean hasLink = (link != null) && Floor.isFloorLink(floorMap.getPiece(x, y)) && (link.getFloor() < floors.size());
+            if (hasPiece || hasLabel || hasNotes) {
+                state.append(',').append(x).append(':').append(y).append(':')
+                        .append(hasPiece ? Piece.getPiece(id).name : "").append(':')
+                        .append(hasLabel ? label : "").append(':')
+                        .append(hasNotes ? note : "");
+                if (hasLink) {
+                    state.append(':').append(link.getFloor()).append(':').append(link.getX()).append(':').append(link.getY());
+                }
+            }
+        });
+    }
+    
+    /**
+     * Loads a floor of the map from its save file.
+     *
+     * @param loadedFloor The floor.
+     */
+    private void loadFloor(Floor loadedFloor) {
+        File save = loadedFloor.getSource();
+        loadedFloor.markLoaded();
+        
+        String state;
+        try {
+            state = new String(Files.readAllBytes(save.toPath()));
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(null, "Error: " + save.getName() + " could not be loaded!");
+            return;
+        }
+        
+        String[] mapPieces = state.split(",");
+        String[] origin = mapPieces[0].split(":");
+        loadedFloor.setOrigin(new Vector(Double.parseDouble(origin[0]), Double.parseDouble(origin[1]), Double.parseDouble(origin[2])));
+        String[] camera = mapPieces[1].split(":");
+        loadedFloor.setCameraLocation(new Vector(Double.parseDouble(camera[0]), Double.parseDouble(camera[1]), Double.parseDouble(camera[2])));
+        parseFloor(loadedFloor, mapPieces, 2);
+    }
+    
+    /**
+     * Parses the squares of a serialized floor of the map into the floor, and then builds the rooms, walking distances and warnings of the floor from them.
+     *
+     * @param parsedFloor The floor.
+     * @param mapPieces   The entries of the serialized floor.
+     * @param index       The index of the entry of the first square.
+     */
+    private void parseFloor(Floor parsedFloor, String[] mapPieces, int index) {
+        MapLayout floorMap = parsedFloor.getMap();
+        for (; index < mapPieces.length; index++) {
+            String[] mapPieceData = mapPieces[index].split(":", -1);
+            int x = Integer.parseInt(mapPieceData[0]);
+            int y = Integer.parseInt(mapPieceData[1]);
+            Piece piece = mapPieceData[2].isEmpty() ? null : pieces.get(mapPieceData[2]);
+            String label = ((mapPieceData.length < 4) || mapPieceData[3].isEmpty()) ? null : mapPieceData[3];
+            String note = ((mapPieceData.length < 5) || mapPieceData[4].isEmpty()) ? null : mapPieceData[4];
+            
+            if (piece != null) {
+                floorMap.place(x, y, piece);
+            }
+            if (label != null) {
+                floorMap.setLabel(x, y, label);
+            }
+            if (note != null) {
+                floorMap.setNote(x, y, note);
+            }
+            if (mapPieceData.length >= 8) {
+                parsedFloor.setLink(x, y, new Floor.Link(Integer.parseInt(mapPieceData[5]), Integer.parseInt(mapPieceData[6]), Integer.parseInt(mapPieceData[7])));
+            }
+        }
+        floorMap.forEachSquare(parsedFloor::update);
+    }
+    
     /**
      * Saves the state of the map layout.
      */
@@ -691,22 +1541,31 @@ public class DndMapMaker2D extends Scene {
         String[] mapPieces = state.split(",");
         int index = 0;
         
-        int mapDimX = DEFAULT_MAP_DIM_X;
-        int mapDimY = DEFAULT_MAP_DIM_Y;
+        int floorCount = 1;
+        int activeFloor = 0;
+        if (mapPieces[index].startsWith("FLOORS:")) {
+            String[] floorData = mapPieces[index++].split(":");
+            floorCount = Integer.parseInt(floorData[1]);
+            activeFloor = Integer.parseInt(floorData[2]);
+        }
+        
+        //saves of fixed size maps centered the map on its dimensions, so shift their view to keep the squares at their coordinates
+        double centerX = MAP_CENTER_X;
+        double centerY = MAP_CENTER_Y;
         if (mapPieces[index].startsWith("MAP:")) {
             String[] mapDim = mapPieces[index++].split(":");
             try {
-                mapDimX = Integer.parseInt(mapDim[1]);
-                mapDimY = Integer.parseInt(mapDim[2]);
+                centerX = Integer.parseInt(mapDim[1]) / 2.0;
+                centerY = Integer.parseInt(mapDim[2]) / 2.0;
             } catch (Exception ignored) {
             }
         }
-        initializeMap(mapDimX, mapDimY);
+        initializeMap();
         calculate();
         
         String[] origin = mapPieces[index++].split(":");
-        double originX = Double.parseDouble(origin[0]);
-        double originY = Double.parseDouble(origin[1]);
+        double originX = Double.parseDouble(origin[0]) + ((centerX - MAP_CENTER_X) * PIECE_SIZE);
+        double originY = Double.parseDouble(origin[1]) + ((centerY - MAP_CENTER_Y) * PIECE_SIZE);
         double originZ = Double.parseDouble(origin[2]);
         Environment.origin = new Vector(originX, originY, originZ);
         
@@ -716,33 +1575,13 @@ public class DndMapMaker2D extends Scene {
         double rho = Double.parseDouble(camera[2]);
         Camera.getActiveCameraView().setLocation(phi, theta, rho);
         
-        for (; index < mapPieces.length; index++) {
-            String[] mapPieceData = mapPieces[index].split(":", -1);
-            int x = Integer.parseInt(mapPieceData[0]) + LOAD_OFFSET_X;
-            int y = Integer.parseInt(mapPieceData[1]) + LOAD_OFFSET_Y;
-            Piece piece = mapPieceData[2].isEmpty() ? null : pieces.get(mapPieceData[2]);
-            String label = ((mapPieceData.length < 4) || mapPieceData[3].isEmpty()) ? null : mapPieceData[3];
-            String note = ((mapPieceData.length < 5) || mapPieceData[4].isEmpty()) ? null : mapPieceData[4];
-            
-            if (piece != null) {
-                for (int i = 0; i < piece.sizeX; i++) {
-                    for (int j = 0; j < piece.sizeY; j++) {
-                        map[x + i][y + j] = piece.subPieces[i][j];
-                        mapSquares[x + i][y + j].setImage(piece.subPieces[i][j].icon);
-                    }
-                }
-            }
-            if (label != null) {
-                labels[x][y] = label;
-                mapSquares[x][y].setLabel(label);
-            }
-            if (note != null) {
-                notes[x][y] = note;
-                mapSquares[x][y].setNote(note);
-            }
+        floors.get(0).setOrigin(Environment.origin);
+        floors.get(0).setCameraLocation(new Vector(phi, theta, rho));
+        parseFloor(floors.get(0), mapPieces, index);
+        for (int i = 1; i < floorCount; i++) {
+            floors.add(new Floor(getFloorFile(save, i)));
         }
-        
-        updateMapRegion(-1, -1, false, true);
+        showFloor(Math.min(Math.max(activeFloor, 0), (floors.size() - 1)));
     }
     
     /**
@@ -783,14 +1622,21 @@ public class DndMapMaker2D extends Scene {
         Map<String, String> poi = new LinkedHashMap<>();
         for (int x = minX; x <= maxX; x++) {
             for (int y = minY; y <= maxY; y++) {
-                if ((labels[x][y] != null) && !labels[x][y].isEmpty() &&
-                        (notes[x][y] != null) && !notes[x][y].isEmpty()) {
-                    poi.put(labels[x][y], notes[x][y]);
+                String label = map.getLabel(x, y);
+                String note = map.getNote(x, y);
+                if ((label != null) && !label.isEmpty() &&
+                        (note != null) && !note.isEmpty()) {
+                    poi.put(label, note);
                 }
             }
         }
         
-        BufferedImage dmMap = new BufferedImage(((maxX - minX + 1) * Piece.PIECE_SIZE), (((maxY - minY + 1) * Piece.PIECE_SIZE) + ((poi.size() + 1) * 24)), BufferedImage.TYPE_INT_RGB);
+        List<RoomMap.Room> exportRooms = rooms.getRooms();
+        List<MapLinter.Warning> exportWarnings = linter.getWarnings().stream()
+                .filter(warning -> (warning.getX() >= minX) && (warning.getX() <= maxX) && (warning.getY() >= minY) && (warning.getY() <= maxY))
+                .collect(Collectors.toList());
+        
+        BufferedImage dmMap = new BufferedImage(((maxX - minX + 1) * Piece.PIECE_SIZE), (((maxY - minY + 1) * Piece.PIECE_SIZE) + ((poi.size() + exportRooms.size() + exportWarnings.size() + 1) * 24)), BufferedImage.TYPE_INT_RGB);
         BufferedImage playerMap = new BufferedImage(((maxX - minX + 1) * Piece.PIECE_SIZE), ((maxY - minY + 1) * Piece.PIECE_SIZE), BufferedImage.TYPE_INT_RGB);
         Graphics dmMapGraphics = dmMap.getGraphics();
         Graphics playerMapGraphics = playerMap.getGraphics();
@@ -804,20 +1650,34 @@ public class DndMapMaker2D extends Scene {
         
         for (int x = minX; x <= maxX; x++) {
             for (int y = minY; y <= maxY; y++) {
-                Piece piece = (map[x][y] == null) ? pieces.get("Space") : map[x][y];
+                Piece piece = (map.getPiece(x, y) == null) ? pieces.get("Space") : map.getPiece(x, y);
                 BufferedImage dmIcon = piece.icon;
                 BufferedImage playerIcon = (piece.replaceForPlayer == null) ? dmIcon : piece.replaceForPlayer.icon;
                 
                 dmMapGraphics.drawImage(dmIcon, (x - minX) * Piece.PIECE_SIZE, (y - minY) * Piece.PIECE_SIZE, null);
-                if ((labels[x][y] != null) && !labels[x][y].isEmpty()) {
-                    dmMapGraphics.drawString(labels[x][y],
+                String label = map.getLabel(x, y);
+                if ((label != null) && !label.isEmpty()) {
+                    dmMapGraphics.drawString(label,
                             ((x - minX) * Piece.PIECE_SIZE + 17), ((y - minY) * Piece.PIECE_SIZE - 17));
                 }
                 playerMapGraphics.drawImage(playerIcon, (x - minX) * Piece.PIECE_SIZE, (y - minY) * Piece.PIECE_SIZE, null);
             }
         }
+        for (RoomMap.Room room : exportRooms) {
+            dmMapGraphics.drawString(("R" + room.getNumber()),
+                    ((room.getX() - minX) * Piece.PIECE_SIZE + 5), ((room.getY() - minY) * Piece.PIECE_SIZE + 34));
+        }
+        dmMapGraphics.setColor(Color.RED);
+        for (int i = 0; i < exportWarnings.size(); i++) {
+            MapLinter.Warning warning = exportWarnings.get(i);
+            dmMapGraphics.drawRect(((warning.getX() - minX) * Piece.PIECE_SIZE + 1), ((warning.getY() - minY) * Piece.PIECE_SIZE + 1),
+                    (Piece.PIECE_SIZE - 3), (Piece.PIECE_SIZE - 3));
+            dmMapGraphics.drawString(("W" + (i + 1)),
+                    ((warning.getX() - minX) * Piece.PIECE_SIZE + 5), ((warning.getY() - minY + 1) * Piece.PIECE_SIZE - 5));
+        }
+        dmMapGraphics.setColor(Color.DARK_GRAY);
         
-        if (!poi.isEmpty()) {
+        if (!poi.isEmpty() || !exportRooms.isEmpty() || !exportWarnings.isEmpty()) {
             final int bottom = maxY - minY + 1;
             final AtomicInteger poiIndex = new AtomicInteger(1);
             final int labelLength = poi.keySet().stream().mapToInt(String::length).max().orElse(1);
@@ -832,6 +1692,23 @@ public class DndMapMaker2D extends Scene {
                 dmMapGraphics.drawString(e.getKey() + new String(spacing) + " - " + e.getValue(),
                         (Piece.PIECE_SIZE + 7), (bottom * Piece.PIECE_SIZE + (24 * poiIndex.getAndIncrement()) + 10));
             });
+            
+            for (RoomMap.Room room : exportRooms) {
+                StringBuilder description = new StringBuilder("R").append(room.getNumber()).append(" - ")
+                        .append(room.getArea()).append((room.getArea() == 1) ? " square, " : " squares, ")
+                        .append(room.getDoors().size()).append((room.getDoors().size() == 1) ? " door" : " doors");
+                for (int i = 0; i < room.getConnections().size(); i++) {
+                    description.append((i == 0) ? ", connects to R" : ", R").append(room.getConnections().get(i).getNumber());
+                }
+                dmMapGraphics.drawString(description.toString(),
+                        (Piece.PIECE_SIZE + 7), (bottom * Piece.PIECE_SIZE + (24 * poiIndex.getAndIncrement()) + 10));
+            }
+            
+            dmMapGraphics.setColor(Color.RED);
+            for (int i = 0; i < exportWarnings.size(); i++) {
+                dmMapGraphics.drawString(("W" + (i + 1) + " - " + exportWarnings.get(i).getMessage()),
+                        (Piece.PIECE_SIZE + 7), (bottom * Piece.PIECE_SIZE + (24 * poiIndex.getAndIncrement()) + 10));
+            }
         }
         
         File dmOutput = new File(exportDirectory, exportMapName + " (print).png");
@@ -885,44 +1762,22 @@ public class DndMapMaker2D extends Scene {
     }
     
     /**
-     * Updates the active region of the map.
-     *
-     * @param x           The x coordinate of the edited piece.
-     * @param y           The y coordinate of the edited piece.
-     * @param removal     Whether the edited piece was removed or not.
-     * @param recalculate Whether the active region of the map should be recalculated or not.
-     */
-    private void updateMapRegion(int x, int y, boolean removal, boolean recalculate) {
-        final boolean inRegion = (x >= (int) mapRegion.getP1().getX()) && (y >= (int) mapRegion.getP1().getY()) &&
-                (x < (int) mapRegion.getP3().getX()) && (y < (int) mapRegion.getP3().getY());
-        final boolean onEdge = (x == (int) mapRegion.getP1().getX()) || (y == (int) mapRegion.getP1().getY()) ||
-                (x == (int) mapRegion.getP3().getX()) || (y == (int) mapRegion.getP3().getY());
-        if (!recalculate && ((!removal && inRegion) || (removal && !onEdge))) {
+     * Updates the active region of the map from the extent of the map layout.
+     */
+    private void updateMapRegion() {
+        if (!map.hasExtent()) {
+            clearMapRegion();
             return;
         }
         
-        int minX = Integer.MAX_VALUE;
-        int minY = Integer.MAX_VALUE;
-        int maxX = Integer.MIN_VALUE;
-        int maxY = Integer.MIN_VALUE;
+        final int minX = map.getMinX();
+        final int minY = map.getMinY();
+        final int maxX = map.getMaxX();
+        final int maxY = map.getMaxY();
         
-        if (recalculate || removal) {
-            for (int i = 0; i < map.length; i++) {
-                for (int j = 0; j < map[0].length; j++) {
-                    if ((map[i][j] != null) || mapSquares[i][j].hasLabel()) {
-                        minX = Math.min(i, minX);
-                        minY = Math.min(j, minY);
-                        maxX = Math.max(i, maxX);
-                        maxY = Math.max(j, maxY);
-                    }
-                }
-            }
-            
-        } else {
-            minX = Math.min(x, (int) mapRegion.getP1().getX());
-            minY = Math.min(y, (int) mapRegion.getP1().getY());
-            maxX = Math.max(x, (int) mapRegion.getP3().getX());
-            maxY = Math.max(y, (int) mapRegion.getP3().getY());
+        if ((minX == (int) mapRegion.getP1().getX()) && (minY == (int) mapRegion.getP1().getY()) &&
+                (maxX == (int) mapRegion.getP3().getX()) && (maxY == (int) mapRegion.getP3().getY())) {
+            return;
         }
         
         final int maxPrintX = minX + ((int) Math.ceil((double) (maxX - minX + 1) / DndMapParser.WIDTH_PER_PAGE) * DndMapParser.WIDTH_PER_PAGE) - 1;
@@ -932,9 +1787,32 @@ public class DndMapMaker2D extends Scene {
         printRegion.setPoints(new Vector(minX, minY), new Vector(maxPrintX, minY), new Vector(maxPrintX, maxPrintY), new Vector(minX, maxPrintY));
     }
     
+    /**
+     * Clears the active region of the map.
+     */
+    private void clearMapRegion() {
+        if ((int) mapRegion.getP1().getX() == Integer.MAX_VALUE) {
+            return;
+        }
+        
+        mapRegion.setPoints(new Vector(Integer.MAX_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MIN_VALUE), new Vector(Integer.MAX_VALUE, Integer.MIN_VALUE));
+        printRegion.setPoints(new Vector(Integer.MAX_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MAX_VALUE), new Vector(Integer.MIN_VALUE, Integer.MIN_VALUE), new Vector(Integer.MAX_VALUE, Integer.MIN_VALUE));
+    }
+    
     
     //Static Methods
     
+    /**
+     * Returns the save file of a floor of a map, beside the save file of the map.
+     *
+     * @param save  The save file of the map.
+     * @param index The index of the floor.
+     * @return The save file of the floor.
+     */
+    private static File getFloorFile(File save, int index) {
+        return new File(save.getParentFile(), save.getName().replaceAll("\\.save$", "") + ".floor" + index + ".save");
+    }
+    
     /**
      * Loads the available map pieces.
      *
@@ -975,6 +1853,7 @@ public class DndMapMaker2D extends Scene {
         pieces.put("Ramp Left", new Piece(new File(pieceDir, "rampLeft.png"), "Ramp Left"));
         pieces.put("Ramp Right", new Piece(new File(pieceDir, "rampRight.png"), "Ramp Right"));
         
+        pieces.values().forEach(Piece::intern);
         return Collections.unmodifiableMap(pieces);
     }
     
@@ -0,0 +1,444 @@
+/*
+ * File:    EditHistory.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Keeps the undo and redo history of the edits to a Map Layout.<br>
+ * Each edit is stored as the deltas of the squares it changed, the packed Piece, label, note and floor link of each square before and after the edit, so undoing or redoing an edit only writes the squares it changed.<br>
+ * The floor link of a square whose stairs or ramp is removed during an edit is dropped as part of the edit, so undoing the edit restores it.<br>
+ * The squares written between beginning and ending an edit, such as all the squares placed during a drag, are grouped into a single edit.<br>
+ * The oldest edits are discarded once the history holds more than a certain number of edits or squares.
+ */
+public class EditHistory {
+    
+    //Constants
+    
+    /**
+     * The maximum number of edits to keep in the history.
+     */
+    public static final int MAX_EDITS = 256;
+    
+    /**
+     * The maximum number of changed squares to keep in the history, across all of its edits.
+     */
+    public static final int MAX_SQUARES = 1 << 18;
+    
+    
+    //Fields
+    
+    /**
+     * The Map Layout whose edits are kept.
+     */
+    private final MapLayout map;
+    
+    /**
+     * The links from squares of the Map Layout to squares of other floors, by the packed coordinates of their squares.
+     */
+    private final Map<Long, Floor.Link> links;
+    
+    /**
+     * The edits that can be undone, with the most recent first.
+     */
+    private final Deque<Edit> undoStack = new ArrayDeque<>();
+    
+    /**
+     * The edits that can be redone, with the most recently undone first.
+     */
+    private final Deque<Edit> redoStack = new ArrayDeque<>();
+    
+    /**
+     * The edit being recorded, or null if no edit is being recorded.
+     */
+    private Edit pending = null;
+    
+    /**
+     * The squares recorded in the edit being recorded, by their packed coordinates.
+     */
+    private final Set<Long> pendingSquares = new HashSet<>();
+    
+    /**
+     * The number of times that an edit has been begun and not yet ended.
+     */
+    private int depth = 0;
+    
+    /**
+     * The number of changed squares in the history.
+     */
+    private int squares = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for an Edit History.
+     *
+     * @param map   The Map Layout whose edits are kept.
+     * @param links The links from squares of the Map Layout to squares of other floors.
+     */
+    public EditHistory(MapLayout map, Map<Long, Floor.Link> links) {
+        this.map = map;
+        this.links = links;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Begins an edit.<br>
+     * Edits may be nested, in which case the squares written until the outermost edit ends are grouped into one edit.
+     */
+    public void begin() {
+        if (depth++ == 0) {
+            pending = new Edit();
+            pendingSquares.clear();
+        }
+    }
+    
+    /**
+     * Records the state of a square before it is written during the edit being recorded.<br>
+     * Only the first state of a square during an edit is recorded, and nothing is recorded if no edit is being recorded.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void record(int x, int y) {
+        long key = MapLayout.getSquareKey(x, y);
+        if ((pending == null) || !pendingSquares.add(key)) {
+            return;
+        }
+        
+        pending.add(x, y, packPiece(map, x, y), map.getLabel(x, y), map.getNote(x, y), links.get(key));
+    }
+    
+    /**
+     * Ends an edit, and adds it to the history if the outermost edit has ended and it changed any squares.<br>
+     * The links from the squares of the edit that no longer hold the stairs or ramp they were placed on are dropped first.
+     */
+    public void end() {
+        if ((depth == 0) || (--depth > 0)) {
+            return;
+        }
+        
+        for (long key : pendingSquares) {
+            if (links.containsKey(key) && !isLinkAnchor(map, MapLayout.getSquareX(key), MapLayout.getSquareY(key))) {
+                links.remove(key);
+            }
+        }
+        
+        Edit edit = pending;
+        pending = null;
+        pendingSquares.clear();
+        
+        if (edit.complete(map, links) == 0) {
+            return;
+        }
+        
+        redoStack.clear();
+        undoStack.push(edit);
+        squares += edit.size;
+        trim();
+    }
+    
+    /**
+     * Undoes the most recent edit.
+     *
+     * @param visitor The visitor to call with the coordinates of each square that was changed.
+     * @return Whether there was an edit to undo.
+     */
+    public boolean undo(MapLayout.SquareVisitor visitor) {
+        if ((depth > 0) || undoStack.isEmpty()) {
+            return false;
+        }
+        
+        Edit edit = undoStack.pop();
+        edit.apply(map, links, false, visitor);
+        redoStack.push(edit);
+        return true;
+    }
+    
+    /**
+     * Redoes the most recently undone edit.
+     *
+     * @param visitor The visitor to call with the coordinates of each square that was changed.
+     * @return Whether there was an edit to redo.
+     */
+    public boolean redo(MapLayout.SquareVisitor visitor) {
+        if ((depth > 0) || redoStack.isEmpty()) {
+            return false;
+        }
+        
+        Edit edit = redoStack.pop();
+        edit.apply(map, links, true, visitor);
+        undoStack.push(edit);
+        return true;
+    }
+    
+    /**
+     * Clears the history.
+     */
+    public void clear() {
+        undoStack.clear();
+        redoStack.clear();
+        pending = null;
+        pendingSquares.clear();
+        depth = 0;
+        squares = 0;
+    }
+    
+    /**
+     * Discards the oldest edits until the history is within its bounds, always keeping the most recent edit.
+     */
+    private void trim() {
+        while ((undoStack.size() > 1) && ((undoStack.size() > MAX_EDITS) || (squares > MAX_SQUARES))) {
+            squares -= undoStack.removeLast().size;
+        }
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns whether there is an edit to undo.
+     *
+     * @return Whether there is an edit to undo.
+     */
+    public boolean canUndo() {
+        return !undoStack.isEmpty();
+    }
+    
+    /**
+     * Returns whether there is an edit to redo.
+     *
+     * @return Whether there is an edit to redo.
+     */
+    public boolean canRedo() {
+        return !redoStack.isEmpty();
+    }
+    
+    /**
+     * Returns the number of changed squares in the history.
+     *
+     * @return The number of changed squares in the history.
+     */
+    public int getSquareCount() {
+        return squares;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Packs the Piece on a square of a Map Layout.
+     *
+     * @param map The Map Layout.
+     * @param x   The x coordinate of the square.
+     * @param y   The y coordinate of the square.
+     * @return The id of the Piece in the high bits and the packed offset of its sub Piece in the low bits.
+     */
+    private static int packPiece(MapLayout map, int x, int y) {
+        return (map.getPieceId(x, y) << 16) | (map.getPieceOffset(x, y) & 0xFFFF);
+    }
+    
+    /**
+     * Determines whether a square of a Map Layout is the anchor of a placement of stairs or a ramp, which a link to another floor can be made from.
+     *
+     * @param map The Map Layout.
+     * @param x   The x coordinate of the square.
+     * @param y   The y coordinate of the square.
+     * @return Whether the square is the anchor of a placement of stairs or a ramp.
+     */
+    private static boolean isLinkAnchor(MapLayout map, int x, int y) {
+        return (map.getPieceOffset(x, y) == 0) && Floor.isFloorLink(map.getPiece(x, y));
+    }
+    
+    /**
+     * Sets the link from a square to a square of another floor.
+     *
+     * @param links The links from squares to squares of other floors.
+     * @param key   The packed coordinates of the square.
+     * @param link  The link from the square, or null to remove the link.
+     */
+    private static void setLink(Map<Long, Floor.Link> links, long key, Floor.Link link) {
+        if (link == null) {
+            links.remove(key);
+        } else {
+            links.put(key, link);
+        }
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines an edit of a Map Layout, as the states of the squares it changed before and after the edit.<br>
+     * The labels, notes and floor links are only stored if the edit changed any of them.
+     */
+    private static class Edit {
+        
+        //Constants
+        
+        /**
+         * The initial capacity of an edit, in squares.
+         */
+        private static final int INITIAL_CAPACITY = 8;
+        
+        
+        //Fields
+        
+        /**
+         * The x coordinates of the squares of the edit.
+         */
+        private int[] xs = new int[INITIAL_CAPACITY];
+        
+        /**
+         * The y coordinates of the squares of the edit.
+         */
+        private int[] ys = new int[INITIAL_CAPACITY];
+        
+        /**
+         * The packed Pieces on the squares of the edit before and after the edit, interleaved.
+         */
+        private int[] pieces = new int[INITIAL_CAPACITY * 2];
+        
+        /**
+         * The labels of the squares of the edit before and after the edit, interleaved, or null if the edit did not change any labels.
+         */
+        private String[] labels = new String[INITIAL_CAPACITY * 2];
+        
+        /**
+         * The notes of the squares of the edit before and after the edit, interleaved, or null if the edit did not change any notes.
+         */
+        private String[] notes = new String[INITIAL_CAPACITY * 2];
+        
+        /**
+         * The floor links of the squares of the edit before and after the edit, interleaved, or null if the edit did not change any floor links.
+         */
+        private Floor.Link[] floorLinks = new Floor.Link[INITIAL_CAPACITY * 2];
+        
+        /**
+         * The number of squares of the edit.
+         */
+        private int size = 0;
+        
+        
+        //Methods
+        
+        /**
+         * Adds a square to the edit with its state before the edit.
+         *
+         * @param x     The x coordinate of the square.
+         * @param y     The y coordinate of the square.
+         * @param piece The packed Piece on the square.
+         * @param label The label of the square.
+         * @param note  The note of the square.
+         * @param link  The floor link of the square.
+         */
+        private void add(int x, int y, int piece, String label, String note, Floor.Link link) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+                pieces = Arrays.copyOf(pieces, size * 4);
+                labels = Arrays.copyOf(labels, size * 4);
+                notes = Arrays.copyOf(notes, size * 4);
+                floorLinks = Arrays.copyOf(floorLinks, size * 4);
+            }
+            
+            xs[size] = x;
+            ys[size] = y;
+            pieces[size * 2] = piece;
+            labels[size * 2] = label;
+            notes[size * 2] = note;
+            floorLinks[size * 2] = link;
+            size++;
+        }
+        
+        /**
+         * Completes the edit with the states of its squares after the edit, dropping the squares that did not change and trimming the storage to its size.
+         *
+         * @param map   The Map Layout that was edited.
+         * @param links The links from squares of the Map Layout to squares of other floors.
+         * @return The number of squares that the edit changed.
+         */
+        private int complete(MapLayout map, Map<Long, Floor.Link> links) {
+            boolean labelChanged = false;
+            boolean noteChanged = false;
+            boolean linkChanged = false;
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                int x = xs[i];
+                int y = ys[i];
+                int piece = packPiece(map, x, y);
+                String label = map.getLabel(x, y);
+                String note = map.getNote(x, y);
+                Floor.Link link = links.get(MapLayout.getSquareKey(x, y));
+                if ((piece == pieces[i * 2]) && Objects.equals(label, labels[i * 2]) && Objects.equals(note, notes[i * 2]) && (link == floorLinks[i * 2])) {
+                    continue;
+                }
+                
+                labelChanged |= !Objects.equals(label, labels[i * 2]);
+                noteChanged |= !Objects.equals(note, notes[i * 2]);
+                linkChanged |= (link != floorLinks[i * 2]);
+                xs[n] = x;
+                ys[n] = y;
+                pieces[n * 2] = pieces[i * 2];
+                pieces[(n * 2) + 1] = piece;
+                labels[n * 2] = labels[i * 2];
+                labels[(n * 2) + 1] = label;
+                notes[n * 2] = notes[i * 2];
+                notes[(n * 2) + 1] = note;
+                floorLinks[n * 2] = floorLinks[i * 2];
+                floorLinks[(n * 2) + 1] = link;
+                n++;
+            }
+            
+            size = n;
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            pieces = Arrays.copyOf(pieces, n * 2);
+            labels = labelChanged ? Arrays.copyOf(labels, n * 2) : null;
+            notes = noteChanged ? Arrays.copyOf(notes, n * 2) : null;
+            floorLinks = linkChanged ? Arrays.copyOf(floorLinks, n * 2) : null;
+            return n;
+        }
+        
+        /**
+         * Writes the states of the squares of the edit to a Map Layout.
+         *
+         * @param map     The Map Layout.
+         * @param links   The links from squares of the Map Layout to squares of other floors.
+         * @param after   Whether to write the states after the edit, or before the edit otherwise.
+         * @param visitor The visitor to call with the coordinates of each square that was written.
+         */
+        private void apply(MapLayout map, Map<Long, Floor.Link> links, boolean after, MapLayout.SquareVisitor visitor) {
+            int side = after ? 1 : 0;
+            for (int i = 0; i < size; i++) {
+                int piece = pieces[(i * 2) + side];
+                map.setPiece(xs[i], ys[i], (short) (piece >>> 16), (short) piece);
+                if (labels != null) {
+                    map.setLabel(xs[i], ys[i], labels[(i * 2) + side]);
+                }
+                if (notes != null) {
+                    map.setNote(xs[i], ys[i], notes[(i * 2) + side]);
+                }
+                if (floorLinks != null) {
+                    setLink(links, MapLayout.getSquareKey(xs[i], ys[i]), floorLinks[(i * 2) + side]);
+                }
+                visitor.visit(xs[i], ys[i]);
+            }
+        }
+        
+    }
+    
+}
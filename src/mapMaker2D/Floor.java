@@ -0,0 +1,364 @@
+/*
+ * File:    Floor.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import graphy.math.vector.Vector;
+
+/**
+ * Defines a floor of a multi-floor map, with its own layout, rooms, warnings, fog of war, edit history, view and links to the other floors.<br>
+ * A floor of a loaded map is left in its save file until it is first opened, so only the floors that have been opened are held in memory, and only as their compact Map Layout.
+ */
+public class Floor {
+    
+    //Fields
+    
+    /**
+     * The layout of the Floor.
+     */
+    private final MapLayout map = new MapLayout();
+    
+    /**
+     * The links from squares of the Floor to squares of other Floors, by the packed coordinates of their squares.
+     */
+    private final Map<Long, Link> links = new HashMap<>();
+    
+    /**
+     * The undo and redo history of the edits to the Floor.
+     */
+    private final EditHistory history = new EditHistory(map, links);
+    
+    /**
+     * The rooms of the Floor.
+     */
+    private final RoomMap rooms = new RoomMap(map);
+    
+    /**
+     * The walking distances across the Floor.
+     */
+    private final DistanceMap distances = new DistanceMap(map);
+    
+    /**
+     * The fog of war over the Floor, for the session.
+     */
+    private final FogOfWar fog = new FogOfWar(map);
+    
+    /**
+     * The warnings about the layout of the Floor.
+     */
+    private final MapLinter linter = new MapLinter(map, rooms, links);
+    
+    /**
+     * The origin of the view of the Floor when it was last shown, or null if it has not been shown.
+     */
+    private Vector origin = null;
+    
+    /**
+     * The location of the Camera in the view of the Floor when it was last shown, as {phi, theta, rho}, or null if it has not been shown.
+     */
+    private Vector cameraLocation = null;
+    
+    /**
+     * The save file that the Floor has not been loaded from yet, or null if the Floor is loaded.
+     */
+    private File source;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Floor that is loaded from a save file when it is first opened.
+     *
+     * @param source The save file of the Floor.
+     */
+    public Floor(File source) {
+        this.source = source;
+    }
+    
+    /**
+     * The constructor for an empty Floor.
+     */
+    public Floor() {
+        this(null);
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Returns whether the Floor has been loaded from its save file.
+     *
+     * @return Whether the Floor has been loaded.
+     */
+    public boolean isLoaded() {
+        return source == null;
+    }
+    
+    /**
+     * Marks the Floor as loaded from its save file.
+     */
+    public void markLoaded() {
+        source = null;
+    }
+    
+    /**
+     * Updates the rooms, the walking distances and the warnings of the Floor from a square of its layout after it is written.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void update(int x, int y) {
+        rooms.update(x, y);
+        distances.update(x, y);
+        linter.update(x, y);
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the layout of the Floor.
+     *
+     * @return The layout of the Floor.
+     */
+    public MapLayout getMap() {
+        return map;
+    }
+    
+    /**
+     * Returns the undo and redo history of the edits to the Floor.
+     *
+     * @return The undo and redo history of the Floor.
+     */
+    public EditHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Returns the rooms of the Floor.
+     *
+     * @return The rooms of the Floor.
+     */
+    public RoomMap getRooms() {
+        return rooms;
+    }
+    
+    /**
+     * Returns the walking distances across the Floor.
+     *
+     * @return The walking distances across the Floor.
+     */
+    public DistanceMap getDistances() {
+        return distances;
+    }
+    
+    /**
+     * Returns the fog of war over the Floor.
+     *
+     * @return The fog of war over the Floor.
+     */
+    public FogOfWar getFog() {
+        return fog;
+    }
+    
+    /**
+     * Returns the warnings about the layout of the Floor.
+     *
+     * @return The warnings about the layout of the Floor.
+     */
+    public MapLinter getLinter() {
+        return linter;
+    }
+    
+    /**
+     * Returns the link from a square of the Floor.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The link from the square, or null if there is none.
+     */
+    public Link getLink(int x, int y) {
+        return links.get(MapLayout.getSquareKey(x, y));
+    }
+    
+    /**
+     * Returns the links from the squares of the Floor.
+     *
+     * @return The links from the squares of the Floor, by the packed coordinates of their squares.
+     */
+    public Map<Long, Link> getLinks() {
+        return links;
+    }
+    
+    /**
+     * Returns the origin of the view of the Floor when it was last shown.
+     *
+     * @return The origin of the view of the Floor, or null if it has not been shown.
+     */
+    public Vector getOrigin() {
+        return origin;
+    }
+    
+    /**
+     * Returns the location of the Camera in the view of the Floor when it was last shown.
+     *
+     * @return The location of the Camera in the view of the Floor, as {phi, theta, rho}, or null if it has not been shown.
+     */
+    public Vector getCameraLocation() {
+        return cameraLocation;
+    }
+    
+    /**
+     * Returns the save file that the Floor has not been loaded from yet.
+     *
+     * @return The save file of the Floor, or null if the Floor is loaded.
+     */
+    public File getSource() {
+        return source;
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the link from a square of the Floor.
+     *
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @param link The link from the square, or null to remove the link.
+     */
+    public void setLink(int x, int y, Link link) {
+        if (link == null) {
+            links.remove(MapLayout.getSquareKey(x, y));
+        } else {
+            links.put(MapLayout.getSquareKey(x, y), link);
+        }
+        linter.invalidate();
+    }
+    
+    /**
+     * Sets the link from a square of the Floor to a square of another Floor as an edit, so it can be undone.
+     *
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @param link The link from the square, or null to remove the link.
+     */
+    public void editLink(int x, int y, Link link) {
+        history.begin();
+        history.record(x, y);
+        setLink(x, y, link);
+        history.end();
+    }
+    
+    /**
+     * Sets the origin of the view of the Floor.
+     *
+     * @param origin The origin of the view of the Floor.
+     */
+    public void setOrigin(Vector origin) {
+        this.origin = origin;
+    }
+    
+    /**
+     * Sets the location of the Camera in the view of the Floor.
+     *
+     * @param cameraLocation The location of the Camera in the view of the Floor, as {phi, theta, rho}.
+     */
+    public void setCameraLocation(Vector cameraLocation) {
+        this.cameraLocation = cameraLocation;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Determines whether a Piece links floors of a map, as stairs and ramps do.
+     *
+     * @param piece The Piece.
+     * @return Whether the Piece links floors.
+     */
+    public static boolean isFloorLink(Piece piece) {
+        return (piece != null) && (piece.name.contains("Stairs") || piece.name.startsWith("Ramp"));
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines a link from a square of a Floor, such as stairs or a ramp, to a square of another Floor.
+     */
+    public static class Link {
+        
+        //Fields
+        
+        /**
+         * The index of the Floor that the Link leads to.
+         */
+        private final int floor;
+        
+        /**
+         * The x coordinate of the square that the Link leads to.
+         */
+        private final int x;
+        
+        /**
+         * The y coordinate of the square that the Link leads to.
+         */
+        private final int y;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Link.
+         *
+         * @param floor The index of the Floor that the Link leads to.
+         * @param x     The x coordinate of the square that the Link leads to.
+         * @param y     The y coordinate of the square that the Link leads to.
+         */
+        public Link(int floor, int x, int y) {
+            this.floor = floor;
+            this.x = x;
+            this.y = y;
+        }
+        
+        
+        //Getters
+        
+        /**
+         * Returns the index of the Floor that the Link leads to.
+         *
+         * @return The index of the Floor that the Link leads to.
+         */
+        public int getFloor() {
+            return floor;
+        }
+        
+        /**
+         * Returns the x coordinate of the square that the Link leads to.
+         *
+         * @return The x coordinate of the square that the Link leads to.
+         */
+        public int getX() {
+            return x;
+        }
+        
+        /**
+         * Returns the y coordinate of the square that the Link leads to.
+         *
+         * @return The y coordinate of the square that the Link leads to.
+         */
+        public int getY() {
+            return y;
+        }
+        
+    }
+    
+}
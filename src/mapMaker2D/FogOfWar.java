@@ -0,0 +1,281 @@
+/*
+ * File:    FogOfWar.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes the squares of a Map Layout that a token can see, and remembers the squares that have been seen during the session.<br>
+ * The sight of the token is computed with recursive symmetric shadowcasting, which only visits the squares that can be seen and the walls that bound them, so moving the token costs time proportional to what it can see rather than to the size of the map.<br>
+ * The visible and revealed squares are kept as bitsets by chunk.
+ */
+public class FogOfWar {
+    
+    //Constants
+    
+    /**
+     * The maximum distance that the token can see, in squares along each axis.
+     */
+    public static final int MAX_RADIUS = 100;
+    
+    /**
+     * The state of a square that has not been seen.
+     */
+    public static final int HIDDEN = 0;
+    
+    /**
+     * The state of a square that has been seen, but cannot be seen now.
+     */
+    public static final int REVEALED = 1;
+    
+    /**
+     * The state of a square that can be seen now.
+     */
+    public static final int VISIBLE = 2;
+    
+    /**
+     * The state of the square of the token.
+     */
+    public static final int TOKEN = 3;
+    
+    
+    //Fields
+    
+    /**
+     * The Map Layout that the token is on.
+     */
+    private final MapLayout map;
+    
+    /**
+     * The squares that have been seen during the session, as bitsets by the packed coordinates of their chunks.
+     */
+    private final Map<Long, long[]> revealed = new ConcurrentHashMap<>();
+    
+    /**
+     * The squares that can be seen now, as bitsets by the packed coordinates of their chunks.<br>
+     * The bitsets are replaced as a whole when the token moves, so they can be read while the sight of the token is computed.
+     */
+    private volatile Map<Long, long[]> visible = new HashMap<>();
+    
+    /**
+     * Whether the token has been placed.
+     */
+    private boolean hasToken = false;
+    
+    /**
+     * The x coordinate of the square of the token.
+     */
+    private int tokenX = 0;
+    
+    /**
+     * The y coordinate of the square of the token.
+     */
+    private int tokenY = 0;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Fog Of War.
+     *
+     * @param map The Map Layout that the token is on.
+     */
+    public FogOfWar(MapLayout map) {
+        this.map = map;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Moves the token to a square, and reveals the squares it can see from there.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void moveToken(int x, int y) {
+        tokenX = x;
+        tokenY = y;
+        hasToken = true;
+        refresh();
+    }
+    
+    /**
+     * Computes the squares that the token can see again, after the Map Layout is written.
+     */
+    public void refresh() {
+        if (!hasToken) {
+            return;
+        }
+        
+        Map<Long, long[]> seen = new HashMap<>();
+        reveal(seen, tokenX, tokenY);
+        for (int quadrant = 0; quadrant < 4; quadrant++) {
+            scan(seen, quadrant, 1, -1, 1, 1, 1);
+        }
+        visible = seen;
+    }
+    
+    /**
+     * Forgets the squares that have been seen during the session, except those that the token can see now.
+     */
+    public void reset() {
+        revealed.clear();
+        visible = new HashMap<>();
+        refresh();
+    }
+    
+    /**
+     * Scans a row of a quadrant of the sight of the token, and the rows after it that can be seen through it.<br>
+     * The row is bounded by a start and an end slope, as exact fractions, and a square is seen if it is a wall within the slopes or if its center is within them, so a square can be seen from another exactly when the other can be seen from it.
+     *
+     * @param seen     The squares that have been seen by the scan.
+     * @param quadrant The quadrant, as 0 for north, 1 for east, 2 for south or 3 for west.
+     * @param depth    The distance of the row from the token.
+     * @param startNum The numerator of the start slope.
+     * @param startDen The denominator of the start slope.
+     * @param endNum   The numerator of the end slope.
+     * @param endDen   The denominator of the end slope.
+     */
+    private void scan(Map<Long, long[]> seen, int quadrant, int depth, long startNum, long startDen, long endNum, long endDen) {
+        if (depth > MAX_RADIUS) {
+            return;
+        }
+        
+        int minCol = (int) Math.floorDiv(((2 * depth * startNum) + startDen), (2 * startDen));
+        int maxCol = (int) -Math.floorDiv((endDen - (2 * depth * endNum)), (2 * endDen));
+        int previous = -1;
+        for (int col = minCol; col <= maxCol; col++) {
+            int x = getX(quadrant, depth, col);
+            int y = getY(quadrant, depth, col);
+            boolean opaque = !isTransparent(Piece.getPiece(map.getPieceId(x, y)));
+            
+            if (opaque || (((col * startDen) >= (depth * startNum)) && ((col * endDen) <= (depth * endNum)))) {
+                reveal(seen, x, y);
+            }
+            if ((previous == 1) && !opaque) {
+                startNum = (2L * col) - 1;
+                startDen = 2L * depth;
+            }
+            if ((previous == 0) && opaque) {
+                scan(seen, quadrant, (depth + 1), startNum, startDen, ((2L * col) - 1), (2L * depth));
+            }
+            previous = opaque ? 1 : 0;
+        }
+        
+        if (previous == 0) {
+            scan(seen, quadrant, (depth + 1), startNum, startDen, endNum, endDen);
+        }
+    }
+    
+    /**
+     * Marks a square as seen now and as revealed.
+     *
+     * @param seen The squares that have been seen by the scan.
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     */
+    private void reveal(Map<Long, long[]> seen, int x, int y) {
+        setBit(seen, x, y);
+        setBit(revealed, x, y);
+    }
+    
+    /**
+     * Returns the x coordinate of a square of a quadrant of the sight of the token.
+     *
+     * @param quadrant The quadrant.
+     * @param depth    The distance of the row of the square from the token.
+     * @param col      The column of the square in its row.
+     * @return The x coordinate of the square.
+     */
+    private int getX(int quadrant, int depth, int col) {
+        return tokenX + (((quadrant % 2) == 0) ? col : ((quadrant == 1) ? depth : -depth));
+    }
+    
+    /**
+     * Returns the y coordinate of a square of a quadrant of the sight of the token.
+     *
+     * @param quadrant The quadrant.
+     * @param depth    The distance of the row of the square from the token.
+     * @param col      The column of the square in its row.
+     * @return The y coordinate of the square.
+     */
+    private int getY(int quadrant, int depth, int col) {
+        return tokenY + (((quadrant % 2) == 1) ? col : ((quadrant == 2) ? depth : -depth));
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the state of a square.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The state of the square, as one of HIDDEN, REVEALED, VISIBLE or TOKEN.
+     */
+    public int getState(int x, int y) {
+        if (hasToken && (x == tokenX) && (y == tokenY)) {
+            return TOKEN;
+        }
+        return getBit(visible, x, y) ? VISIBLE : (getBit(revealed, x, y) ? REVEALED : HIDDEN);
+    }
+    
+    /**
+     * Returns whether the token has been placed.
+     *
+     * @return Whether the token has been placed.
+     */
+    public boolean hasToken() {
+        return hasToken;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Determines whether a Piece can be seen through.<br>
+     * Borders, closed doors and empty squares block sight, while floor squares, doorways and windows do not.
+     *
+     * @param piece The Piece.
+     * @return Whether the Piece can be seen through.
+     */
+    public static boolean isTransparent(Piece piece) {
+        return RoomMap.isFloor(piece) ||
+                ((piece != null) && (piece.name.startsWith("Doorway") || piece.name.startsWith("Window")));
+    }
+    
+    /**
+     * Sets the bit of a square in bitsets by chunk.
+     *
+     * @param bits The bitsets by the packed coordinates of their chunks.
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     */
+    private static void setBit(Map<Long, long[]> bits, int x, int y) {
+        long key = MapLayout.getSquareChunkKey(x, y);
+        int index = MapLayout.getChunkIndex(x, y);
+        bits.computeIfAbsent(key, k -> new long[MapLayout.CHUNK_AREA / 64])[index >> 6] |= 1L << index;
+    }
+    
+    /**
+     * Returns the bit of a square in bitsets by chunk.
+     *
+     * @param bits The bitsets by the packed coordinates of their chunks.
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @return Whether the bit of the square is set.
+     */
+    private static boolean getBit(Map<Long, long[]> bits, int x, int y) {
+        long[] chunk = bits.get(MapLayout.getSquareChunkKey(x, y));
+        int index = MapLayout.getChunkIndex(x, y);
+        return (chunk != null) && ((chunk[index >> 6] & (1L << index)) != 0);
+    }
+    
+}
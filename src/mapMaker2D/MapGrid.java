@@ -0,0 +1,843 @@
+/*
+ * File:    MapGrid.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntBinaryOperator;
+
+import graphy.camera.Camera;
+import graphy.main.Environment;
+import graphy.math.vector.Vector;
+import graphy.objects.base.BaseObject;
+import graphy.objects.base.InstancedObject;
+import graphy.rendering.QualityGovernor;
+import graphy.rendering.Rasterizer;
+
+/**
+ * Defines the unbounded grid of squares of a map, rendered as instances of a single square.<br>
+ * The squares are added a chunk at a time, only once a square of the chunk is written or the chunk comes into view, so the grid grows in any direction as it is used.<br>
+ * Chunks whose squares are all blank are evicted once they are well out of view, and their instances are reused for the next chunk that is added, so the number of instances is proportional to the area of the map that is used or in view.
+ */
+public class MapGrid extends InstancedObject {
+    
+    //Constants
+    
+    /**
+     * The number of squares along each side of a chunk of the Map Grid, whose rendering is cached in a single raster.
+     */
+    public static final int CHUNK_SIZE = 16;
+    
+    /**
+     * The number of chunks around the view to add to the Map Grid ahead of them coming into view.
+     */
+    public static final int CHUNK_MARGIN = 1;
+    
+    /**
+     * The maximum number of chunks in view to add to the Map Grid, beyond which the view is zoomed too far out for the squares to be distinguishable.
+     */
+    public static final int MAX_VISIBLE_CHUNKS = 1024;
+    
+    /**
+     * The number of chunks around the view beyond which blank chunks are evicted from the Map Grid.<br>
+     * This is wider than the chunk margin, so chunks at the edge of the view are not added and evicted repeatedly as the view moves back and forth.
+     */
+    public static final int CHUNK_EVICTION_MARGIN = 4;
+    
+    /**
+     * The color of the fog over the squares that have been seen, but cannot be seen now.
+     */
+    public static final Color REVEALED_FOG_COLOR = new Color(0, 0, 0, 160);
+    
+    /**
+     * The color of the token that the fog is seen from.
+     */
+    public static final Color TOKEN_COLOR = new Color(255, 140, 0);
+    
+    /**
+     * The color of the outline of the squares that have warnings.
+     */
+    public static final Color WARNING_COLOR = new Color(230, 90, 0);
+    
+    
+    //Fields
+    
+    /**
+     * The x coordinate of the square of the map at the center of the Map Grid.
+     */
+    protected final int centerX;
+    
+    /**
+     * The y coordinate of the square of the map at the center of the Map Grid.
+     */
+    protected final int centerY;
+    
+    /**
+     * The side length of the squares of the Map Grid.
+     */
+    protected final double side;
+    
+    /**
+     * The chunks that are in the Map Grid, by their packed chunk coordinates, mapped to the slot of instances they are in.
+     */
+    private final Map<Long, Integer> chunks = new HashMap<>();
+    
+    /**
+     * The x coordinates of the chunks in the slots of instances of the Map Grid.
+     */
+    private int[] chunkX = new int[0];
+    
+    /**
+     * The y coordinates of the chunks in the slots of instances of the Map Grid.
+     */
+    private int[] chunkY = new int[0];
+    
+    /**
+     * The slots of instances of the Map Grid whose chunks have been evicted, to be reused for the next chunks that are added.
+     */
+    private final Deque<Integer> freeChunks = new ArrayDeque<>();
+    
+    /**
+     * The range of chunks that were last in view, as {firstX, firstY, lastX, lastY}, or null if none have been in view.
+     */
+    private int[] viewChunks = null;
+    
+    /**
+     * The labels to print on the squares of the Map Grid.
+     */
+    protected final Map<Integer, String> labels = new ConcurrentHashMap<>();
+    
+    /**
+     * The notes of the squares of the Map Grid.
+     */
+    protected final Map<Integer, String> notes = new ConcurrentHashMap<>();
+    
+    /**
+     * The squares of the Map Grid that have a label or a note.
+     */
+    protected final BitSet annotated = new BitSet();
+    
+    /**
+     * The overlay of numbers to print on the squares of the Map Grid, from the coordinates of the squares in the map to a number, or a negative number to print nothing, or null if there is no overlay.
+     */
+    private volatile IntBinaryOperator overlay = null;
+    
+    /**
+     * The fog over the squares of the Map Grid, from the coordinates of the squares in the map to their state in the Fog Of War, or null if there is no fog.
+     */
+    private volatile IntBinaryOperator fog = null;
+    
+    /**
+     * The squares of the Map Grid that have warnings, by the packed coordinates of their squares in the map, or null if the warnings are not shown.
+     */
+    private volatile Set<Long> warnings = null;
+    
+    /**
+     * The visitor that loads each square of a chunk from the map when the chunk is added, or null if chunks are added blank.
+     */
+    private volatile MapLayout.SquareVisitor squareLoader = null;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Map Grid.
+     *
+     * @param color   The color of the squares of the Map Grid.
+     * @param centerX The x coordinate of the square of the map at the center of the Map Grid.
+     * @param centerY The y coordinate of the square of the map at the center of the Map Grid.
+     * @param side    The side length of the squares of the Map Grid.
+     */
+    public MapGrid(Color color, int centerX, int centerY, double side) {
+        super(color, new Vector(0, 0, 0), new Vector(side, 0, 0), new Vector(side, side, 0), new Vector(0, side, 0));
+        this.centerX = centerX;
+        this.centerY = centerY;
+        this.side = side;
+        
+        setRasterBlockSize(CHUNK_SIZE * CHUNK_SIZE);
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Prepares the Map Grid to be rendered, adding the chunks that are in view, or about to come into view, first.
+     *
+     * @return The list of BaseObjects that were prepared.
+     */
+    @Override
+    public List<BaseObject> prepare() {
+        List<BaseObject> preparedBases = super.prepare();
+        addVisibleChunks();
+        return preparedBases;
+    }
+    
+    /**
+     * Adds the chunks of the Map Grid that are in view of the active Camera view, and those within the chunk margin around them.<br>
+     * The view is inverted from the orthographic transformation of the Camera, so without one only the chunks that have been written are in the Map Grid.
+     */
+    private void addVisibleChunks() {
+        double[] view = Camera.getActiveOrthographicTransform();
+        double[] squares = (view == null) ? null : calculateVisibleSquares(view);
+        if (squares == null) {
+            return;
+        }
+        
+        int firstChunkX = (int) Math.floor(squares[0] / CHUNK_SIZE) - CHUNK_MARGIN;
+        int firstChunkY = (int) Math.floor(squares[1] / CHUNK_SIZE) - CHUNK_MARGIN;
+        int lastChunkX = (int) Math.floor(squares[2] / CHUNK_SIZE) + CHUNK_MARGIN;
+        int lastChunkY = (int) Math.floor(squares[3] / CHUNK_SIZE) + CHUNK_MARGIN;
+        if (((long) (lastChunkX - firstChunkX + 1) * (lastChunkY - firstChunkY + 1)) > MAX_VISIBLE_CHUNKS) {
+            return;
+        }
+        
+        for (int x = firstChunkX; x <= lastChunkX; x++) {
+            for (int y = firstChunkY; y <= lastChunkY; y++) {
+                addChunk(x, y);
+            }
+        }
+        
+        int[] range = {firstChunkX, firstChunkY, lastChunkX, lastChunkY};
+        if (!Arrays.equals(range, viewChunks)) {
+            viewChunks = range;
+            int margin = CHUNK_EVICTION_MARGIN - CHUNK_MARGIN;
+            evictChunks((firstChunkX - margin), (firstChunkY - margin), (lastChunkX + margin), (lastChunkY + margin));
+        }
+    }
+    
+    /**
+     * Evicts the blank chunks of the Map Grid outside a range of chunks, hiding their instances and freeing their slot to be reused.
+     *
+     * @param firstX The x coordinate of the first chunk of the range.
+     * @param firstY The y coordinate of the first chunk of the range.
+     * @param lastX  The x coordinate of the last chunk of the range.
+     * @param lastY  The y coordinate of the last chunk of the range.
+     */
+    private synchronized void evictChunks(int firstX, int firstY, int lastX, int lastY) {
+        Iterator<Map.Entry<Long, Integer>> iterator = chunks.entrySet().iterator();
+        while (iterator.hasNext()) {
+            int chunk = iterator.next().getValue();
+            if ((chunkX[chunk] >= firstX) && (chunkX[chunk] <= lastX) && (chunkY[chunk] >= firstY) && (chunkY[chunk] <= lastY)) {
+                continue;
+            }
+            
+            if (isChunkBlank(chunk)) {
+                iterator.remove();
+                freeChunks.add(chunk);
+                setRasterBlockHidden(chunk, true);
+            }
+        }
+    }
+    
+    /**
+     * Determines whether the squares of a chunk of the Map Grid are all blank, with the color of the Map Grid, and no image, label or note.
+     *
+     * @param chunk The slot of instances of the chunk.
+     * @return Whether the squares of the chunk are all blank or not.
+     */
+    private boolean isChunkBlank(int chunk) {
+        int blank = color.getRGB();
+        int first = chunk * CHUNK_SIZE * CHUNK_SIZE;
+        for (int square = first; square < (first + (CHUNK_SIZE * CHUNK_SIZE)); square++) {
+            if ((colors[square] != blank) || (images[square] >= 0) || annotated.get(square)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Calculates the region of map coordinates in view, by inverting the screen projection of the square offsets through an orthographic transformation.
+     *
+     * @param view The orthographic transformation of the view.
+     * @return The region of map coordinates in view, as {minX, minY, maxX, maxY}, or null if the view cannot be inverted.
+     */
+    private double[] calculateVisibleSquares(double[] view) {
+        if (prepared.isEmpty()) {
+            return null;
+        }
+        
+        Vector origin = prepared.get(0);
+        double[] b = preparedBasis;
+        double a = (view[0] * b[0]) + (view[1] * b[1]);
+        double c = (view[0] * b[3]) + (view[1] * b[4]);
+        double e = (view[0] * origin.getX()) + (view[1] * origin.getY()) + view[2];
+        double d = (view[3] * b[0]) + (view[4] * b[1]);
+        double f = (view[3] * b[3]) + (view[4] * b[4]);
+        double g = (view[3] * origin.getX()) + (view[4] * origin.getY()) + view[5];
+        double determinant = (a * f) - (c * d);
+        if (Math.abs(determinant) < 1e-12) {
+            return null;
+        }
+        
+        double[] squares = {Double.MAX_VALUE, Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int corner = 0; corner < 4; corner++) {
+            double sx = (((corner & 1) == 0) ? 0 : Environment.sceneX) - e;
+            double sy = (((corner & 2) == 0) ? 0 : Environment.sceneY) - g;
+            double mapX = (((f * sx) - (c * sy)) / determinant) / side + centerX;
+            double mapY = (((a * sy) - (d * sx)) / determinant) / side + centerY;
+            squares[0] = Math.min(squares[0], mapX);
+            squares[1] = Math.min(squares[1], mapY);
+            squares[2] = Math.max(squares[2], mapX);
+            squares[3] = Math.max(squares[3], mapY);
+        }
+        return squares;
+    }
+    
+    /**
+     * Adds a chunk of squares to the Map Grid, if it has not been added already, and loads its squares from the map.<br>
+     * The squares of a chunk are consecutive instances, so each chunk is a raster block, and the slot of an evicted chunk is reused before new instances are added.
+     *
+     * @param x The x coordinate of the chunk.
+     * @param y The y coordinate of the chunk.
+     * @return The slot of instances of the chunk.
+     */
+    private synchronized int addChunk(int x, int y) {
+        long key = MapLayout.getChunkKey(x, y);
+        Integer chunk = chunks.get(key);
+        if (chunk != null) {
+            return chunk;
+        }
+        
+        chunk = freeChunks.poll();
+        boolean reused = (chunk != null);
+        if (!reused) {
+            chunk = getInstanceCount() / (CHUNK_SIZE * CHUNK_SIZE);
+            if (chunk == chunkX.length) {
+                chunkX = Arrays.copyOf(chunkX, Math.max(16, chunk * 2));
+                chunkY = Arrays.copyOf(chunkY, chunkX.length);
+            }
+        }
+        chunkX[chunk] = x;
+        chunkY[chunk] = y;
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            for (int j = 0; j < CHUNK_SIZE; j++) {
+                int mapX = (x * CHUNK_SIZE) + i;
+                int mapY = (y * CHUNK_SIZE) + j;
+                if (reused) {
+                    setInstanceOffset((chunk * CHUNK_SIZE * CHUNK_SIZE) + (i * CHUNK_SIZE) + j, (mapX - centerX) * side, (mapY - centerY) * side, 0);
+                } else {
+                    addInstance((mapX - centerX) * side, (mapY - centerY) * side, 0);
+                }
+            }
+        }
+        if (reused) {
+            setRasterBlockHidden(chunk, false);
+        }
+        chunks.put(key, chunk);
+        
+        MapLayout.SquareVisitor loader = squareLoader;
+        if (loader != null) {
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                for (int j = 0; j < CHUNK_SIZE; j++) {
+                    loader.visit((x * CHUNK_SIZE) + i, (y * CHUNK_SIZE) + j);
+                }
+            }
+        }
+        return chunk;
+    }
+    
+    /**
+     * Renders the Map Grid on the screen.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    @Override
+    public void render(Graphics2D g2) {
+        super.render(g2);
+        if (QualityGovernor.getQuality() == QualityGovernor.Quality.MINIMAL) {
+            return;
+        }
+        
+        int n = vertices.length;
+        for (int j = 0; j < preparedCount; j++) {
+            int square = preparedInstances[j];
+            if (annotated.get(square) && hasNote(square)) {
+                int[] note = calculateNoteBounds(preparedX, preparedY, j * n);
+                g2.setColor(Color.RED);
+                g2.fillRect(note[0], note[1], note[2], note[3]);
+            }
+        }
+    }
+    
+    /**
+     * Renders the Map Grid on the screen with the software Rasterizer.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void render(Rasterizer rasterizer) {
+        super.render(rasterizer);
+        if (QualityGovernor.getQuality() == QualityGovernor.Quality.MINIMAL) {
+            return;
+        }
+        
+        int n = vertices.length;
+        for (int j : getPreparedInstancesInClip(rasterizer)) {
+            int square = preparedInstances[j];
+            if (annotated.get(square) && hasNote(square)) {
+                int[] note = calculateNoteBounds(preparedX, preparedY, j * n);
+                float depth = preparedInstanceDepthsRecorded ? preparedInstanceDepths[j * n] : Float.NaN;
+                rasterizer.fillRect(note[0], note[1], note[2], note[3], depth, Color.RED);
+            }
+        }
+    }
+    
+    /**
+     * Draws the frame of each square of the Map Grid, and then the labels of the squares and the fog on top of the frames.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    @Override
+    public void renderFrame(Graphics2D g2) {
+        super.renderFrame(g2);
+        renderLabels(g2);
+        renderFog(g2);
+    }
+    
+    /**
+     * Draws the frame of each square of the Map Grid with the software Rasterizer, and then the labels of the squares and the fog on top of the frames.<br>
+     * The labels and the fog are drawn with the Graphics entity of the back buffer, and are never part of the cached rasters of the chunks.
+     *
+     * @param rasterizer The software Rasterizer.
+     */
+    @Override
+    public void renderFrame(Rasterizer rasterizer) {
+        super.renderFrame(rasterizer);
+        if (rasterizer.getPaintOverride() == null) {
+            renderLabels(rasterizer.getGraphics());
+            renderFog(rasterizer.getGraphics());
+        }
+    }
+    
+    /**
+     * Draws the labels, the overlay and the warnings of the projected squares of the Map Grid.<br>
+     * Labels, the overlay and the warnings are only drawn at full render quality.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    private void renderLabels(Graphics2D g2) {
+        if (!QualityGovernor.isFullQuality()) {
+            return;
+        }
+        
+        int n = vertices.length;
+        int[] squares = getPreparedInstancesInClip(g2);
+        for (int j : squares) {
+            int square = preparedInstances[j];
+            if (annotated.get(square) && hasLabel(square)) {
+                int[] label = calculateLabelPosition(preparedX, preparedY, j * n);
+                g2.setColor(Color.DARK_GRAY);
+                g2.setFont(new Font("Consolas", Font.ITALIC, 20));
+                g2.drawString(labels.get(square), label[0], label[1]);
+            }
+        }
+        
+        final IntBinaryOperator squareOverlay = overlay;
+        if (squareOverlay != null) {
+            g2.setColor(Color.BLUE);
+            g2.setFont(new Font("Consolas", Font.BOLD, 14));
+            for (int j : squares) {
+                int square = preparedInstances[j];
+                int value = squareOverlay.applyAsInt(getMapX(square), getMapY(square));
+                if (value >= 0) {
+                    int[] position = calculateOverlayPosition(preparedX, preparedY, j * n);
+                    g2.drawString(String.valueOf(value), position[0], position[1]);
+                }
+            }
+        }
+        
+        final Set<Long> squareWarnings = warnings;
+        if ((squareWarnings != null) && !squareWarnings.isEmpty()) {
+            g2.setColor(WARNING_COLOR);
+            for (int j : squares) {
+                int square = preparedInstances[j];
+                if (squareWarnings.contains(MapLayout.getSquareKey(getMapX(square), getMapY(square)))) {
+                    int p = j * n;
+                    int x = Math.min(preparedX[p], preparedX[p + 1]);
+                    int y = Math.min(preparedY[p + 1], preparedY[p + 2]);
+                    g2.drawRect((x + 1), (y + 1), (Math.abs(preparedX[p + 1] - preparedX[p]) - 2), (Math.abs(preparedY[p + 2] - preparedY[p + 1]) - 2));
+                    g2.drawRect((x + 2), (y + 2), (Math.abs(preparedX[p + 1] - preparedX[p]) - 4), (Math.abs(preparedY[p + 2] - preparedY[p + 1]) - 4));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Draws the fog over the projected squares of the Map Grid, and the token that it is seen from.<br>
+     * The fog is drawn at every render quality, so the squares that are hidden are never shown.
+     *
+     * @param g2 The 2D Graphics entity.
+     */
+    private void renderFog(Graphics2D g2) {
+        final IntBinaryOperator squareFog = fog;
+        if (squareFog == null) {
+            return;
+        }
+        
+        int n = vertices.length;
+        for (int j : getPreparedInstancesInClip(g2)) {
+            int square = preparedInstances[j];
+            int state = squareFog.applyAsInt(getMapX(square), getMapY(square));
+            if (state == FogOfWar.VISIBLE) {
+                continue;
+            }
+            
+            int p = j * n;
+            int x = Math.min(preparedX[p], preparedX[p + 1]);
+            int y = Math.min(preparedY[p + 1], preparedY[p + 2]);
+            int width = Math.abs(preparedX[p + 1] - preparedX[p]) + 1;
+            int height = Math.abs(preparedY[p + 2] - preparedY[p + 1]) + 1;
+            if (state == FogOfWar.TOKEN) {
+                g2.setColor(TOKEN_COLOR);
+                g2.fillOval((x + (width / 4)), (y + (height / 4)), (width / 2), (height / 2));
+            } else {
+                g2.setColor((state == FogOfWar.REVEALED) ? REVEALED_FOG_COLOR : Color.BLACK);
+                g2.fillRect(x, y, width, height);
+            }
+        }
+    }
+    
+    /**
+     * Calculates the screen bounds of the note marker of a projected square.
+     *
+     * @param xs The screen x coordinates.
+     * @param ys The screen y coordinates.
+     * @param p  The index of the first screen coordinate of the square.
+     * @return The screen bounds of the note marker, as {x, y, width, height}.
+     */
+    private static int[] calculateNoteBounds(int[] xs, int[] ys, int p) {
+        return new int[] {
+                (int) (xs[p] + ((xs[p + 1] - xs[p]) * 0.75)),
+                (int) (ys[p + 1] + ((ys[p + 2] - ys[p + 1]) * 0.15)),
+                (int) ((xs[p + 1] - xs[p]) * 0.15),
+                (int) ((ys[p + 2] - ys[p + 1]) * 0.15)};
+    }
+    
+    /**
+     * Calculates the screen position of the label of a projected square.
+     *
+     * @param xs The screen x coordinates.
+     * @param ys The screen y coordinates.
+     * @param p  The index of the first screen coordinate of the square.
+     * @return The screen position of the label, as {x, y}.
+     */
+    private static int[] calculateLabelPosition(int[] xs, int[] ys, int p) {
+        return new int[] {
+                (int) (xs[p] + ((xs[p + 1] - xs[p]) * 0.5) - 7),
+                (int) (ys[p + 1] + ((ys[p + 2] - ys[p + 1]) * 0.5)) + 10};
+    }
+    
+    /**
+     * Calculates the screen position of the overlay of a projected square.
+     *
+     * @param xs The screen x coordinates.
+     * @param ys The screen y coordinates.
+     * @param p  The index of the first screen coordinate of the square.
+     * @return The screen position of the overlay, as {x, y}.
+     */
+    private static int[] calculateOverlayPosition(int[] xs, int[] ys, int p) {
+        return new int[] {
+                (int) (xs[p] + ((xs[p + 1] - xs[p]) * 0.08)),
+                (int) (ys[p + 2] - ((ys[p + 2] - ys[p + 1]) * 0.08))};
+    }
+    
+    /**
+     * Grows screen bounds to include the label of a projected square, if it has one.
+     *
+     * @param bounds The screen bounds, as {minX, minY, maxX, maxY}.
+     * @param square The index of the square.
+     * @param xs     The screen x coordinates.
+     * @param ys     The screen y coordinates.
+     * @param p      The index of the first screen coordinate of the square.
+     */
+    private void includeLabel(int[] bounds, int square, int[] xs, int[] ys, int p) {
+        String text = labels.get(square);
+        if ((text == null) || text.isEmpty()) {
+            return;
+        }
+        
+        int[] label = calculateLabelPosition(xs, ys, p);
+        bounds[0] = Math.min(bounds[0], label[0] - 4);
+        bounds[1] = Math.min(bounds[1], label[1] - 24);
+        bounds[2] = Math.max(bounds[2], label[0] + (text.length() * 16) + 4);
+        bounds[3] = Math.max(bounds[3], label[1] + 8);
+    }
+    
+    /**
+     * Grows screen bounds to include the overlay number of a projected square, if it has one.
+     *
+     * @param bounds The screen bounds, as {minX, minY, maxX, maxY}.
+     * @param square The index of the square.
+     * @param xs     The screen x coordinates.
+     * @param ys     The screen y coordinates.
+     * @param p      The index of the first screen coordinate of the square.
+     */
+    private void includeOverlay(int[] bounds, int square, int[] xs, int[] ys, int p) {
+        final IntBinaryOperator squareOverlay = overlay;
+        int value = (squareOverlay == null) ? -1 : squareOverlay.applyAsInt(getMapX(square), getMapY(square));
+        if (value < 0) {
+            return;
+        }
+        
+        int[] position = calculateOverlayPosition(xs, ys, p);
+        bounds[0] = Math.min(bounds[0], position[0] - 4);
+        bounds[1] = Math.min(bounds[1], position[1] - 18);
+        bounds[2] = Math.max(bounds[2], position[0] + (String.valueOf(value).length() * 11) + 4);
+        bounds[3] = Math.max(bounds[3], position[1] + 6);
+    }
+    
+    /**
+     * Picks the square at a point on the screen.
+     *
+     * @param x The x coordinate on the screen.
+     * @param y The y coordinate on the screen.
+     * @return The index of the square at the point, or -1 if there is none.
+     */
+    public int pickSquare(int x, int y) {
+        return pickInstance(x, y);
+    }
+    
+    /**
+     * Returns whether a square of the Map Grid has a label.
+     *
+     * @param square The index of the square.
+     * @return Whether the square has a label.
+     */
+    public boolean hasLabel(int square) {
+        String label = labels.get(square);
+        return (label != null) && !label.isEmpty();
+    }
+    
+    /**
+     * Returns whether a square of the Map Grid has a note.
+     *
+     * @param square The index of the square.
+     * @return Whether the square has a note.
+     */
+    public boolean hasNote(int square) {
+        String note = notes.get(square);
+        return (note != null) && !note.isEmpty();
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the screen bounds of the projected Map Grid, including its labels.
+     *
+     * @return The screen bounds of the projected Map Grid, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    @Override
+    public int[] getPreparedBounds() {
+        int[] bounds = super.getPreparedBounds();
+        
+        int n = vertices.length;
+        for (int j = 0; j < preparedCount; j++) {
+            int square = preparedInstances[j];
+            if (annotated.get(square)) {
+                includeLabel(bounds, square, preparedX, preparedY, j * n);
+            }
+        }
+        return bounds;
+    }
+    
+    /**
+     * Calculates the screen bounds of a square of the Map Grid from its screen coordinates, including its label and its overlay number.
+     *
+     * @param square The index of the square.
+     * @param xs     The screen x coordinates.
+     * @param ys     The screen y coordinates.
+     * @param p      The index of the first screen coordinate of the square.
+     * @return The screen bounds of the square, as {minX, minY, maxX, maxY}, padded by a pixel, with the maximums exclusive.
+     */
+    @Override
+    protected int[] calculateInstanceBounds(int square, int[] xs, int[] ys, int p) {
+        int[] bounds = super.calculateInstanceBounds(square, xs, ys, p);
+        if (annotated.get(square)) {
+            includeLabel(bounds, square, xs, ys, p);
+        }
+        includeOverlay(bounds, square, xs, ys, p);
+        return bounds;
+    }
+    
+    /**
+     * Returns the index of a square of the Map Grid, adding the chunk containing it if it has not been added.
+     *
+     * @param x The x coordinate of the square in the map.
+     * @param y The y coordinate of the square in the map.
+     * @return The index of the square.
+     */
+    public int getSquare(int x, int y) {
+        int chunk = addChunk(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE));
+        return (chunk * CHUNK_SIZE * CHUNK_SIZE) + MapLayout.getChunkIndex(x, y);
+    }
+    
+    /**
+     * Determines whether the chunk containing a square has been added to the Map Grid.
+     *
+     * @param x The x coordinate of the square in the map.
+     * @param y The y coordinate of the square in the map.
+     * @return Whether the chunk containing the square has been added.
+     */
+    public synchronized boolean isSquareLoaded(int x, int y) {
+        return chunks.containsKey(MapLayout.getSquareChunkKey(x, y));
+    }
+    
+    /**
+     * Returns the x coordinate of a square in the map.
+     *
+     * @param square The index of the square.
+     * @return The x coordinate of the square in the map.
+     */
+    public int getMapX(int square) {
+        int chunk = square / (CHUNK_SIZE * CHUNK_SIZE);
+        return (chunkX[chunk] * CHUNK_SIZE) + ((square % (CHUNK_SIZE * CHUNK_SIZE)) / CHUNK_SIZE);
+    }
+    
+    /**
+     * Returns the y coordinate of a square in the map.
+     *
+     * @param square The index of the square.
+     * @return The y coordinate of the square in the map.
+     */
+    public int getMapY(int square) {
+        int chunk = square / (CHUNK_SIZE * CHUNK_SIZE);
+        return (chunkY[chunk] * CHUNK_SIZE) + (square % CHUNK_SIZE);
+    }
+    
+    /**
+     * Returns the number of chunks in the Map Grid.
+     *
+     * @return The number of chunks in the Map Grid.
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+    
+    /**
+     * Returns the label to print on a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @return The label to print on the square.
+     */
+    public String getLabel(int square) {
+        return labels.get(square);
+    }
+    
+    /**
+     * Returns the note of a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @return The note of the square.
+     */
+    public String getNote(int square) {
+        return notes.get(square);
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the color of a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @param color  The color.
+     */
+    public void setColor(int square, Color color) {
+        setInstanceColor(square, color);
+    }
+    
+    /**
+     * Sets the image to print on a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @param image  The image.
+     */
+    public void setImage(int square, BufferedImage image) {
+        setInstanceImage(square, image);
+    }
+    
+    /**
+     * Sets the label to print on a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @param label  The label.
+     */
+    public void setLabel(int square, String label) {
+        if (label == null) {
+            labels.remove(square);
+        } else {
+            labels.put(square, label);
+        }
+        annotated.set(square, labels.containsKey(square) || notes.containsKey(square));
+    }
+    
+    /**
+     * Sets the note of a square of the Map Grid.
+     *
+     * @param square The index of the square.
+     * @param note   The note.
+     */
+    public void setNote(int square, String note) {
+        if (note == null) {
+            notes.remove(square);
+        } else {
+            notes.put(square, note);
+        }
+        annotated.set(square, labels.containsKey(square) || notes.containsKey(square));
+    }
+    
+    /**
+     * Sets the overlay of numbers to print on the squares of the Map Grid.
+     *
+     * @param overlay The overlay, from the coordinates of the squares in the map to a number, or a negative number to print nothing, or null to remove the overlay.
+     */
+    public void setOverlay(IntBinaryOperator overlay) {
+        this.overlay = overlay;
+    }
+    
+    /**
+     * Sets the fog over the squares of the Map Grid.
+     *
+     * @param fog The fog, from the coordinates of the squares in the map to their state in the Fog Of War, or null to remove the fog.
+     */
+    public void setFog(IntBinaryOperator fog) {
+        this.fog = fog;
+    }
+    
+    /**
+     * Sets the squares of the Map Grid that have warnings.
+     *
+     * @param warnings The squares that have warnings, by the packed coordinates of their squares in the map, or null to hide the warnings.
+     */
+    public void setWarnings(Set<Long> warnings) {
+        this.warnings = warnings;
+    }
+    
+    /**
+     * Sets the visitor that loads each square of a chunk from the map when the chunk is added, such as when it comes into view.
+     *
+     * @param squareLoader The visitor that loads a square from the map, or null to add chunks blank.
+     */
+    public void setSquareLoader(MapLayout.SquareVisitor squareLoader) {
+        this.squareLoader = squareLoader;
+    }
+    
+}
@@ -0,0 +1,1062 @@
+/*
+ * File:    MapLayout.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Defines the layout of a map, as the Pieces, labels and notes of its squares.<br>
+ * The layout is stored in chunks of squares that are only allocated when a square in them is first written, and are freed again once they are empty, so memory is proportional to the area of the map that is used.<br>
+ * Each square stores the id of its interned Piece and the packed offset of its sub Piece within that Piece as primitives, so a square with a Piece costs four bytes.<br>
+ * The extent of the map, the squares with a Piece or a label, is counted per column and per row in sorted maps, so its bounds are kept in logarithmic time as squares are written.<br>
+ * Rectangular regions are filled, erased, copied and pasted a run of squares at a time, where a run is the part of a column of the region within one chunk, which is contiguous in the layers of the chunk.<br>
+ * Each placement of a Piece is indexed by its anchor, the square of its first sub Piece, and its extent, the size of the Piece, which are found from any of its squares by their packed offset. Each chunk also keeps a bitmask of the squares of each of its columns that have a Piece, so whether a region is occupied is tested a run at a time.
+ */
+public class MapLayout {
+    
+    //Constants
+    
+    /**
+     * The number of squares along each side of a chunk of the Map Layout, the same as the chunks of the Map Grid.
+     */
+    public static final int CHUNK_SIZE = MapGrid.CHUNK_SIZE;
+    
+    /**
+     * The number of squares in a chunk of the Map Layout.
+     */
+    public static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE;
+    
+    /**
+     * The multiplier that mixes the x coordinate of a square into the low half of its key.
+     */
+    private static final int SQUARE_KEY_MIX = 0x9E3779B9;
+    
+    
+    //Fields
+    
+    /**
+     * The allocated chunks of the Map Layout, by their packed chunk coordinates.
+     */
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    
+    /**
+     * The number of squares in the extent of the map in each column that has any, by the x coordinate of the column.
+     */
+    private final TreeMap<Integer, Integer> extentColumns = new TreeMap<>();
+    
+    /**
+     * The number of squares in the extent of the map in each row that has any, by the y coordinate of the row.
+     */
+    private final TreeMap<Integer, Integer> extentRows = new TreeMap<>();
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Map Layout.
+     */
+    public MapLayout() {
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Visits each used square of the Map Layout, chunk by chunk.
+     *
+     * @param visitor The visitor to call with the coordinates of each used square.
+     */
+    public void forEachSquare(SquareVisitor visitor) {
+        List<Long> keys = new ArrayList<>(chunks.keySet());
+        keys.sort(null);
+        for (long key : keys) {
+            Chunk chunk = chunks.get(key);
+            int firstX = getChunkX(key) * CHUNK_SIZE;
+            int firstY = getChunkY(key) * CHUNK_SIZE;
+            for (int i = 0; i < CHUNK_AREA; i++) {
+                if (chunk.isUsed(i)) {
+                    visitor.visit(firstX + (i / CHUNK_SIZE), firstY + (i % CHUNK_SIZE));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Removes everything from the Map Layout.
+     */
+    public void clear() {
+        chunks.clear();
+        extentColumns.clear();
+        extentRows.clear();
+    }
+    
+    /**
+     * Fills a region of the Map Layout with a sub Piece, leaving the labels and notes of its squares.
+     *
+     * @param minX   The minimum x coordinate of the region.
+     * @param minY   The minimum y coordinate of the region.
+     * @param maxX   The maximum x coordinate of the region.
+     * @param maxY   The maximum y coordinate of the region.
+     * @param id     The id of the Piece, or 0 to remove the Pieces.
+     * @param offset The packed offset of the sub Piece within the Piece.
+     */
+    public void fill(int minX, int minY, int maxX, int maxY, short id, short offset) {
+        final short pieceOffset = (id == 0) ? 0 : offset;
+        writeRuns(minX, minY, maxX, maxY, (id != 0), (chunk, i, x, y, length) -> {
+            if (chunk.pieceIds == null) {
+                if (id == 0) {
+                    return;
+                }
+                chunk.allocatePieces();
+            }
+            Arrays.fill(chunk.pieceIds, i, i + length, id);
+            Arrays.fill(chunk.pieceOffsets, i, i + length, pieceOffset);
+        });
+    }
+    
+    /**
+     * Erases the Pieces, labels and notes of a region of the Map Layout.
+     *
+     * @param minX The minimum x coordinate of the region.
+     * @param minY The minimum y coordinate of the region.
+     * @param maxX The maximum x coordinate of the region.
+     * @param maxY The maximum y coordinate of the region.
+     */
+    public void erase(int minX, int minY, int maxX, int maxY) {
+        writeRuns(minX, minY, maxX, maxY, false, (chunk, i, x, y, length) -> {
+            if (chunk.pieceIds != null) {
+                Arrays.fill(chunk.pieceIds, i, i + length, (short) 0);
+                Arrays.fill(chunk.pieceOffsets, i, i + length, (short) 0);
+            }
+            if (chunk.labels != null) {
+                Arrays.fill(chunk.labels, i, i + length, null);
+            }
+            if (chunk.notes != null) {
+                Arrays.fill(chunk.notes, i, i + length, null);
+            }
+        });
+    }
+    
+    /**
+     * Copies a region of the Map Layout.<br>
+     * Pieces that are only partly within the region are left out of the copy.
+     *
+     * @param minX The minimum x coordinate of the region.
+     * @param minY The minimum y coordinate of the region.
+     * @param maxX The maximum x coordinate of the region.
+     * @param maxY The maximum y coordinate of the region.
+     * @return The copy of the region.
+     */
+    public Region copy(int minX, int minY, int maxX, int maxY) {
+        final Region region = new Region((maxX - minX + 1), (maxY - minY + 1));
+        forEachRun(minX, minY, maxX, maxY, false, (chunk, i, x, y, length) -> {
+            int r = region.getIndex((x - minX), (y - minY));
+            if (chunk.pieceIds != null) {
+                System.arraycopy(chunk.pieceIds, i, region.pieceIds, r, length);
+                System.arraycopy(chunk.pieceOffsets, i, region.pieceOffsets, r, length);
+            }
+            if (chunk.labels != null) {
+                if (region.labels == null) {
+                    region.labels = new String[region.pieceIds.length];
+                }
+                System.arraycopy(chunk.labels, i, region.labels, r, length);
+            }
+            if (chunk.notes != null) {
+                if (region.notes == null) {
+                    region.notes = new String[region.pieceIds.length];
+                }
+                System.arraycopy(chunk.notes, i, region.notes, r, length);
+            }
+        });
+        
+        for (int x = 0; x < region.width; x++) {
+            for (int y = 0; y < region.height; y++) {
+                int r = region.getIndex(x, y);
+                Piece piece = Piece.getPiece(region.pieceIds[r]);
+                if (piece == null) {
+                    continue;
+                }
+                int originX = x - unpackOffsetX(region.pieceOffsets[r]);
+                int originY = y - unpackOffsetY(region.pieceOffsets[r]);
+                if ((originX < 0) || (originY < 0) || ((originX + piece.sizeX) > region.width) || ((originY + piece.sizeY) > region.height)) {
+                    region.pieceIds[r] = 0;
+                    region.pieceOffsets[r] = 0;
+                }
+            }
+        }
+        return region;
+    }
+    
+    /**
+     * Pastes a copied region into the Map Layout, replacing the Pieces, labels and notes of the squares it covers.
+     *
+     * @param region The copied region.
+     * @param minX   The minimum x coordinate to paste the region at.
+     * @param minY   The minimum y coordinate to paste the region at.
+     */
+    public void paste(Region region, int minX, int minY) {
+        writeRuns(minX, minY, (minX + region.width - 1), (minY + region.height - 1), true, (chunk, i, x, y, length) -> {
+            int r = region.getIndex((x - minX), (y - minY));
+            if (chunk.pieceIds == null) {
+                chunk.allocatePieces();
+            }
+            System.arraycopy(region.pieceIds, r, chunk.pieceIds, i, length);
+            System.arraycopy(region.pieceOffsets, r, chunk.pieceOffsets, i, length);
+            if (region.labels != null) {
+                if (chunk.labels == null) {
+                    chunk.labels = new String[CHUNK_AREA];
+                }
+                System.arraycopy(region.labels, r, chunk.labels, i, length);
+            } else if (chunk.labels != null) {
+                Arrays.fill(chunk.labels, i, i + length, null);
+            }
+            if (region.notes != null) {
+                if (chunk.notes == null) {
+                    chunk.notes = new String[CHUNK_AREA];
+                }
+                System.arraycopy(region.notes, r, chunk.notes, i, length);
+            } else if (chunk.notes != null) {
+                Arrays.fill(chunk.notes, i, i + length, null);
+            }
+        });
+    }
+    
+    /**
+     * Finds the squares connected to a square that have the same Piece, with a scanline search along the columns of a region.
+     *
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @param minX The minimum x coordinate of the region to search.
+     * @param minY The minimum y coordinate of the region to search.
+     * @param maxX The maximum x coordinate of the region to search.
+     * @param maxY The maximum y coordinate of the region to search.
+     * @return The connected squares, as spans of columns of their x coordinate and minimum and maximum y coordinates, in the form of a region.
+     */
+    public List<int[]> findConnectedSpans(int x, int y, int minX, int minY, int maxX, int maxY) {
+        final short id = getPieceId(x, y);
+        final short offset = getPieceOffset(x, y);
+        final int height = maxY - minY + 1;
+        final BitSet visited = new BitSet();
+        
+        List<int[]> spans = new ArrayList<>();
+        Deque<int[]> seeds = new ArrayDeque<>();
+        seeds.push(new int[] {x, y});
+        while (!seeds.isEmpty()) {
+            int[] seed = seeds.pop();
+            int column = (seed[0] - minX) * height;
+            if (visited.get(column + (seed[1] - minY))) {
+                continue;
+            }
+            
+            int top = seed[1];
+            while ((top > minY) && !visited.get(column + (top - 1 - minY)) && (getPieceId(seed[0], top - 1) == id) && (getPieceOffset(seed[0], top - 1) == offset)) {
+                top--;
+            }
+            int bottom = seed[1];
+            while ((bottom < maxY) && !visited.get(column + (bottom + 1 - minY)) && (getPieceId(seed[0], bottom + 1) == id) && (getPieceOffset(seed[0], bottom + 1) == offset)) {
+                bottom++;
+            }
+            visited.set(column + (top - minY), column + (bottom - minY) + 1);
+            spans.add(new int[] {seed[0], top, seed[0], bottom});
+            
+            for (int neighbor = seed[0] - 1; neighbor <= (seed[0] + 1); neighbor += 2) {
+                if ((neighbor < minX) || (neighbor > maxX)) {
+                    continue;
+                }
+                int neighborColumn = (neighbor - minX) * height;
+                boolean open = false;
+                for (int j = top; j <= bottom; j++) {
+                    boolean matches = !visited.get(neighborColumn + (j - minY)) && (getPieceId(neighbor, j) == id) && (getPieceOffset(neighbor, j) == offset);
+                    if (matches && !open) {
+                        seeds.push(new int[] {neighbor, j});
+                    }
+                    open = matches;
+                }
+            }
+        }
+        return spans;
+    }
+    
+    /**
+     * Visits the runs of a region of the Map Layout, where a run is the part of a column of the region within one chunk.
+     *
+     * @param minX     The minimum x coordinate of the region.
+     * @param minY     The minimum y coordinate of the region.
+     * @param maxX     The maximum x coordinate of the region.
+     * @param maxY     The maximum y coordinate of the region.
+     * @param allocate Whether to allocate the chunks of the region that have not been allocated, or to skip them otherwise.
+     * @param visitor  The visitor to call with each run.
+     */
+    private void forEachRun(int minX, int minY, int maxX, int maxY, boolean allocate, RunVisitor visitor) {
+        for (int x = minX; x <= maxX; x++) {
+            int y = minY;
+            while (y <= maxY) {
+                int end = Math.min(maxY, ((Math.floorDiv(y, CHUNK_SIZE) + 1) * CHUNK_SIZE) - 1);
+                Chunk chunk = getChunk(x, y, allocate);
+                if (chunk != null) {
+                    visitor.visit(chunk, getChunkIndex(x, y), x, y, (end - y + 1));
+                }
+                y = end + 1;
+            }
+        }
+    }
+    
+    /**
+     * Writes the runs of a region of the Map Layout, updating the number of used squares of their chunks and the extent of the map afterwards.<br>
+     * The changes to the extent of the map are summed per column and per row, so the region costs one update of the counts of each of its columns and rows.
+     *
+     * @param minX     The minimum x coordinate of the region.
+     * @param minY     The minimum y coordinate of the region.
+     * @param maxX     The maximum x coordinate of the region.
+     * @param maxY     The maximum y coordinate of the region.
+     * @param allocate Whether to allocate the chunks of the region that have not been allocated, or to skip them otherwise.
+     * @param writer   The visitor to call to write each run.
+     */
+    private void writeRuns(int minX, int minY, int maxX, int maxY, boolean allocate, RunVisitor writer) {
+        final int[] rowChanges = new int[maxY - minY + 1];
+        forEachRun(minX, minY, maxX, maxY, allocate, (chunk, i, x, y, length) -> {
+            int used = 0;
+            int inExtent = 0;
+            for (int k = 0; k < length; k++) {
+                used |= (chunk.isUsed(i + k) ? 1 : 0) << k;
+                inExtent |= (chunk.isInExtent(i + k) ? 1 : 0) << k;
+            }
+            
+            writer.visit(chunk, i, x, y, length);
+            
+            int columnChange = 0;
+            for (int k = 0; k < length; k++) {
+                int extentChange = (chunk.isInExtent(i + k) ? 1 : 0) - ((inExtent >> k) & 1);
+                columnChange += extentChange;
+                rowChanges[y + k - minY] += extentChange;
+                chunk.used += (chunk.isUsed(i + k) ? 1 : 0) - ((used >> k) & 1);
+                chunk.updateOccupied(i + k);
+            }
+            if (columnChange != 0) {
+                count(extentColumns, x, columnChange);
+            }
+            freeIfEmpty(x, y, chunk);
+        });
+        
+        for (int row = 0; row < rowChanges.length; row++) {
+            if (rowChanges[row] != 0) {
+                count(extentRows, (minY + row), rowChanges[row]);
+            }
+        }
+    }
+    
+    /**
+     * Places a Piece on the Map Layout with its anchor on a square.
+     *
+     * @param x     The x coordinate of the anchor of the placement.
+     * @param y     The y coordinate of the anchor of the placement.
+     * @param piece The interned Piece.
+     */
+    public void place(int x, int y, Piece piece) {
+        for (int i = 0; i < piece.sizeX; i++) {
+            for (int j = 0; j < piece.sizeY; j++) {
+                setPiece((x + i), (y + j), piece.id, packOffset(i, j));
+            }
+        }
+    }
+    
+    /**
+     * Removes the placement of the Piece covering a square of the Map Layout.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The region of the removed placement, as its minimum and maximum x and y coordinates, or null if there was no Piece on the square.
+     */
+    public int[] removePlacement(int x, int y) {
+        int[] placement = getPlacement(x, y);
+        if (placement != null) {
+            fill(placement[0], placement[1], placement[2], placement[3], (short) 0, (short) 0);
+        }
+        return placement;
+    }
+    
+    /**
+     * Returns whether any square of a region of the Map Layout has a Piece.
+     *
+     * @param minX The minimum x coordinate of the region.
+     * @param minY The minimum y coordinate of the region.
+     * @param maxX The maximum x coordinate of the region.
+     * @param maxY The maximum y coordinate of the region.
+     * @return Whether the region is occupied, or false if the region is empty.
+     */
+    public boolean isOccupied(int minX, int minY, int maxX, int maxY) {
+        for (int x = minX; x <= maxX; x++) {
+            int y = minY;
+            while (y <= maxY) {
+                int end = Math.min(maxY, ((Math.floorDiv(y, CHUNK_SIZE) + 1) * CHUNK_SIZE) - 1);
+                Chunk chunk = getChunk(x, y, false);
+                if ((chunk != null) && (chunk.occupied != null)) {
+                    int mask = ((1 << (end - y + 1)) - 1) << Math.floorMod(y, CHUNK_SIZE);
+                    if ((chunk.occupied[Math.floorMod(x, CHUNK_SIZE)] & mask) != 0) {
+                        return true;
+                    }
+                }
+                y = end + 1;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Returns whether a square of the Map Layout has a Piece, a label or a note.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return Whether the square is used.
+     */
+    public boolean isUsed(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        return (chunk != null) && chunk.isUsed(getChunkIndex(x, y));
+    }
+    
+    /**
+     * Returns whether the map has any squares with a Piece or a label.
+     *
+     * @return Whether the map has any squares with a Piece or a label.
+     */
+    public boolean hasExtent() {
+        return !extentColumns.isEmpty();
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the sub Piece on a square of the Map Layout.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The sub Piece on the square, or null if there is none.
+     */
+    public Piece getPiece(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        if ((chunk == null) || (chunk.pieceIds == null)) {
+            return null;
+        }
+        
+        int i = getChunkIndex(x, y);
+        Piece piece = Piece.getPiece(chunk.pieceIds[i]);
+        return (piece == null) ? null : piece.getSubPiece(unpackOffsetX(chunk.pieceOffsets[i]), unpackOffsetY(chunk.pieceOffsets[i]));
+    }
+    
+    /**
+     * Returns the id of the Piece on a square of the Map Layout.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The id of the Piece on the square, or 0 if there is none.
+     */
+    public short getPieceId(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        return ((chunk == null) || (chunk.pieceIds == null)) ? 0 : chunk.pieceIds[getChunkIndex(x, y)];
+    }
+    
+    /**
+     * Returns the packed offset of the sub Piece on a square of the Map Layout within its Piece.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The packed offset of the sub Piece on the square, or 0 if there is none.
+     */
+    public short getPieceOffset(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        return ((chunk == null) || (chunk.pieceOffsets == null)) ? 0 : chunk.pieceOffsets[getChunkIndex(x, y)];
+    }
+    
+    /**
+     * Returns the placement of the Piece covering a square of the Map Layout, from the anchor found by the packed offset of the square and the extent of the Piece.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The region of the placement, as its minimum and maximum x and y coordinates, or null if there is no Piece on the square.
+     */
+    public int[] getPlacement(int x, int y) {
+        Piece piece = Piece.getPiece(getPieceId(x, y));
+        if (piece == null) {
+            return null;
+        }
+        
+        short offset = getPieceOffset(x, y);
+        int anchorX = x - unpackOffsetX(offset);
+        int anchorY = y - unpackOffsetY(offset);
+        return new int[] {anchorX, anchorY, (anchorX + piece.sizeX - 1), (anchorY + piece.sizeY - 1)};
+    }
+    
+    /**
+     * Returns the label of a square of the Map Layout.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The label of the square, or null if there is none.
+     */
+    public String getLabel(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        return ((chunk == null) || (chunk.labels == null)) ? null : chunk.labels[getChunkIndex(x, y)];
+    }
+    
+    /**
+     * Returns the note of a square of the Map Layout.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The note of the square, or null if there is none.
+     */
+    public String getNote(int x, int y) {
+        Chunk chunk = getChunk(x, y, false);
+        return ((chunk == null) || (chunk.notes == null)) ? null : chunk.notes[getChunkIndex(x, y)];
+    }
+    
+    /**
+     * Returns the minimum x coordinate of the squares with a Piece or a label.
+     *
+     * @return The minimum x coordinate of the extent of the map, or Integer.MAX_VALUE if it has no extent.
+     */
+    public int getMinX() {
+        return extentColumns.isEmpty() ? Integer.MAX_VALUE : extentColumns.firstKey();
+    }
+    
+    /**
+     * Returns the minimum y coordinate of the squares with a Piece or a label.
+     *
+     * @return The minimum y coordinate of the extent of the map, or Integer.MAX_VALUE if it has no extent.
+     */
+    public int getMinY() {
+        return extentRows.isEmpty() ? Integer.MAX_VALUE : extentRows.firstKey();
+    }
+    
+    /**
+     * Returns the maximum x coordinate of the squares with a Piece or a label.
+     *
+     * @return The maximum x coordinate of the extent of the map, or Integer.MIN_VALUE if it has no extent.
+     */
+    public int getMaxX() {
+        return extentColumns.isEmpty() ? Integer.MIN_VALUE : extentColumns.lastKey();
+    }
+    
+    /**
+     * Returns the maximum y coordinate of the squares with a Piece or a label.
+     *
+     * @return The maximum y coordinate of the extent of the map, or Integer.MIN_VALUE if it has no extent.
+     */
+    public int getMaxY() {
+        return extentRows.isEmpty() ? Integer.MIN_VALUE : extentRows.lastKey();
+    }
+    
+    /**
+     * Returns the number of allocated chunks of the Map Layout.
+     *
+     * @return The number of allocated chunks of the Map Layout.
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+    
+    /**
+     * Returns the chunk of the Map Layout containing a square.
+     *
+     * @param x        The x coordinate of the square.
+     * @param y        The y coordinate of the square.
+     * @param allocate Whether to allocate the chunk if it has not been allocated.
+     * @return The chunk containing the square, or null if it has not been allocated and was not allocated.
+     */
+    private Chunk getChunk(int x, int y, boolean allocate) {
+        long key = getSquareChunkKey(x, y);
+        Chunk chunk = chunks.get(key);
+        if ((chunk == null) && allocate) {
+            chunk = new Chunk();
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+    
+    
+    //Setters
+    
+    /**
+     * Sets the sub Piece on a square of the Map Layout.
+     *
+     * @param x     The x coordinate of the square.
+     * @param y     The y coordinate of the square.
+     * @param piece The interned sub Piece, or null to remove the Piece.
+     */
+    public void setPiece(int x, int y, Piece piece) {
+        if (piece == null) {
+            setPiece(x, y, (short) 0, (short) 0);
+        } else {
+            setPiece(x, y, piece.id, packOffset(piece.offsetX, piece.offsetY));
+        }
+    }
+    
+    /**
+     * Sets the Piece on a square of the Map Layout.
+     *
+     * @param x      The x coordinate of the square.
+     * @param y      The y coordinate of the square.
+     * @param id     The id of the Piece, or 0 to remove the Piece.
+     * @param offset The packed offset of the sub Piece on the square within the Piece.
+     */
+    public void setPiece(int x, int y, short id, short offset) {
+        Chunk chunk = getChunk(x, y, (id != 0));
+        if (chunk == null) {
+            return;
+        }
+        
+        int i = getChunkIndex(x, y);
+        boolean used = chunk.isUsed(i);
+        boolean inExtent = chunk.isInExtent(i);
+        if (chunk.pieceIds == null) {
+            chunk.allocatePieces();
+        }
+        chunk.pieceIds[i] = id;
+        chunk.pieceOffsets[i] = (id == 0) ? 0 : offset;
+        chunk.updateOccupied(i);
+        updateUsage(x, y, chunk, i, used, inExtent);
+    }
+    
+    /**
+     * Sets the label of a square of the Map Layout.
+     *
+     * @param x     The x coordinate of the square.
+     * @param y     The y coordinate of the square.
+     * @param label The label, or null to remove the label.
+     */
+    public void setLabel(int x, int y, String label) {
+        Chunk chunk = getChunk(x, y, (label != null));
+        if (chunk == null) {
+            return;
+        }
+        
+        int i = getChunkIndex(x, y);
+        boolean used = chunk.isUsed(i);
+        boolean inExtent = chunk.isInExtent(i);
+        if (chunk.labels == null) {
+            chunk.labels = new String[CHUNK_AREA];
+        }
+        chunk.labels[i] = label;
+        updateUsage(x, y, chunk, i, used, inExtent);
+    }
+    
+    /**
+     * Sets the note of a square of the Map Layout.
+     *
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @param note The note, or null to remove the note.
+     */
+    public void setNote(int x, int y, String note) {
+        Chunk chunk = getChunk(x, y, (note != null));
+        if (chunk == null) {
+            return;
+        }
+        
+        int i = getChunkIndex(x, y);
+        boolean used = chunk.isUsed(i);
+        boolean inExtent = chunk.isInExtent(i);
+        if (chunk.notes == null) {
+            chunk.notes = new String[CHUNK_AREA];
+        }
+        chunk.notes[i] = note;
+        updateUsage(x, y, chunk, i, used, inExtent);
+    }
+    
+    /**
+     * Updates the number of used squares of a chunk and the extent of the map after a square of the chunk was written, freeing the chunk if it is now empty.
+     *
+     * @param x        The x coordinate of the square.
+     * @param y        The y coordinate of the square.
+     * @param chunk    The chunk.
+     * @param i        The index of the square in the chunk.
+     * @param used     Whether the square was used before it was written.
+     * @param inExtent Whether the square was in the extent of the map before it was written.
+     */
+    private void updateUsage(int x, int y, Chunk chunk, int i, boolean used, boolean inExtent) {
+        int extentChange = (chunk.isInExtent(i) ? 1 : 0) - (inExtent ? 1 : 0);
+        if (extentChange != 0) {
+            count(extentColumns, x, extentChange);
+            count(extentRows, y, extentChange);
+        }
+        
+        chunk.used += (chunk.isUsed(i) ? 1 : 0) - (used ? 1 : 0);
+        freeIfEmpty(x, y, chunk);
+    }
+    
+    /**
+     * Frees a chunk if it has no used squares.
+     *
+     * @param x     The x coordinate of a square of the chunk.
+     * @param y     The y coordinate of a square of the chunk.
+     * @param chunk The chunk.
+     */
+    private void freeIfEmpty(int x, int y, Chunk chunk) {
+        if (chunk.used == 0) {
+            chunks.remove(getSquareChunkKey(x, y));
+        }
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Adds to the count of a column or row of the extent of the map, removing it once it has no squares.
+     *
+     * @param counts The counts of the columns or rows.
+     * @param key    The coordinate of the column or row.
+     * @param change The change in the number of squares in the column or row.
+     */
+    private static void count(TreeMap<Integer, Integer> counts, int key, int change) {
+        counts.merge(key, change, (a, b) -> ((a + b) == 0) ? null : (a + b));
+    }
+    
+    /**
+     * Packs the coordinates of a chunk into a key.
+     *
+     * @param chunkX The x coordinate of the chunk.
+     * @param chunkY The y coordinate of the chunk.
+     * @return The key of the chunk.
+     */
+    public static long getChunkKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Returns the x coordinate of a chunk from its key.
+     *
+     * @param key The key of the chunk.
+     * @return The x coordinate of the chunk.
+     */
+    public static int getChunkX(long key) {
+        return (int) (key >> 32);
+    }
+    
+    /**
+     * Returns the y coordinate of a chunk from its key.
+     *
+     * @param key The key of the chunk.
+     * @return The y coordinate of the chunk.
+     */
+    public static int getChunkY(long key) {
+        return (int) key;
+    }
+    
+    /**
+     * Returns the key of the chunk containing a square.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The key of the chunk.
+     */
+    public static long getSquareChunkKey(int x, int y) {
+        return getChunkKey(Math.floorDiv(x, CHUNK_SIZE), Math.floorDiv(y, CHUNK_SIZE));
+    }
+    
+    /**
+     * Packs the coordinates of a square into a key.<br>
+     * The x coordinate is mixed into the low half of the key, so the keys of nearby squares are spread across the buckets of a hash table rather than colliding on x ^ y.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The key of the square.
+     */
+    public static long getSquareKey(int x, int y) {
+        return ((long) x << 32) | ((y ^ (x * SQUARE_KEY_MIX)) & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Returns the x coordinate of a square from its key.
+     *
+     * @param key The key of the square.
+     * @return The x coordinate of the square.
+     */
+    public static int getSquareX(long key) {
+        return (int) (key >> 32);
+    }
+    
+    /**
+     * Returns the y coordinate of a square from its key.
+     *
+     * @param key The key of the square.
+     * @return The y coordinate of the square.
+     */
+    public static int getSquareY(long key) {
+        return ((int) key) ^ (getSquareX(key) * SQUARE_KEY_MIX);
+    }
+    
+    /**
+     * Packs the offset of a sub Piece within its Piece.
+     *
+     * @param offsetX The x offset of the sub Piece, in map squares.
+     * @param offsetY The y offset of the sub Piece, in map squares.
+     * @return The packed offset.
+     */
+    public static short packOffset(int offsetX, int offsetY) {
+        return (short) (((offsetX & 0xFF) << 8) | (offsetY & 0xFF));
+    }
+    
+    /**
+     * Returns the x offset of a sub Piece from its packed offset.
+     *
+     * @param offset The packed offset.
+     * @return The x offset of the sub Piece, in map squares.
+     */
+    public static int unpackOffsetX(short offset) {
+        return (offset >> 8) & 0xFF;
+    }
+    
+    /**
+     * Returns the y offset of a sub Piece from its packed offset.
+     *
+     * @param offset The packed offset.
+     * @return The y offset of the sub Piece, in map squares.
+     */
+    public static int unpackOffsetY(short offset) {
+        return offset & 0xFF;
+    }
+    
+    /**
+     * Returns the index of a square within its chunk.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The index of the square within its chunk.
+     */
+    public static int getChunkIndex(int x, int y) {
+        return (Math.floorMod(x, CHUNK_SIZE) * CHUNK_SIZE) + Math.floorMod(y, CHUNK_SIZE);
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines a visitor of the squares of a Map Layout.
+     */
+    public interface SquareVisitor {
+        
+        //Methods
+        
+        /**
+         * Visits a square.
+         *
+         * @param x The x coordinate of the square.
+         * @param y The y coordinate of the square.
+         */
+        void visit(int x, int y);
+        
+    }
+    
+    /**
+     * Defines a visitor of the runs of squares of a Map Layout.
+     */
+    private interface RunVisitor {
+        
+        //Methods
+        
+        /**
+         * Visits a run of squares.
+         *
+         * @param chunk  The chunk containing the run.
+         * @param i      The index of the first square of the run in the chunk.
+         * @param x      The x coordinate of the run.
+         * @param y      The y coordinate of the first square of the run.
+         * @param length The number of squares in the run.
+         */
+        void visit(Chunk chunk, int i, int x, int y, int length);
+        
+    }
+    
+    /**
+     * Defines a copied region of a Map Layout, with its layers stored column by column.
+     */
+    public static class Region {
+        
+        //Fields
+        
+        /**
+         * The width of the region, in squares.
+         */
+        private final int width;
+        
+        /**
+         * The height of the region, in squares.
+         */
+        private final int height;
+        
+        /**
+         * The ids of the Pieces on the squares of the region.
+         */
+        private final short[] pieceIds;
+        
+        /**
+         * The packed offsets of the sub Pieces on the squares of the region within their Pieces.
+         */
+        private final short[] pieceOffsets;
+        
+        /**
+         * The labels of the squares of the region, or null if there are none.
+         */
+        private String[] labels = null;
+        
+        /**
+         * The notes of the squares of the region, or null if there are none.
+         */
+        private String[] notes = null;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for an empty Region.
+         *
+         * @param width  The width of the region, in squares.
+         * @param height The height of the region, in squares.
+         */
+        private Region(int width, int height) {
+            this.width = width;
+            this.height = height;
+            this.pieceIds = new short[width * height];
+            this.pieceOffsets = new short[width * height];
+        }
+        
+        
+        //Getters
+        
+        /**
+         * Returns the width of the region.
+         *
+         * @return The width of the region, in squares.
+         */
+        public int getWidth() {
+            return width;
+        }
+        
+        /**
+         * Returns the height of the region.
+         *
+         * @return The height of the region, in squares.
+         */
+        public int getHeight() {
+            return height;
+        }
+        
+        /**
+         * Returns the index of a square in the layers of the region.
+         *
+         * @param x The x coordinate of the square within the region.
+         * @param y The y coordinate of the square within the region.
+         * @return The index of the square in the layers of the region.
+         */
+        private int getIndex(int x, int y) {
+            return (x * height) + y;
+        }
+        
+    }
+    
+    /**
+     * Defines a chunk of a Map Layout, whose layers are each only allocated when they are first written.
+     */
+    private static class Chunk {
+        
+        //Fields
+        
+        /**
+         * The ids of the Pieces on the squares of the chunk, or null if none have been placed.
+         */
+        private short[] pieceIds = null;
+        
+        /**
+         * The packed offsets of the sub Pieces on the squares of the chunk within their Pieces, or null if none have been placed.
+         */
+        private short[] pieceOffsets = null;
+        
+        /**
+         * The bitmasks of the squares of each column of the chunk that have a Piece, which fit in a char as a chunk is 16 squares tall, or null if none have been placed.
+         */
+        private char[] occupied = null;
+        
+        /**
+         * The labels of the squares of the chunk, or null if none have been set.
+         */
+        private String[] labels = null;
+        
+        /**
+         * The notes of the squares of the chunk, or null if none have been set.
+         */
+        private String[] notes = null;
+        
+        /**
+         * The number of used squares of the chunk.
+         */
+        private int used = 0;
+        
+        
+        //Methods
+        
+        /**
+         * Allocates the layers of the Pieces of the chunk.
+         */
+        private void allocatePieces() {
+            pieceIds = new short[CHUNK_AREA];
+            pieceOffsets = new short[CHUNK_AREA];
+            occupied = new char[CHUNK_SIZE];
+        }
+        
+        /**
+         * Updates whether a square of the chunk is occupied in the bitmask of its column.
+         *
+         * @param i The index of the square in the chunk.
+         */
+        private void updateOccupied(int i) {
+            if (occupied == null) {
+                return;
+            }
+            
+            int bit = 1 << (i % CHUNK_SIZE);
+            if (pieceIds[i] != 0) {
+                occupied[i / CHUNK_SIZE] |= bit;
+            } else {
+                occupied[i / CHUNK_SIZE] &= ~bit;
+            }
+        }
+        
+        /**
+         * Returns whether a square of the chunk has a Piece, a label or a note.
+         *
+         * @param i The index of the square in the chunk.
+         * @return Whether the square is used.
+         */
+        private boolean isUsed(int i) {
+            return ((pieceIds != null) && (pieceIds[i] != 0)) ||
+                    ((labels != null) && (labels[i] != null)) ||
+                    ((notes != null) && (notes[i] != null));
+        }
+        
+        /**
+         * Returns whether a square of the chunk is in the extent of the map, having a Piece or a label.
+         *
+         * @param i The index of the square in the chunk.
+         * @return Whether the square is in the extent of the map.
+         */
+        private boolean isInExtent(int i) {
+            return ((pieceIds != null) && (pieceIds[i] != 0)) ||
+                    ((labels != null) && (labels[i] != null) && !labels[i].isEmpty());
+        }
+        
+    }
+    
+}
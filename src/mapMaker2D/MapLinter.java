@@ -0,0 +1,415 @@
+/*
+ * File:    MapLinter.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Validates a Map Layout, warning about doors that are not between walls, stairs and ramps that are not linked to another floor, labels on squares with no piece, and rooms that cannot be reached from the entrance.<br>
+ * The squares are checked chunk by chunk, and the results are cached by chunk, so only the chunks around the squares written since the last validation are checked again.<br>
+ * The rooms that can be reached are found by a search over the rooms and doors of the Room Map from the rooms of the entrance, which is only repeated when a floor or door square has changed or the entrance has moved.
+ */
+public class MapLinter {
+    
+    //Constants
+    
+    /**
+     * The label that marks the entrance of a floor.
+     */
+    public static final String ENTRANCE_LABEL = "Entrance";
+    
+    
+    //Fields
+    
+    /**
+     * The Map Layout that is validated.
+     */
+    private final MapLayout map;
+    
+    /**
+     * The rooms of the Map Layout.
+     */
+    private final RoomMap rooms;
+    
+    /**
+     * The links from squares of the Map Layout to squares of other floors, by the packed coordinates of their squares.
+     */
+    private final Map<Long, Floor.Link> links;
+    
+    /**
+     * The results of the checks of the chunks, by the packed coordinates of the chunks.
+     */
+    private final Map<Long, Chunk> chunks = new HashMap<>();
+    
+    /**
+     * The chunks that have been written since they were last checked, by their packed coordinates.
+     */
+    private final Set<Long> dirtyChunks = new HashSet<>();
+    
+    /**
+     * The warnings about the rooms that cannot be reached, from the last search.
+     */
+    private List<Warning> roomWarnings = new ArrayList<>();
+    
+    /**
+     * The squares that the last search for reachable rooms started from, or null if the search must be repeated.
+     */
+    private List<Long> roomSources = null;
+    
+    /**
+     * The warnings from the last validation, or null if the Map Layout must be validated again.
+     */
+    private List<Warning> warnings = null;
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Map Linter.
+     *
+     * @param map   The Map Layout that is validated.
+     * @param rooms The rooms of the Map Layout.
+     * @param links The links from squares of the Map Layout to squares of other floors.
+     */
+    public MapLinter(MapLayout map, RoomMap rooms, Map<Long, Floor.Link> links) {
+        this.map = map;
+        this.rooms = rooms;
+        this.links = links;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Marks a square as written, so the chunks that it affects are checked again at the next validation.<br>
+     * The chunks of the neighbors of the square are also marked, as a door is checked against its neighbors.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void update(int x, int y) {
+        dirtyChunks.add(MapLayout.getSquareChunkKey(x, y));
+        dirtyChunks.add(MapLayout.getSquareChunkKey((x + 1), y));
+        dirtyChunks.add(MapLayout.getSquareChunkKey((x - 1), y));
+        dirtyChunks.add(MapLayout.getSquareChunkKey(x, (y + 1)));
+        dirtyChunks.add(MapLayout.getSquareChunkKey(x, (y - 1)));
+        warnings = null;
+    }
+    
+    /**
+     * Marks the warnings as out of date without any square being written, such as when the links to other floors change.
+     */
+    public void invalidate() {
+        warnings = null;
+    }
+    
+    /**
+     * Removes everything from the Map Linter.
+     */
+    public void clear() {
+        chunks.clear();
+        dirtyChunks.clear();
+        roomWarnings = new ArrayList<>();
+        roomSources = null;
+        warnings = null;
+    }
+    
+    /**
+     * Validates the Map Layout, checking the chunks that have been written since they were last checked.
+     *
+     * @return The warnings, in order of their squares from the top left of the map.
+     */
+    private List<Warning> validate() {
+        for (long key : dirtyChunks) {
+            Chunk chunk = checkChunk(key);
+            Chunk previous = (chunk == null) ? chunks.remove(key) : chunks.put(key, chunk);
+            if (!Arrays.equals(((previous == null) ? null : previous.floors), ((chunk == null) ? null : chunk.floors)) ||
+                    !Arrays.equals(((previous == null) ? null : previous.doors), ((chunk == null) ? null : chunk.doors))) {
+                roomSources = null;
+            }
+        }
+        dirtyChunks.clear();
+        
+        List<Warning> found = new ArrayList<>();
+        List<Long> entrances = new ArrayList<>();
+        List<Long> linkedStairs = new ArrayList<>();
+        for (Chunk chunk : chunks.values()) {
+            found.addAll(chunk.warnings);
+            entrances.addAll(chunk.entrances);
+            for (long stairs : chunk.stairs) {
+                if (links.containsKey(stairs)) {
+                    linkedStairs.add(stairs);
+                } else {
+                    Piece piece = Piece.getPiece(map.getPieceId(MapLayout.getSquareX(stairs), MapLayout.getSquareY(stairs)));
+                    found.add(new Warning(MapLayout.getSquareX(stairs), MapLayout.getSquareY(stairs),
+                            piece.name + (piece.name.contains("Stairs") ? " lead" : " leads") + " nowhere"));
+                }
+            }
+        }
+        
+        List<Long> sources = entrances.isEmpty() ? linkedStairs : entrances;
+        sources.sort(null);
+        if (!sources.equals(roomSources)) {
+            roomWarnings = findUnreachableRooms(sources);
+            roomSources = sources;
+        }
+        found.addAll(roomWarnings);
+        
+        found.sort(Comparator.comparingInt(Warning::getY).thenComparingInt(Warning::getX));
+        return Collections.unmodifiableList(found);
+    }
+    
+    /**
+     * Checks the squares of a chunk of the Map Layout.
+     *
+     * @param key The packed coordinates of the chunk.
+     * @return The results of the checks, or null if there is nothing in the chunk to remember.
+     */
+    private Chunk checkChunk(long key) {
+        Chunk chunk = new Chunk();
+        boolean empty = true;
+        
+        int firstX = MapLayout.getChunkX(key) * MapLayout.CHUNK_SIZE;
+        int firstY = MapLayout.getChunkY(key) * MapLayout.CHUNK_SIZE;
+        for (int i = 0; i < MapLayout.CHUNK_AREA; i++) {
+            int x = firstX + (i / MapLayout.CHUNK_SIZE);
+            int y = firstY + (i % MapLayout.CHUNK_SIZE);
+            Piece piece = Piece.getPiece(map.getPieceId(x, y));
+            String label = map.getLabel(x, y);
+            
+            if (RoomMap.isFloor(piece)) {
+                chunk.floors[i >> 6] |= 1L << i;
+                empty = false;
+            }
+            if (RoomMap.isDoor(piece)) {
+                chunk.doors[i >> 6] |= 1L << i;
+                empty = false;
+                if (!isBetweenWalls(x, y, piece)) {
+                    chunk.warnings.add(new Warning(x, y, (piece.name + " is not between walls")));
+                }
+            }
+            if (Floor.isFloorLink(piece)) {
+                int[] placement = map.getPlacement(x, y);
+                if ((placement[0] == x) && (placement[1] == y)) {
+                    chunk.stairs.add(MapLayout.getSquareKey(x, y));
+                }
+            }
+            if ((label != null) && !label.isEmpty()) {
+                if (piece == null) {
+                    chunk.warnings.add(new Warning(x, y, ("Label \"" + label + "\" has no piece")));
+                }
+                if (label.equalsIgnoreCase(ENTRANCE_LABEL)) {
+                    chunk.entrances.add(MapLayout.getSquareKey(x, y));
+                }
+            }
+        }
+        
+        return (empty && chunk.warnings.isEmpty() && chunk.stairs.isEmpty() && chunk.entrances.isEmpty()) ? null : chunk;
+    }
+    
+    /**
+     * Determines whether a door is between walls, with a border, door or window on each side of it along its wall.
+     *
+     * @param x     The x coordinate of the door.
+     * @param y     The y coordinate of the door.
+     * @param piece The Piece of the door.
+     * @return Whether the door is between walls.
+     */
+    private boolean isBetweenWalls(int x, int y, Piece piece) {
+        boolean horizontal = piece.name.endsWith("Horizontal");
+        return isWall(horizontal ? (x - 1) : x, horizontal ? y : (y - 1)) &&
+                isWall(horizontal ? (x + 1) : x, horizontal ? y : (y + 1));
+    }
+    
+    /**
+     * Determines whether a square is part of a wall, as a border, door or window.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return Whether the square is part of a wall.
+     */
+    private boolean isWall(int x, int y) {
+        Piece piece = Piece.getPiece(map.getPieceId(x, y));
+        return (piece != null) && (piece.name.equals("Border") || RoomMap.isDoor(piece) || piece.name.startsWith("Window"));
+    }
+    
+    /**
+     * Finds the rooms that cannot be reached from a set of squares, by a breadth-first search over the rooms and the doors between them.<br>
+     * A square that is a door starts the search from each room next to it.
+     *
+     * @param sources The packed coordinates of the squares to search from.
+     * @return The warnings about the rooms that cannot be reached, or an empty list if there are no squares to search from.
+     */
+    private List<Warning> findUnreachableRooms(List<Long> sources) {
+        List<Warning> unreachable = new ArrayList<>();
+        if (sources.isEmpty()) {
+            return unreachable;
+        }
+        
+        List<RoomMap.Room> roomList = rooms.getRooms();
+        Set<RoomMap.Room> reached = new HashSet<>();
+        ArrayDeque<RoomMap.Room> queue = new ArrayDeque<>();
+        for (long source : sources) {
+            int sourceX = MapLayout.getSquareX(source);
+            int sourceY = MapLayout.getSquareY(source);
+            for (RoomMap.Room room : roomList) {
+                boolean start = rooms.isSameRoom(room.getX(), room.getY(), sourceX, sourceY) ||
+                        room.getDoors().stream().anyMatch(door -> (door[0] == sourceX) && (door[1] == sourceY));
+                if (start && reached.add(room)) {
+                    queue.add(room);
+                }
+            }
+        }
+        
+        while (!queue.isEmpty()) {
+            for (RoomMap.Room connection : queue.poll().getConnections()) {
+                if (reached.add(connection)) {
+                    queue.add(connection);
+                }
+            }
+        }
+        
+        for (RoomMap.Room room : roomList) {
+            if (!reached.contains(room)) {
+                unreachable.add(new Warning(room.getX(), room.getY(), ("Room R" + room.getNumber() + " cannot be reached from the entrance")));
+            }
+        }
+        return unreachable;
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the warnings about the Map Layout, validating it if it has been written since it was last validated.
+     *
+     * @return The warnings, in order of their squares from the top left of the map.
+     */
+    public List<Warning> getWarnings() {
+        if (warnings == null) {
+            warnings = validate();
+        }
+        return warnings;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Holds the results of the checks of a chunk.
+     */
+    private static class Chunk {
+        
+        //Fields
+        
+        /**
+         * The floor squares of the chunk, as a bitset by their index in the chunk.
+         */
+        private final long[] floors = new long[MapLayout.CHUNK_AREA / 64];
+        
+        /**
+         * The door squares of the chunk, as a bitset by their index in the chunk.
+         */
+        private final long[] doors = new long[MapLayout.CHUNK_AREA / 64];
+        
+        /**
+         * The warnings about the squares of the chunk.
+         */
+        private final List<Warning> warnings = new ArrayList<>();
+        
+        /**
+         * The stairs and ramps anchored in the chunk, by their packed coordinates.
+         */
+        private final List<Long> stairs = new ArrayList<>();
+        
+        /**
+         * The entrances in the chunk, by their packed coordinates.
+         */
+        private final List<Long> entrances = new ArrayList<>();
+        
+    }
+    
+    /**
+     * Defines a warning about a square of a Map Layout.
+     */
+    public static class Warning {
+        
+        //Fields
+        
+        /**
+         * The x coordinate of the square.
+         */
+        private final int x;
+        
+        /**
+         * The y coordinate of the square.
+         */
+        private final int y;
+        
+        /**
+         * The message of the Warning.
+         */
+        private final String message;
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Warning.
+         *
+         * @param x       The x coordinate of the square.
+         * @param y       The y coordinate of the square.
+         * @param message The message of the Warning.
+         */
+        public Warning(int x, int y, String message) {
+            this.x = x;
+            this.y = y;
+            this.message = message;
+        }
+        
+        
+        //Getters
+        
+        /**
+         * Returns the x coordinate of the square.
+         *
+         * @return The x coordinate of the square.
+         */
+        public int getX() {
+            return x;
+        }
+        
+        /**
+         * Returns the y coordinate of the square.
+         *
+         * @return The y coordinate of the square.
+         */
+        public int getY() {
+            return y;
+        }
+        
+        /**
+         * Returns the message of the Warning.
+         *
+         * @return The message of the Warning.
+         */
+        public String getMessage() {
+            return message;
+        }
+        
+    }
+    
+}
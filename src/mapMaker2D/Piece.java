@@ -10,6 +10,9 @@ import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.image.BufferedImage;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import javax.imageio.ImageIO;
 
 /**
@@ -25,8 +28,31 @@ public class Piece {
     public static final int PIECE_SIZE = 50;
     
     
+    //Static Fields
+    
+    /**
+     * The table of interned Pieces, indexed by their ids, with no Piece at id 0.
+     */
+    private static final List<Piece> pieceTable = new ArrayList<>(Collections.singletonList(null));
+    
+    
     //Fields
     
+    /**
+     * The id of the Piece in the table of interned Pieces, shared by its sub Pieces, or 0 if it has not been interned.
+     */
+    public short id = 0;
+    
+    /**
+     * The x offset of this sub Piece within its parent Piece, in map squares.
+     */
+    public int offsetX = 0;
+    
+    /**
+     * The y offset of this sub Piece within its parent Piece, in map squares.
+     */
+    public int offsetY = 0;
+    
     /**
      * The image file of the icon of the Piece.
      */
@@ -151,6 +177,8 @@ public class Piece {
                 subPiece.name = this.name + ((x > 0 || y > 0) ? (":" + x + ":" + y) : "");
                 subPiece.sizeX = 1;
                 subPiece.sizeY = 1;
+                subPiece.offsetX = x;
+                subPiece.offsetY = y;
                 if (this.replaceForPlayer != null) {
                     subPiece.replaceForPlayer = this.replaceForPlayer.subPieces[x][y];
                 }
@@ -161,4 +189,52 @@ public class Piece {
         }
     }
     
+    /**
+     * Returns a sub Piece of the Piece.
+     *
+     * @param offsetX The x offset of the sub Piece within the Piece, in map squares.
+     * @param offsetY The y offset of the sub Piece within the Piece, in map squares.
+     * @return The sub Piece.
+     */
+    public Piece getSubPiece(int offsetX, int offsetY) {
+        return subPieces[offsetX][offsetY];
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Interns a Piece in the table of Pieces, giving it and its sub Pieces an id, if it has not been interned.
+     *
+     * @param piece The Piece.
+     * @return The id of the Piece.
+     */
+    public static synchronized short intern(Piece piece) {
+        if (piece.id == 0) {
+            if (pieceTable.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many Pieces to intern: " + piece.name);
+            }
+            piece.id = (short) pieceTable.size();
+            pieceTable.add(piece);
+            for (Piece[] column : piece.subPieces) {
+                for (Piece subPiece : column) {
+                    if (subPiece != null) {
+                        subPiece.id = piece.id;
+                    }
+                }
+            }
+        }
+        return piece.id;
+    }
+    
+    /**
+     * Returns an interned Piece by its id.
+     *
+     * @param id The id of the Piece.
+     * @return The Piece, or null if the id is 0.
+     */
+    public static Piece getPiece(short id) {
+        return pieceTable.get(id);
+    }
+    
 }
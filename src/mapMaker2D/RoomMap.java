@@ -0,0 +1,696 @@
+/*
+ * File:    RoomMap.java
+ * Package: mapMaker2D
+ * Author:  Zachary Gill
+ */
+
+package mapMaker2D;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Segments a Map Layout into rooms, the connected regions of floor squares bounded by borders, doors and empty squares.<br>
+ * The rooms are kept in a union-find over the floor squares that is updated as squares are written: a new floor square is joined with its neighbors, and a removed floor square only re-splits its own room, by searching from its neighbors in turn until all but one of the searches has run out, so the cost of a removal is proportional to the smaller parts of the split rather than to the map.
+ */
+public class RoomMap {
+    
+    //Constants
+    
+    /**
+     * The offsets to the four neighbors of a square.
+     */
+    private static final int[][] NEIGHBORS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    
+    /**
+     * The number of unused nodes allowed in the union-find before it is compacted.
+     */
+    private static final int COMPACT_THRESHOLD = 1024;
+    
+    
+    //Fields
+    
+    /**
+     * The Map Layout that is segmented.
+     */
+    private final MapLayout map;
+    
+    /**
+     * The nodes of the floor squares in the union-find, in arrays by the index of each square in its chunk, by the packed coordinates of the chunks.<br>
+     * A square that is not a floor square has no node, stored as -1, and a chunk with no floor squares has no array.
+     */
+    private final Map<Long, int[]> nodes = new HashMap<>();
+    
+    /**
+     * The number of floor squares.
+     */
+    private int floorCount = 0;
+    
+    /**
+     * The parents of the nodes in the union-find.<br>
+     * The nodes of squares that are no longer floor squares, or that were split into another room, are left in place so the nodes that point through them still reach their root.
+     */
+    private int[] parents = new int[64];
+    
+    /**
+     * The number of floor squares in the room of each root node.
+     */
+    private int[] areas = new int[64];
+    
+    /**
+     * The number of nodes in the union-find.
+     */
+    private int nodeCount = 0;
+    
+    /**
+     * The door squares, by their packed coordinates.
+     */
+    private final Set<Long> doors = new HashSet<>();
+    
+    
+    //Constructors
+    
+    /**
+     * The constructor for a Room Map.
+     *
+     * @param map The Map Layout that is segmented.
+     */
+    public RoomMap(MapLayout map) {
+        this.map = map;
+    }
+    
+    
+    //Methods
+    
+    /**
+     * Updates a square from the Map Layout after it is written.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    public void update(int x, int y) {
+        long key = MapLayout.getSquareKey(x, y);
+        Piece piece = Piece.getPiece(map.getPieceId(x, y));
+        
+        if (isDoor(piece)) {
+            doors.add(key);
+        } else {
+            doors.remove(key);
+        }
+        
+        boolean wasFloor = getNode(x, y) >= 0;
+        if (isFloor(piece) && !wasFloor) {
+            addFloor(x, y);
+        } else if (!isFloor(piece) && wasFloor) {
+            removeFloor(x, y);
+        }
+    }
+    
+    /**
+     * Clears the Room Map.
+     */
+    public void clear() {
+        nodes.clear();
+        floorCount = 0;
+        doors.clear();
+        parents = new int[64];
+        areas = new int[64];
+        nodeCount = 0;
+    }
+    
+    /**
+     * Adds a floor square, joining it with the rooms of its neighbors.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    private void addFloor(int x, int y) {
+        int node = newNode(-1);
+        setNode(x, y, node);
+        floorCount++;
+        
+        for (int[] neighbor : NEIGHBORS) {
+            int neighborNode = getNode((x + neighbor[0]), (y + neighbor[1]));
+            if (neighborNode >= 0) {
+                union(node, neighborNode);
+            }
+        }
+    }
+    
+    /**
+     * Removes a floor square, splitting its room if the square was the only connection between its neighbors.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     */
+    private void removeFloor(int x, int y) {
+        int root = find(getNode(x, y));
+        setNode(x, y, -1);
+        floorCount--;
+        areas[root]--;
+        
+        List<Long> starts = new ArrayList<>(NEIGHBORS.length);
+        for (int[] neighbor : NEIGHBORS) {
+            if (getNode((x + neighbor[0]), (y + neighbor[1])) >= 0) {
+                starts.add(MapLayout.getSquareKey((x + neighbor[0]), (y + neighbor[1])));
+            }
+        }
+        if (starts.size() > 1) {
+            split(root, starts);
+        }
+        
+        if ((nodeCount - floorCount) > Math.max(COMPACT_THRESHOLD, floorCount)) {
+            compact();
+        }
+    }
+    
+    /**
+     * Splits a room after one of its squares was removed, by searching from the neighbors of the removed square in turn.<br>
+     * Searches that reach each other are merged, and the searches stop once all but one of them has run out of squares, so only the parts of the room that are cut off are visited in full.
+     * Each part that was cut off is moved into a new room, and the rest keeps the original room.
+     *
+     * @param root   The root node of the room.
+     * @param starts The packed coordinates of the floor squares neighboring the removed square.
+     */
+    private void split(int root, List<Long> starts) {
+        final int count = starts.size();
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<Long>[] queues = new ArrayDeque[count];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final List<Long>[] visits = new List[count];
+        final int[] groups = new int[count];
+        final Map<Long, Integer> visited = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            queues[i] = new ArrayDeque<>(Collections.singletonList(starts.get(i)));
+            visits[i] = new ArrayList<>(Collections.singletonList(starts.get(i)));
+            groups[i] = i;
+            visited.put(starts.get(i), i);
+        }
+        
+        while (true) {
+            int groupCount = 0;
+            int activeCount = 0;
+            for (int i = 0; i < count; i++) {
+                if (findGroup(groups, i) == i) {
+                    groupCount++;
+                    activeCount += isActive(groups, queues, i) ? 1 : 0;
+                }
+            }
+            if (groupCount == 1) {
+                return;
+            }
+            if (activeCount <= 1) {
+                break;
+            }
+            
+            for (int i = 0; i < count; i++) {
+                Long square = queues[i].poll();
+                if (square == null) {
+                    continue;
+                }
+                
+                int squareX = MapLayout.getSquareX(square);
+                int squareY = MapLayout.getSquareY(square);
+                for (int[] neighbor : NEIGHBORS) {
+                    if (getNode((squareX + neighbor[0]), (squareY + neighbor[1])) < 0) {
+                        continue;
+                    }
+                    
+                    long neighborKey = MapLayout.getSquareKey((squareX + neighbor[0]), (squareY + neighbor[1]));
+                    Integer search = visited.putIfAbsent(neighborKey, i);
+                    if (search == null) {
+                        queues[i].add(neighborKey);
+                        visits[i].add(neighborKey);
+                    } else {
+                        groups[findGroup(groups, search)] = findGroup(groups, i);
+                    }
+                }
+            }
+        }
+        
+        int kept = -1;
+        int keptArea = -1;
+        for (int i = 0; i < count; i++) {
+            if (findGroup(groups, i) != i) {
+                continue;
+            }
+            if (isActive(groups, queues, i)) {
+                kept = i;
+                break;
+            }
+            int area = 0;
+            for (int j = 0; j < count; j++) {
+                area += (findGroup(groups, j) == i) ? visits[j].size() : 0;
+            }
+            if (area > keptArea) {
+                kept = i;
+                keptArea = area;
+            }
+        }
+        
+        for (int i = 0; i < count; i++) {
+            if ((findGroup(groups, i) != i) || (i == kept)) {
+                continue;
+            }
+            
+            int newRoot = -1;
+            for (int j = 0; j < count; j++) {
+                if (findGroup(groups, j) != i) {
+                    continue;
+                }
+                for (long square : visits[j]) {
+                    int node = newNode(newRoot);
+                    newRoot = (newRoot < 0) ? node : newRoot;
+                    setNode(MapLayout.getSquareX(square), MapLayout.getSquareY(square), node);
+                }
+            }
+            areas[newRoot] = nodeCount - newRoot;
+            areas[root] -= areas[newRoot];
+        }
+    }
+    
+    /**
+     * Rebuilds the union-find without the nodes that are no longer used.
+     */
+    private void compact() {
+        for (int[] chunk : nodes.values()) {
+            for (int i = 0; i < MapLayout.CHUNK_AREA; i++) {
+                if (chunk[i] >= 0) {
+                    chunk[i] = find(chunk[i]);
+                }
+            }
+        }
+        
+        Map<Integer, Integer> roots = new HashMap<>();
+        int[] oldAreas = areas;
+        parents = new int[Math.max(64, floorCount * 2)];
+        areas = new int[parents.length];
+        nodeCount = 0;
+        for (int[] chunk : nodes.values()) {
+            for (int i = 0; i < MapLayout.CHUNK_AREA; i++) {
+                if (chunk[i] < 0) {
+                    continue;
+                }
+                
+                int oldRoot = chunk[i];
+                Integer newRoot = roots.get(oldRoot);
+                int node = newNode((newRoot == null) ? -1 : newRoot);
+                if (newRoot == null) {
+                    roots.put(oldRoot, node);
+                    areas[node] = oldAreas[oldRoot];
+                }
+                chunk[i] = node;
+            }
+        }
+    }
+    
+    /**
+     * Returns the node of a square in the union-find.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The node of the square, or -1 if the square is not a floor square.
+     */
+    private int getNode(int x, int y) {
+        int[] chunk = nodes.get(MapLayout.getSquareChunkKey(x, y));
+        return (chunk == null) ? -1 : chunk[MapLayout.getChunkIndex(x, y)];
+    }
+    
+    /**
+     * Sets the node of a square in the union-find, freeing the array of its chunk once the chunk has no floor squares.
+     *
+     * @param x    The x coordinate of the square.
+     * @param y    The y coordinate of the square.
+     * @param node The node of the square, or -1 if the square is not a floor square.
+     */
+    private void setNode(int x, int y, int node) {
+        long key = MapLayout.getSquareChunkKey(x, y);
+        int[] chunk = nodes.get(key);
+        if (chunk == null) {
+            if (node < 0) {
+                return;
+            }
+            chunk = new int[MapLayout.CHUNK_AREA];
+            Arrays.fill(chunk, -1);
+            nodes.put(key, chunk);
+        }
+        
+        chunk[MapLayout.getChunkIndex(x, y)] = node;
+        if ((node < 0) && Arrays.stream(chunk).allMatch(chunkNode -> chunkNode < 0)) {
+            nodes.remove(key);
+        }
+    }
+    
+    /**
+     * Adds a node to the union-find.
+     *
+     * @param parent The parent of the node, or -1 to make the node the root of a new room with an area of one square.
+     * @return The node.
+     */
+    private int newNode(int parent) {
+        if (nodeCount == parents.length) {
+            parents = Arrays.copyOf(parents, (nodeCount * 2));
+            areas = Arrays.copyOf(areas, (nodeCount * 2));
+        }
+        
+        int node = nodeCount++;
+        parents[node] = (parent < 0) ? node : parent;
+        areas[node] = (parent < 0) ? 1 : 0;
+        return node;
+    }
+    
+    /**
+     * Finds the root node of the room of a node, halving the path to it.
+     *
+     * @param node The node.
+     * @return The root node of the room.
+     */
+    private int find(int node) {
+        while (parents[node] != node) {
+            parents[node] = parents[parents[node]];
+            node = parents[node];
+        }
+        return node;
+    }
+    
+    /**
+     * Joins the rooms of two nodes, attaching the smaller room to the larger.
+     *
+     * @param node  The first node.
+     * @param other The second node.
+     */
+    private void union(int node, int other) {
+        int root = find(node);
+        int otherRoot = find(other);
+        if (root == otherRoot) {
+            return;
+        }
+        
+        if (areas[root] < areas[otherRoot]) {
+            int swap = root;
+            root = otherRoot;
+            otherRoot = swap;
+        }
+        parents[otherRoot] = root;
+        areas[root] += areas[otherRoot];
+    }
+    
+    
+    //Getters
+    
+    /**
+     * Returns the area of the room of a square.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The number of floor squares in the room of the square, or 0 if the square is not a floor square.
+     */
+    public int getArea(int x, int y) {
+        int node = getNode(x, y);
+        return (node < 0) ? 0 : areas[find(node)];
+    }
+    
+    /**
+     * Determines whether two squares are in the same room.
+     *
+     * @param x      The x coordinate of the square.
+     * @param y      The y coordinate of the square.
+     * @param otherX The x coordinate of the other square.
+     * @param otherY The y coordinate of the other square.
+     * @return Whether both squares are floor squares of the same room.
+     */
+    public boolean isSameRoom(int x, int y, int otherX, int otherY) {
+        int node = getNode(x, y);
+        int otherNode = getNode(otherX, otherY);
+        return (node >= 0) && (otherNode >= 0) && (find(node) == find(otherNode));
+    }
+    
+    /**
+     * Returns the doors of the room of a square.
+     *
+     * @param x The x coordinate of the square.
+     * @param y The y coordinate of the square.
+     * @return The coordinates of the door squares next to the room of the square, or an empty list if the square is not a floor square.
+     */
+    public List<int[]> getDoors(int x, int y) {
+        List<int[]> roomDoors = new ArrayList<>();
+        int node = getNode(x, y);
+        if (node < 0) {
+            return roomDoors;
+        }
+        
+        int root = find(node);
+        for (long door : doors) {
+            int doorX = MapLayout.getSquareX(door);
+            int doorY = MapLayout.getSquareY(door);
+            for (int[] neighbor : NEIGHBORS) {
+                int neighborNode = getNode((doorX + neighbor[0]), (doorY + neighbor[1]));
+                if ((neighborNode >= 0) && (find(neighborNode) == root)) {
+                    roomDoors.add(new int[] {doorX, doorY});
+                    break;
+                }
+            }
+        }
+        return roomDoors;
+    }
+    
+    /**
+     * Returns the rooms of the Map Layout.
+     *
+     * @return The rooms, numbered from 1 in order of their first squares from the top left of the map.
+     */
+    public List<Room> getRooms() {
+        Map<Integer, Room> roots = new HashMap<>();
+        for (Map.Entry<Long, int[]> entry : nodes.entrySet()) {
+            int firstX = MapLayout.getChunkX(entry.getKey()) * MapLayout.CHUNK_SIZE;
+            int firstY = MapLayout.getChunkY(entry.getKey()) * MapLayout.CHUNK_SIZE;
+            int[] chunk = entry.getValue();
+            for (int i = 0; i < MapLayout.CHUNK_AREA; i++) {
+                if (chunk[i] < 0) {
+                    continue;
+                }
+                
+                int x = firstX + (i / MapLayout.CHUNK_SIZE);
+                int y = firstY + (i % MapLayout.CHUNK_SIZE);
+                int root = find(chunk[i]);
+                Room room = roots.get(root);
+                if (room == null) {
+                    roots.put(root, new Room(x, y, areas[root]));
+                } else if ((y < room.y) || ((y == room.y) && (x < room.x))) {
+                    room.x = x;
+                    room.y = y;
+                }
+            }
+        }
+        
+        List<Room> rooms = new ArrayList<>(roots.values());
+        rooms.sort(Comparator.comparingInt((Room room) -> room.y).thenComparingInt(room -> room.x));
+        for (int i = 0; i < rooms.size(); i++) {
+            rooms.get(i).number = i + 1;
+        }
+        
+        List<Long> sortedDoors = new ArrayList<>(doors);
+        sortedDoors.sort(Comparator.comparingInt(MapLayout::getSquareY).thenComparingInt(MapLayout::getSquareX));
+        for (long door : sortedDoors) {
+            int doorX = MapLayout.getSquareX(door);
+            int doorY = MapLayout.getSquareY(door);
+            Set<Room> doorRooms = new LinkedHashSet<>();
+            for (int[] neighbor : NEIGHBORS) {
+                int neighborNode = getNode((doorX + neighbor[0]), (doorY + neighbor[1]));
+                if (neighborNode >= 0) {
+                    doorRooms.add(roots.get(find(neighborNode)));
+                }
+            }
+            for (Room room : doorRooms) {
+                room.doors.add(new int[] {doorX, doorY});
+                for (Room other : doorRooms) {
+                    if ((other != room) && !room.connections.contains(other)) {
+                        room.connections.add(other);
+                    }
+                }
+            }
+        }
+        rooms.forEach(room -> room.connections.sort(Comparator.comparingInt(Room::getNumber)));
+        return rooms;
+    }
+    
+    
+    //Functions
+    
+    /**
+     * Determines whether a Piece is part of the floor of a room.
+     *
+     * @param piece The Piece.
+     * @return Whether the Piece is part of the floor of a room.
+     */
+    public static boolean isFloor(Piece piece) {
+        return (piece != null) && (piece.name.equals("Space") || piece.name.equals("Path") ||
+                piece.name.contains("Stairs") || piece.name.startsWith("Ramp"));
+    }
+    
+    /**
+     * Determines whether a Piece is a door between rooms.
+     *
+     * @param piece The Piece.
+     * @return Whether the Piece is a door.
+     */
+    public static boolean isDoor(Piece piece) {
+        return (piece != null) && piece.name.contains("Door");
+    }
+    
+    /**
+     * Finds the group of a search during a split.
+     *
+     * @param groups The groups of the searches.
+     * @param search The index of the search.
+     * @return The index of the search at the root of the group.
+     */
+    private static int findGroup(int[] groups, int search) {
+        while (groups[search] != search) {
+            search = groups[search];
+        }
+        return search;
+    }
+    
+    /**
+     * Determines whether any search in a group still has squares to visit during a split.
+     *
+     * @param groups The groups of the searches.
+     * @param queues The squares left to visit by each search.
+     * @param group  The index of the search at the root of the group.
+     * @return Whether the group is still searching.
+     */
+    private static boolean isActive(int[] groups, ArrayDeque<Long>[] queues, int group) {
+        for (int i = 0; i < queues.length; i++) {
+            if ((findGroup(groups, i) == group) && !queues[i].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    
+    //Inner Classes
+    
+    /**
+     * Defines a room of a Room Map.
+     */
+    public static class Room {
+        
+        //Fields
+        
+        /**
+         * The number of the Room.
+         */
+        private int number = 0;
+        
+        /**
+         * The x coordinate of the first square of the Room from the top left of the map.
+         */
+        private int x;
+        
+        /**
+         * The y coordinate of the first square of the Room from the top left of the map.
+         */
+        private int y;
+        
+        /**
+         * The number of floor squares in the Room.
+         */
+        private final int area;
+        
+        /**
+         * The coordinates of the door squares next to the Room.
+         */
+        private final List<int[]> doors = new ArrayList<>();
+        
+        /**
+         * The Rooms that share a door with the Room.
+         */
+        private final List<Room> connections = new ArrayList<>();
+        
+        
+        //Constructors
+        
+        /**
+         * The constructor for a Room.
+         *
+         * @param x    The x coordinate of a square of the Room.
+         * @param y    The y coordinate of a square of the Room.
+         * @param area The number of floor squares in the Room.
+         */
+        private Room(int x, int y, int area) {
+            this.x = x;
+            this.y = y;
+            this.area = area;
+        }
+        
+        
+        //Getters
+        
+        /**
+         * Returns the number of the Room.
+         *
+         * @return The number of the Room.
+         */
+        public int getNumber() {
+            return number;
+        }
+        
+        /**
+         * Returns the x coordinate of the first square of the Room from the top left of the map.
+         *
+         * @return The x coordinate of the first square of the Room.
+         */
+        public int getX() {
+            return x;
+        }
+        
+        /**
+         * Returns the y coordinate of the first square of the Room from the top left of the map.
+         *
+         * @return The y coordinate of the first square of the Room.
+         */
+        public int getY() {
+            return y;
+        }
+        
+        /**
+         * Returns the number of floor squares in the Room.
+         *
+         * @return The area of the Room.
+         */
+        public int getArea() {
+            return area;
+        }
+        
+        /**
+         * Returns the coordinates of the door squares next to the Room.
+         *
+         * @return The doors of the Room.
+         */
+        public List<int[]> getDoors() {
+            return doors;
+        }
+        
+        /**
+         * Returns the Rooms that share a door with the Room.
+         *
+         * @return The connected Rooms.
+         */
+        public List<Room> getConnections() {
+            return connections;
+        }
+        
+    }
+    
+}